@@ -54,6 +54,13 @@ public final class MipsCompiler {
     }
   }
 
+  /**
+   * @return immutable copy of the last compiled program that processors can fork from
+   */
+  public ProgramImage freeze() {
+    return ProgramImage.freeze(assembler);
+  }
+
   public List<Integer> getInstructions() {
     int dataOffset = assembler.getDataOffset();
     int textOffset = assembler.getTextOffset();
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.compiler;
+
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable result of a compilation: the text and data bytes, symbol table and segment offsets.
+ * Each run {@link #fork()}s private memory that shares the image's pages until it writes to them,
+ * so many processors can run one image while memory grows with their dirty pages only.
+ */
+public final class ProgramImage {
+  private final PagedMemory.Snapshot memory;
+
+  private final Map<String, Integer> symbolTable;
+
+  private final int textOffset;
+
+  private final int dataOffset;
+
+  private final int stackPointer;
+
+  private final int textBoundary;
+
+  private final int sourceOffset;
+
+  private ProgramImage(
+      PagedMemory.Snapshot memory,
+      Map<String, Integer> symbolTable,
+      int textOffset,
+      int dataOffset,
+      int stackPointer,
+      int textBoundary,
+      int sourceOffset) {
+    this.memory = memory;
+    this.symbolTable = symbolTable;
+    this.textOffset = textOffset;
+    this.dataOffset = dataOffset;
+    this.stackPointer = stackPointer;
+    this.textBoundary = textBoundary;
+    this.sourceOffset = sourceOffset;
+  }
+
+  /**
+   * Copies the program the assembler last produced; later compilations do not affect the image
+   *
+   * @param assembler assembler that has just compiled a program
+   * @return frozen copy of the program
+   */
+  public static ProgramImage freeze(Assembler assembler) {
+    return new ProgramImage(
+        PagedMemory.copyOf(assembler.getLayout()).snapshot(),
+        Collections.unmodifiableMap(new HashMap<>(assembler.getSymbolTable())),
+        assembler.getTextOffset(),
+        assembler.getDataOffset(),
+        assembler.getStackPointer(),
+        assembler.getTextBoundary(),
+        assembler.getSourceOffset());
+  }
+
+  /**
+   * @return writable memory holding the program, private to the caller
+   */
+  public PagedMemory fork() {
+    return new PagedMemory(memory);
+  }
+
+  public Map<String, Integer> getSymbolTable() {
+    return symbolTable;
+  }
+
+  public int getTextOffset() {
+    return textOffset;
+  }
+
+  public int getDataOffset() {
+    return dataOffset;
+  }
+
+  public int getStackPointer() {
+    return stackPointer;
+  }
+
+  public int getTextBoundary() {
+    return textBoundary;
+  }
+
+  public int getSourceOffset() {
+    return sourceOffset;
+  }
+
+  /**
+   * @param address address of a text instruction
+   * @return source line the instruction was assembled from, see {@link Assembler#lineOf(int, int,
+   *     int)}
+   */
+  public int getLine(int address) {
+    return Assembler.lineOf(address, textOffset, sourceOffset);
+  }
+}
@@ -34,8 +34,8 @@ import com.cleverchuk.mips.compiler.parser.NodeType;
 import com.cleverchuk.mips.compiler.parser.NodeVisitor;
 import com.cleverchuk.mips.simulator.binary.InstructionIR;
 import com.cleverchuk.mips.simulator.binary.Opcode;
-import com.cleverchuk.mips.simulator.mem.BigEndianMainMemory;
 import com.cleverchuk.mips.simulator.mem.Memory;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -60,7 +60,7 @@ public class Assembler implements NodeVisitor {
 
   private int textBoundary = 0;
 
-  private final Memory layout = new BigEndianMainMemory(1024);
+  private final Memory layout = new PagedMemory(1024);
 
   private final Map<String, Integer> symbolTable = new HashMap<>();
 
@@ -119,10 +119,10 @@ public class Assembler implements NodeVisitor {
 
     } else {
       if ((cLayout & 1 /*instruction*/) > 0) {
-        symbolTable.put(label, textOffset + (leftLeaf.getLine() - sourceOffset - 1) * 4);
+        symbolTable.put(label, getAddress(leftLeaf.getLine()));
         if (laSeen) {
           // LA produces additional instruction
-          symbolTable.put(label, textOffset + (leftLeaf.getLine() - sourceOffset) * 4);
+          symbolTable.put(label, getAddress(leftLeaf.getLine() + 1));
         }
       }
 
@@ -1026,6 +1026,46 @@ public class Assembler implements NodeVisitor {
     return textBoundary;
   }
 
+  /**
+   * @param address address of a text instruction
+   * @return source line the instruction was assembled from
+   */
+  public int getLine(int address) {
+    return lineOf(address, textOffset, sourceOffset);
+  }
+
+  /**
+   * @param line source line of a text instruction
+   * @return address the instruction was assembled to
+   */
+  public int getAddress(int line) {
+    return addressOf(line, textOffset, sourceOffset);
+  }
+
+  /**
+   * Maps an instruction address to its source line; text instructions are laid out one word per
+   * line starting on the line after the .text directive. Everything that reports source lines goes
+   * through this mapping or {@link #addressOf(int, int, int)}, its inverse.
+   *
+   * @param address address of a text instruction
+   * @param textOffset address of the first text instruction
+   * @param sourceOffset line of the .text directive
+   * @return source line the instruction was assembled from
+   */
+  public static int lineOf(int address, int textOffset, int sourceOffset) {
+    return sourceOffset + 1 + ((address - textOffset) >> 2);
+  }
+
+  /**
+   * @param line source line of a text instruction
+   * @param textOffset address of the first text instruction
+   * @param sourceOffset line of the .text directive
+   * @return address the instruction was assembled to
+   */
+  public static int addressOf(int line, int textOffset, int sourceOffset) {
+    return textOffset + (line - sourceOffset - 1) * 4;
+  }
+
   public Map<String, Integer> getSymbolTable() {
     return Collections.unmodifiableMap(symbolTable);
   }
@@ -28,27 +28,35 @@ import androidx.annotation.NonNull;
 import java.util.ArrayList;
 import java.util.Locale;
 
+/** Errors of the compilation running on the current thread. */
 public class ErrorRecorder {
-  private static final ArrayList<Error> ERRORS = new ArrayList<>();
+  // per thread so that programs can be compiled concurrently
+  private static final ThreadLocal<ArrayList<Error>> ERRORS =
+      new ThreadLocal<ArrayList<Error>>() {
+        @Override
+        protected ArrayList<Error> initialValue() {
+          return new ArrayList<>();
+        }
+      };
 
   public static void recordError(Error error) {
-    ERRORS.add(error);
+    ERRORS.get().add(error);
   }
 
   public static String printErrors() {
     StringBuilder builder = new StringBuilder("Errors:\n");
-    for (Error error : ERRORS) {
+    for (Error error : ERRORS.get()) {
       builder.append(error).append("\n");
     }
     return builder.toString();
   }
 
   public static void clear() {
-    ERRORS.clear();
+    ERRORS.get().clear();
   }
 
   public static boolean hasErrors() {
-    return !ERRORS.isEmpty();
+    return !ERRORS.get().isEmpty();
   }
 
   public static class Error {
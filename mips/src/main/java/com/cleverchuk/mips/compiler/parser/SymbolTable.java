@@ -28,22 +28,30 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
+/** Symbols of the parse running on the current thread. */
 public final class SymbolTable {
-  private static final Map<Object, Integer> table = new HashMap<>();
+  // per thread so that programs can be parsed concurrently
+  private static final ThreadLocal<Map<Object, Integer>> table =
+      new ThreadLocal<Map<Object, Integer>>() {
+        @Override
+        protected Map<Object, Integer> initialValue() {
+          return new HashMap<>();
+        }
+      };
 
   public static void insert(Object id, int index) {
-    table.put(id, index);
+    table.get().put(id, index);
   }
 
   public static int lookup(Object id) {
-    return Objects.requireNonNull(table.getOrDefault(id, -1));
+    return Objects.requireNonNull(table.get().getOrDefault(id, -1));
   }
 
   public static void clear() {
-    table.clear();
+    table.get().clear();
   }
 
   public static Map<Object, Integer> getTable() {
-    return new HashMap<>(table);
+    return new HashMap<>(table.get());
   }
 }
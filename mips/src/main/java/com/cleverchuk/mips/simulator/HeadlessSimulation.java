@@ -0,0 +1,236 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator;
+
+import com.cleverchuk.mips.compiler.MipsCompiler;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.ErrorRecorder;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.compiler.parser.SyntaxError;
+import com.cleverchuk.mips.simulator.binary.CentralProcessor;
+import com.cleverchuk.mips.simulator.binary.StopReason;
+import com.cleverchuk.mips.simulator.mem.Memory;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs one {@link SimulationJob} to completion on the calling thread. It shares the syscall
+ * services of {@link MipsSimulator} through a {@link SyscallDispatcher}, except that input is taken
+ * from the job's stdin and output is collected instead of posted to a handler.
+ */
+final class HeadlessSimulation implements Callable<SimulationResult>, SyscallDispatcher.Console {
+  /** Instructions run between checks of the job's limits */
+  private static final int SLICE = 10_000;
+
+  private final SimulationJob job;
+
+  private final StringBuilder stdout = new StringBuilder();
+
+  private CentralProcessor cpu;
+
+  private SyscallDispatcher syscalls;
+
+  private int cursor; // next unread character of stdin
+
+  private boolean exhausted; // a read service found stdin empty
+
+  HeadlessSimulation(SimulationJob job) {
+    this.job = job;
+  }
+
+  @Override
+  public SimulationResult call() {
+    long start = System.nanoTime();
+    ProgramImage image = job.getImage();
+    if (image == null) {
+      MipsCompiler compiler =
+          new MipsCompiler(
+              new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+      try {
+        compiler.compile(job.getSource());
+        image = compiler.freeze();
+      } catch (SyntaxError syntaxError) {
+        return result(SimulationResult.Exit.COMPILE_ERROR, syntaxError.getMessage(), start);
+
+      } catch (Exception e) {
+        return result(SimulationResult.Exit.COMPILE_ERROR, String.valueOf(e), start);
+
+      } finally {
+        ErrorRecorder.clear();
+      }
+    }
+
+    Memory memory = image.fork();
+    cpu =
+        new CentralProcessor(
+            memory,
+            image.getTextOffset(),
+            image.getStackPointer(),
+            job.getProcessorFlags(),
+            job.getExecutionMode());
+    cpu.setTextBoundary(image.getTextBoundary());
+    // one character past the limit is enough to tell that the output overflowed
+    syscalls = new SyscallDispatcher(cpu, memory, this, job.getOutputLimit() + 1);
+
+    long deadline = start + job.getTimeLimitMillis() * 1_000_000;
+    while (true) {
+      long remaining = job.getInstructionLimit() - cpu.getInstructionCount();
+      if (remaining <= 0) {
+        return result(SimulationResult.Exit.INSTRUCTION_LIMIT, null, start);
+      }
+      if (job.getTimeLimitMillis() > 0 && System.nanoTime() - deadline > 0) {
+        return result(SimulationResult.Exit.TIME_LIMIT, null, start);
+      }
+
+      StopReason reason = cpu.run(Math.min(remaining, SLICE));
+      switch (reason) {
+        case BUDGET_EXHAUSTED:
+        case BREAKPOINT:
+          break;
+
+        case HALT:
+          return result(SimulationResult.Exit.HALTED, null, start);
+
+        case BOUNDARY:
+          return result(SimulationResult.Exit.END_OF_PROGRAM, null, start);
+
+        case TRAP:
+          return result(SimulationResult.Exit.TRAP, String.valueOf(cpu.getTrap()), start);
+
+        case SYSCALL:
+          try {
+            SimulationResult.Exit exit = handle(cpu.getSyscallCode());
+            if (exit != null) {
+              return result(exit, null, start);
+            }
+          } catch (Exception e) {
+            return result(SimulationResult.Exit.TRAP, String.valueOf(e), start);
+          }
+          break;
+      }
+    }
+  }
+
+  /**
+   * @return exit that ends the job, or null to keep running
+   */
+  private SimulationResult.Exit handle(int code) throws Exception {
+    syscalls.dispatch(code);
+    if (exhausted) {
+      return SimulationResult.Exit.INPUT_EXHAUSTED;
+    }
+    return stdout.length() > job.getOutputLimit() ? SimulationResult.Exit.OUTPUT_LIMIT : null;
+  }
+
+  @Override
+  public void print(SystemService service, Object value) {
+    stdout.append(value);
+  }
+
+  @Override
+  public void request(SystemService service) {
+    if (service == SystemService.READ_CHAR) {
+      if (cursor < job.getStdin().length()) {
+        syscalls.supplyInt(job.getStdin().charAt(cursor++));
+      } else {
+        exhausted = true;
+      }
+      return;
+    }
+
+    String token = service == SystemService.READ_STRING ? nextLine() : nextToken();
+    if (token == null) {
+      exhausted = true;
+      return;
+    }
+    switch (service) {
+      case READ_INT:
+        syscalls.supplyInt(Integer.parseInt(token));
+        break;
+
+      case READ_FLOAT:
+        syscalls.supplyFloat(Float.parseFloat(token));
+        break;
+
+      case READ_DOUBLE:
+        syscalls.supplyDouble(Double.parseDouble(token));
+        break;
+
+      default:
+        syscalls.supplyString(token);
+        break;
+    }
+  }
+
+  @Override
+  public void halt() {
+    // reported through StopReason.HALT, the service is never dispatched
+  }
+
+  private String nextToken() {
+    String stdin = job.getStdin();
+    while (cursor < stdin.length() && Character.isWhitespace(stdin.charAt(cursor))) {
+      cursor++;
+    }
+    if (cursor >= stdin.length()) {
+      return null;
+    }
+
+    int begin = cursor;
+    while (cursor < stdin.length() && !Character.isWhitespace(stdin.charAt(cursor))) {
+      cursor++;
+    }
+    return stdin.substring(begin, cursor);
+  }
+
+  private String nextLine() {
+    String stdin = job.getStdin();
+    if (cursor >= stdin.length()) {
+      return null;
+    }
+
+    int end = stdin.indexOf('\n', cursor);
+    if (end < 0) {
+      end = stdin.length();
+    }
+    String line = stdin.substring(cursor, end);
+    cursor = Math.min(end + 1, stdin.length());
+    return line;
+  }
+
+  private SimulationResult result(SimulationResult.Exit exit, String error, long start) {
+    String output =
+        stdout.length() > job.getOutputLimit()
+            ? stdout.substring(0, job.getOutputLimit())
+            : stdout.toString();
+    return new SimulationResult(
+        output,
+        exit,
+        error,
+        cpu == null ? 0 : cpu.getInstructionCount(),
+        System.nanoTime() - start);
+  }
+}
@@ -26,15 +26,8 @@ package com.cleverchuk.mips.simulator;
 
 import static com.cleverchuk.mips.simulator.SystemService.DEBUG;
 import static com.cleverchuk.mips.simulator.SystemService.HALT;
-import static com.cleverchuk.mips.simulator.SystemService.PRINT_CHAR;
-import static com.cleverchuk.mips.simulator.SystemService.PRINT_DOUBLE;
-import static com.cleverchuk.mips.simulator.SystemService.PRINT_FLOAT;
-import static com.cleverchuk.mips.simulator.SystemService.PRINT_INT;
 import static com.cleverchuk.mips.simulator.SystemService.PRINT_STRING;
-import static com.cleverchuk.mips.simulator.SystemService.READ_CHAR;
-import static com.cleverchuk.mips.simulator.SystemService.READ_DOUBLE;
-import static com.cleverchuk.mips.simulator.SystemService.READ_FLOAT;
-import static com.cleverchuk.mips.simulator.SystemService.READ_INT;
+import static com.cleverchuk.mips.simulator.SystemService.READ_STRING;
 
 import android.os.Handler;
 import android.util.SparseIntArray;
@@ -46,8 +39,11 @@ import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
 import com.cleverchuk.mips.compiler.parser.SyntaxError;
 import com.cleverchuk.mips.dev.TerminalInputListener;
 import com.cleverchuk.mips.simulator.binary.CentralProcessor;
-import com.cleverchuk.mips.simulator.binary.SyscallException;
-import com.cleverchuk.mips.simulator.mem.Memory;
+import com.cleverchuk.mips.simulator.binary.ExecutionMode;
+import com.cleverchuk.mips.simulator.binary.StopReason;
+import com.cleverchuk.mips.simulator.binary.UndoLog;
+import com.cleverchuk.mips.simulator.binary.Watchpoints;
+import java.util.Arrays;
 import java.util.Locale;
 
 public class MipsSimulator extends Thread implements TerminalInputListener, InterruptHandler {
@@ -63,8 +59,13 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
     PAUSED
   }
 
+  /** Instructions run between checks of the simulator state while running */
+  private static final int SLICE = 10_000;
+
   private SparseIntArray breakpoints;
 
+  private int[] mirroredLines = new int[0]; // enabled breakpoint lines set on the processor
+
   private int textSegmentOffset; // demarcate text section from data section
 
   private int instructionBoundary = 0;
@@ -81,7 +82,19 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
 
   private final Assembler assembler;
 
+  private final SyscallDispatcher syscalls;
+
+  private final Watchpoints watchpoints;
+
+  private UndoLog undoLog; // null unless reverse debugging is on
+
+  private final Object sliceLock = new Object(); // held while a slice runs
+
   public MipsSimulator(Handler ioHandler, byte processorFlags) {
+    this(ioHandler, processorFlags, ExecutionMode.INTERPRETED);
+  }
+
+  public MipsSimulator(Handler ioHandler, byte processorFlags, ExecutionMode executionMode) {
     super("MipsSimulatorThread");
     assembler = new Assembler();
     compiler =
@@ -92,8 +105,12 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
             assembler.getLayout(),
             assembler.getTextOffset(),
             assembler.getStackPointer(),
-            processorFlags);
+            processorFlags,
+            executionMode);
     this.ioHandler = ioHandler;
+    syscalls =
+        new SyscallDispatcher(cpu, assembler.getLayout(), new HandlerConsole(), Integer.MAX_VALUE);
+    watchpoints = new Watchpoints(cpu);
   }
 
   public int getPC() {
@@ -104,6 +121,14 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
     return cpu;
   }
 
+  /**
+   * @return data watchpoints of the program; change them only while it is stopped. A hit stops the
+   *     program like a breakpoint does.
+   */
+  public Watchpoints getWatchpoints() {
+    return watchpoints;
+  }
+
   public void stepping() {
     if (currentState == State.STEPPING || currentState == State.ERROR) {
       return;
@@ -122,6 +147,76 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
     currentState = State.RUNNING;
   }
 
+  /**
+   * Turns recording for {@link #stepBack(long)} and {@link #reverseContinue()} on or off. Recording
+   * starts from the current state and is dropped whenever a program is loaded.
+   */
+  public void setReverseDebugging(boolean enabled) {
+    if (enabled == (undoLog != null)) {
+      return;
+    }
+
+    if (enabled) {
+      undoLog = new UndoLog(cpu);
+    } else {
+      undoLog.detach();
+      undoLog = null;
+    }
+  }
+
+  public boolean canStepBack() {
+    return undoLog != null && undoLog.getDepth() > 0 && !isExecuting();
+  }
+
+  /**
+   * Undoes up to count instructions while the program is stopped
+   *
+   * @param count number of instructions to undo
+   * @return number of instructions undone
+   */
+  public long stepBack(long count) {
+    synchronized (sliceLock) {
+      if (!canStepBack()) {
+        return 0;
+      }
+
+      long undone = undoLog.stepBack(count);
+      stoppedAfterReverse();
+      return undone;
+    }
+  }
+
+  /**
+   * Steps back to the last breakpoint hit while the program is stopped
+   *
+   * @return true if the program stopped at a breakpoint, false if it reached the oldest record
+   */
+  public boolean reverseContinue() {
+    synchronized (sliceLock) {
+      if (!canStepBack()) {
+        return false;
+      }
+
+      syncBreakpoints(false);
+      boolean hit = undoLog.reverseContinue();
+      stoppedAfterReverse();
+      return hit;
+    }
+  }
+
+  private boolean isExecuting() {
+    return currentState == State.RUNNING || currentState == State.STEPPING;
+  }
+
+  private void stoppedAfterReverse() {
+    if (currentState == State.HALTED) {
+      // the undone instructions can run again
+      previousState = State.STEPPING;
+      currentState = State.WAITING;
+    }
+    ioHandler.obtainMessage(DEBUG.code).sendToTarget();
+  }
+
   public boolean isRunning() {
     return currentState == State.RUNNING;
   }
@@ -131,8 +226,10 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
   }
 
   public void shutDown() {
-    previousState = currentState;
-    currentState = State.STOP;
+    synchronized (sliceLock) { // a finishing slice would overwrite the state otherwise
+      previousState = currentState;
+      currentState = State.STOP;
+    }
   }
 
   public SparseIntArray getBreakpoints() {
@@ -161,32 +258,32 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
     currentState = State.IDLE;
   }
 
-  private void step() {
+  private void step(long budget) {
     if (currentState == State.STEPPING || currentState == State.RUNNING) {
-      try {
-        cpu.execute();
-      } catch (SyscallException syscallException) {
-        try {
-          handle(syscallException.getCode());
-        } catch (Exception e) {
-          previousState = currentState;
-          currentState = State.HALTED;
+      StopReason reason = cpu.run(budget);
+      switch (reason) {
+        case SYSCALL:
+        case HALT:
+          try {
+            handle(cpu.getSyscallCode());
+          } catch (Exception e) {
+            halt(e);
+          }
+          break;
 
-          int line = assembler.getSourceOffset() + (cpu.getPc() - 4) / 4;
-          String error =
-              String.format(Locale.getDefault(), "[line : %d]\nERROR!!\n%s", line, e.getMessage());
-          ioHandler.obtainMessage(PRINT_STRING.code, error).sendToTarget();
-          ioHandler.obtainMessage(HALT.code).sendToTarget();
-        }
-      } catch (Exception e) {
-        previousState = currentState;
-        currentState = State.HALTED;
+        case TRAP:
+          halt(cpu.getTrap());
+          break;
 
-        int line = assembler.getSourceOffset() + (cpu.getPc() - 4) / 4;
-        String error =
-            String.format(Locale.getDefault(), "[line : %d]\nERROR!!\n%s", line, e.getMessage());
-        ioHandler.obtainMessage(PRINT_STRING.code, error).sendToTarget();
-        ioHandler.obtainMessage(HALT.code).sendToTarget();
+        case WATCHPOINT:
+        case BREAKPOINT:
+          previousState = currentState;
+          currentState = State.WAITING;
+          ioHandler.obtainMessage(DEBUG.code).sendToTarget();
+          break;
+
+        default:
+          break;
       }
 
       if (cpu.getPc() >= instructionBoundary) {
@@ -197,25 +294,82 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
     }
   }
 
+  private void halt(Exception e) {
+    previousState = currentState;
+    currentState = State.HALTED;
+
+    int line = assembler.getLine(cpu.getPc() - 4);
+    String error =
+        String.format(Locale.getDefault(), "[line : %d]\nERROR!!\n%s", line, e.getMessage());
+    ioHandler.obtainMessage(PRINT_STRING.code, error).sendToTarget();
+    ioHandler.obtainMessage(HALT.code).sendToTarget();
+  }
+
+  /**
+   * Mirrors the line breakpoints onto the processor, which stops at them within a slice. The editor
+   * changes the lines in place, so they are compared with the mirrored ones and the processor is
+   * only updated when they differ; updating it drops its translated blocks.
+   *
+   * @param force update the processor even if the lines look unchanged, e.g. after a compile
+   */
+  private void syncBreakpoints(boolean force) {
+    if (!force && !breakpointsChanged()) {
+      return;
+    }
+
+    cpu.clearBreakpoints();
+    int count = 0;
+    int[] lines = new int[breakpoints == null ? 0 : breakpoints.size()];
+    for (int i = 0; i < lines.length; i++) {
+      if (breakpoints.valueAt(i) > 0) {
+        lines[count++] = breakpoints.keyAt(i);
+        int address = assembler.getAddress(breakpoints.keyAt(i));
+        if (address >= assembler.getTextOffset() && address < instructionBoundary) {
+          cpu.setBreakpoint(address);
+        }
+      }
+    }
+    mirroredLines = Arrays.copyOf(lines, count);
+  }
+
+  private boolean breakpointsChanged() {
+    int count = 0;
+    int size = breakpoints == null ? 0 : breakpoints.size();
+    for (int i = 0; i < size; i++) {
+      if (breakpoints.valueAt(i) > 0) {
+        if (count == mirroredLines.length || mirroredLines[count] != breakpoints.keyAt(i)) {
+          return true;
+        }
+        count++;
+      }
+    }
+    return count != mirroredLines.length;
+  }
+
   @Override
   public void run() {
     for (; ; ) {
 
-      if (currentState == State.RUNNING
-          && breakpoints != null
-          && breakpoints.get(getLineNumberToExecute()) > 0) {
-        previousState = currentState;
-        currentState = State.WAITING;
-        ioHandler.obtainMessage(DEBUG.code).sendToTarget();
+      if (currentState == State.RUNNING) {
+        syncBreakpoints(false);
+        if (cpu.hasBreakpoint(cpu.getPc())) {
+          previousState = currentState;
+          currentState = State.WAITING;
+          ioHandler.obtainMessage(DEBUG.code).sendToTarget();
+        }
       }
 
       if (currentState == State.RUNNING) {
-        step();
+        synchronized (sliceLock) {
+          step(SLICE);
+        }
 
       } else if (currentState == State.STEPPING) {
-        step();
-        previousState = currentState;
-        currentState = State.WAITING;
+        synchronized (sliceLock) {
+          step(1);
+          previousState = currentState;
+          currentState = State.WAITING;
+        }
 
         ioHandler.obtainMessage(DEBUG.code).sendToTarget();
 
@@ -227,8 +381,14 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
 
   private void init(String raw) throws Exception {
     compiler.compile(raw);
+    cpu.flushDecodeCache();
     cpu.setPc(assembler.getTextOffset());
     instructionBoundary = assembler.getTextBoundary();
+    cpu.setTextBoundary(instructionBoundary);
+    syncBreakpoints(true);
+    if (undoLog != null) {
+      undoLog.clear(); // the compile rewrote memory; nothing before it can be undone
+    }
 
     if (!isPaused() && !ErrorRecorder.hasErrors()) {
       textSegmentOffset = compiler.textSegmentOffset();
@@ -268,7 +428,7 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
 
   public int getLineNumberToExecute() {
     if (cpu.getPc() < instructionBoundary) {
-      return assembler.getSourceOffset() + cpu.getPc() / 4;
+      return assembler.getLine(cpu.getPc());
     }
     return 0;
   }
@@ -322,75 +482,7 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
 
   @Override
   public void handle(int code) throws Exception {
-    SystemService systemService = SystemService.parse(code);
-    switch (systemService) {
-      case PRINT_INT:
-        ioHandler
-            .obtainMessage(PRINT_INT.code, cpu.getGprFileArray().getFile(4).readWord())
-            .sendToTarget();
-        break;
-
-      case PRINT_STRING:
-        {
-          int arg = cpu.getGprFileArray().getFile(4).readWord(), c;
-          StringBuilder builder = new StringBuilder();
-          Memory layout = assembler.getLayout();
-
-          while ((c = layout.read(arg++)) != 0) {
-            builder.append((char) c);
-          }
-          ioHandler.obtainMessage(PRINT_STRING.code, builder.toString()).sendToTarget();
-          break;
-        }
-
-      case PRINT_CHAR:
-        int arg = cpu.getGprFileArray().getFile(4).readWord();
-        ioHandler.obtainMessage(PRINT_CHAR.code, (char) (arg)).sendToTarget();
-        break;
-
-      case PRINT_FLOAT:
-        float single = cpu.getFpuRegisterFileArray().getFile(12).readSingle();
-        ioHandler.obtainMessage(PRINT_FLOAT.code, single).sendToTarget();
-        break;
-
-      case PRINT_DOUBLE:
-        double doubl = cpu.getFpuRegisterFileArray().getFile(12).readDouble();
-        ioHandler.obtainMessage(PRINT_DOUBLE.code, doubl).sendToTarget();
-        break;
-
-      case HALT:
-        previousState = currentState;
-        currentState = State.HALTED;
-        ioHandler.obtainMessage(HALT.code).sendToTarget();
-        break;
-
-      case READ_INT: // Read int
-        previousState = currentState;
-        currentState = State.WAITING;
-        ioHandler.obtainMessage(READ_INT.code).sendToTarget();
-        break;
-
-      case READ_CHAR: // Read Char
-        previousState = currentState;
-        currentState = State.WAITING;
-        ioHandler.obtainMessage(READ_CHAR.code).sendToTarget();
-        break;
-
-      case READ_FLOAT: // Read float
-        previousState = currentState;
-        currentState = State.WAITING;
-        ioHandler.obtainMessage(READ_FLOAT.code).sendToTarget();
-        break;
-
-      case READ_DOUBLE: // Read double
-        previousState = currentState;
-        currentState = State.WAITING;
-        ioHandler.obtainMessage(READ_DOUBLE.code).sendToTarget();
-        break;
-
-      default:
-        throw new Exception(String.format(Locale.getDefault(), "Service %d not supported!", code));
-    }
+    syscalls.dispatch(code);
   }
 
   private void transitionStateOnInput() {
@@ -411,7 +503,7 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
 
   @Override
   public void onIntInput(int data) {
-    cpu.getGprFileArray().getFile(2).writeWord(data);
+    syscalls.supplyInt(data);
     transitionStateOnInput();
   }
 
@@ -422,25 +514,45 @@ public class MipsSimulator extends Thread implements TerminalInputListener, Inte
 
   @Override
   public void onFloatInput(float data) {
-    cpu.getFpuRegisterFileArray().getFile(0).writeSingle(data);
+    syscalls.supplyFloat(data);
     transitionStateOnInput();
   }
 
   @Override
   public void onDoubleInput(double data) {
-    cpu.getFpuRegisterFileArray().getFile(0).writeDouble(data);
+    syscalls.supplyDouble(data);
     transitionStateOnInput();
   }
 
   @Override
   public void onStringInput(String data) {
-    int address = cpu.getGprFileArray().getFile(4).readWord();
-    int length = cpu.getGprFileArray().getFile(5).readWord();
+    syscalls.supplyString(data);
+    transitionStateOnInput();
+  }
 
-    Memory memory = assembler.getLayout();
-    for (int offset = 0; offset < length; offset++) {
-      memory.store((byte) data.charAt(offset), address + offset);
+  /** Posts output and input requests to the handler; the terminal answers through the listener */
+  private final class HandlerConsole implements SyscallDispatcher.Console {
+    @Override
+    public void print(SystemService service, Object value) {
+      ioHandler.obtainMessage(service.code, value).sendToTarget();
+    }
+
+    @Override
+    public void request(SystemService service) throws Exception {
+      if (service == READ_STRING) { // the terminal has no string prompt
+        throw new Exception(
+            String.format(Locale.getDefault(), "Service %d not supported!", service.code));
+      }
+      previousState = currentState;
+      currentState = State.WAITING;
+      ioHandler.obtainMessage(service.code).sendToTarget();
+    }
+
+    @Override
+    public void halt() {
+      previousState = currentState;
+      currentState = State.HALTED;
+      ioHandler.obtainMessage(HALT.code).sendToTarget();
     }
-    transitionStateOnInput();
   }
 }
@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator;
+
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.simulator.binary.ExecutionMode;
+
+/**
+ * A program to run headless on a {@link SimulationPool}, with its input and limits. The program is
+ * either source to compile or a {@link ProgramImage} compiled once and shared by many jobs.
+ */
+public final class SimulationJob {
+  private final String source;
+
+  private final ProgramImage image;
+
+  private final String stdin;
+
+  private final long instructionLimit;
+
+  private final int outputLimit;
+
+  private final long timeLimitMillis;
+
+  private final byte processorFlags;
+
+  private final ExecutionMode executionMode;
+
+  public SimulationJob(
+      String source,
+      ProgramImage image,
+      String stdin,
+      long instructionLimit,
+      int outputLimit,
+      long timeLimitMillis,
+      byte processorFlags,
+      ExecutionMode executionMode) {
+    this.source = source;
+    this.image = image;
+    this.stdin = stdin;
+    this.instructionLimit = instructionLimit;
+    this.outputLimit = outputLimit;
+    this.timeLimitMillis = timeLimitMillis;
+    this.processorFlags = processorFlags;
+    this.executionMode = executionMode;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  /**
+   * @return precompiled program, or null if {@link #getSource()} must be compiled
+   */
+  public ProgramImage getImage() {
+    return image;
+  }
+
+  public String getStdin() {
+    return stdin;
+  }
+
+  public long getInstructionLimit() {
+    return instructionLimit;
+  }
+
+  public int getOutputLimit() {
+    return outputLimit;
+  }
+
+  public long getTimeLimitMillis() {
+    return timeLimitMillis;
+  }
+
+  public byte getProcessorFlags() {
+    return processorFlags;
+  }
+
+  public ExecutionMode getExecutionMode() {
+    return executionMode;
+  }
+
+  public static SimulationJobBuilder builder() {
+    return new SimulationJobBuilder();
+  }
+
+  public static class SimulationJobBuilder {
+    private String source = "";
+
+    private ProgramImage image;
+
+    private String stdin = "";
+
+    private long instructionLimit = 10_000_000;
+
+    private int outputLimit = 1 << 20;
+
+    private long timeLimitMillis; // 0 means no wall clock limit
+
+    private byte processorFlags = 0x2;
+
+    private ExecutionMode executionMode = ExecutionMode.TIERED;
+
+    public SimulationJobBuilder source(String source) {
+      this.source = source;
+      return this;
+    }
+
+    public SimulationJobBuilder image(ProgramImage image) {
+      this.image = image;
+      return this;
+    }
+
+    public SimulationJobBuilder stdin(String stdin) {
+      this.stdin = stdin;
+      return this;
+    }
+
+    public SimulationJobBuilder instructionLimit(long instructionLimit) {
+      this.instructionLimit = instructionLimit;
+      return this;
+    }
+
+    public SimulationJobBuilder outputLimit(int outputLimit) {
+      this.outputLimit = outputLimit;
+      return this;
+    }
+
+    public SimulationJobBuilder timeLimitMillis(long timeLimitMillis) {
+      this.timeLimitMillis = timeLimitMillis;
+      return this;
+    }
+
+    public SimulationJobBuilder processorFlags(byte processorFlags) {
+      this.processorFlags = processorFlags;
+      return this;
+    }
+
+    public SimulationJobBuilder executionMode(ExecutionMode executionMode) {
+      this.executionMode = executionMode;
+      return this;
+    }
+
+    public SimulationJob build() {
+      return new SimulationJob(
+          source,
+          image,
+          stdin,
+          instructionLimit,
+          outputLimit,
+          timeLimitMillis,
+          processorFlags,
+          executionMode);
+    }
+  }
+}
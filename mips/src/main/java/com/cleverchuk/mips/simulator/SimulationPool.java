@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent {@link SimulationJob}s concurrently. Each job gets its own assembler, memory and
+ * processor, and the compiler keeps its errors and symbols per thread, so workers share nothing
+ * mutable and throughput scales with the number of workers.
+ */
+public final class SimulationPool implements AutoCloseable {
+  private final ExecutorService executor;
+
+  public SimulationPool(int workers) {
+    this(Executors.newFixedThreadPool(workers));
+  }
+
+  /**
+   * @param executor runs the jobs; the pool shuts it down on {@link #close()}
+   */
+  public SimulationPool(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  public Future<SimulationResult> submit(SimulationJob job) {
+    return executor.submit(new HeadlessSimulation(job));
+  }
+
+  /**
+   * Runs every job and waits for all of them.
+   *
+   * @return results in the order of {@code jobs}
+   */
+  public List<SimulationResult> runAll(Collection<SimulationJob> jobs) throws InterruptedException {
+    List<HeadlessSimulation> tasks = new ArrayList<>(jobs.size());
+    for (SimulationJob job : jobs) {
+      tasks.add(new HeadlessSimulation(job));
+    }
+
+    List<SimulationResult> results = new ArrayList<>(jobs.size());
+    for (Future<SimulationResult> future : executor.invokeAll(tasks)) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        // HeadlessSimulation reports failures in its result; anything else is a bug
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+    return results;
+  }
+
+  /** Stops accepting jobs; jobs already submitted still run. */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
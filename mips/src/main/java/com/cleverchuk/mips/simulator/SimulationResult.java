@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator;
+
+import androidx.annotation.NonNull;
+import java.util.Locale;
+
+/** Outcome of a {@link SimulationJob}. */
+public final class SimulationResult {
+  public enum Exit {
+    /** The program made the exit syscall */
+    HALTED,
+
+    /** pc ran off the end of the text segment */
+    END_OF_PROGRAM,
+
+    /** The job's instruction limit was reached */
+    INSTRUCTION_LIMIT,
+
+    /** The job's output limit was reached */
+    OUTPUT_LIMIT,
+
+    /** The job's wall clock limit was reached */
+    TIME_LIMIT,
+
+    /** The program asked for more input than the job supplied */
+    INPUT_EXHAUSTED,
+
+    /** An instruction or syscall failed; see {@link #getError()} */
+    TRAP,
+
+    /** The source did not compile; see {@link #getError()} */
+    COMPILE_ERROR,
+  }
+
+  private final String stdout;
+
+  private final Exit exit;
+
+  private final String error;
+
+  private final long instructionCount;
+
+  private final long wallTimeNanos;
+
+  public SimulationResult(
+      String stdout, Exit exit, String error, long instructionCount, long wallTimeNanos) {
+    this.stdout = stdout;
+    this.exit = exit;
+    this.error = error;
+    this.instructionCount = instructionCount;
+    this.wallTimeNanos = wallTimeNanos;
+  }
+
+  public String getStdout() {
+    return stdout;
+  }
+
+  public Exit getExit() {
+    return exit;
+  }
+
+  /**
+   * @return diagnostic for {@link Exit#TRAP} and {@link Exit#COMPILE_ERROR}, null otherwise
+   */
+  public String getError() {
+    return error;
+  }
+
+  public long getInstructionCount() {
+    return instructionCount;
+  }
+
+  public long getWallTimeNanos() {
+    return wallTimeNanos;
+  }
+
+  @Override
+  @NonNull public String toString() {
+    return String.format(
+        Locale.getDefault(),
+        "%s after %d instructions in %d us%s",
+        exit,
+        instructionCount,
+        wallTimeNanos / 1000,
+        error == null ? "" : ": " + error);
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator;
+
+import com.cleverchuk.mips.simulator.binary.CentralProcessor;
+import com.cleverchuk.mips.simulator.mem.Memory;
+import java.util.Locale;
+
+/**
+ * Carries out the syscall services for a processor. Arguments are taken from the registers and
+ * memory, output and input requests go to a {@link Console}, and the console answers a request by
+ * calling one of the supply methods, right away or once the user has typed the value.
+ */
+final class SyscallDispatcher {
+  /** Where a program's output goes and where its input comes from */
+  interface Console {
+    void print(SystemService service, Object value);
+
+    /**
+     * Asks for the input of a read service. The answer is given to one of the supply methods.
+     *
+     * @throws Exception if the console cannot serve the request
+     */
+    void request(SystemService service) throws Exception;
+
+    void halt();
+  }
+
+  private final CentralProcessor cpu;
+
+  private final Memory memory;
+
+  private final Console console;
+
+  private final int stringLimit;
+
+  /**
+   * @param stringLimit most characters of a string printed at once
+   */
+  SyscallDispatcher(CentralProcessor cpu, Memory memory, Console console, int stringLimit) {
+    this.cpu = cpu;
+    this.memory = memory;
+    this.console = console;
+    this.stringLimit = stringLimit;
+  }
+
+  void dispatch(int code) throws Exception {
+    SystemService service = SystemService.parse(code);
+    switch (service) {
+      case PRINT_INT:
+        console.print(service, cpu.getGprFileArray().getFile(4).readWord());
+        break;
+
+      case PRINT_STRING:
+        {
+          int arg = cpu.getGprFileArray().getFile(4).readWord(), c;
+          StringBuilder builder = new StringBuilder();
+          while (builder.length() < stringLimit && (c = memory.read(arg++)) != 0) {
+            builder.append((char) c);
+          }
+          console.print(service, builder.toString());
+          break;
+        }
+
+      case PRINT_CHAR:
+        console.print(service, (char) cpu.getGprFileArray().getFile(4).readWord());
+        break;
+
+      case PRINT_FLOAT:
+        console.print(service, cpu.getFpuRegisterFileArray().getFile(12).readSingle());
+        break;
+
+      case PRINT_DOUBLE:
+        console.print(service, cpu.getFpuRegisterFileArray().getFile(12).readDouble());
+        break;
+
+      case READ_INT:
+      case READ_CHAR:
+      case READ_FLOAT:
+      case READ_DOUBLE:
+      case READ_STRING:
+        console.request(service);
+        break;
+
+      case HALT:
+        console.halt();
+        break;
+
+      default:
+        throw new Exception(String.format(Locale.getDefault(), "Service %d not supported!", code));
+    }
+  }
+
+  /** Answers READ_INT or READ_CHAR */
+  void supplyInt(int data) {
+    cpu.getGprFileArray().getFile(2).writeWord(data);
+  }
+
+  /** Answers READ_FLOAT */
+  void supplyFloat(float data) {
+    cpu.getFpuRegisterFileArray().getFile(0).writeSingle(data);
+  }
+
+  /** Answers READ_DOUBLE */
+  void supplyDouble(double data) {
+    cpu.getFpuRegisterFileArray().getFile(0).writeDouble(data);
+  }
+
+  /**
+   * Answers READ_STRING like fgets: at most $a1 - 1 characters are stored at $a0, then a
+   * terminating NUL.
+   */
+  void supplyString(String data) {
+    int address = cpu.getGprFileArray().getFile(4).readWord();
+    int length = cpu.getGprFileArray().getFile(5).readWord();
+    int count = Math.max(0, Math.min(data.length(), length - 1));
+    for (int offset = 0; offset < count; offset++) {
+      memory.store((byte) data.charAt(offset), address + offset);
+    }
+    if (length > 0) {
+      memory.store((byte) 0, address + count);
+    }
+    cpu.invalidateDecodeCache(address, count + 1);
+  }
+}
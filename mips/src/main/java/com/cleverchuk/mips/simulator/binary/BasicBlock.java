@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import java.util.EnumSet;
+
+/**
+ * A straight-line run of instructions ending at the first control transfer. Each instruction is
+ * stored as its raw word next to the handler it was decoded to.
+ */
+final class BasicBlock {
+  static final int MAX_LENGTH = 64;
+
+  @SuppressWarnings("removal") // pre-release 6 branches still end blocks
+  private static final EnumSet<Opcode> TERMINATORS =
+      EnumSet.of(
+          Opcode.BAL,
+          Opcode.BALC,
+          Opcode.BC,
+          Opcode.BC1EQZ,
+          Opcode.BC1NEZ,
+          Opcode.BC2EQZ,
+          Opcode.BC2NEZ,
+          Opcode.BEQ,
+          Opcode.BEQC,
+          Opcode.BEQZALC,
+          Opcode.BEQZC,
+          Opcode.BGEC,
+          Opcode.BGEUC,
+          Opcode.BGEZ,
+          Opcode.BGEZAL,
+          Opcode.BGEZALC,
+          Opcode.BGEZC,
+          Opcode.BGTZ,
+          Opcode.BGTZALC,
+          Opcode.BGTZC,
+          Opcode.BLEZ,
+          Opcode.BLEZALC,
+          Opcode.BLEZC,
+          Opcode.BLTC,
+          Opcode.BLTUC,
+          Opcode.BLTZ,
+          Opcode.BLTZAL,
+          Opcode.BLTZALC,
+          Opcode.BLTZC,
+          Opcode.BNE,
+          Opcode.BNEC,
+          Opcode.BNEZALC,
+          Opcode.BNEZC,
+          Opcode.BNVC,
+          Opcode.BOVC,
+          Opcode.J,
+          Opcode.JAL,
+          Opcode.JALR,
+          Opcode.JALR_HB,
+          Opcode.JIALC,
+          Opcode.JIC,
+          Opcode.JR,
+          Opcode.JR_HB,
+          Opcode.BREAK,
+          Opcode.DERET,
+          Opcode.ERET,
+          Opcode.ERETNC,
+          Opcode.SDBBP,
+          Opcode.SIGRIE,
+          Opcode.SYSCALL,
+          Opcode.WAIT);
+
+  /** Terminators that trap or wait rather than transfer control within the program */
+  private static final EnumSet<Opcode> NON_BRANCHES =
+      EnumSet.of(
+          Opcode.BREAK,
+          Opcode.DERET,
+          Opcode.ERET,
+          Opcode.ERETNC,
+          Opcode.SDBBP,
+          Opcode.SIGRIE,
+          Opcode.SYSCALL,
+          Opcode.WAIT);
+
+  /** Instructions that must start their block, see {@link #leads(Opcode)} */
+  private static final EnumSet<Opcode> LEADERS =
+      EnumSet.of(Opcode.DI, Opcode.EI, Opcode.MFC0, Opcode.MTC0);
+
+  final int start;
+
+  final Operation[] operations;
+
+  final Opcode[] opcodes;
+
+  final int[] instructions;
+
+  /** Fused pairs indexed by their first instruction, null if nothing was fused */
+  Operation[] fused;
+
+  /** Times this block has been entered */
+  long entries;
+
+  boolean compiled;
+
+  /**
+   * Blocks this one has exited to. A block ending in a direct branch has at most two successors,
+   * its fall-through and its target; for indirect jumps the two slots act as a small cache of the
+   * most recent targets.
+   */
+  private BasicBlock first;
+
+  private BasicBlock second;
+
+  BasicBlock(int start, Operation[] operations, Opcode[] opcodes, int[] instructions) {
+    this.start = start;
+    this.operations = operations;
+    this.opcodes = opcodes;
+    this.instructions = instructions;
+  }
+
+  int length() {
+    return operations.length;
+  }
+
+  /**
+   * @param pc address this block exited to
+   * @return linked block starting at pc or null
+   */
+  BasicBlock successor(int pc) {
+    if (first != null && first.start == pc) {
+      return first;
+    }
+
+    if (second != null && second.start == pc) {
+      return second;
+    }
+    return null;
+  }
+
+  void link(BasicBlock successor) {
+    if (first == null) {
+      first = successor;
+    } else {
+      // keep the two most recent
+      second = first;
+      first = successor;
+    }
+  }
+
+  /**
+   * Tells whether an instruction may leave the straight-line path and so must be the last one in
+   * its block
+   *
+   * @param opcode decoded instruction
+   * @return true if a block ends at this instruction
+   */
+  static boolean terminates(Opcode opcode) {
+    return TERMINATORS.contains(opcode);
+  }
+
+  /**
+   * Tells whether an instruction depends on the exact instruction count, e.g. reading CP0 Count,
+   * which the processor only tracks at block boundaries
+   *
+   * @param opcode decoded instruction
+   * @return true if a block must start at this instruction
+   */
+  static boolean leads(Opcode opcode) {
+    return LEADERS.contains(opcode);
+  }
+
+  /**
+   * Tells whether an instruction is a branch or jump
+   *
+   * @param opcode decoded instruction
+   * @return true for conditional branches and for direct and indirect jumps
+   */
+  static boolean branches(Opcode opcode) {
+    return TERMINATORS.contains(opcode) && !NON_BRANCHES.contains(opcode);
+  }
+}
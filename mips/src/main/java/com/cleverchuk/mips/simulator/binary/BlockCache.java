@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/** Translated blocks indexed by the word address of their first instruction. */
+final class BlockCache {
+  private BasicBlock[] blocks = new BasicBlock[256];
+
+  private int size = 0;
+
+  BasicBlock get(int pc) {
+    int slot = pc >>> 2;
+    if ((pc & 3) != 0 || slot >= blocks.length) {
+      return null;
+    }
+    return blocks[slot];
+  }
+
+  void put(BasicBlock block) {
+    int slot = block.start >>> 2;
+    if (slot >= blocks.length) {
+      blocks = Arrays.copyOf(blocks, Math.max(slot + 1, blocks.length * 2));
+    }
+
+    if (blocks[slot] == null) {
+      size++;
+    }
+    blocks[slot] = block;
+  }
+
+  void forEach(Consumer<BasicBlock> action) {
+    if (size == 0) {
+      return;
+    }
+
+    for (BasicBlock block : blocks) {
+      if (block != null) {
+        action.accept(block);
+      }
+    }
+  }
+
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(blocks, null);
+      size = 0;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.simulator.mem.Memory;
+
+/**
+ * Second tier of {@link ExecutionMode#TIERED}. Rebinds the instructions of a hot {@link BasicBlock}
+ * to operations whose operands, immediates and branch targets were resolved once at compile time,
+ * so running them skips field extraction entirely. Writes to $zero are left to the generic
+ * handlers, which keep it hard-wired.
+ *
+ * <p>Arithmetic, loads and the plain branches and jumps are specialized; everything else keeps its
+ * generic handler, so syscalls, traps and stores behave exactly as in the interpreter. A compiled
+ * load can still fault. Its exception leaves the operation as it would leave the generic handler:
+ * the block runner has already advanced the pc past the load, as the interpreter does before
+ * executing it, so the fault is reported at the same pc. The runner also records how many
+ * instructions of the block retired before the load, so the instruction count matches too.
+ */
+final class BlockCompiler {
+  /** Number of entries after which a translated block is compiled */
+  static final int HOT_THRESHOLD = 64;
+
+  private final int[] gpr;
+
+  private final Memory memory;
+
+  BlockCompiler(int[] gpr, Memory memory) {
+    this.gpr = gpr;
+    this.memory = memory;
+  }
+
+  void compile(BasicBlock block) {
+    int address = block.start;
+    for (int i = 0; i < block.length(); i++, address += 4) {
+      Operation operation = compile(block.opcodes[i], block.instructions[i], address);
+      if (operation != null) {
+        block.operations[i] = operation;
+      }
+    }
+    block.compiled = true;
+  }
+
+  /**
+   * Specializes a single instruction
+   *
+   * @param opcode decoded opcode
+   * @param instruction raw instruction word
+   * @param address address the instruction was fetched from
+   * @return specialized operation or null if the generic handler should be kept
+   */
+  private Operation compile(Opcode opcode, int instruction, int address) {
+    int rs = (instruction >> 21) & 0x1f;
+    int rt = (instruction >> 16) & 0x1f;
+    int rd = (instruction >> 11) & 0x1f;
+    int sa = (instruction >> 6) & 0x1f;
+    short imm = (short) (instruction & 0xffff);
+    int[] gpr = this.gpr;
+
+    switch (opcode) {
+      case ADD:
+      case ADDU:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rs] + gpr[rt];
+      case ADDIU:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = gpr[rs] + imm;
+      case SUBU:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rs] - gpr[rt];
+      case MUL:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rs] * gpr[rt];
+      case AND:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rs] & gpr[rt];
+      case ANDI:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = gpr[rs] & imm;
+      case OR:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rs] | gpr[rt];
+      case ORI:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = gpr[rs] | imm;
+      case XOR:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rs] ^ gpr[rt];
+      case XORI:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = gpr[rs] ^ imm;
+      case NOR:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = ~(gpr[rs] | gpr[rt]);
+      case SLL:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rt] << sa;
+      case SRL:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rt] >>> sa;
+      case SRA:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rt] >> sa;
+      case SLT:
+        return rd == 0 ? null : (cpu, ignored) -> gpr[rd] = gpr[rs] < gpr[rt] ? 1 : 0;
+      case SLTI:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = gpr[rs] < imm ? 1 : 0;
+      case SLTU:
+        return rd == 0
+            ? null
+            : (cpu, ignored) -> gpr[rd] = Integer.compareUnsigned(gpr[rs], gpr[rt]) < 0 ? 1 : 0;
+      case SLTIU:
+        return rt == 0
+            ? null
+            : (cpu, ignored) -> gpr[rt] = Integer.compareUnsigned(gpr[rs], imm) < 0 ? 1 : 0;
+      case LW:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = memory.readWord(gpr[rs] + imm);
+      case LH:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = memory.readHalf(gpr[rs] + imm);
+      case LHU:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = memory.readHalf(gpr[rs] + imm) & 0xffff;
+      case LB:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = memory.read(gpr[rs] + imm);
+      case LBU:
+        return rt == 0 ? null : (cpu, ignored) -> gpr[rt] = memory.read(gpr[rs] + imm) & 0xff;
+      case BEQ:
+        int beqTarget = address + 4 + (imm << 2);
+        return (cpu, ignored) -> {
+          if (gpr[rs] == gpr[rt]) {
+            cpu.setPc(beqTarget);
+          }
+        };
+      case BNE:
+        int bneTarget = address + 4 + (imm << 2);
+        return (cpu, ignored) -> {
+          if (gpr[rs] != gpr[rt]) {
+            cpu.setPc(bneTarget);
+          }
+        };
+      case J:
+        int jTarget = ((address + 4) & 0xf0000000) | ((instruction & 0x3ffffff) << 2);
+        return (cpu, ignored) -> cpu.setPc(jTarget);
+      case JR:
+        return (cpu, ignored) -> cpu.setPc(gpr[rs]);
+      default:
+        return null;
+    }
+  }
+}
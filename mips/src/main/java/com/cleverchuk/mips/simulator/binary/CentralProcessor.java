@@ -25,21 +25,430 @@
 package com.cleverchuk.mips.simulator.binary;
 
 import com.cleverchuk.mips.simulator.mem.Memory;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
 import com.cleverchuk.mips.simulator.registers.Cop2ControlRegisterFileArray;
 import com.cleverchuk.mips.simulator.registers.Cop2RegisterFileArray;
 import com.cleverchuk.mips.simulator.registers.FpcRegisterFileArray;
 import com.cleverchuk.mips.simulator.registers.FpuRegisterFileArray;
 import com.cleverchuk.mips.simulator.registers.GprRegisterFileArray;
 import com.cleverchuk.mips.simulator.registers.ShadowRegisterFileArray;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 public class CentralProcessor {
 
+  private static final int EXIT_SYSCALL = 10;
+
+  private static final int STATUS_NONE = 0;
+
+  private static final int STATUS_SYSCALL = 1;
+
+  private static final int STATUS_TRAP = 2;
+
+  private static final int STATUS_BREAK = 3;
+
+  private static final int STATUS_DEBUG_BREAKPOINT = 4;
+
+  private static final int STATUS_RESERVED_INSTRUCTION = 5;
+
+  private static final int STATUS_WATCHPOINT = 6;
+
+  /** Interrupt state changed; handled by {@link #run(long)} itself and never reported */
+  private static final int STATUS_EVENTS = 7;
+
+  private static final int CP0_COUNT = 9;
+
+  private static final int CP0_COMPARE = 11;
+
+  private static final int CP0_STATUS = 12;
+
+  private static final int CP0_CAUSE = 13;
+
+  private static final int CP0_EPC = 14;
+
+  private static final int CP0_EBASE = 15; // select 1
+
+  private static final int STATUS_IE = 1;
+
+  private static final int STATUS_EXL = 1 << 1;
+
+  private static final int STATUS_WRITABLE = 0xff03; // IM7..IM0, EXL and IE
+
+  private static final int CAUSE_TI = 1 << 30;
+
+  private static final int CAUSE_IP_SOFTWARE = 0x0300;
+
+  private static final int CAUSE_EXC_CODE = 0x7c;
+
+  /** Interrupt line the CP0 timer is wired to, as on most MIPS32 cores */
+  public static final int TIMER_INTERRUPT = 7;
+
+  private static final Operation NOP = (cpu, instruction) -> {};
+
+  private static final Operation[] OPERATIONS = operations();
+
+  @SuppressWarnings("removal") // pre-release 6 opcodes still need handlers
+  private static Operation[] operations() {
+    Operation[] operations = new Operation[Opcode.values().length];
+    operations[Opcode.ADD.ordinal()] = CentralProcessor::add;
+    operations[Opcode.ADDU.ordinal()] = CentralProcessor::addu;
+    operations[Opcode.ADDIU.ordinal()] = CentralProcessor::addiu;
+    operations[Opcode.ADDIUPC.ordinal()] = CentralProcessor::addiupc;
+    operations[Opcode.ALIGN.ordinal()] = CentralProcessor::align;
+    operations[Opcode.ALUIPC.ordinal()] = CentralProcessor::aluipc;
+    operations[Opcode.CLO.ordinal()] = CentralProcessor::clo;
+    operations[Opcode.CLZ.ordinal()] = CentralProcessor::clz;
+    operations[Opcode.SUB.ordinal()] = CentralProcessor::sub;
+    operations[Opcode.SUBU.ordinal()] = CentralProcessor::subu;
+    operations[Opcode.SEB.ordinal()] = CentralProcessor::seb;
+    operations[Opcode.SEH.ordinal()] = CentralProcessor::seh;
+    operations[Opcode.SLL.ordinal()] = CentralProcessor::sll;
+    operations[Opcode.SLLV.ordinal()] = CentralProcessor::sllv;
+    operations[Opcode.ROTR.ordinal()] = CentralProcessor::rotr;
+    operations[Opcode.ROTRV.ordinal()] = CentralProcessor::rotrv;
+    operations[Opcode.SRA.ordinal()] = CentralProcessor::sra;
+    operations[Opcode.SRAV.ordinal()] = CentralProcessor::srav;
+    operations[Opcode.SRL.ordinal()] = CentralProcessor::srl;
+    operations[Opcode.SRLV.ordinal()] = CentralProcessor::srlv;
+    operations[Opcode.AND.ordinal()] = CentralProcessor::and_;
+    operations[Opcode.ANDI.ordinal()] = CentralProcessor::andi;
+    operations[Opcode.AUI.ordinal()] = CentralProcessor::aui;
+    operations[Opcode.AUIPC.ordinal()] = CentralProcessor::auipc;
+    operations[Opcode.BAL.ordinal()] = CentralProcessor::bal;
+    operations[Opcode.BALC.ordinal()] = CentralProcessor::balc;
+    operations[Opcode.BC.ordinal()] = CentralProcessor::bc;
+    operations[Opcode.BC1EQZ.ordinal()] = CentralProcessor::bc1eqz;
+    operations[Opcode.BC1NEZ.ordinal()] = CentralProcessor::bc1nez;
+    operations[Opcode.BC2EQZ.ordinal()] = CentralProcessor::bc2eqz;
+    operations[Opcode.BC2NEZ.ordinal()] = CentralProcessor::bc2nez;
+    operations[Opcode.EXT.ordinal()] = CentralProcessor::ext;
+    operations[Opcode.INS.ordinal()] = CentralProcessor::ins;
+    operations[Opcode.NOR.ordinal()] = CentralProcessor::nor;
+    operations[Opcode.OR.ordinal()] = CentralProcessor::or_;
+    operations[Opcode.ORI.ordinal()] = CentralProcessor::ori;
+    operations[Opcode.XOR.ordinal()] = CentralProcessor::xor_;
+    operations[Opcode.XORI.ordinal()] = CentralProcessor::xori;
+    operations[Opcode.WSBH.ordinal()] = CentralProcessor::wsbh;
+    operations[Opcode.MOVN.ordinal()] = CentralProcessor::movn;
+    operations[Opcode.MOVZ.ordinal()] = CentralProcessor::movz;
+    operations[Opcode.SLT.ordinal()] = CentralProcessor::slt;
+    operations[Opcode.SLTI.ordinal()] = CentralProcessor::slti;
+    operations[Opcode.SLTIU.ordinal()] = CentralProcessor::sltiu;
+    operations[Opcode.SLTU.ordinal()] = CentralProcessor::sltu;
+    operations[Opcode.DIV.ordinal()] = CentralProcessor::div;
+    operations[Opcode.MOD.ordinal()] = CentralProcessor::mod;
+    operations[Opcode.MUL.ordinal()] = CentralProcessor::mul;
+    operations[Opcode.MUH.ordinal()] = CentralProcessor::muh;
+    operations[Opcode.MULU.ordinal()] = CentralProcessor::mulu;
+    operations[Opcode.MUHU.ordinal()] = CentralProcessor::muhu;
+    operations[Opcode.DIVU.ordinal()] = CentralProcessor::divu;
+    operations[Opcode.MODU.ordinal()] = CentralProcessor::modu;
+    operations[Opcode.MADD.ordinal()] = CentralProcessor::madd;
+    operations[Opcode.MADDU.ordinal()] = CentralProcessor::maddu;
+    operations[Opcode.MSUB.ordinal()] = CentralProcessor::msub;
+    operations[Opcode.MSUBU.ordinal()] = CentralProcessor::msubu;
+    operations[Opcode.MULT.ordinal()] = CentralProcessor::mult;
+    operations[Opcode.MULTU.ordinal()] = CentralProcessor::multu;
+    operations[Opcode.BEQ.ordinal()] = CentralProcessor::beq;
+    operations[Opcode.BEQC.ordinal()] = CentralProcessor::beqc;
+    operations[Opcode.BEQZALC.ordinal()] = CentralProcessor::beqzalc;
+    operations[Opcode.BNE.ordinal()] = CentralProcessor::bne;
+    operations[Opcode.BNEC.ordinal()] = CentralProcessor::bnec;
+    operations[Opcode.BNEZC.ordinal()] = CentralProcessor::bnezc;
+    operations[Opcode.BOVC.ordinal()] = CentralProcessor::bovc;
+    operations[Opcode.BNVC.ordinal()] = CentralProcessor::bnvc;
+    operations[Opcode.BEQZC.ordinal()] = CentralProcessor::beqzc;
+    operations[Opcode.BREAK.ordinal()] = CentralProcessor::break_;
+    operations[Opcode.J.ordinal()] = CentralProcessor::j;
+    operations[Opcode.JAL.ordinal()] = CentralProcessor::jal;
+    operations[Opcode.JALR.ordinal()] = CentralProcessor::jalr;
+    operations[Opcode.JIC.ordinal()] = CentralProcessor::jic;
+    operations[Opcode.JALR_HB.ordinal()] = CentralProcessor::jalr_hb;
+    operations[Opcode.JR.ordinal()] = CentralProcessor::jr;
+    operations[Opcode.JR_HB.ordinal()] = CentralProcessor::jr_hb;
+    operations[Opcode.BGEZ.ordinal()] = CentralProcessor::bgez;
+    operations[Opcode.BGTZ.ordinal()] = CentralProcessor::bgtz;
+    operations[Opcode.BITSWAP.ordinal()] = CentralProcessor::bitswap;
+    operations[Opcode.BGEZAL.ordinal()] = CentralProcessor::bgezal;
+    operations[Opcode.BLEZALC.ordinal()] = CentralProcessor::blezalc;
+    operations[Opcode.BGEZALC.ordinal()] = CentralProcessor::bgezalc;
+    operations[Opcode.BGTZALC.ordinal()] = CentralProcessor::bgtzalc;
+    operations[Opcode.BLTZALC.ordinal()] = CentralProcessor::bltzalc;
+    operations[Opcode.BNEZALC.ordinal()] = CentralProcessor::bnezalc;
+    operations[Opcode.BLEZC.ordinal()] = CentralProcessor::blezc;
+    operations[Opcode.BGEZC.ordinal()] = CentralProcessor::bgezc;
+    operations[Opcode.BGEC.ordinal()] = CentralProcessor::bgec;
+    operations[Opcode.BGTZC.ordinal()] = CentralProcessor::bgtzc;
+    operations[Opcode.BLTZC.ordinal()] = CentralProcessor::bltzc;
+    operations[Opcode.BLTC.ordinal()] = CentralProcessor::bltc;
+    operations[Opcode.BGEUC.ordinal()] = CentralProcessor::bgeuc;
+    operations[Opcode.BLTUC.ordinal()] = CentralProcessor::bltuc;
+    operations[Opcode.BLEZ.ordinal()] = CentralProcessor::blez;
+    operations[Opcode.BLTZ.ordinal()] = CentralProcessor::bltz;
+    operations[Opcode.BLTZAL.ordinal()] = CentralProcessor::bltzal;
+    operations[Opcode.JIALC.ordinal()] = CentralProcessor::jialc;
+    operations[Opcode.NAL.ordinal()] = CentralProcessor::nal;
+    operations[Opcode.SELEQZ.ordinal()] = CentralProcessor::seleqz;
+    operations[Opcode.SELNEZ.ordinal()] = CentralProcessor::selnez;
+    operations[Opcode.TEQ.ordinal()] = CentralProcessor::teq;
+    operations[Opcode.TGE.ordinal()] = CentralProcessor::tge;
+    operations[Opcode.TGEU.ordinal()] = CentralProcessor::tgeu;
+    operations[Opcode.TLT.ordinal()] = CentralProcessor::tlt;
+    operations[Opcode.TLTU.ordinal()] = CentralProcessor::tltu;
+    operations[Opcode.TNE.ordinal()] = CentralProcessor::tne;
+    operations[Opcode.LW.ordinal()] = CentralProcessor::lw;
+    operations[Opcode.LWE.ordinal()] = CentralProcessor::lwe;
+    operations[Opcode.SW.ordinal()] = CentralProcessor::sw;
+    operations[Opcode.SWE.ordinal()] = CentralProcessor::swe;
+    operations[Opcode.SWC1.ordinal()] = CentralProcessor::swc1;
+    operations[Opcode.SWC2.ordinal()] = CentralProcessor::swc2;
+    operations[Opcode.LB.ordinal()] = CentralProcessor::lb;
+    operations[Opcode.LBE.ordinal()] = CentralProcessor::lbe;
+    operations[Opcode.LBU.ordinal()] = CentralProcessor::lbu;
+    operations[Opcode.LBUE.ordinal()] = CentralProcessor::lbue;
+    operations[Opcode.LH.ordinal()] = CentralProcessor::lh;
+    operations[Opcode.LHE.ordinal()] = CentralProcessor::lhe;
+    operations[Opcode.LHU.ordinal()] = CentralProcessor::lhu;
+    operations[Opcode.LHUE.ordinal()] = CentralProcessor::lhue;
+    operations[Opcode.LSA.ordinal()] = CentralProcessor::lsa;
+    operations[Opcode.LWL.ordinal()] = CentralProcessor::lwl;
+    operations[Opcode.LWPC.ordinal()] = CentralProcessor::lwpc;
+    operations[Opcode.LWR.ordinal()] = CentralProcessor::lwr;
+    operations[Opcode.SB.ordinal()] = CentralProcessor::sb;
+    operations[Opcode.SBE.ordinal()] = CentralProcessor::sbe;
+    operations[Opcode.SH.ordinal()] = CentralProcessor::sh;
+    operations[Opcode.SHE.ordinal()] = CentralProcessor::she;
+    operations[Opcode.SWL.ordinal()] = CentralProcessor::swl;
+    operations[Opcode.SWR.ordinal()] = CentralProcessor::swr;
+    operations[Opcode.CACHE.ordinal()] = CentralProcessor::cache;
+    operations[Opcode.CACHEE.ordinal()] = CentralProcessor::cachee;
+    operations[Opcode.MFHI.ordinal()] = CentralProcessor::mfhi;
+    operations[Opcode.MFLO.ordinal()] = CentralProcessor::mflo;
+    operations[Opcode.MTHI.ordinal()] = CentralProcessor::mthi;
+    operations[Opcode.MTLO.ordinal()] = CentralProcessor::mtlo;
+    operations[Opcode.LL.ordinal()] = CentralProcessor::ll;
+    operations[Opcode.LLE.ordinal()] = CentralProcessor::lle;
+    operations[Opcode.LLWP.ordinal()] = CentralProcessor::llwp;
+    operations[Opcode.LLWPE.ordinal()] = CentralProcessor::llwpe;
+    operations[Opcode.SC.ordinal()] = CentralProcessor::sc;
+    operations[Opcode.SCE.ordinal()] = CentralProcessor::sce;
+    operations[Opcode.SCWP.ordinal()] = CentralProcessor::scwp;
+    operations[Opcode.SCWPE.ordinal()] = CentralProcessor::scwpe;
+    operations[Opcode.LDC1.ordinal()] = CentralProcessor::ldc1;
+    operations[Opcode.LDC2.ordinal()] = CentralProcessor::ldc2;
+    operations[Opcode.LWC1.ordinal()] = CentralProcessor::lwc1;
+    operations[Opcode.LWC2.ordinal()] = CentralProcessor::lwc2;
+    operations[Opcode.SDC1.ordinal()] = CentralProcessor::sdc1;
+    operations[Opcode.SDC2.ordinal()] = CentralProcessor::sdc2;
+    operations[Opcode.CFC1.ordinal()] = CentralProcessor::cfc1;
+    operations[Opcode.CFC2.ordinal()] = CentralProcessor::cfc2;
+    operations[Opcode.CTC1.ordinal()] = CentralProcessor::ctc1;
+    operations[Opcode.CTC2.ordinal()] = CentralProcessor::ctc2;
+    operations[Opcode.MFC0.ordinal()] = CentralProcessor::mfc0;
+    operations[Opcode.MFC1.ordinal()] = CentralProcessor::mfc1;
+    operations[Opcode.MFC2.ordinal()] = CentralProcessor::mfc2;
+    operations[Opcode.MFHC0.ordinal()] = CentralProcessor::mfhc0;
+    operations[Opcode.MFHC1.ordinal()] = CentralProcessor::mfhc1;
+    operations[Opcode.MFHC2.ordinal()] = CentralProcessor::mfhc2;
+    operations[Opcode.MTC0.ordinal()] = CentralProcessor::mtc0;
+    operations[Opcode.MTC1.ordinal()] = CentralProcessor::mtc1;
+    operations[Opcode.MTC2.ordinal()] = CentralProcessor::mtc2;
+    operations[Opcode.MTHC0.ordinal()] = CentralProcessor::mthc0;
+    operations[Opcode.MTHC1.ordinal()] = CentralProcessor::mthc1;
+    operations[Opcode.MTHC2.ordinal()] = CentralProcessor::mthc2;
+    operations[Opcode.PREF.ordinal()] = CentralProcessor::pref;
+    operations[Opcode.PREFE.ordinal()] = CentralProcessor::prefe;
+    operations[Opcode.RDHWR.ordinal()] = CentralProcessor::rdhwr;
+    operations[Opcode.RDPGPR.ordinal()] = CentralProcessor::rdpgpr;
+    operations[Opcode.ABS_S.ordinal()] = CentralProcessor::abs_s;
+    operations[Opcode.ABS_D.ordinal()] = CentralProcessor::abs_d;
+    operations[Opcode.ADD_S.ordinal()] = CentralProcessor::add_s;
+    operations[Opcode.ADD_D.ordinal()] = CentralProcessor::add_d;
+    operations[Opcode.CMP_AF_S.ordinal()] = CentralProcessor::cmp_af_s;
+    operations[Opcode.CMP_AF_D.ordinal()] = CentralProcessor::cmp_af_d;
+    operations[Opcode.CMP_UN_S.ordinal()] = CentralProcessor::cmp_un_s;
+    operations[Opcode.CMP_UN_D.ordinal()] = CentralProcessor::cmp_un_d;
+    operations[Opcode.CMP_EQ_S.ordinal()] = CentralProcessor::cmp_eq_s;
+    operations[Opcode.CMP_EQ_D.ordinal()] = CentralProcessor::cmp_eq_d;
+    operations[Opcode.CMP_UEQ_S.ordinal()] = CentralProcessor::cmp_ueq_s;
+    operations[Opcode.CMP_UEQ_D.ordinal()] = CentralProcessor::cmp_ueq_d;
+    operations[Opcode.CMP_LT_S.ordinal()] = CentralProcessor::cmp_lt_s;
+    operations[Opcode.CMP_LT_D.ordinal()] = CentralProcessor::cmp_lt_d;
+    operations[Opcode.CMP_ULT_S.ordinal()] = CentralProcessor::cmp_ult_s;
+    operations[Opcode.CMP_ULT_D.ordinal()] = CentralProcessor::cmp_ult_d;
+    operations[Opcode.CMP_LE_S.ordinal()] = CentralProcessor::cmp_le_s;
+    operations[Opcode.CMP_LE_D.ordinal()] = CentralProcessor::cmp_le_d;
+    operations[Opcode.CMP_ULE_S.ordinal()] = CentralProcessor::cmp_ule_s;
+    operations[Opcode.CMP_ULE_D.ordinal()] = CentralProcessor::cmp_ule_d;
+    operations[Opcode.CMP_SAF_S.ordinal()] = CentralProcessor::cmp_saf_s;
+    operations[Opcode.CMP_SAF_D.ordinal()] = CentralProcessor::cmp_saf_d;
+    operations[Opcode.CMP_SUN_S.ordinal()] = CentralProcessor::cmp_sun_s;
+    operations[Opcode.CMP_SUN_D.ordinal()] = CentralProcessor::cmp_sun_d;
+    operations[Opcode.CMP_SEQ_S.ordinal()] = CentralProcessor::cmp_seq_s;
+    operations[Opcode.CMP_SEQ_D.ordinal()] = CentralProcessor::cmp_seq_d;
+    operations[Opcode.CMP_SUEQ_S.ordinal()] = CentralProcessor::cmp_sueq_s;
+    operations[Opcode.CMP_SUEQ_D.ordinal()] = CentralProcessor::cmp_sueq_d;
+    operations[Opcode.CMP_SLT_S.ordinal()] = CentralProcessor::cmp_slt_s;
+    operations[Opcode.CMP_SLT_D.ordinal()] = CentralProcessor::cmp_slt_d;
+    operations[Opcode.CMP_SULT_S.ordinal()] = CentralProcessor::cmp_sult_s;
+    operations[Opcode.CMP_SULT_D.ordinal()] = CentralProcessor::cmp_sult_d;
+    operations[Opcode.CMP_SLE_S.ordinal()] = CentralProcessor::cmp_sle_s;
+    operations[Opcode.CMP_SLE_D.ordinal()] = CentralProcessor::cmp_sle_d;
+    operations[Opcode.CMP_SULE_S.ordinal()] = CentralProcessor::cmp_sule_s;
+    operations[Opcode.CMP_SULE_D.ordinal()] = CentralProcessor::cmp_sule_d;
+    operations[Opcode.CMP_AT_S.ordinal()] = CentralProcessor::cmp_at_s;
+    operations[Opcode.CMP_AT_D.ordinal()] = CentralProcessor::cmp_at_d;
+    operations[Opcode.CMP_OR_S.ordinal()] = CentralProcessor::cmp_or_s;
+    operations[Opcode.CMP_OR_D.ordinal()] = CentralProcessor::cmp_or_d;
+    operations[Opcode.CMP_UNE_S.ordinal()] = CentralProcessor::cmp_une_s;
+    operations[Opcode.CMP_UNE_D.ordinal()] = CentralProcessor::cmp_une_d;
+    operations[Opcode.CMP_NE_S.ordinal()] = CentralProcessor::cmp_ne_s;
+    operations[Opcode.CMP_NE_D.ordinal()] = CentralProcessor::cmp_ne_d;
+    operations[Opcode.CMP_UGE_S.ordinal()] = CentralProcessor::cmp_uge_s;
+    operations[Opcode.CMP_UGE_D.ordinal()] = CentralProcessor::cmp_uge_d;
+    operations[Opcode.CMP_OGE_S.ordinal()] = CentralProcessor::cmp_oge_s;
+    operations[Opcode.CMP_OGE_D.ordinal()] = CentralProcessor::cmp_oge_d;
+    operations[Opcode.CMP_UGT_S.ordinal()] = CentralProcessor::cmp_ugt_s;
+    operations[Opcode.CMP_UGT_D.ordinal()] = CentralProcessor::cmp_ugt_d;
+    operations[Opcode.CMP_OGT_S.ordinal()] = CentralProcessor::cmp_ogt_s;
+    operations[Opcode.CMP_OGT_D.ordinal()] = CentralProcessor::cmp_ogt_d;
+    operations[Opcode.CMP_SAT_S.ordinal()] = CentralProcessor::cmp_sat_s;
+    operations[Opcode.CMP_SAT_D.ordinal()] = CentralProcessor::cmp_sat_d;
+    operations[Opcode.CMP_SOR_S.ordinal()] = CentralProcessor::cmp_sor_s;
+    operations[Opcode.CMP_SOR_D.ordinal()] = CentralProcessor::cmp_sor_d;
+    operations[Opcode.CMP_SUNE_S.ordinal()] = CentralProcessor::cmp_sune_s;
+    operations[Opcode.CMP_SUNE_D.ordinal()] = CentralProcessor::cmp_sune_d;
+    operations[Opcode.CMP_SNE_S.ordinal()] = CentralProcessor::cmp_sne_s;
+    operations[Opcode.CMP_SNE_D.ordinal()] = CentralProcessor::cmp_sne_d;
+    operations[Opcode.CMP_SUGE_S.ordinal()] = CentralProcessor::cmp_suge_s;
+    operations[Opcode.CMP_SUGE_D.ordinal()] = CentralProcessor::cmp_suge_d;
+    operations[Opcode.CMP_SOGE_S.ordinal()] = CentralProcessor::cmp_soge_s;
+    operations[Opcode.CMP_SOGE_D.ordinal()] = CentralProcessor::cmp_soge_d;
+    operations[Opcode.CMP_SUGT_S.ordinal()] = CentralProcessor::cmp_sugt_s;
+    operations[Opcode.CMP_SUGT_D.ordinal()] = CentralProcessor::cmp_sugt_d;
+    operations[Opcode.CMP_SOGT_S.ordinal()] = CentralProcessor::cmp_sogt_s;
+    operations[Opcode.CMP_SOGT_D.ordinal()] = CentralProcessor::cmp_sogt_d;
+    operations[Opcode.CRC32B.ordinal()] = CentralProcessor::crc32b;
+    operations[Opcode.CRC32H.ordinal()] = CentralProcessor::crc32h;
+    operations[Opcode.CRC32W.ordinal()] = CentralProcessor::crc32w;
+    operations[Opcode.CRC32CB.ordinal()] = CentralProcessor::crc32cb;
+    operations[Opcode.CRC32CH.ordinal()] = CentralProcessor::crc32ch;
+    operations[Opcode.CRC32CW.ordinal()] = CentralProcessor::crc32cw;
+    operations[Opcode.DIV_S.ordinal()] = CentralProcessor::div_s;
+    operations[Opcode.DIV_D.ordinal()] = CentralProcessor::div_d;
+    operations[Opcode.MUL_S.ordinal()] = CentralProcessor::mul_s;
+    operations[Opcode.MUL_D.ordinal()] = CentralProcessor::mul_d;
+    operations[Opcode.NEG_S.ordinal()] = CentralProcessor::neg_s;
+    operations[Opcode.NEG_D.ordinal()] = CentralProcessor::neg_d;
+    operations[Opcode.SQRT_S.ordinal()] = CentralProcessor::sqrt_s;
+    operations[Opcode.SQRT_D.ordinal()] = CentralProcessor::sqrt_d;
+    operations[Opcode.SUB_S.ordinal()] = CentralProcessor::sub_s;
+    operations[Opcode.SUB_D.ordinal()] = CentralProcessor::sub_d;
+    operations[Opcode.RECIP_S.ordinal()] = CentralProcessor::recip_s;
+    operations[Opcode.RECIP_D.ordinal()] = CentralProcessor::recip_d;
+    operations[Opcode.RSQRT_S.ordinal()] = CentralProcessor::rsqrt_s;
+    operations[Opcode.RSQRT_D.ordinal()] = CentralProcessor::rsqrt_d;
+    operations[Opcode.MADDF_S.ordinal()] = CentralProcessor::maddf_s;
+    operations[Opcode.MADDF_D.ordinal()] = CentralProcessor::maddf_d;
+    operations[Opcode.MSUBF_S.ordinal()] = CentralProcessor::msubf_s;
+    operations[Opcode.MSUBF_D.ordinal()] = CentralProcessor::msubf_d;
+    operations[Opcode.CLASS_S.ordinal()] = CentralProcessor::class_s;
+    operations[Opcode.CLASS_D.ordinal()] = CentralProcessor::class_d;
+    operations[Opcode.MAX_S.ordinal()] = CentralProcessor::max_s;
+    operations[Opcode.MAX_D.ordinal()] = CentralProcessor::max_d;
+    operations[Opcode.MAXA_S.ordinal()] = CentralProcessor::maxa_s;
+    operations[Opcode.MAXA_D.ordinal()] = CentralProcessor::maxa_d;
+    operations[Opcode.MIN_S.ordinal()] = CentralProcessor::min_s;
+    operations[Opcode.MIN_D.ordinal()] = CentralProcessor::min_d;
+    operations[Opcode.MINA_S.ordinal()] = CentralProcessor::mina_s;
+    operations[Opcode.MINA_D.ordinal()] = CentralProcessor::mina_d;
+    operations[Opcode.CVT_D_S.ordinal()] = CentralProcessor::cvt_d_s;
+    operations[Opcode.CVT_D_W.ordinal()] = CentralProcessor::cvt_d_w;
+    operations[Opcode.CVT_D_L.ordinal()] = CentralProcessor::cvt_d_l;
+    operations[Opcode.CVT_L_S.ordinal()] = CentralProcessor::cvt_l_s;
+    operations[Opcode.CVT_L_D.ordinal()] = CentralProcessor::cvt_l_d;
+    operations[Opcode.CVT_S_D.ordinal()] = CentralProcessor::cvt_s_d;
+    operations[Opcode.CVT_S_W.ordinal()] = CentralProcessor::cvt_s_w;
+    operations[Opcode.CVT_S_L.ordinal()] = CentralProcessor::cvt_s_l;
+    operations[Opcode.CVT_W_S.ordinal()] = CentralProcessor::cvt_w_s;
+    operations[Opcode.CVT_W_D.ordinal()] = CentralProcessor::cvt_w_d;
+    operations[Opcode.RINT_S.ordinal()] = CentralProcessor::rint_s;
+    operations[Opcode.RINT_D.ordinal()] = CentralProcessor::rint_d;
+    operations[Opcode.CEIL_L_S.ordinal()] = CentralProcessor::ceil_l_s;
+    operations[Opcode.CEIL_L_D.ordinal()] = CentralProcessor::ceil_l_d;
+    operations[Opcode.CEIL_W_S.ordinal()] = CentralProcessor::ceil_w_s;
+    operations[Opcode.CEIL_W_D.ordinal()] = CentralProcessor::ceil_w_d;
+    operations[Opcode.FLOOR_L_S.ordinal()] = CentralProcessor::floor_l_s;
+    operations[Opcode.FLOOR_L_D.ordinal()] = CentralProcessor::floor_l_d;
+    operations[Opcode.FLOOR_W_S.ordinal()] = CentralProcessor::floor_w_s;
+    operations[Opcode.FLOOR_W_D.ordinal()] = CentralProcessor::floor_w_d;
+    operations[Opcode.ROUND_L_S.ordinal()] = CentralProcessor::round_l_s;
+    operations[Opcode.ROUND_L_D.ordinal()] = CentralProcessor::round_l_d;
+    operations[Opcode.ROUND_W_S.ordinal()] = CentralProcessor::round_w_s;
+    operations[Opcode.ROUND_W_D.ordinal()] = CentralProcessor::round_w_d;
+    operations[Opcode.TRUNC_L_S.ordinal()] = CentralProcessor::trunc_l_s;
+    operations[Opcode.TRUNC_L_D.ordinal()] = CentralProcessor::trunc_l_d;
+    operations[Opcode.TRUNC_W_S.ordinal()] = CentralProcessor::trunc_w_s;
+    operations[Opcode.TRUNC_W_D.ordinal()] = CentralProcessor::trunc_w_d;
+    operations[Opcode.MOV_S.ordinal()] = CentralProcessor::mov_s;
+    operations[Opcode.MOV_D.ordinal()] = CentralProcessor::mov_d;
+    operations[Opcode.SEL_S.ordinal()] = CentralProcessor::sel_s;
+    operations[Opcode.SEL_D.ordinal()] = CentralProcessor::sel_d;
+    operations[Opcode.SELEQZ_S.ordinal()] = CentralProcessor::seleqz_s;
+    operations[Opcode.SELEQZ_D.ordinal()] = CentralProcessor::seleqz_d;
+    operations[Opcode.SELNEZ_S.ordinal()] = CentralProcessor::selnez_s;
+    operations[Opcode.SELNEZ_D.ordinal()] = CentralProcessor::selnez_d;
+    operations[Opcode.DERET.ordinal()] = CentralProcessor::deret;
+    operations[Opcode.DI.ordinal()] = CentralProcessor::di;
+    operations[Opcode.DVP.ordinal()] = CentralProcessor::dvp;
+    operations[Opcode.EVP.ordinal()] = CentralProcessor::evp;
+    operations[Opcode.EI.ordinal()] = CentralProcessor::ei;
+    operations[Opcode.ERET.ordinal()] = CentralProcessor::eret;
+    operations[Opcode.ERETNC.ordinal()] = CentralProcessor::eretnc;
+    operations[Opcode.GINVI.ordinal()] = CentralProcessor::ginvi;
+    operations[Opcode.GINVT.ordinal()] = CentralProcessor::ginvt;
+    operations[Opcode.PAUSE.ordinal()] = CentralProcessor::pause;
+    operations[Opcode.SDBBP.ordinal()] = CentralProcessor::sdbbp;
+    operations[Opcode.SIGRIE.ordinal()] = CentralProcessor::sigrie;
+    operations[Opcode.SYSCALL.ordinal()] = CentralProcessor::syscall;
+    operations[Opcode.SYNC.ordinal()] = CentralProcessor::sync;
+    operations[Opcode.SYNCI.ordinal()] = CentralProcessor::synci;
+    operations[Opcode.TLBINV.ordinal()] = CentralProcessor::tlbinv;
+    operations[Opcode.TLBINVF.ordinal()] = CentralProcessor::tlbinvf;
+    operations[Opcode.TLBP.ordinal()] = CentralProcessor::tlbp;
+    operations[Opcode.TLBR.ordinal()] = CentralProcessor::tlbr;
+    operations[Opcode.TLBWI.ordinal()] = CentralProcessor::tlbwi;
+    operations[Opcode.TLBWR.ordinal()] = CentralProcessor::tlbwr;
+    operations[Opcode.WAIT.ordinal()] = CentralProcessor::wait;
+    operations[Opcode.WRPGPR.ordinal()] = CentralProcessor::wrpgpr;
+    operations[Opcode.COP2.ordinal()] = CentralProcessor::cop2;
+
+    for (int i = 0; i < operations.length; i++) {
+      if (operations[i] == null) {
+        operations[i] = NOP;
+      }
+    }
+    return operations;
+  }
+
   private final Memory memory;
 
   private final FpuRegisterFileArray fpuRegisterFileArray = new FpuRegisterFileArray();
 
   private final GprRegisterFileArray gprFileArray = new GprRegisterFileArray();
 
+  private final int[] gpr = gprFileArray.getRegisters();
+
+  // raw bits of each FPR; singles live in the low word (FR=1)
+  private final long[] fpr = fpuRegisterFileArray.getRegisters();
+
   private final Cop2RegisterFileArray cop2RegisterFileArray = new Cop2RegisterFileArray();
 
   private final ShadowRegisterFileArray shadowRegisterFileArray = new ShadowRegisterFileArray();
@@ -49,6 +458,85 @@ public class CentralProcessor {
 
   private final FpcRegisterFileArray fpcRegisterFileArray = new FpcRegisterFileArray();
 
+  private final DecodeCache decodeCache = new DecodeCache();
+
+  private final BlockCache blockCache = new BlockCache();
+
+  private final ExecutionMode executionMode;
+
+  private final BlockCompiler blockCompiler;
+
+  private final Superinstructions superinstructions;
+
+  private boolean fusionEnabled = true;
+
+  private final Operation[] blockOperations = new Operation[BasicBlock.MAX_LENGTH];
+
+  private final Opcode[] blockOpcodes = new Opcode[BasicBlock.MAX_LENGTH];
+
+  private final int[] blockInstructions = new int[BasicBlock.MAX_LENGTH];
+
+  private int textBoundary = Integer.MAX_VALUE;
+
+  private boolean codeModified;
+
+  private final BitSet breakpoints = new BitSet(); // indexed by pc >>> 2
+
+  private final Map<Integer, BreakCondition> breakConditions = new HashMap<>();
+
+  private ExecutionObserver observer;
+
+  private boolean running; // inside run(long), the only place watchpoints stop execution
+
+  private long runs; // calls to run(long); in between the host may change any state
+
+  private long retiredBeforeFault; // instructions retired before an exception escaped a block
+
+  private boolean watching; // watchpoints are set; fused pairs would overshoot a hit
+
+  private boolean delaySlot; // executing the delay slot of a linking branch, inside its step
+
+  private final EventScheduler scheduler = new EventScheduler();
+
+  private final int timer = scheduler.register(this::timerExpired);
+
+  private long clock; // instruction count at the start of the current block
+
+  // CP0 interrupt state; Count is clock - countBase
+  private long countBase;
+
+  private int compare;
+
+  private int cp0Status;
+
+  private int cause;
+
+  private int epc;
+
+  private int ebase = 0x8000_0000;
+
+  /**
+   * Event raised by the last instruction, one of the STATUS_ constants. Handlers set it instead of
+   * throwing so that syscalls and traps cost nothing to report; only {@link #execute()} and {@link
+   * #executeBlock()} turn it into an exception.
+   */
+  private int status = STATUS_NONE;
+
+  private int statusCode;
+
+  private int syscallCode;
+
+  private long instructionCount;
+
+  private Exception trap;
+
+  private int trapStatus = STATUS_NONE;
+
+  /** Shared with the other harts of a {@link Multiprocessor}, null when running alone */
+  private ReservationMonitor monitor;
+
+  private int hartId;
+
   private int pc;
 
   private int hi = 0;
@@ -58,11 +546,18 @@ public class CentralProcessor {
   private byte copBit = 2; // 10 = enabled
 
   public CentralProcessor(Memory memory, int pc, int sp, byte copBit) {
+    this(memory, pc, sp, copBit, ExecutionMode.INTERPRETED);
+  }
+
+  public CentralProcessor(Memory memory, int pc, int sp, byte copBit, ExecutionMode executionMode) {
     this.memory = memory;
     this.pc = pc;
     this.copBit = copBit;
+    this.executionMode = executionMode;
+    this.blockCompiler = new BlockCompiler(gpr, memory);
+    this.superinstructions = new Superinstructions(gpr, memory);
 
-    gprFileArray.getFile(29).writeWord(sp);
+    writeGpr(29, sp);
   }
 
   public int getPc() {
@@ -93,20 +588,712 @@ public class CentralProcessor {
     return cop2RegisterFileArray;
   }
 
+  public FpcRegisterFileArray getFpcRegisterFileArray() {
+    return fpcRegisterFileArray;
+  }
+
+  /**
+   * Drops any decoded instruction overlapping the given range. Callers that write to memory behind
+   * the processor's back, e.g. the assembler reloading a program, must call this or {@link
+   * #flushDecodeCache()} for the change to be seen by {@link #execute()}.
+   *
+   * @param address first byte written
+   * @param length number of bytes written
+   */
+  public void invalidateDecodeCache(int address, int length) {
+    invalidate(address, length);
+  }
+
+  public void flushDecodeCache() {
+    decodeCache.clear();
+    blockCache.clear();
+  }
+
+  /**
+   * Captures registers, PC and memory so that {@link #restore(ProcessorSnapshot)} can reset the
+   * processor without reassembling the program. Memory pages are shared copy-on-write with the
+   * snapshot, so taking one is cheap.
+   *
+   * @throws IllegalStateException if the processor was not built on a {@link PagedMemory}
+   */
+  public ProcessorSnapshot snapshot() {
+    return snapshot(pagedMemory().snapshot());
+  }
+
+  /**
+   * Resets the processor to a snapshot taken from it. Only memory pages written since the snapshot
+   * was last taken or restored are put back, and only decoded instructions on those pages are
+   * dropped.
+   *
+   * @param snapshot state to restore
+   */
+  public void restore(ProcessorSnapshot snapshot) {
+    pagedMemory()
+        .restore(
+            snapshot.memory,
+            (page) -> invalidate(page << PagedMemory.PAGE_BITS, PagedMemory.PAGE_SIZE));
+    restoreRegisters(snapshot);
+  }
+
+  /**
+   * Captures the processor like {@link #snapshot()} without changing which snapshot {@link
+   * #restore(ProcessorSnapshot)} resets to cheaply, see {@link PagedMemory#capture()}
+   */
+  ProcessorSnapshot capture() {
+    return snapshot(pagedMemory().capture());
+  }
+
+  /** Puts back a state from {@link #capture()}, see {@link PagedMemory#rewind} */
+  void rewind(ProcessorSnapshot snapshot) {
+    pagedMemory()
+        .rewind(
+            snapshot.memory,
+            (page) -> invalidate(page << PagedMemory.PAGE_BITS, PagedMemory.PAGE_SIZE));
+    restoreRegisters(snapshot);
+  }
+
+  private ProcessorSnapshot snapshot(PagedMemory.Snapshot memory) {
+    int[] fpc = new int[ProcessorSnapshot.FPC_REGISTERS];
+    for (int reg = 1; reg < fpc.length; reg++) { // FIR is read-only
+      fpc[reg] = fpcRegisterFileArray.getFile(reg).readWord();
+    }
+
+    return new ProcessorSnapshot(
+        gpr.clone(),
+        fpuRegisterFileArray.getRegisters().clone(),
+        fpc,
+        pc,
+        hi,
+        lo,
+        instructionCount,
+        memory);
+  }
+
+  private void restoreRegisters(ProcessorSnapshot snapshot) {
+    codeModified = false;
+
+    System.arraycopy(snapshot.gpr, 0, gpr, 0, gpr.length);
+    System.arraycopy(snapshot.fpr, 0, fpr, 0, fpr.length);
+    for (int reg = 1; reg < snapshot.fpc.length; reg++) {
+      fpcRegisterFileArray.getFile(reg).writeWord(snapshot.fpc[reg]);
+    }
+
+    pc = snapshot.pc;
+    hi = snapshot.hi;
+    lo = snapshot.lo;
+    instructionCount = snapshot.instructionCount;
+    status = STATUS_NONE;
+    trap = null;
+    trapStatus = STATUS_NONE;
+  }
+
+  void setHi(int hi) {
+    this.hi = hi;
+  }
+
+  void setLo(int lo) {
+    this.lo = lo;
+  }
+
+  void setInstructionCount(long instructionCount) {
+    this.instructionCount = instructionCount;
+  }
+
+  long getRunCount() {
+    return runs;
+  }
+
+  void setWatching(boolean watching) {
+    this.watching = watching;
+  }
+
+  /**
+   * Events on this queue fall due by instruction count and are dispatched by {@link #run(long)}
+   * between blocks; a device simulating a delayed completion schedules itself here and calls {@link
+   * #raiseInterrupt(int)} from its callback.
+   *
+   * @return queue the CP0 timer shares with any other device
+   */
+  public EventScheduler getScheduler() {
+    return scheduler;
+  }
+
+  /**
+   * Asserts a hardware interrupt line by setting its IP bit in Cause. The interrupt is taken once
+   * it is unmasked in Status and interrupts are enabled, by {@link #run(long)} only.
+   *
+   * @param line interrupt line 0 to 7; 0 and 1 are the software interrupts
+   */
+  public void raiseInterrupt(int line) {
+    cause |= 1 << (8 + line);
+    checkInterrupts();
+  }
+
+  /**
+   * @param line interrupt line 0 to 7 to deassert
+   */
+  public void clearInterrupt(int line) {
+    cause &= ~(1 << (8 + line));
+  }
+
+  private void checkInterrupts() {
+    if (running && status == STATUS_NONE) {
+      status = STATUS_EVENTS;
+    }
+  }
+
+  /** Enters the exception vector if an unmasked interrupt is pending and interrupts are on */
+  private void interrupt() {
+    if (status == STATUS_EVENTS) {
+      status = STATUS_NONE;
+    }
+
+    if ((cp0Status & (STATUS_IE | STATUS_EXL)) == STATUS_IE && (cause & cp0Status & 0xff00) != 0) {
+      epc = pc;
+      cp0Status |= STATUS_EXL;
+      cause &= ~CAUSE_EXC_CODE; // Int
+      pc = ebase + 0x180;
+    }
+  }
+
+  private void scheduleTimer() {
+    long delta = (compare - (int) (clock - countBase)) & 0xffff_ffffL;
+    scheduler.schedule(timer, clock + (delta == 0 ? 1L << 32 : delta));
+  }
+
+  private void timerExpired(long when) {
+    cause |= CAUSE_TI | (1 << (8 + TIMER_INTERRUPT));
+    scheduler.schedule(timer, when + (1L << 32)); // Count wraps around to Compare again
+  }
+
+  /**
+   * Stops {@link #run(long)} after the current instruction
+   *
+   * @return false if the processor is not inside run(long) and the request was ignored
+   */
+  boolean raiseWatchpoint() {
+    if (running && status == STATUS_NONE) {
+      status = STATUS_WATCHPOINT;
+    }
+    return running;
+  }
+
+  PagedMemory pagedMemory() {
+    if (!(memory instanceof PagedMemory)) {
+      throw new IllegalStateException("Snapshots require the processor to run on PagedMemory");
+    }
+    return (PagedMemory) memory;
+  }
+
+  /**
+   * Attaches an observer that sees every executed instruction, e.g. a {@link PipelineModel}. The
+   * processor interprets while one is attached, so translated execution pays nothing for the hook
+   * when it is not in use.
+   *
+   * @param observer observer to notify, or null to detach
+   */
+  public void setObserver(ExecutionObserver observer) {
+    this.observer = observer;
+  }
+
+  /**
+   * @return whether the instruction executing is the delay slot of a linking branch, which runs and
+   *     counts as part of the branch
+   */
+  boolean inDelaySlot() {
+    return delaySlot;
+  }
+
+  void attach(ReservationMonitor monitor, int hartId) {
+    this.monitor = monitor;
+    this.hartId = hartId;
+  }
+
+  public int getHartId() {
+    return hartId;
+  }
+
+  public ExecutionMode getExecutionMode() {
+    return executionMode;
+  }
+
+  /**
+   * Sets the first address past the text segment. Translated blocks never extend beyond it, so data
+   * following the code is not decoded ahead of time.
+   *
+   * @param textBoundary first address past the last instruction
+   */
+  public void setTextBoundary(int textBoundary) {
+    this.textBoundary = textBoundary;
+    blockCache.clear();
+  }
+
+  /**
+   * Executes the basic block starting at pc. In {@link ExecutionMode#INTERPRETED} mode, or when no
+   * block can be formed at pc, this is the same as a single {@link #execute()}. In {@link
+   * ExecutionMode#TIERED} mode a block is compiled once it has been entered {@link
+   * BlockCompiler#HOT_THRESHOLD} times.
+   *
+   * @return number of instructions retired
+   * @throws Exception whatever the executed instructions throw
+   */
+  public int executeBlock() throws Exception {
+    int executed = executeBlock(Integer.MAX_VALUE);
+    if (status != STATUS_NONE) {
+      throw raise();
+    }
+    return executed;
+  }
+
+  /**
+   * Enables or disables fusing common instruction pairs in translated blocks, see {@link
+   * Superinstructions}. Fusion is on by default and has no effect in {@link
+   * ExecutionMode#INTERPRETED} mode.
+   *
+   * @param fusionEnabled whether newly translated blocks are fused
+   */
+  public void setFusionEnabled(boolean fusionEnabled) {
+    this.fusionEnabled = fusionEnabled;
+    blockCache.clear();
+  }
+
+  /**
+   * Surveys adjacent opcode pairs in the blocks translated so far, each weighted by how many times
+   * its block was entered. This is the profile the fused pairs were chosen from.
+   *
+   * @return pair counts keyed by "FIRST SECOND", most frequent first
+   */
+  public Map<String, Long> surveyOpcodePairs() {
+    Map<String, Long> counts = new HashMap<>();
+    blockCache.forEach(
+        block -> {
+          for (int i = 0; i + 1 < block.length(); i++) {
+            String pair = block.opcodes[i] + " " + block.opcodes[i + 1];
+            Long count = counts.get(pair);
+            counts.put(pair, (count == null ? 0 : count) + block.entries);
+          }
+        });
+
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+    Collections.sort(entries, (left, right) -> Long.compare(right.getValue(), left.getValue()));
+
+    Map<String, Long> survey = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> entry : entries) {
+      survey.put(entry.getKey(), entry.getValue());
+    }
+    return survey;
+  }
+
+  /**
+   * Executes up to budget instructions, stopping early at a syscall, a trap, a breakpoint, a
+   * watchpoint or the text boundary. The breakpoint at the starting pc, if any, is not checked so
+   * that a run resumed from a breakpoint makes progress. Translated blocks end before every
+   * breakpoint, so breakpoints and their conditions are only checked between blocks.
+   *
+   * @param budget maximum number of instructions to execute
+   * @return why execution stopped
+   */
+  public StopReason run(long budget) {
+    boolean singleStep = executionMode == ExecutionMode.INTERPRETED || observer != null;
+    long executed = 0;
+    running = true;
+    runs++;
+    retiredBeforeFault = 0;
+    try {
+      interrupt();
+      while (executed < budget) {
+        if (pc >= textBoundary) {
+          return StopReason.BOUNDARY;
+        }
+
+        if (executed > 0 && breakpoints.get(pc >>> 2) && breaks(pc)) {
+          return StopReason.BREAKPOINT;
+        }
+
+        long now = instructionCount + executed;
+        long due = scheduler.nextDue();
+        if (now >= due) {
+          scheduler.dispatch(now);
+          interrupt();
+          continue;
+        }
+
+        clock = now;
+        if (singleStep) {
+          step();
+          executed++;
+        } else {
+          executed += executeChain(Math.min(budget - executed, due - now));
+        }
+
+        if (status != STATUS_NONE) {
+          if (status != STATUS_EVENTS) {
+            return stop();
+          }
+          interrupt();
+        }
+      }
+      return StopReason.BUDGET_EXHAUSTED;
+
+    } catch (Exception e) {
+      executed += retiredBeforeFault;
+      trap = e;
+      trapStatus = STATUS_NONE;
+      return StopReason.TRAP;
+
+    } finally {
+      instructionCount += executed;
+      running = false;
+    }
+  }
+
+  private StopReason stop() {
+    int raised = status;
+    status = STATUS_NONE;
+    if (raised == STATUS_WATCHPOINT) {
+      return StopReason.WATCHPOINT;
+    }
+    if (raised == STATUS_SYSCALL) {
+      syscallCode = statusCode;
+      return syscallCode == EXIT_SYSCALL ? StopReason.HALT : StopReason.SYSCALL;
+    }
+
+    trap = null;
+    trapStatus = raised;
+    return StopReason.TRAP;
+  }
+
+  /** Converts a pending status into the exception the public API has always thrown. */
+  private Exception raise() {
+    Exception exception = toException(status, statusCode);
+    status = STATUS_NONE;
+    return exception;
+  }
+
+  private static Exception toException(int status, int code) {
+    switch (status) {
+      case STATUS_SYSCALL:
+        return new SyscallException(code);
+      case STATUS_TRAP:
+        return new TrapException();
+      case STATUS_BREAK:
+        return new BreakException();
+      case STATUS_DEBUG_BREAKPOINT:
+        return new DebugBreakpointException();
+      default:
+        return new ReservedInstructionException();
+    }
+  }
+
+  /**
+   * @return number of instructions retired by {@link #run(long)} so far
+   */
+  public long getInstructionCount() {
+    return instructionCount;
+  }
+
+  /**
+   * @return service code of the syscall that last stopped {@link #run(long)}
+   */
+  public int getSyscallCode() {
+    return syscallCode;
+  }
+
+  /**
+   * @return exception that last stopped {@link #run(long)} with {@link StopReason#TRAP}
+   */
+  public Exception getTrap() {
+    if (trap == null && trapStatus != STATUS_NONE) {
+      trap = toException(trapStatus, 0);
+    }
+    return trap;
+  }
+
+  public void setBreakpoint(int address) {
+    setBreakpoint(address, null, 1);
+  }
+
+  /**
+   * Sets a breakpoint that stops only when the condition holds
+   *
+   * @param address address of the instruction to stop before
+   * @param condition tested against the processor each time pc reaches the address, or null to
+   *     always hold
+   * @param hitCount number of times the condition must hold before the first stop; later arrivals
+   *     where it holds stop every time
+   */
+  public void setBreakpoint(int address, Predicate<CentralProcessor> condition, long hitCount) {
+    int slot = address >>> 2;
+    if (condition == null && hitCount <= 1) {
+      breakConditions.remove(slot);
+    } else {
+      breakConditions.put(slot, new BreakCondition(condition, hitCount));
+    }
+
+    if (!breakpoints.get(slot)) {
+      breakpoints.set(slot);
+      blockCache.clear(); // blocks are split at breakpoints
+    }
+  }
+
+  public void clearBreakpoint(int address) {
+    int slot = address >>> 2;
+    breakConditions.remove(slot);
+    if (breakpoints.get(slot)) {
+      breakpoints.clear(slot);
+      blockCache.clear();
+    }
+  }
+
+  public void clearBreakpoints() {
+    breakConditions.clear();
+    if (!breakpoints.isEmpty()) {
+      breakpoints.clear();
+      blockCache.clear();
+    }
+  }
+
+  public boolean hasBreakpoint(int address) {
+    return breakpoints.get(address >>> 2);
+  }
+
+  private boolean breaks(int address) {
+    if (breakConditions.isEmpty()) {
+      return true;
+    }
+
+    BreakCondition condition = breakConditions.get(address >>> 2);
+    return condition == null || condition.test(this);
+  }
+
+  private static final class BreakCondition {
+    final Predicate<CentralProcessor> condition;
+
+    final long hitCount;
+
+    long hits;
+
+    BreakCondition(Predicate<CentralProcessor> condition, long hitCount) {
+      this.condition = condition;
+      this.hitCount = hitCount;
+    }
+
+    boolean test(CentralProcessor processor) {
+      return (condition == null || condition.test(processor)) && ++hits >= hitCount;
+    }
+  }
+
+  private int executeBlock(int limit) throws Exception {
+    if (executionMode != ExecutionMode.INTERPRETED && observer == null) {
+      BasicBlock block = enter(pc);
+      if (block != null) {
+        return run(block, limit);
+      }
+    }
+
+    step();
+    return 1;
+  }
+
+  /**
+   * Runs translated blocks back to back, following each block's successor links instead of going
+   * back to the block cache, until the budget is spent or something needs the attention of {@link
+   * #run(long)}. Links are patched in the first time a block exits to a given address.
+   *
+   * @return number of instructions retired
+   */
+  private long executeChain(long budget) throws Exception {
+    BasicBlock block = enter(pc);
+    if (block == null) {
+      step();
+      return 1;
+    }
+
+    long executed = 0;
+    try {
+      for (; ; ) {
+        int retired = run(block, (int) Math.min(budget - executed, BasicBlock.MAX_LENGTH));
+        executed += retired;
+        clock += retired;
+        if (retired < block.length()
+            || executed >= budget
+            || status != STATUS_NONE
+            || codeModified
+            || pc >= textBoundary
+            || (!breakpoints.isEmpty() && breakpoints.get(pc >>> 2))) {
+          return executed;
+        }
+
+        BasicBlock next = block.successor(pc);
+        if (next != null) {
+          count(next);
+        } else {
+          next = enter(pc);
+          if (next == null) {
+            return executed;
+          }
+          block.link(next);
+        }
+        block = next;
+      }
+    } catch (Exception e) {
+      retiredBeforeFault += executed; // the blocks before the faulting one ran to their end
+      throw e;
+    }
+  }
+
+  private BasicBlock enter(int address) {
+    BasicBlock block = blockCache.get(address);
+    if (block == null) {
+      block = translate(address);
+    }
+
+    if (block != null) {
+      count(block);
+    }
+    return block;
+  }
+
+  private void count(BasicBlock block) {
+    if (++block.entries >= BlockCompiler.HOT_THRESHOLD
+        && executionMode == ExecutionMode.TIERED
+        && !block.compiled) {
+      blockCompiler.compile(block);
+    }
+  }
+
+  private int run(BasicBlock block, int limit) throws Exception {
+    Operation[] operations = block.operations;
+    Operation[] fused = watching ? null : block.fused;
+    int[] instructions = block.instructions;
+    int address = block.start;
+    int length = Math.min(operations.length, limit);
+
+    codeModified = false;
+    int i = 0;
+    try {
+      while (i < length) {
+        if (fused != null && fused[i] != null && i + 1 < length) {
+          address += 8;
+          pc = address;
+          fused[i].execute(this, instructions[i]);
+          i += 2;
+        } else {
+          address += 4;
+          pc = address;
+          operations[i].execute(this, instructions[i]);
+          i++;
+        }
+
+        if (status != STATUS_NONE || codeModified) {
+          // the rest of this block is either not reached or stale
+          return i;
+        }
+      }
+    } catch (Exception e) {
+      if (fused != null && fused[i] != null && i + 1 < length) {
+        pc = address - 4; // only the first half of a pair can fault; report it as the interpreter
+      }
+      retiredBeforeFault = i; // the faulting instruction does not count, as when interpreting
+      throw e;
+    }
+    return length;
+  }
+
+  private BasicBlock translate(int start) {
+    if ((start & 3) != 0) {
+      return null;
+    }
+
+    int limit = Math.min(textBoundary, memory.getCapacity() - 3);
+    int length = 0;
+    for (int address = start; address < limit && length < BasicBlock.MAX_LENGTH; address += 4) {
+      if (address != start && breakpoints.get(address >>> 2)) {
+        break; // the run loop checks breakpoints between blocks
+      }
+
+      int instruction;
+      Opcode opcode = decodeCache.opcodeAt(address);
+      if (opcode != null) {
+        instruction = decodeCache.wordAt(address);
+      } else {
+        instruction = memory.readWord(address);
+        opcode = InstructionDecoder.decode(instruction);
+        if (opcode == null) {
+          break;
+        }
+        decodeCache.put(address, instruction, opcode, memory.getCapacity());
+      }
+
+      if (isCop(instruction) && (copBit & 2) != 2) {
+        break;
+      }
+
+      if (address != start && BasicBlock.leads(opcode)) {
+        break; // CP0 accesses see the instruction count as of the start of their block
+      }
+
+      blockOperations[length] = OPERATIONS[opcode.ordinal()];
+      blockOpcodes[length] = opcode;
+      blockInstructions[length++] = instruction;
+      if (BasicBlock.terminates(opcode)) {
+        break;
+      }
+    }
+
+    if (length == 0) {
+      return null;
+    }
+
+    BasicBlock block =
+        new BasicBlock(
+            start,
+            Arrays.copyOf(blockOperations, length),
+            Arrays.copyOf(blockOpcodes, length),
+            Arrays.copyOf(blockInstructions, length));
+    if (fusionEnabled) {
+      block.fused = superinstructions.fuse(block);
+    }
+    blockCache.put(block);
+    return block;
+  }
+
   public void execute() throws Exception {
-    int instruction = memory.readWord(pc);
+    step();
+    if (status != STATUS_NONE) {
+      throw raise();
+    }
+  }
+
+  private void step() throws Exception {
+    int instruction;
+    Opcode opcode = decodeCache.opcodeAt(pc);
+    if (opcode != null) {
+      instruction = decodeCache.wordAt(pc);
+    } else {
+      instruction = memory.readWord(pc);
+      opcode = InstructionDecoder.decode(instruction);
+      if (opcode != null) {
+        decodeCache.put(pc, instruction, opcode, memory.getCapacity());
+      }
+    }
+
     if (isCop(instruction)) {
       if ((copBit & 2) != 2) {
         return;
       }
     }
 
+    int address = pc;
     pc += 4;
-    Opcode opcode = InstructionDecoder.decode(instruction);
     if (opcode == null) {
       throw new UnpredictableException("Unknown opcode: " + instruction);
     }
 
+    if (observer != null) {
+      observer.onInstruction(address, instruction, opcode);
+    }
+
     switch (opcode) {
       case ADD:
         add(instruction);
@@ -1105,6 +2292,111 @@ public class CentralProcessor {
         cop2(instruction);
         break;
     }
+
+    if (observer != null && BasicBlock.branches(opcode) && !faulted()) {
+      observer.onBranch(address, instruction, opcode, pc != address + 4, pc);
+    }
+  }
+
+  /**
+   * Executes the delay slot of a linking branch as part of the branch
+   *
+   * @return false if the slot raised a syscall, trap or break and the branch must not jump
+   */
+  private boolean delaySlot() throws Exception {
+    delaySlot = true;
+    try {
+      step();
+    } finally {
+      delaySlot = false;
+    }
+    return !faulted();
+  }
+
+  /** Watchpoint hits and interrupt requests only stop {@link #run(long)} after the instruction */
+  private boolean faulted() {
+    return status != STATUS_NONE && status != STATUS_WATCHPOINT && status != STATUS_EVENTS;
+  }
+
+  private void store(byte bite, int address) {
+    memory.store(bite, address);
+    invalidate(address, 1);
+  }
+
+  private void storeHalf(short half, int address) {
+    memory.storeHalf(half, address);
+    invalidate(address, 2);
+  }
+
+  private void storeWord(int word, int address) {
+    memory.storeWord(word, address);
+    invalidate(address, 4);
+  }
+
+  private void storeDword(long dword, int address) {
+    memory.storeDword(dword, address);
+    invalidate(address, 8);
+  }
+
+  private void invalidate(int address, int length) {
+    if (decodeCache.invalidate(address, length)) {
+      blockCache.clear();
+      codeModified = true;
+    }
+  }
+
+  private int loadLinked(int address) {
+    return monitor == null ? memory.readWord(address) : monitor.loadLinked(hartId, address);
+  }
+
+  /**
+   * Stores word if this hart still holds its reservation on address. A lone processor has no one to
+   * lose the reservation to, so the store always succeeds.
+   */
+  private boolean storeConditional(int word, int address) {
+    if (monitor == null) {
+      storeWord(word, address);
+      return true;
+    }
+
+    if (!monitor.storeConditional(hartId, address, word)) {
+      return false;
+    }
+    invalidate(address, 4);
+    return true;
+  }
+
+  /** Loads the word pair at address into rd and rt, reserving it on a shared memory */
+  private void loadLinkedPair(int address, int rd, int rt) {
+    if (monitor != null) {
+      long pair = monitor.loadLinkedPair(hartId, address);
+      writeGpr(rd, (int) (pair >>> 32));
+      writeGpr(rt, (int) pair);
+      return;
+    }
+
+    writeGpr(rd, memory.readWord(address));
+    writeGpr(rt, memory.readWord(address + 4));
+  }
+
+  /** Stores a word pair like {@link #storeConditional(int, int)} */
+  private boolean storeConditionalPair(int first, int second, int address) {
+    if (monitor == null) {
+      storeWord(first, address);
+      storeWord(second, address + 4);
+      return true;
+    }
+
+    if (!monitor.storeConditionalPair(hartId, address, first, second)) {
+      return false;
+    }
+    invalidate(address, 8);
+    return true;
+  }
+
+  private void writeGpr(int reg, int value) {
+    gpr[reg] = value;
+    gpr[0] = 0; // $zero is hard-wired
   }
 
   private boolean isCop(int instruction) {
@@ -1116,9 +2408,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(source + target);
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, source + target);
   }
 
   private void addu(int instruction) {
@@ -1126,9 +2418,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    long source = Integer.toUnsignedLong(gprFileArray.getFile(rs).readWord());
-    long target = Integer.toUnsignedLong(gprFileArray.getFile(rt).readWord());
-    gprFileArray.getFile(rd).writeWord((int) (source + target));
+    long source = Integer.toUnsignedLong(gpr[rs]);
+    long target = Integer.toUnsignedLong(gpr[rt]);
+    writeGpr(rd, (int) (source + target));
   }
 
   private void addiu(int instruction) {
@@ -1136,15 +2428,15 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short imm = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    gprFileArray.getFile(rt).writeWord(source + imm);
+    int source = gpr[rs];
+    writeGpr(rt, source + imm);
   }
 
   private void addiupc(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int imm = signExtend(instruction & 0xffff, 16) << 2;
 
-    gprFileArray.getFile(rs).writeWord(pc - 4 + imm);
+    writeGpr(rs, pc - 4 + imm);
   }
 
   private void sub(int instruction) {
@@ -1152,9 +2444,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(Math.subtractExact(source, target));
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, Math.subtractExact(source, target));
   }
 
   private void subu(int instruction) {
@@ -1162,25 +2454,25 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(source - target);
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, source - target);
   }
 
   private void seb(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(signExtend(extractBits(target, 0x0, 0x8), 8));
+    int target = gpr[rt];
+    writeGpr(rd, signExtend(extractBits(target, 0x0, 0x8), 8));
   }
 
   private void seh(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(signExtend(extractBits(target, 0x0, 0x10), 0x10));
+    int target = gpr[rt];
+    writeGpr(rd, signExtend(extractBits(target, 0x0, 0x10), 0x10));
   }
 
   private void align(int instruction) {
@@ -1189,35 +2481,35 @@ public class CentralProcessor {
     int rd = (instruction >> 11) & 0x1f;
 
     int bp = (instruction >> 6) & 0x3;
-    int source = gprFileArray.getFile(rs).readWord() >> (8 * (4 - bp));
-    int target = gprFileArray.getFile(rt).readWord() << (8 * bp);
+    int source = gpr[rs] >> (8 * (4 - bp));
+    int target = gpr[rt] << (8 * bp);
 
-    gprFileArray.getFile(rd).writeWord(source | target);
+    writeGpr(rd, source | target);
   }
 
   private void aluipc(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     short imm = (short) (instruction & 0xffff);
-    gprFileArray.getFile(rs).writeWord(~0x0ffff & (pc - 4 + (signExtend(imm, 16) << 16)));
+    writeGpr(rs, ~0x0ffff & (pc - 4 + (signExtend(imm, 16) << 16)));
   }
 
   private void clo(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
 
     int i = 32, mask = 0x80000000;
     for (; (source & mask) != 0 && i > 0; i--, mask >>>= 1)
       ;
-    gprFileArray.getFile(rd).writeWord(32 - i);
+    writeGpr(rd, 32 - i);
   }
 
   private void clz(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    gprFileArray.getFile(rd).writeWord(Integer.numberOfLeadingZeros(source));
+    int source = gpr[rs];
+    writeGpr(rd, Integer.numberOfLeadingZeros(source));
   }
 
   private void sll(int instruction) {
@@ -1225,8 +2517,8 @@ public class CentralProcessor {
     int rd = (instruction >> 11) & 0x1f;
     int sa = (instruction >> 6) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(target << sa);
+    int target = gpr[rt];
+    writeGpr(rd, target << sa);
   }
 
   private void sllv(int instruction) {
@@ -1234,9 +2526,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(target << source);
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, target << source);
   }
 
   private void rotr(int instruction) {
@@ -1244,12 +2536,11 @@ public class CentralProcessor {
     int rd = (instruction >> 11) & 0x1f;
     int sa = (instruction >> 6) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray
-        .getFile(rd)
-        .writeWord(
-            (extractBits(target, 0x0, sa) << (0x20 - sa))
-                | (extractBits(target, sa, 0x20 - sa) >>> sa));
+    int target = gpr[rt];
+    writeGpr(
+        rd,
+        (extractBits(target, 0x0, sa) << (0x20 - sa))
+            | (extractBits(target, sa, 0x20 - sa) >>> sa));
   }
 
   private void rotrv(int instruction) {
@@ -1257,14 +2548,12 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int sa = source & 0x1f;
 
-    gprFileArray
-        .getFile(rd)
-        .writeWord(
-            (extractBits(target, 0x0, sa) << (0x20 - sa)) | extractBits(target, sa, 0x20 - sa));
+    writeGpr(
+        rd, (extractBits(target, 0x0, sa) << (0x20 - sa)) | extractBits(target, sa, 0x20 - sa));
   }
 
   private void sra(int instruction) {
@@ -1272,8 +2561,8 @@ public class CentralProcessor {
     int rd = (instruction >> 11) & 0x1f;
     int sa = (instruction >> 6) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(target >> sa);
+    int target = gpr[rt];
+    writeGpr(rd, target >> sa);
   }
 
   private void srav(int instruction) {
@@ -1281,11 +2570,11 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int sa = source & 0x1f;
 
-    gprFileArray.getFile(rd).writeWord(target >> sa);
+    writeGpr(rd, target >> sa);
   }
 
   private void srl(int instruction) {
@@ -1293,8 +2582,8 @@ public class CentralProcessor {
     int rd = (instruction >> 11) & 0x1f;
     int sa = (instruction >> 6) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(target >>> sa);
+    int target = gpr[rt];
+    writeGpr(rd, target >>> sa);
   }
 
   private void srlv(int instruction) {
@@ -1302,39 +2591,37 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int sa = source & 0x1f;
 
-    gprFileArray.getFile(rd).writeWord(target >>> sa);
+    writeGpr(rd, target >>> sa);
   }
 
   private void wsbh(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray
-        .getFile(rd)
-        .writeWord(
-            (extractBits(target, 0x10, 0x8) << 0x18)
-                | (extractBits(target, 0x18, 0x8) << 0x10)
-                | (extractBits(target, 0x0, 0x8) << 0x8)
-                | extractBits(target, 0x8, 0x8));
+    int target = gpr[rt];
+    writeGpr(
+        rd,
+        (extractBits(target, 0x10, 0x8) << 0x18)
+            | (extractBits(target, 0x18, 0x8) << 0x10)
+            | (extractBits(target, 0x0, 0x8) << 0x8)
+            | extractBits(target, 0x8, 0x8));
   }
 
   private void bitswap(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray
-        .getFile(rd)
-        .writeWord(
-            (0x0ff & reverseByte(extractBits(target, 0x18, 0x8)) << 0x18)
-                | 0x0ff & (reverseByte(extractBits(target, 0x10, 0x8)) << 0x10)
-                | 0x0ff & (reverseByte(extractBits(target, 0x8, 0x8)) << 0x8)
-                | 0x0ff & reverseByte(extractBits(target, 0x0, 0x8)));
+    int target = gpr[rt];
+    writeGpr(
+        rd,
+        (0x0ff & reverseByte(extractBits(target, 0x18, 0x8)) << 0x18)
+            | 0x0ff & (reverseByte(extractBits(target, 0x10, 0x8)) << 0x10)
+            | 0x0ff & (reverseByte(extractBits(target, 0x8, 0x8)) << 0x8)
+            | 0x0ff & reverseByte(extractBits(target, 0x0, 0x8)));
   }
 
   private void and_(int instruction) {
@@ -1342,9 +2629,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(source & target);
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, source & target);
   }
 
   private void andi(int instruction) {
@@ -1352,8 +2639,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short imm = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    gprFileArray.getFile(rt).writeWord(source & imm);
+    int source = gpr[rs];
+    writeGpr(rt, source & imm);
   }
 
   private void nor(int instruction) {
@@ -1361,9 +2648,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(~(source | target));
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, ~(source | target));
   }
 
   private void or_(int instruction) {
@@ -1371,9 +2658,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(source | target);
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, source | target);
   }
 
   private void ori(int instruction) {
@@ -1381,8 +2668,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short imm = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    gprFileArray.getFile(rt).writeWord(source | imm);
+    int source = gpr[rs];
+    writeGpr(rt, source | imm);
   }
 
   private void xor_(int instruction) {
@@ -1390,9 +2677,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(source ^ target);
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, source ^ target);
   }
 
   private void xori(int instruction) {
@@ -1400,8 +2687,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short imm = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    gprFileArray.getFile(rt).writeWord(source ^ imm);
+    int source = gpr[rs];
+    writeGpr(rt, source ^ imm);
   }
 
   private void ext(int instruction) {
@@ -1410,9 +2697,9 @@ public class CentralProcessor {
     int pos = (instruction >> 6) & 0x1f;
     int size = ((instruction >> 11) & 0x1f);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     int extracted = extractBits(source, pos, size);
-    gprFileArray.getFile(rt).writeWord(extracted);
+    writeGpr(rt, extracted);
   }
 
   private void ins(int instruction) {
@@ -1421,12 +2708,12 @@ public class CentralProcessor {
     int pos = (instruction >> 6) & 0x1f;
     int size = ((instruction >> 11) & 0x1f) + 1;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
 
     int mask = ((1 << size) - 1) << pos;
     int result = (target & ~mask) | (extractBits(source, pos, size) << pos);
-    gprFileArray.getFile(rt).writeWord(result);
+    writeGpr(rt, result);
   }
 
   private void aui(int instruction) {
@@ -1434,15 +2721,15 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short imm = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    gprFileArray.getFile(rt).writeWord(source | (signExtend(imm, 16) << 16));
+    int source = gpr[rs];
+    writeGpr(rt, source | (signExtend(imm, 16) << 16));
   }
 
   private void auipc(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     short imm = (short) (instruction & 0xffff);
 
-    gprFileArray.getFile(rs).writeWord(pc - 4 + (signExtend(imm, 16) << 16));
+    writeGpr(rs, pc - 4 + (signExtend(imm, 16) << 16));
   }
 
   private void movn(int instruction) {
@@ -1450,10 +2737,10 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (target != 0) {
-      gprFileArray.getFile(rd).writeWord(source);
+      writeGpr(rd, source);
     }
   }
 
@@ -1462,10 +2749,10 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (target == 0) {
-      gprFileArray.getFile(rd).writeWord(source);
+      writeGpr(rd, source);
     }
   }
 
@@ -1474,10 +2761,10 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int result = source < target ? 1 : 0;
-    gprFileArray.getFile(rd).writeWord(result);
+    writeGpr(rd, result);
   }
 
   private void slti(int instruction) {
@@ -1485,9 +2772,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short imm = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     int result = source < imm ? 1 : 0;
-    gprFileArray.getFile(rt).writeWord(result);
+    writeGpr(rt, result);
   }
 
   private void sltiu(int instruction) {
@@ -1495,9 +2782,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short imm = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     int result = Integer.compareUnsigned(source, imm) < 0 ? 1 : 0;
-    gprFileArray.getFile(rt).writeWord(result);
+    writeGpr(rt, result);
   }
 
   private void sltu(int instruction) {
@@ -1505,10 +2792,10 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int result = Integer.compareUnsigned(source, target) < 0 ? 1 : 0;
-    gprFileArray.getFile(rd).writeWord(result);
+    writeGpr(rd, result);
   }
 
   private void div(int instruction) {
@@ -1516,9 +2803,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(source / target);
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, source / target);
   }
 
   private void divu(int instruction) {
@@ -1526,11 +2813,11 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int result = (int) (Integer.toUnsignedLong(source) / Integer.toUnsignedLong(target));
 
-    gprFileArray.getFile(rd).writeWord(result);
+    writeGpr(rd, result);
   }
 
   private void modu(int instruction) {
@@ -1538,11 +2825,11 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int result = Integer.remainderUnsigned(source, target);
 
-    gprFileArray.getFile(rd).writeWord(result);
+    writeGpr(rd, result);
   }
 
   private void mod(int instruction) {
@@ -1550,9 +2837,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(rd).writeWord(source % target);
+    int source = gpr[rs];
+    int target = gpr[rt];
+    writeGpr(rd, source % target);
   }
 
   private void mul(int instruction) {
@@ -1560,11 +2847,11 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    long source = gprFileArray.getFile(rs).readWord();
-    long target = gprFileArray.getFile(rt).readWord();
+    long source = gpr[rs];
+    long target = gpr[rt];
     long result = source * target;
 
-    gprFileArray.getFile(rd).writeWord((int) result);
+    writeGpr(rd, (int) result);
   }
 
   private void muh(int instruction) {
@@ -1572,11 +2859,11 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    long source = gprFileArray.getFile(rs).readWord();
-    long target = gprFileArray.getFile(rt).readWord();
+    long source = gpr[rs];
+    long target = gpr[rt];
     long result = source * target;
 
-    gprFileArray.getFile(rd).writeWord((int) (result >> 32));
+    writeGpr(rd, (int) (result >> 32));
   }
 
   private void mulu(int instruction) {
@@ -1584,11 +2871,11 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    long source = Integer.toUnsignedLong(gprFileArray.getFile(rs).readWord());
-    long target = Integer.toUnsignedLong(gprFileArray.getFile(rt).readWord());
+    long source = Integer.toUnsignedLong(gpr[rs]);
+    long target = Integer.toUnsignedLong(gpr[rt]);
     long result = source * target;
 
-    gprFileArray.getFile(rd).writeWord((int) result);
+    writeGpr(rd, (int) result);
   }
 
   private void muhu(int instruction) {
@@ -1596,19 +2883,19 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    long source = Integer.toUnsignedLong(gprFileArray.getFile(rs).readWord());
-    long target = Integer.toUnsignedLong(gprFileArray.getFile(rt).readWord());
+    long source = Integer.toUnsignedLong(gpr[rs]);
+    long target = Integer.toUnsignedLong(gpr[rt]);
     long result = source * target;
 
-    gprFileArray.getFile(rd).writeWord((int) (result >> 32));
+    writeGpr(rd, (int) (result >> 32));
   }
 
   private void madd(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    long source = gprFileArray.getFile(rs).readWord();
-    long target = gprFileArray.getFile(rt).readWord();
+    long source = gpr[rs];
+    long target = gpr[rt];
     long result = ((((long) hi) << 32) | lo) + source * target;
 
     hi = (int) (result >> 32);
@@ -1619,8 +2906,8 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    long source = Integer.toUnsignedLong(gprFileArray.getFile(rs).readWord());
-    long target = Integer.toUnsignedLong(gprFileArray.getFile(rt).readWord());
+    long source = Integer.toUnsignedLong(gpr[rs]);
+    long target = Integer.toUnsignedLong(gpr[rt]);
     long result = ((((long) hi) << 32) | lo) + source * target;
 
     hi = (int) (result >> 32);
@@ -1631,8 +2918,8 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    long source = gprFileArray.getFile(rs).readWord();
-    long target = gprFileArray.getFile(rt).readWord();
+    long source = gpr[rs];
+    long target = gpr[rt];
     long acc = ((long) hi) << 32 | lo;
 
     long result = acc - source * target;
@@ -1644,8 +2931,8 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    long source = Integer.toUnsignedLong(gprFileArray.getFile(rs).readWord());
-    long target = Integer.toUnsignedLong(gprFileArray.getFile(rt).readWord());
+    long source = Integer.toUnsignedLong(gpr[rs]);
+    long target = Integer.toUnsignedLong(gpr[rt]);
     long acc = ((long) hi) << 32 | lo;
 
     long result = acc - source * target;
@@ -1657,8 +2944,8 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    long source = gprFileArray.getFile(rs).readWord();
-    long target = gprFileArray.getFile(rt).readWord();
+    long source = gpr[rs];
+    long target = gpr[rt];
     long result = source * target;
 
     hi = (int) (result >> 32);
@@ -1669,8 +2956,8 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    long source = Integer.toUnsignedLong(gprFileArray.getFile(rs).readWord());
-    long target = Integer.toUnsignedLong(gprFileArray.getFile(rt).readWord());
+    long source = Integer.toUnsignedLong(gpr[rs]);
+    long target = Integer.toUnsignedLong(gpr[rt]);
     long result = source * target;
 
     hi = (int) (result >> 32);
@@ -1679,14 +2966,16 @@ public class CentralProcessor {
 
   private void bal(int instruction) throws Exception {
     short offset = (short) (instruction & 0xffff);
-    gprFileArray.getFile(31).writeWord(pc + 4);
-    execute(); // delay slot
+    writeGpr(31, pc + 4);
+    if (!delaySlot()) {
+      return;
+    }
     pc += (offset << 2);
   }
 
   private void balc(int instruction) {
     int offset = instruction & 0x3ffffff;
-    gprFileArray.getFile(31).writeWord(pc);
+    writeGpr(31, pc);
     pc += signExtend(offset << 2, 28);
   }
 
@@ -1699,7 +2988,7 @@ public class CentralProcessor {
     int ft = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = fpuRegisterFileArray.getFile(ft).readWord();
+    int target = (int) fpr[ft];
     if ((target & 1) == 0) {
       pc += (offset << 2);
     }
@@ -1709,7 +2998,7 @@ public class CentralProcessor {
     int ft = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = fpuRegisterFileArray.getFile(ft).readWord();
+    int target = (int) fpr[ft];
     if ((target & 1) == 1) {
       pc += (offset << 2);
     }
@@ -1740,8 +3029,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source == target) {
       pc += (offset << 2);
     }
@@ -1752,8 +3041,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source == target) {
       pc += (offset << 2);
     }
@@ -1763,9 +3052,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target == 0) {
-      gprFileArray.getFile(31).writeWord(pc);
+      writeGpr(31, pc);
       pc += offset << 2;
     }
   }
@@ -1775,8 +3064,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source != target) {
       pc += (offset << 2);
     }
@@ -1787,8 +3076,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source != target) {
       pc += (offset << 2);
     }
@@ -1798,7 +3087,7 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int offset = signExtend(instruction & 0x1fffff, 21);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source != 0) {
       pc += (offset << 2);
     }
@@ -1809,8 +3098,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    long source = gprFileArray.getFile(rs).readWord();
-    long target = gprFileArray.getFile(rt).readWord();
+    long source = gpr[rs];
+    long target = gpr[rt];
     long result = source + target;
     if (result != (int) result) {
       pc += offset << 2;
@@ -1822,8 +3111,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    long source = gprFileArray.getFile(rs).readWord();
-    long target = gprFileArray.getFile(rt).readWord();
+    long source = gpr[rs];
+    long target = gpr[rt];
     long result = source + target;
     if (result == (int) result) {
       pc += offset << 2;
@@ -1834,7 +3123,7 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int offset = instruction & 0x1fffff;
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source == 0) {
       pc += signExtend(offset << 2, 23);
     }
@@ -1844,7 +3133,7 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source >= 0) {
       pc += (offset << 2);
     }
@@ -1854,7 +3143,7 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source > 0) {
       pc += (offset << 2);
     }
@@ -1864,9 +3153,9 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source >= 0) {
-      gprFileArray.getFile(31).writeWord(pc); // no delay slot implementation
+      writeGpr(31, pc); // no delay slot implementation
       pc += (offset << 2);
     }
   }
@@ -1875,9 +3164,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target <= 0) {
-      gprFileArray.getFile(31).writeWord(pc);
+      writeGpr(31, pc);
       pc += offset << 2;
     }
   }
@@ -1886,9 +3175,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target >= 0) {
-      gprFileArray.getFile(31).writeWord(pc);
+      writeGpr(31, pc);
       pc += offset << 2;
     }
   }
@@ -1897,9 +3186,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target > 0) {
-      gprFileArray.getFile(31).writeWord(pc);
+      writeGpr(31, pc);
       pc += offset << 2;
     }
   }
@@ -1908,9 +3197,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target < 0) {
-      gprFileArray.getFile(31).writeWord(pc);
+      writeGpr(31, pc);
       pc += offset << 2;
     }
   }
@@ -1919,9 +3208,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target != 0) {
-      gprFileArray.getFile(31).writeWord(pc);
+      writeGpr(31, pc);
       pc += offset << 2;
     }
   }
@@ -1930,7 +3219,7 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target <= 0) {
       pc += offset << 2;
     }
@@ -1940,7 +3229,7 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target >= 0) {
       pc += offset << 2;
     }
@@ -1951,8 +3240,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source >= target) {
       pc += offset << 2;
     }
@@ -1962,7 +3251,7 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target > 0) {
       pc += offset << 2;
     }
@@ -1972,7 +3261,7 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     if (target < 0) {
       pc += offset << 2;
     }
@@ -1983,8 +3272,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source < target) {
       pc += offset << 2;
     }
@@ -1995,8 +3284,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    long source = gprFileArray.getFile(rs).readWord() & 0xffffffffL;
-    long target = gprFileArray.getFile(rt).readWord() & 0xffffffffL;
+    long source = gpr[rs] & 0xffffffffL;
+    long target = gpr[rt] & 0xffffffffL;
     if (source >= target) {
       pc += offset << 2;
     }
@@ -2007,8 +3296,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    long source = gprFileArray.getFile(rs).readWord() & 0xffffffffL;
-    long target = gprFileArray.getFile(rt).readWord() & 0xffffffffL;
+    long source = gpr[rs] & 0xffffffffL;
+    long target = gpr[rt] & 0xffffffffL;
     if (source < target) {
       pc += offset << 2;
     }
@@ -2018,7 +3307,7 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source <= 0) {
       pc += offset << 2;
     }
@@ -2028,7 +3317,7 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source < 0) {
       pc += offset << 2;
     }
@@ -2038,20 +3327,22 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source < 0) {
-      gprFileArray.getFile(31).writeWord(pc + 4);
-      execute(); // delay slot implementation
+      writeGpr(31, pc + 4);
+      if (!delaySlot()) {
+        return;
+      }
       pc += offset << 2;
     }
   }
 
   private void nal(int instruction) {
-    gprFileArray.getFile(31).writeWord(pc); // no delay slot implementation
+    writeGpr(31, pc); // no delay slot implementation
   }
 
   private void break_(int instruction) {
-    throw new BreakException();
+    status = STATUS_BREAK;
   }
 
   private void j(int instruction) {
@@ -2061,8 +3352,10 @@ public class CentralProcessor {
 
   private void jal(int instruction) throws Exception {
     int instr_index = instruction & 0x3ffffff;
-    gprFileArray.getFile(31).writeWord(pc + 4);
-    execute(); // delay slot implementation
+    writeGpr(31, pc + 4);
+    if (!delaySlot()) {
+      return;
+    }
     pc = (pc & 0xf0000000) | (instr_index << 2);
   }
 
@@ -2070,12 +3363,14 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     if (source % 4 != 0) {
       throw new AddressErrorException("jalr: Effective address is not 4-byte aligned");
     }
-    gprFileArray.getFile(rd).writeWord(pc + 4);
-    execute(); // delay slot
+    writeGpr(rd, pc + 4);
+    if (!delaySlot()) {
+      return;
+    }
 
     pc = source;
   }
@@ -2084,7 +3379,7 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     pc = target + offset;
   }
 
@@ -2092,27 +3387,27 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    gprFileArray.getFile(rd).writeWord(pc);
+    int source = gpr[rs];
+    writeGpr(rd, pc);
     pc = source;
   }
 
   private void jr(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
-    pc = gprFileArray.getFile(rs).readWord();
+    pc = gpr[rs];
   }
 
   private void jr_hb(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
-    pc = gprFileArray.getFile(rs).readWord();
+    pc = gpr[rs];
   }
 
   private void jialc(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int target = gprFileArray.getFile(rt).readWord();
-    gprFileArray.getFile(31).writeWord(pc);
+    int target = gpr[rt];
+    writeGpr(31, pc);
     pc = target + offset;
   }
 
@@ -2121,10 +3416,10 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int result = (target == 0) ? source : 0;
-    gprFileArray.getFile(rd).writeWord(result);
+    writeGpr(rd, result);
   }
 
   private void selnez(int instruction) {
@@ -2132,20 +3427,20 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int result = (target != 0) ? source : 0;
-    gprFileArray.getFile(rd).writeWord(result);
+    writeGpr(rd, result);
   }
 
   private void teq(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source == target) {
-      throw new TrapException();
+      status = STATUS_TRAP;
     }
   }
 
@@ -2153,10 +3448,10 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source >= target) {
-      throw new TrapException();
+      status = STATUS_TRAP;
     }
   }
 
@@ -2164,10 +3459,10 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    long source = Integer.toUnsignedLong(gprFileArray.getFile(rs).readWord());
-    long target = Integer.toUnsignedLong(gprFileArray.getFile(rt).readWord());
+    long source = Integer.toUnsignedLong(gpr[rs]);
+    long target = Integer.toUnsignedLong(gpr[rt]);
     if (source >= target) {
-      throw new TrapException();
+      status = STATUS_TRAP;
     }
   }
 
@@ -2175,10 +3470,10 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source < target) {
-      throw new TrapException();
+      status = STATUS_TRAP;
     }
   }
 
@@ -2186,10 +3481,10 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    long source = Integer.toUnsignedLong(gprFileArray.getFile(rs).readWord());
-    long target = Integer.toUnsignedLong(gprFileArray.getFile(rt).readWord());
+    long source = Integer.toUnsignedLong(gpr[rs]);
+    long target = Integer.toUnsignedLong(gpr[rt]);
     if (source < target) {
-      throw new TrapException();
+      status = STATUS_TRAP;
     }
   }
 
@@ -2197,10 +3492,10 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     if (source != target) {
-      throw new TrapException();
+      status = STATUS_TRAP;
     }
   }
 
@@ -2209,9 +3504,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int word = memory.readWord(address);
-    gprFileArray.getFile(rt).writeWord(word);
+    writeGpr(rt, word);
   }
 
   private void lwe(int instruction) {
@@ -2219,9 +3514,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int word = memory.readWord(address);
-    gprFileArray.getFile(rt).writeWord(word);
+    writeGpr(rt, word);
   }
 
   private void sw(int instruction) {
@@ -2229,9 +3524,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
-    memory.storeWord(target, address);
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
+    storeWord(target, address);
   }
 
   private void swe(int instruction) {
@@ -2239,9 +3534,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
-    memory.storeWord(target, address);
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
+    storeWord(target, address);
   }
 
   private void lb(int instruction) {
@@ -2249,9 +3544,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int bite = memory.read(address);
-    gprFileArray.getFile(rt).writeWord(bite);
+    writeGpr(rt, bite);
   }
 
   private void lbe(int instruction) {
@@ -2259,9 +3554,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     byte bite = memory.read(address);
-    gprFileArray.getFile(rt).writeWord(bite);
+    writeGpr(rt, bite);
   }
 
   private void lbu(int instruction) {
@@ -2269,9 +3564,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int ubite = memory.read(address) & 0xff;
-    gprFileArray.getFile(rt).writeWord(ubite);
+    writeGpr(rt, ubite);
   }
 
   private void lbue(int instruction) {
@@ -2279,9 +3574,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int ubite = memory.read(address) & 0xff;
-    gprFileArray.getFile(rt).writeWord(ubite);
+    writeGpr(rt, ubite);
   }
 
   private void lh(int instruction) {
@@ -2289,9 +3584,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int half = memory.readHalf(address);
-    gprFileArray.getFile(rt).writeWord(half);
+    writeGpr(rt, half);
   }
 
   private void lhe(int instruction) {
@@ -2299,9 +3594,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     short half = memory.readHalf(address);
-    gprFileArray.getFile(rt).writeWord(half);
+    writeGpr(rt, half);
   }
 
   private void lhu(int instruction) {
@@ -2309,9 +3604,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int uhalf = memory.readHalf(address) & 0xffff;
-    gprFileArray.getFile(rt).writeWord(uhalf);
+    writeGpr(rt, uhalf);
   }
 
   private void lhue(int instruction) {
@@ -2319,9 +3614,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int uhalf = memory.readHalf(address) & 0xffff;
-    gprFileArray.getFile(rt).writeWord(uhalf);
+    writeGpr(rt, uhalf);
   }
 
   private void lsa(int instruction) {
@@ -2330,10 +3625,10 @@ public class CentralProcessor {
     int rd = (instruction >> 11) & 0x1f;
     int sa = ((instruction >> 6) & 0x3) + 1;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int result = (source << sa) + target;
-    gprFileArray.getFile(rd).writeWord(result);
+    writeGpr(rd, result);
   }
 
   private void lwl(int instruction) {
@@ -2341,13 +3636,13 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
     int mem = memory.readHalf(address);
 
     target &= 0xffff;
     target |= (mem << 16);
-    gprFileArray.getFile(rt).writeWord(target);
+    writeGpr(rt, target);
   }
 
   private void lwpc(int instruction) {
@@ -2356,7 +3651,7 @@ public class CentralProcessor {
 
     int address = pc + signExtend(offset << 2, 21);
     int result = memory.readWord(address);
-    gprFileArray.getFile(rs).writeWord(result);
+    writeGpr(rs, result);
   }
 
   private void lwr(int instruction) {
@@ -2364,8 +3659,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
     int mem = memory.read(address);
 
     int eAddr = address - 1;
@@ -2375,7 +3670,7 @@ public class CentralProcessor {
 
     target &= 0xffff0000;
     target |= mem;
-    gprFileArray.getFile(rt).writeWord(target);
+    writeGpr(rt, target);
   }
 
   private void sb(int instruction) {
@@ -2383,9 +3678,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
-    memory.store((byte) target, address);
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
+    store((byte) target, address);
   }
 
   private void sbe(int instruction) {
@@ -2393,9 +3688,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
-    memory.store((byte) target, address);
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
+    store((byte) target, address);
   }
 
   private void sh(int instruction) {
@@ -2403,9 +3698,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
-    memory.storeHalf((short) target, address);
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
+    storeHalf((short) target, address);
   }
 
   private void she(int instruction) {
@@ -2413,9 +3708,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
-    memory.storeHalf((short) target, address);
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
+    storeHalf((short) target, address);
   }
 
   private void swl(int instruction) {
@@ -2423,9 +3718,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
-    memory.storeHalf((short) (target >> 16), address);
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
+    storeHalf((short) (target >> 16), address);
   }
 
   private void swr(int instruction) {
@@ -2433,14 +3728,14 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
     int eAddr = address - 1;
 
     if (eAddr >= 0) {
-      memory.storeHalf((short) target, eAddr);
+      storeHalf((short) target, eAddr);
     } else {
-      memory.store((byte) target, address);
+      store((byte) target, address);
     }
   }
 
@@ -2455,36 +3750,35 @@ public class CentralProcessor {
   private void mfhi(int instruction) {
     int rd = (instruction >> 11) & 0x1f;
     int hi = this.hi;
-    gprFileArray.getFile(rd).writeWord(hi);
+    writeGpr(rd, hi);
   }
 
   private void mflo(int instruction) {
     int rd = (instruction >> 11) & 0x1f;
     int lo = this.lo;
-    gprFileArray.getFile(rd).writeWord(lo);
+    writeGpr(rd, lo);
   }
 
   private void mthi(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
-    hi = gprFileArray.getFile(rs).readWord();
+    hi = gpr[rs];
   }
 
   private void mtlo(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
-    int source = gprFileArray.getFile(rs).readWord();
+    int source = gpr[rs];
     lo = source;
   }
 
-  // Note: atomic instructions always succeeds because we're not really going try to simulate
-  // synchronization
+  // Note: atomic instructions only fail on a hart of a Multiprocessor, where another hart can take
+  // the reservation away
   private void ll(int instruction) {
     int base = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int mem = memory.readWord(address);
-    gprFileArray.getFile(rt).writeWord(mem);
+    int address = gpr[base] + offset;
+    writeGpr(rt, loadLinked(address));
   }
 
   private void lle(int instruction) {
@@ -2492,9 +3786,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int result = memory.readWord(address);
-    gprFileArray.getFile(rt).writeWord(result);
+    int address = gpr[base] + offset;
+    writeGpr(rt, loadLinked(address));
   }
 
   private void llwp(int instruction) {
@@ -2502,9 +3795,7 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int address = gprFileArray.getFile(base).readWord();
-    gprFileArray.getFile(rd).writeWord(memory.readWord(address));
-    gprFileArray.getFile(rt).writeWord(memory.readWord(address + 4));
+    loadLinkedPair(gpr[base], rd, rt);
   }
 
   private void llwpe(int instruction) {
@@ -2512,9 +3803,7 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int address = gprFileArray.getFile(base).readWord();
-    gprFileArray.getFile(rd).writeWord(memory.readWord(address));
-    gprFileArray.getFile(rt).writeWord(memory.readWord(address + 4));
+    loadLinkedPair(gpr[base], rd, rt);
   }
 
   private void sc(int instruction) {
@@ -2522,11 +3811,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = gprFileArray.getFile(rt).readWord();
-    memory.storeWord(target, address);
-
-    gprFileArray.getFile(rt).writeWord(1);
+    int address = gpr[base] + offset;
+    int target = gpr[rt];
+    writeGpr(rt, storeConditional(target, address) ? 1 : 0);
   }
 
   private void sce(int instruction) {
@@ -2534,11 +3821,9 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     short offset = (short) ((instruction & (0x1ff << 7)) >> 7);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int value = gprFileArray.getFile(rt).readWord();
-    memory.storeWord(value, address);
-
-    gprFileArray.getFile(rt).writeWord(1);
+    int address = gpr[base] + offset;
+    int value = gpr[rt];
+    writeGpr(rt, storeConditional(value, address) ? 1 : 0);
   }
 
   private void scwp(int instruction) {
@@ -2546,13 +3831,10 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int address = gprFileArray.getFile(base).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    int dest = gprFileArray.getFile(rd).readWord();
-
-    memory.storeWord(dest, address);
-    memory.storeWord(target, address + 4);
-    gprFileArray.getFile(rt).writeWord(1);
+    int address = gpr[base];
+    int target = gpr[rt];
+    int dest = gpr[rd];
+    writeGpr(rt, storeConditionalPair(dest, target, address) ? 1 : 0);
   }
 
   private void scwpe(int instruction) {
@@ -2560,13 +3842,10 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int address = gprFileArray.getFile(base).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
-    int dest = gprFileArray.getFile(rd).readWord();
-
-    memory.storeWord(dest, address);
-    memory.storeWord(target, address + 4);
-    gprFileArray.getFile(rt).writeWord(1);
+    int address = gpr[base];
+    int target = gpr[rt];
+    int dest = gpr[rd];
+    writeGpr(rt, storeConditionalPair(dest, target, address) ? 1 : 0);
   }
 
   private void pref(int instruction) {
@@ -2578,7 +3857,11 @@ public class CentralProcessor {
   }
 
   private void rdhwr(int instruction) {
-    // noop
+    int rt = (instruction >> 16) & 0x1f;
+    int rd = (instruction >> 11) & 0x1f;
+    if (rd == 0) { // CPUNum
+      writeGpr(rt, hartId);
+    }
   }
 
   private void rdpgpr(int instruction) {
@@ -2586,7 +3869,7 @@ public class CentralProcessor {
     int rd = (instruction >> 11) & 0x1f;
 
     int dest = shadowRegisterFileArray.getFile(rd).readWord();
-    gprFileArray.getFile(rt).writeWord(dest);
+    writeGpr(rt, dest);
   }
 
   private void deret(int instruction) {
@@ -2594,7 +3877,9 @@ public class CentralProcessor {
   }
 
   private void di(int instruction) {
-    // noop
+    int rt = (instruction >> 16) & 0x1f;
+    writeGpr(rt, cp0Status);
+    cp0Status &= ~STATUS_IE;
   }
 
   private void dvp(int instruction) {
@@ -2606,15 +3891,23 @@ public class CentralProcessor {
   }
 
   private void ei(int instruction) {
-    // noop
+    int rt = (instruction >> 16) & 0x1f;
+    writeGpr(rt, cp0Status);
+    cp0Status |= STATUS_IE;
+    checkInterrupts();
   }
 
   private void eret(int instruction) {
-    // noop
+    if (monitor != null) {
+      monitor.clear(hartId); // a lone processor keeps no reservation to clear
+    }
+    eretnc(instruction);
   }
 
   private void eretnc(int instruction) {
-    // noop
+    pc = epc;
+    cp0Status &= ~STATUS_EXL;
+    checkInterrupts();
   }
 
   private void ginvi(int instruction) {
@@ -2630,20 +3923,22 @@ public class CentralProcessor {
   }
 
   private void sdbbp(int instruction) {
-    throw new DebugBreakpointException();
+    status = STATUS_DEBUG_BREAKPOINT;
   }
 
   private void sigrie(int instruction) {
-    throw new ReservedInstructionException();
+    status = STATUS_RESERVED_INSTRUCTION;
   }
 
   private void syscall(int instruction) {
-    int code = getGprFileArray().getFile(2).readWord();
-    throw new SyscallException(code);
+    status = STATUS_SYSCALL;
+    statusCode = gpr[2];
   }
 
   private void sync(int instruction) {
-    // noop
+    if (monitor != null) {
+      monitor.fence();
+    }
   }
 
   private void synci(int instruction) {
@@ -2682,7 +3977,7 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int rd = (instruction >> 11) & 0x1f;
 
-    int value = gprFileArray.getFile(rt).readWord();
+    int value = gpr[rt];
     shadowRegisterFileArray.getFile(rd).writeWord(value);
   }
 
@@ -2695,9 +3990,9 @@ public class CentralProcessor {
     int ft = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    int target = fpuRegisterFileArray.getFile(ft).readWord();
-    memory.storeWord(target, address);
+    int address = gpr[base] + offset;
+    int target = (int) fpr[ft];
+    storeWord(target, address);
   }
 
   private void swc2(int instruction) {
@@ -2705,9 +4000,9 @@ public class CentralProcessor {
     int ct = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0x7ff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int target = cop2RegisterFileArray.getFile(ct).readWord();
-    memory.storeWord(target, address);
+    storeWord(target, address);
   }
 
   private void ldc1(int instruction) {
@@ -2715,9 +4010,9 @@ public class CentralProcessor {
     int ft = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     long mem = memory.readDWord(address);
-    fpuRegisterFileArray.getFile(ft).writeDword(mem);
+    fpr[ft] = mem;
   }
 
   private void ldc2(int instruction) {
@@ -2725,7 +4020,7 @@ public class CentralProcessor {
     int ct = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0x7ff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     long mem = memory.readDWord(address);
     cop2RegisterFileArray.getFile(ct).writeDword(mem);
   }
@@ -2735,9 +4030,9 @@ public class CentralProcessor {
     int ft = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int mem = memory.readWord(address);
-    fpuRegisterFileArray.getFile(ft).writeWord(mem);
+    writeWord(ft, mem);
   }
 
   private void lwc2(int instruction) {
@@ -2745,7 +4040,7 @@ public class CentralProcessor {
     int ct = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0x7ff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     int mem = memory.readWord(address);
     cop2RegisterFileArray.getFile(ct).writeWord(mem);
   }
@@ -2755,9 +4050,9 @@ public class CentralProcessor {
     int ft = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0xffff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
-    long target = fpuRegisterFileArray.getFile(ft).readDword();
-    memory.storeDword(target, address);
+    int address = gpr[base] + offset;
+    long target = fpr[ft];
+    storeDword(target, address);
   }
 
   private void sdc2(int instruction) {
@@ -2765,9 +4060,9 @@ public class CentralProcessor {
     int ct = (instruction >> 16) & 0x1f;
     short offset = (short) (instruction & 0x7ff);
 
-    int address = gprFileArray.getFile(base).readWord() + offset;
+    int address = gpr[base] + offset;
     long target = cop2RegisterFileArray.getFile(ct).readDword();
-    memory.storeDword(target, address);
+    storeDword(target, address);
   }
 
   private void cfc1(int instruction) {
@@ -2775,7 +4070,7 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
 
     int source = fpcRegisterFileArray.getFile(fs).readWord();
-    gprFileArray.getFile(rt).writeWord(source);
+    writeGpr(rt, source);
   }
 
   private void cfc2(int instruction) {
@@ -2783,14 +4078,14 @@ public class CentralProcessor {
     int cs = (instruction >> 11) & 0x1f;
 
     int source = cop2ControlRegisterFileArray.getFile(cs).readWord();
-    gprFileArray.getFile(rt).writeWord(source);
+    writeGpr(rt, source);
   }
 
   private void ctc1(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int fs = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     fpcRegisterFileArray.getFile(fs).writeWord(target);
   }
 
@@ -2798,20 +4093,47 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int cs = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     cop2ControlRegisterFileArray.getFile(cs).writeWord(target);
   }
 
   private void mfc0(int instruction) {
-    // noop
+    int rt = (instruction >> 16) & 0x1f;
+    int rd = (instruction >> 11) & 0x1f;
+    int sel = instruction & 0x7;
+
+    int source;
+    switch (rd) {
+      case CP0_COUNT:
+        source = (int) (clock - countBase);
+        break;
+      case CP0_COMPARE:
+        source = compare;
+        break;
+      case CP0_STATUS:
+        source = cp0Status;
+        break;
+      case CP0_CAUSE:
+        source = cause;
+        break;
+      case CP0_EPC:
+        source = epc;
+        break;
+      case CP0_EBASE:
+        source = sel == 1 ? ebase : 0;
+        break;
+      default:
+        source = 0;
+    }
+    writeGpr(rt, source);
   }
 
   private void mfc1(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int fs = (instruction >> 11) & 0x1f;
 
-    int source = fpuRegisterFileArray.getFile(fs).readWord();
-    gprFileArray.getFile(rt).writeWord(source);
+    int source = (int) fpr[fs];
+    writeGpr(rt, source);
   }
 
   private void mfc2(int instruction) {
@@ -2819,7 +4141,7 @@ public class CentralProcessor {
     int cs = (instruction >> 11) & 0x1f;
 
     int source = cop2RegisterFileArray.getFile(cs).readWord();
-    gprFileArray.getFile(rt).writeWord(source);
+    writeGpr(rt, source);
   }
 
   private void mfhc0(int instruction) {
@@ -2830,8 +4152,8 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int fs = (instruction >> 11) & 0x1f;
 
-    long source = fpuRegisterFileArray.getFile(fs).readDword();
-    gprFileArray.getFile(rt).writeWord((int) (source >> 32));
+    long source = fpr[fs];
+    writeGpr(rt, (int) (source >> 32));
   }
 
   private void mfhc2(int instruction) {
@@ -2839,25 +4161,59 @@ public class CentralProcessor {
     int cs = (instruction >> 11) & 0x1f;
 
     long source = cop2RegisterFileArray.getFile(cs).readDword();
-    gprFileArray.getFile(rt).writeWord((int) (source >> 32));
+    writeGpr(rt, (int) (source >> 32));
   }
 
-  private void mtc0(int instruction) { // noop
+  private void mtc0(int instruction) {
+    int rt = (instruction >> 16) & 0x1f;
+    int rd = (instruction >> 11) & 0x1f;
+    int sel = instruction & 0x7;
+
+    int target = gpr[rt];
+    switch (rd) {
+      case CP0_COUNT:
+        countBase = clock - (target & 0xffff_ffffL);
+        scheduleTimer();
+        break;
+      case CP0_COMPARE:
+        compare = target;
+        cause &= ~(CAUSE_TI | (1 << (8 + TIMER_INTERRUPT)));
+        scheduleTimer();
+        break;
+      case CP0_STATUS:
+        cp0Status = target & STATUS_WRITABLE;
+        checkInterrupts();
+        break;
+      case CP0_CAUSE:
+        cause = (cause & ~CAUSE_IP_SOFTWARE) | (target & CAUSE_IP_SOFTWARE);
+        checkInterrupts();
+        break;
+      case CP0_EPC:
+        epc = target;
+        break;
+      case CP0_EBASE:
+        if (sel == 1) {
+          ebase = target & ~3;
+        }
+        break;
+      default:
+        break;
+    }
   }
 
   private void mtc1(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int fs = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    fpuRegisterFileArray.getFile(fs).writeWord(target);
+    int target = gpr[rt];
+    writeWord(fs, target);
   }
 
   private void mtc2(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int cs = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     cop2RegisterFileArray.getFile(cs).writeWord(target);
   }
 
@@ -2869,34 +4225,68 @@ public class CentralProcessor {
     int rt = (instruction >> 16) & 0x1f;
     int fs = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
-    long source = fpuRegisterFileArray.getFile(fs).readDword();
-    fpuRegisterFileArray.getFile(fs).writeDword((source & 0xffffffffL) | ((long) target << 32));
+    int target = gpr[rt];
+    long source = fpr[fs];
+    fpr[fs] = (source & 0xffffffffL) | ((long) target << 32);
   }
 
   private void mthc2(int instruction) {
     int rt = (instruction >> 16) & 0x1f;
     int cs = (instruction >> 11) & 0x1f;
 
-    int target = gprFileArray.getFile(rt).readWord();
+    int target = gpr[rt];
     long source = cop2RegisterFileArray.getFile(cs).readDword();
     cop2RegisterFileArray.getFile(cs).writeDword((source & 0xffffffffL) | ((long) target) << 32);
   }
 
+  private float readSingle(int reg) {
+    return Float.intBitsToFloat((int) fpr[reg]);
+  }
+
+  private double readDouble(int reg) {
+    return Double.longBitsToDouble(fpr[reg]);
+  }
+
+  private void writeSingle(int reg, float single) {
+    writeWord(reg, Float.floatToRawIntBits(single));
+  }
+
+  private void writeDouble(int reg, double doubl) {
+    fpr[reg] = Double.doubleToRawLongBits(doubl);
+  }
+
+  /** Replaces the low word of an FPR, keeping the high word as FR=1 requires */
+  private void writeWord(int reg, int word) {
+    fpr[reg] = (fpr[reg] & 0xffffffff00000000L) | (word & 0xffffffffL);
+  }
+
+  /**
+   * The JIT may swap the operands of a commutative operation, which changes which NaN the result
+   * carries when both are NaN, so the first NaN operand is picked explicitly to give the same
+   * result in every mode
+   */
+  private static float firstNaN(float source, float target, float result) {
+    return Float.isNaN(source) ? source : Float.isNaN(target) ? target : result;
+  }
+
+  private static double firstNaN(double source, double target, double result) {
+    return Double.isNaN(source) ? source : Double.isNaN(target) ? target : result;
+  }
+
+  // Clears the sign bit alone as ABS2008 requires; Math.abs leaves the sign of a NaN alone until
+  // the JIT replaces it with an intrinsic that clears it
   private void abs_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(Math.abs(source));
+    writeWord(fd, (int) fpr[fs] & 0x7fff_ffff);
   }
 
   private void abs_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(Math.abs(source));
+    fpr[fd] = fpr[fs] & Long.MAX_VALUE;
   }
 
   private void add_s(int instruction) {
@@ -2904,9 +4294,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(source + target);
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeSingle(fd, firstNaN(source, target, source + target));
   }
 
   private void add_d(int instruction) {
@@ -2914,9 +4304,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(source + target);
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    writeDouble(fd, firstNaN(source, target, source + target));
   }
 
   private void div_s(int instruction) {
@@ -2924,9 +4314,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(source / target);
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeSingle(fd, source / target);
   }
 
   private void div_d(int instruction) {
@@ -2934,9 +4324,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(source / target);
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    writeDouble(fd, source / target);
   }
 
   private void mul_s(int instruction) {
@@ -2944,9 +4334,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(source * target);
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeSingle(fd, firstNaN(source, target, source * target));
   }
 
   private void mul_d(int instruction) {
@@ -2954,41 +4344,41 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(source * target);
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    writeDouble(fd, firstNaN(source, target, source * target));
   }
 
   private void neg_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(-source);
+    float source = readSingle(fs);
+    writeSingle(fd, -source);
   }
 
   private void neg_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(-source);
+    double source = readDouble(fs);
+    writeDouble(fd, -source);
   }
 
   private void sqrt_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle((float) Math.sqrt(source));
+    float source = readSingle(fs);
+    writeSingle(fd, (float) Math.sqrt(source));
   }
 
   private void sqrt_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(Math.sqrt(source));
+    double source = readDouble(fs);
+    writeDouble(fd, Math.sqrt(source));
   }
 
   private void sub_s(int instruction) {
@@ -2996,9 +4386,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(source - target);
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeSingle(fd, source - target);
   }
 
   private void sub_d(int instruction) {
@@ -3006,41 +4396,41 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(source - target);
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    writeDouble(fd, source - target);
   }
 
   private void recip_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(1.0f / source);
+    float source = readSingle(fs);
+    writeSingle(fd, 1.0f / source);
   }
 
   private void recip_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(1.0 / source);
+    double source = readDouble(fs);
+    writeDouble(fd, 1.0 / source);
   }
 
   private void rsqrt_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(1.0f / (float) Math.sqrt(source));
+    float source = readSingle(fs);
+    writeSingle(fd, 1.0f / (float) Math.sqrt(source));
   }
 
   private void rsqrt_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(1.0 / Math.sqrt(source));
+    double source = readDouble(fs);
+    writeDouble(fd, 1.0 / Math.sqrt(source));
   }
 
   private void maddf_s(int instruction) {
@@ -3048,10 +4438,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    float dest = fpuRegisterFileArray.getFile(fd).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(dest + (source * target));
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    float dest = readSingle(fd);
+    float product = firstNaN(source, target, source * target);
+    writeSingle(fd, firstNaN(dest, product, dest + product));
   }
 
   private void maddf_d(int instruction) {
@@ -3059,10 +4450,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    double dest = fpuRegisterFileArray.getFile(fd).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(dest + (source * target));
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    double dest = readDouble(fd);
+    double product = firstNaN(source, target, source * target);
+    writeDouble(fd, firstNaN(dest, product, dest + product));
   }
 
   private void msubf_s(int instruction) {
@@ -3070,10 +4462,10 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    float dest = fpuRegisterFileArray.getFile(fd).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(dest - (source * target));
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    float dest = readSingle(fd);
+    writeSingle(fd, dest - firstNaN(source, target, source * target));
   }
 
   private void msubf_d(int instruction) {
@@ -3081,10 +4473,10 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    double dest = fpuRegisterFileArray.getFile(fd).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(dest - (source * target));
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    double dest = readDouble(fd);
+    writeDouble(fd, dest - firstNaN(source, target, source * target));
   }
 
   // TODO: verify
@@ -3092,7 +4484,7 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
+    float source = readSingle(fs);
     int result = 0;
     if (Float.isNaN(source)) {
       int bits = Float.floatToRawIntBits(source);
@@ -3115,7 +4507,7 @@ public class CentralProcessor {
         result = source < 0 ? 0x20 /*-0*/ : 0x80 /*+norm*/;
       }
     }
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   // TODO: verify
@@ -3123,7 +4515,7 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
+    double source = readDouble(fs);
     int result = 0;
     if (Double.isNaN(source)) {
       long bits = Double.doubleToRawLongBits(source);
@@ -3146,17 +4538,19 @@ public class CentralProcessor {
         result = source < 0 ? 0x20 : 0x80;
       }
     }
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
+  // Math.max, Math.min and Math.rint return a different NaN once the JIT replaces them with an
+  // intrinsic, so NaN operands are passed through explicitly as in firstNaN
   private void max_s(int instruction) {
     int ft = (instruction >> 16) & 0x1f;
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(Math.max(source, target));
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeSingle(fd, firstNaN(source, target, Math.max(source, target)));
   }
 
   private void max_d(int instruction) {
@@ -3164,9 +4558,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(Math.max(source, target));
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    writeDouble(fd, firstNaN(source, target, Math.max(source, target)));
   }
 
   private void maxa_s(int instruction) {
@@ -3174,10 +4568,10 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     float result = Math.abs(source) > Math.abs(target) ? source : target;
-    fpuRegisterFileArray.getFile(fd).writeSingle(result);
+    writeSingle(fd, result);
   }
 
   private void maxa_d(int instruction) {
@@ -3185,10 +4579,10 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     double result = Math.abs(source) > Math.abs(target) ? source : target;
-    fpuRegisterFileArray.getFile(fd).writeDouble(result);
+    writeDouble(fd, result);
   }
 
   private void min_s(int instruction) {
@@ -3196,9 +4590,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(Math.min(source, target));
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeSingle(fd, firstNaN(source, target, Math.min(source, target)));
   }
 
   private void min_d(int instruction) {
@@ -3206,9 +4600,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(Math.min(source, target));
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    writeDouble(fd, firstNaN(source, target, Math.min(source, target)));
   }
 
   private void mina_s(int instruction) {
@@ -3216,10 +4610,10 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     float result = Math.abs(source) < Math.abs(target) ? source : target;
-    fpuRegisterFileArray.getFile(fd).writeSingle(result);
+    writeSingle(fd, result);
   }
 
   private void mina_d(int instruction) {
@@ -3227,42 +4621,42 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     double result = Math.abs(source) < Math.abs(target) ? source : target;
-    fpuRegisterFileArray.getFile(fd).writeDouble(result);
+    writeDouble(fd, result);
   }
 
   private void rint_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle((float) Math.rint(source));
+    float source = readSingle(fs);
+    writeSingle(fd, Float.isNaN(source) ? source : (float) Math.rint(source));
   }
 
   private void rint_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(Math.rint(source));
+    double source = readDouble(fs);
+    writeDouble(fd, Double.isNaN(source) ? source : Math.rint(source));
   }
 
   private void mov_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle(source);
+    float source = readSingle(fs);
+    writeSingle(fd, source);
   }
 
   private void mov_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble(source);
+    double source = readDouble(fs);
+    writeDouble(fd, source);
   }
 
   private void sel_s(int instruction) {
@@ -3270,10 +4664,10 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    int dest = fpuRegisterFileArray.getFile(fd).readWord();
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeSingle((dest & 1) == 0 ? source : target);
+    int dest = (int) fpr[fd];
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeSingle(fd, (dest & 1) == 0 ? source : target);
   }
 
   private void sel_d(int instruction) {
@@ -3281,10 +4675,10 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    long dest = fpuRegisterFileArray.getFile(fd).readDword();
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDouble((dest & 1) == 0 ? source : target);
+    long dest = fpr[fd];
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    writeDouble(fd, (dest & 1) == 0 ? source : target);
   }
 
   private void seleqz_s(int instruction) {
@@ -3292,9 +4686,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    int target = fpuRegisterFileArray.getFile(ft).readWord();
-    fpuRegisterFileArray.getFile(fd).writeSingle((target & 1) == 0 ? source : 0.0f);
+    float source = readSingle(fs);
+    int target = (int) fpr[ft];
+    writeSingle(fd, (target & 1) == 0 ? source : 0.0f);
   }
 
   private void seleqz_d(int instruction) {
@@ -3302,9 +4696,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    long target = fpuRegisterFileArray.getFile(ft).readDword();
-    fpuRegisterFileArray.getFile(fd).writeDouble((target & 1) == 0 ? source : 0.0);
+    double source = readDouble(fs);
+    long target = fpr[ft];
+    writeDouble(fd, (target & 1) == 0 ? source : 0.0);
   }
 
   private void selnez_s(int instruction) {
@@ -3312,9 +4706,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    int target = fpuRegisterFileArray.getFile(ft).readWord();
-    fpuRegisterFileArray.getFile(fd).writeSingle((target & 1) != 0 ? source : 0.0f);
+    float source = readSingle(fs);
+    int target = (int) fpr[ft];
+    writeSingle(fd, (target & 1) != 0 ? source : 0.0f);
   }
 
   private void selnez_d(int instruction) {
@@ -3322,19 +4716,19 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    long target = fpuRegisterFileArray.getFile(ft).readDword();
-    fpuRegisterFileArray.getFile(fd).writeDouble((target & 1) != 0 ? source : 0.0);
+    double source = readDouble(fs);
+    long target = fpr[ft];
+    writeDouble(fd, (target & 1) != 0 ? source : 0.0);
   }
 
   private void cmp_af_s(int instruction) {
     int fd = (instruction >> 6) & 0x1f;
-    fpuRegisterFileArray.getFile(fd).writeWord(0);
+    writeWord(fd, 0);
   }
 
   private void cmp_af_d(int instruction) {
     int fd = (instruction >> 6) & 0x1f;
-    fpuRegisterFileArray.getFile(fd).writeDword(0);
+    fpr[fd] = 0;
   }
 
   private void cmp_un_s(int instruction) {
@@ -3342,11 +4736,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (Float.isNaN(source) || Float.isNaN(target)) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_un_d(int instruction) {
@@ -3354,11 +4748,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (Double.isNaN(source) || Double.isNaN(target)) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_eq_s(int instruction) {
@@ -3366,11 +4760,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source == target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_eq_d(int instruction) {
@@ -3378,11 +4772,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source == target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_ueq_s(int instruction) {
@@ -3390,12 +4784,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source == target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_ueq_d(int instruction) {
@@ -3403,12 +4797,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source == target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_lt_s(int instruction) {
@@ -3416,11 +4810,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source < target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_lt_d(int instruction) {
@@ -3428,11 +4822,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source < target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_ult_s(int instruction) {
@@ -3440,12 +4834,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source < target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_ult_d(int instruction) {
@@ -3453,12 +4847,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source < target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_le_s(int instruction) {
@@ -3466,11 +4860,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source <= target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_le_d(int instruction) {
@@ -3478,11 +4872,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source <= target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_ule_s(int instruction) {
@@ -3490,12 +4884,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source <= target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_ule_d(int instruction) {
@@ -3503,12 +4897,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source <= target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   // No distinction for qNAN or sNAN for all signaling operation here
@@ -3517,9 +4911,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeWord(0);
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeWord(fd, 0);
 
     if (Float.isNaN(source) || Float.isNaN(target)) {
       throw new InvalidOperationException();
@@ -3531,9 +4925,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDword(0);
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    fpr[fd] = 0;
 
     if (Double.isNaN(source) || Double.isNaN(target)) {
       throw new InvalidOperationException();
@@ -3545,11 +4939,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
-    fpuRegisterFileArray.getFile(fd).writeWord(unordered ? 0xffffffff : 0);
+    writeWord(fd, unordered ? 0xffffffff : 0);
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3560,11 +4954,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
-    fpuRegisterFileArray.getFile(fd).writeDword(unordered ? 0xffffffffffffffffL : 0);
+    fpr[fd] = unordered ? 0xffffffffffffffffL : 0;
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3575,11 +4969,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source == target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (Float.isNaN(source) || Float.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -3590,11 +4984,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source == target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (Double.isNaN(source) || Double.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -3605,12 +4999,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source == target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3621,12 +5015,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source == target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3637,11 +5031,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source < target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (Float.isNaN(source) || Float.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -3652,11 +5046,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source < target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (Double.isNaN(source) || Double.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -3667,12 +5061,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source < target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3683,12 +5077,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source < target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3699,11 +5093,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source <= target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (Float.isNaN(source) || Float.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -3714,11 +5108,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source <= target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (Double.isNaN(source) || Double.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -3729,12 +5123,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source <= target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3745,12 +5139,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source <= target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3758,12 +5152,12 @@ public class CentralProcessor {
 
   private void cmp_at_s(int instruction) {
     int fd = (instruction >> 6) & 0x1f;
-    fpuRegisterFileArray.getFile(fd).writeWord(0xffffffff);
+    writeWord(fd, 0xffffffff);
   }
 
   private void cmp_at_d(int instruction) {
     int fd = (instruction >> 6) & 0x1f;
-    fpuRegisterFileArray.getFile(fd).writeDword(0xffffffffffffffffL);
+    fpr[fd] = 0xffffffffffffffffL;
   }
 
   private void cmp_or_s(int instruction) {
@@ -3771,12 +5165,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean ordered = !Float.isNaN(source) && !Float.isNaN(target);
 
     int result = ordered ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_or_d(int instruction) {
@@ -3784,12 +5178,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean ordered = !Double.isNaN(source) && !Double.isNaN(target);
 
     long result = ordered ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_une_s(int instruction) {
@@ -3797,12 +5191,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source != target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_une_d(int instruction) {
@@ -3810,12 +5204,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source != target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_ne_s(int instruction) {
@@ -3823,11 +5217,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source != target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_ne_d(int instruction) {
@@ -3835,11 +5229,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source != target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_uge_s(int instruction) {
@@ -3847,12 +5241,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source >= target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_uge_d(int instruction) {
@@ -3860,12 +5254,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source >= target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_oge_s(int instruction) {
@@ -3873,11 +5267,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source >= target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_oge_d(int instruction) {
@@ -3885,11 +5279,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source >= target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_ugt_s(int instruction) {
@@ -3897,12 +5291,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source > target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_ugt_d(int instruction) {
@@ -3910,12 +5304,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source > target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_ogt_s(int instruction) {
@@ -3923,11 +5317,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source > target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
   }
 
   private void cmp_ogt_d(int instruction) {
@@ -3935,11 +5329,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source > target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
   }
 
   private void cmp_sat_s(int instruction) {
@@ -3947,9 +5341,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeWord(0xffffffff);
+    float source = readSingle(fs);
+    float target = readSingle(ft);
+    writeWord(fd, 0xffffffff);
 
     if (Float.isNaN(source) || Float.isNaN(target)) {
       throw new InvalidOperationException();
@@ -3961,9 +5355,9 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDword(0xffffffffffffffffL);
+    double source = readDouble(fs);
+    double target = readDouble(ft);
+    fpr[fd] = 0xffffffffffffffffL;
 
     if (Double.isNaN(source) || Double.isNaN(target)) {
       throw new InvalidOperationException();
@@ -3975,12 +5369,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = !unordered ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -3991,12 +5385,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = !unordered ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -4007,12 +5401,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source != target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -4023,12 +5417,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source != target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -4039,11 +5433,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source != target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (Float.isNaN(source) || Float.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -4054,11 +5448,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source != target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (Double.isNaN(source) || Double.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -4069,12 +5463,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source >= target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -4085,12 +5479,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source >= target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -4101,11 +5495,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source >= target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (Float.isNaN(source) || Float.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -4116,11 +5510,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source >= target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (Double.isNaN(source) || Double.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -4131,12 +5525,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     boolean unordered = Float.isNaN(source) || Float.isNaN(target);
 
     int result = (unordered || source > target) ? 0xffffffff : 0;
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -4147,12 +5541,12 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     boolean unordered = Double.isNaN(source) || Double.isNaN(target);
 
     long result = (unordered || source > target) ? 0xffffffffffffffffL : 0;
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (unordered) {
       throw new InvalidOperationException();
     }
@@ -4163,11 +5557,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    float target = fpuRegisterFileArray.getFile(ft).readSingle();
+    float source = readSingle(fs);
+    float target = readSingle(ft);
     int result = (source > target) ? 0xffffffff : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeWord(result);
+    writeWord(fd, result);
     if (Float.isNaN(source) || Float.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -4178,11 +5572,11 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    double target = fpuRegisterFileArray.getFile(ft).readDouble();
+    double source = readDouble(fs);
+    double target = readDouble(ft);
     long result = (source > target) ? 0xffffffffffffffffL : 0;
 
-    fpuRegisterFileArray.getFile(fd).writeDword(result);
+    fpr[fd] = result;
     if (Double.isNaN(source) || Double.isNaN(target)) {
       throw new InvalidOperationException();
     }
@@ -4192,208 +5586,208 @@ public class CentralProcessor {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeDouble(source);
+    float source = readSingle(fs);
+    writeDouble(fd, source);
   }
 
   private void cvt_d_w(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    int source = fpuRegisterFileArray.getFile(fs).readWord();
-    fpuRegisterFileArray.getFile(fd).writeDouble(source);
+    int source = (int) fpr[fs];
+    writeDouble(fd, source);
   }
 
   private void cvt_d_l(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    long source = fpuRegisterFileArray.getFile(fs).readDword();
-    fpuRegisterFileArray.getFile(fd).writeDouble((double) source);
+    long source = fpr[fs];
+    writeDouble(fd, (double) source);
   }
 
   private void cvt_l_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeDword((long) source);
+    float source = readSingle(fs);
+    fpr[fd] = (long) source;
   }
 
   private void cvt_l_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDword((long) source);
+    double source = readDouble(fs);
+    fpr[fd] = (long) source;
   }
 
   private void cvt_s_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeSingle((float) source);
+    double source = readDouble(fs);
+    writeSingle(fd, (float) source);
   }
 
   private void cvt_s_w(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    int source = fpuRegisterFileArray.getFile(fs).readWord();
-    fpuRegisterFileArray.getFile(fd).writeSingle((float) source);
+    int source = (int) fpr[fs];
+    writeSingle(fd, (float) source);
   }
 
   private void cvt_s_l(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    long source = fpuRegisterFileArray.getFile(fs).readDword();
-    fpuRegisterFileArray.getFile(fd).writeSingle((float) source);
+    long source = fpr[fs];
+    writeSingle(fd, (float) source);
   }
 
   private void cvt_w_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) source);
+    float source = readSingle(fs);
+    writeWord(fd, (int) source);
   }
 
   private void cvt_w_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) source);
+    double source = readDouble(fs);
+    writeWord(fd, (int) source);
   }
 
   private void ceil_l_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeDword((long) Math.ceil(source));
+    float source = readSingle(fs);
+    fpr[fd] = (long) Math.ceil(source);
   }
 
   private void ceil_l_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDword((long) Math.ceil(source));
+    double source = readDouble(fs);
+    fpr[fd] = (long) Math.ceil(source);
   }
 
   private void ceil_w_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) Math.ceil(source));
+    float source = readSingle(fs);
+    writeWord(fd, (int) Math.ceil(source));
   }
 
   private void ceil_w_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) Math.ceil(source));
+    double source = readDouble(fs);
+    writeWord(fd, (int) Math.ceil(source));
   }
 
   private void floor_l_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeDword((long) Math.floor(source));
+    float source = readSingle(fs);
+    fpr[fd] = (long) Math.floor(source);
   }
 
   private void floor_l_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDword((long) Math.floor(source));
+    double source = readDouble(fs);
+    fpr[fd] = (long) Math.floor(source);
   }
 
   private void floor_w_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) Math.floor(source));
+    float source = readSingle(fs);
+    writeWord(fd, (int) Math.floor(source));
   }
 
   private void floor_w_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) Math.floor(source));
+    double source = readDouble(fs);
+    writeWord(fd, (int) Math.floor(source));
   }
 
   private void round_l_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeDword(Math.round((double) source));
+    float source = readSingle(fs);
+    fpr[fd] = Math.round((double) source);
   }
 
   private void round_l_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDword(Math.round(source));
+    double source = readDouble(fs);
+    fpr[fd] = Math.round(source);
   }
 
   private void round_w_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeWord(Math.round(source));
+    float source = readSingle(fs);
+    writeWord(fd, Math.round(source));
   }
 
   private void round_w_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) Math.round(source));
+    double source = readDouble(fs);
+    writeWord(fd, (int) Math.round(source));
   }
 
   private void trunc_l_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeDword((long) source);
+    float source = readSingle(fs);
+    fpr[fd] = (long) source;
   }
 
   private void trunc_l_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeDword((long) source);
+    double source = readDouble(fs);
+    fpr[fd] = (long) source;
   }
 
   private void trunc_w_s(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    float source = fpuRegisterFileArray.getFile(fs).readSingle();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) source);
+    float source = readSingle(fs);
+    writeWord(fd, (int) source);
   }
 
   private void trunc_w_d(int instruction) {
     int fs = (instruction >> 11) & 0x1f;
     int fd = (instruction >> 6) & 0x1f;
 
-    double source = fpuRegisterFileArray.getFile(fs).readDouble();
-    fpuRegisterFileArray.getFile(fd).writeWord((int) source);
+    double source = readDouble(fs);
+    writeWord(fd, (int) source);
   }
 
   private void crc32b(int instruction) {
@@ -4401,60 +5795,60 @@ public class CentralProcessor {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int crc = crc32(target, source & 0xff, 8);
-    gprFileArray.getFile(rt).writeWord(crc);
+    writeGpr(rt, crc);
   }
 
   private void crc32h(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int crc = crc32(target, source & 0xffff, 16);
-    gprFileArray.getFile(rt).writeWord(crc);
+    writeGpr(rt, crc);
   }
 
   private void crc32w(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int crc = crc32(target, source, 32);
-    gprFileArray.getFile(rt).writeWord(crc);
+    writeGpr(rt, crc);
   }
 
   private void crc32cb(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int crc = crc32c(target, source & 0xff, 8);
-    gprFileArray.getFile(rt).writeWord(crc);
+    writeGpr(rt, crc);
   }
 
   private void crc32ch(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int crc = crc32c(target, source & 0xffff, 16);
-    gprFileArray.getFile(rt).writeWord(crc);
+    writeGpr(rt, crc);
   }
 
   private void crc32cw(int instruction) {
     int rs = (instruction >> 21) & 0x1f;
     int rt = (instruction >> 16) & 0x1f;
 
-    int source = gprFileArray.getFile(rs).readWord();
-    int target = gprFileArray.getFile(rt).readWord();
+    int source = gpr[rs];
+    int target = gpr[rt];
     int crc = crc32c(target, source, 32);
-    gprFileArray.getFile(rt).writeWord(crc);
+    writeGpr(rt, crc);
   }
 
   private int crc32(int crc, int data, int bits) {
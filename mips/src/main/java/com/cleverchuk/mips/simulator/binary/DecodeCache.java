@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import java.util.Arrays;
+
+/**
+ * Per-PC cache of decoded instructions. Entries are indexed by word address so a hit costs two
+ * array reads instead of a memory read and a walk of the {@link InstructionDecoder} lookup table.
+ * Any store into a cached word must be reported through {@link #invalidate(int, int)}.
+ */
+final class DecodeCache {
+  private static final int INITIAL_CAPACITY = 256;
+
+  private int[] words = new int[INITIAL_CAPACITY];
+
+  private Opcode[] opcodes = new Opcode[INITIAL_CAPACITY];
+
+  /**
+   * Looks up a decoded instruction
+   *
+   * @param pc address of the instruction
+   * @return the cached opcode or null on a miss
+   */
+  Opcode opcodeAt(int pc) {
+    int slot = pc >>> 2;
+    if ((pc & 3) != 0 || slot >= opcodes.length) {
+      return null;
+    }
+    return opcodes[slot];
+  }
+
+  /**
+   * Reads the raw instruction word of an entry; only valid after a hit on {@link #opcodeAt(int)}
+   *
+   * @param pc address of the instruction
+   * @return the cached instruction word
+   */
+  int wordAt(int pc) {
+    return words[pc >>> 2];
+  }
+
+  /**
+   * Records a decoded instruction
+   *
+   * @param pc address of the instruction
+   * @param word raw instruction word
+   * @param opcode decoded opcode
+   * @param limit exclusive upper bound on cacheable addresses, usually the memory capacity
+   */
+  void put(int pc, int word, Opcode opcode, int limit) {
+    if ((pc & 3) != 0 || pc < 0 || pc >= limit) {
+      return;
+    }
+
+    int slot = pc >>> 2;
+    if (slot >= opcodes.length) {
+      int capacity = Math.max(slot + 1, opcodes.length * 2);
+      words = Arrays.copyOf(words, capacity);
+      opcodes = Arrays.copyOf(opcodes, capacity);
+    }
+
+    words[slot] = word;
+    opcodes[slot] = opcode;
+  }
+
+  /**
+   * Drops every entry overlapping a store
+   *
+   * @param address first byte written
+   * @param length number of bytes written
+   * @return true if a decoded instruction was dropped
+   */
+  boolean invalidate(int address, int length) {
+    int first = address >>> 2;
+    if (address < 0 || first >= opcodes.length) {
+      return false;
+    }
+
+    boolean dropped = false;
+    int last = Math.min((address + length - 1) >>> 2, opcodes.length - 1);
+    for (int slot = first; slot <= last; slot++) {
+      dropped |= opcodes[slot] != null;
+      opcodes[slot] = null;
+    }
+    return dropped;
+  }
+
+  void clear() {
+    Arrays.fill(opcodes, null);
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import java.util.Arrays;
+
+/**
+ * Queue of device events keyed by the instruction count they are due at. Each registered device has
+ * at most one pending event; the pending events form a binary min-heap held in primitive arrays, so
+ * the run loop only has to compare the instruction count against {@link #nextDue()} and pays
+ * nothing else until an event is due.
+ */
+public final class EventScheduler {
+  private Device[] devices = new Device[4];
+
+  private int deviceCount;
+
+  private long[] due = new long[4]; // heap of due instruction counts
+
+  private int[] ids = new int[4]; // device of each heap slot
+
+  private int[] positions = new int[4]; // heap slot of each device, -1 if nothing is pending
+
+  private int size;
+
+  private long now = -1; // instruction count being dispatched, -1 outside dispatch
+
+  /**
+   * @param device told when its events fall due
+   * @return id to schedule the device's events with
+   */
+  public int register(Device device) {
+    if (deviceCount == devices.length) {
+      devices = Arrays.copyOf(devices, deviceCount * 2);
+      positions = Arrays.copyOf(positions, deviceCount * 2);
+      due = Arrays.copyOf(due, deviceCount * 2);
+      ids = Arrays.copyOf(ids, deviceCount * 2);
+    }
+    devices[deviceCount] = device;
+    positions[deviceCount] = -1;
+    return deviceCount++;
+  }
+
+  /**
+   * Replaces the device's pending event, if any. An event scheduled from a device's callback for
+   * the instruction count being dispatched or earlier is moved to the next instruction.
+   *
+   * @param id device returned by {@link #register(Device)}
+   * @param when instruction count the event is due at
+   */
+  public void schedule(int id, long when) {
+    if (id < 0 || id >= deviceCount) {
+      throw new IllegalArgumentException("Unknown device: " + id);
+    }
+
+    if (now >= 0 && when <= now) {
+      when = now + 1;
+    }
+
+    int slot = positions[id];
+    if (slot < 0) {
+      slot = size++;
+      ids[slot] = id;
+      positions[id] = slot;
+    }
+    due[slot] = when;
+    siftDown(siftUp(slot));
+  }
+
+  public void cancel(int id) {
+    int slot = id >= 0 && id < deviceCount ? positions[id] : -1;
+    if (slot < 0) {
+      return;
+    }
+
+    positions[id] = -1;
+    if (slot != --size) {
+      move(size, slot);
+      siftDown(siftUp(slot));
+    }
+  }
+
+  public boolean isScheduled(int id) {
+    return id >= 0 && id < deviceCount && positions[id] >= 0;
+  }
+
+  /**
+   * @return instruction count the earliest pending event is due at, Long.MAX_VALUE if none is
+   */
+  public long nextDue() {
+    return size == 0 ? Long.MAX_VALUE : due[0];
+  }
+
+  /**
+   * Hands every event due at or before the instruction count to its device, earliest first
+   *
+   * @param count instruction count the processor has reached
+   */
+  public void dispatch(long count) {
+    now = count;
+    try {
+      while (size > 0 && due[0] <= count) {
+        int id = ids[0];
+        long when = due[0];
+        cancel(id);
+        devices[id].onEvent(when);
+      }
+    } finally {
+      now = -1;
+    }
+  }
+
+  private int siftUp(int slot) {
+    while (slot > 0) {
+      int parent = (slot - 1) >>> 1;
+      if (due[parent] <= due[slot]) {
+        break;
+      }
+      swap(slot, parent);
+      slot = parent;
+    }
+    return slot;
+  }
+
+  private void siftDown(int slot) {
+    for (; ; ) {
+      int child = 2 * slot + 1;
+      if (child >= size) {
+        return;
+      }
+      if (child + 1 < size && due[child + 1] < due[child]) {
+        child++;
+      }
+      if (due[slot] <= due[child]) {
+        return;
+      }
+      swap(slot, child);
+      slot = child;
+    }
+  }
+
+  private void swap(int a, int b) {
+    long when = due[a];
+    int id = ids[a];
+    move(b, a);
+    due[b] = when;
+    ids[b] = id;
+    positions[id] = b;
+  }
+
+  private void move(int from, int to) {
+    due[to] = due[from];
+    ids[to] = ids[from];
+    positions[ids[to]] = to;
+  }
+
+  /** Timer, I/O unit or anything else that acts after a number of instructions */
+  public interface Device {
+    /**
+     * @param when instruction count the event was due at
+     */
+    void onEvent(long when);
+  }
+}
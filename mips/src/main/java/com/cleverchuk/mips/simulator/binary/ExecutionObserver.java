@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+/**
+ * Receives every instruction the processor executes, in program order, see {@link
+ * CentralProcessor#setObserver(ExecutionObserver)}. While an observer is attached the processor
+ * interprets one instruction at a time; with none attached the translated paths run untouched.
+ */
+public interface ExecutionObserver {
+  /**
+   * Called just before an instruction executes
+   *
+   * @param pc address of the instruction
+   * @param instruction raw instruction word
+   * @param opcode decoded instruction
+   */
+  void onInstruction(int pc, int instruction, Opcode opcode);
+
+  /**
+   * Called after a branch or jump executes, and after its delay slot if it has one
+   *
+   * @param pc address of the branch
+   * @param instruction raw instruction word
+   * @param opcode decoded instruction
+   * @param taken whether control left the fall-through path
+   * @param target address execution continues at
+   */
+  default void onBranch(int pc, int instruction, Opcode opcode, boolean taken, int target) {}
+}
@@ -0,0 +1,215 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random straight-line programs from the {@link Opcode} table for {@link
+ * LockstepChecker}. Every word decodes back to the opcode it was built from; branches and {@link
+ * OpcodeHistogram.InstructionClass#SYSTEM} instructions are left out so that the program runs to
+ * its end. Loads and stores address a data area through {@link #BASE_REGISTER}, or now and then an
+ * address outside memory through {@link #FAULT_REGISTER} so that the engines fault mid-block; no
+ * generated instruction writes either register. Misaligned accesses do not fault in this simulator,
+ * so they are not a way to get faults. Some lw + addiu pairs are mixed in, the one fused pair that
+ * can fault, see {@link Superinstructions}. The same seed always yields the same programs and
+ * starting state.
+ */
+public final class InstructionFuzzer {
+  public static final int DATA_BASE = 0x8000;
+
+  public static final int DATA_SIZE = PagedMemory.PAGE_SIZE;
+
+  /** $gp, holds {@link #DATA_BASE} throughout a fuzzed program */
+  public static final int BASE_REGISTER = 28;
+
+  /** $k0, holds {@link #FAULT_ADDRESS} throughout a fuzzed program */
+  public static final int FAULT_REGISTER = 26;
+
+  /** Start of kseg0, a negative offset into the flat memory; every access to it faults */
+  public static final int FAULT_ADDRESS = 0x8000_0000;
+
+  private static final int FAULT_ODDS = 16; // one in so many loads and stores faults
+
+  private static final int PAIR_ODDS = 32; // one in so many instructions starts an lw + addiu pair
+
+  private static final int SYSCALL = 0x0000000c;
+
+  private static final int ATTEMPTS = 64;
+
+  /** Need operands the fuzzer does not model: a pc-relative address or a doubleword-aligned pair */
+  private static final EnumSet<Opcode> EXCLUDED =
+      EnumSet.of(Opcode.LWPC, Opcode.LLWP, Opcode.LLWPE, Opcode.SCWP, Opcode.SCWPE);
+
+  private static final List<Opcode> OPCODES = new ArrayList<>();
+
+  static {
+    Random random = new Random(0);
+    for (Opcode opcode : Opcode.values()) {
+      if (fuzzable(opcode) && encode(opcode, random) != 0) {
+        OPCODES.add(opcode);
+      }
+    }
+  }
+
+  private final long seed;
+
+  private final Random random;
+
+  public InstructionFuzzer(long seed) {
+    this.seed = seed;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * @return opcodes the fuzzer draws from
+   */
+  public static List<Opcode> getOpcodes() {
+    return Collections.unmodifiableList(OPCODES);
+  }
+
+  /**
+   * @param length number of instructions
+   * @return instruction words, each decoding to a uniformly chosen opcode except for the lw + addiu
+   *     pairs mixed in
+   */
+  public int[] generate(int length) {
+    int[] program = new int[length];
+    for (int i = 0; i < length; i++) {
+      if (i + 1 < length && random.nextInt(PAIR_ODDS) == 0) {
+        program[i++] = encode(Opcode.LW);
+        program[i] = encode(Opcode.ADDIU);
+      } else {
+        program[i] = encode(OPCODES.get(random.nextInt(OPCODES.size())));
+      }
+    }
+    return program;
+  }
+
+  private int encode(Opcode opcode) {
+    int word;
+    do {
+      word = encode(opcode, random);
+    } while (word == 0);
+    return word;
+  }
+
+  /**
+   * Builds a processor that runs program from address 0 and then stops at a syscall. Registers and
+   * the data area start out random but are the same for every processor loaded by this fuzzer, so
+   * two engines loaded from the same program can be checked against each other.
+   *
+   * @param program instructions from {@link #generate(int)}
+   * @param mode execution mode of the processor
+   * @return processor on its own memory, with pc at the first instruction
+   */
+  public CentralProcessor load(int[] program, ExecutionMode mode) {
+    int textBoundary = (program.length + 1) << 2;
+    if (textBoundary > DATA_BASE) {
+      throw new IllegalArgumentException("Program overlaps the data area");
+    }
+
+    Random state = new Random(~seed);
+    PagedMemory memory = new PagedMemory(DATA_BASE + DATA_SIZE);
+    for (int i = 0; i < program.length; i++) {
+      memory.storeWord(program[i], i << 2);
+    }
+    memory.storeWord(SYSCALL, program.length << 2);
+    for (int offset = 0; offset < DATA_SIZE; offset += 4) {
+      memory.storeWord(state.nextInt(), DATA_BASE + offset);
+    }
+
+    CentralProcessor cpu = new CentralProcessor(memory, 0, DATA_BASE + DATA_SIZE, (byte) 0x2, mode);
+    cpu.setTextBoundary(textBoundary);
+    int[] gpr = cpu.getGprFileArray().getRegisters();
+    for (int reg = 1; reg < gpr.length; reg++) {
+      gpr[reg] = state.nextInt();
+    }
+    gpr[BASE_REGISTER] = DATA_BASE;
+    gpr[FAULT_REGISTER] = FAULT_ADDRESS;
+
+    long[] fpr = cpu.getFpuRegisterFileArray().getRegisters();
+    for (int reg = 0; reg < fpr.length; reg++) {
+      fpr[reg] = state.nextLong();
+    }
+    cpu.setHi(state.nextInt());
+    cpu.setLo(state.nextInt());
+    return cpu;
+  }
+
+  private static boolean fuzzable(Opcode opcode) {
+    if (opcode.format == InstructionFormat.IDIOM
+        || opcode.format == InstructionFormat.J_TYPE
+        || EXCLUDED.contains(opcode)) {
+      return false;
+    }
+
+    OpcodeHistogram.InstructionClass instructionClass = OpcodeHistogram.classOf(opcode);
+    return instructionClass != OpcodeHistogram.InstructionClass.BRANCH
+        && instructionClass != OpcodeHistogram.InstructionClass.SYSTEM;
+  }
+
+  /**
+   * Fills the operand fields of opcode with random values until the word decodes back to it
+   *
+   * @return the word, or 0 if no attempt decoded to opcode
+   */
+  private static int encode(Opcode opcode, Random random) {
+    boolean memory = OpcodeHistogram.classOf(opcode) == OpcodeHistogram.InstructionClass.LOAD_STORE;
+    int fixed = opcode.opcode | opcode.partialEncoding;
+    for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+      int word;
+      int base = random.nextInt(FAULT_ODDS) == 0 ? FAULT_REGISTER : BASE_REGISTER;
+      if (!memory) {
+        int operands = opcode.format == InstructionFormat.I_TYPE ? 0x03ff_ffff : 0x03ff_ffc0;
+        word = fixed | (random.nextInt() & operands);
+      } else if (random.nextBoolean()) { // 16-bit offset
+        word = fixed | (base << 21) | (random.nextInt(32) << 16) | random.nextInt(256) << 3;
+      } else { // 9-bit offset at bit 7 of the release 6 encodings
+        word = fixed | (base << 21) | (random.nextInt(32) << 16) | random.nextInt(32) << 10;
+      }
+
+      if (InstructionDecoder.decode(word) == opcode && !writesBase(word, memory)) {
+        return word;
+      }
+    }
+    return 0;
+  }
+
+  private static boolean writesBase(int word, boolean memory) {
+    return (!memory && isBase(word >>> 21 & 0x1f))
+        || isBase(word >>> 16 & 0x1f)
+        || isBase(word >>> 11 & 0x1f);
+  }
+
+  private static boolean isBase(int reg) {
+    return reg == BASE_REGISTER || reg == FAULT_REGISTER;
+  }
+}
@@ -0,0 +1,362 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import androidx.annotation.NonNull;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Runs a fast engine in lockstep with the reference interpreter and reports the first block after
+ * which they disagree. The candidate executes one block at a time with {@link
+ * CentralProcessor#executeBlock()}, whether interpreted, translated, fused or compiled, and the
+ * reference then single-steps through the same number of instructions with {@link
+ * CentralProcessor#execute()}. At each block boundary pc, HI, LO and the general purpose, floating
+ * point and FPU control registers are compared, along with every byte either side stored during the
+ * block. A fault both engines raise identically is stepped past, as an exception handler that skips
+ * the faulting instruction would; a syscall ends the check since servicing it is up to the host.
+ * Together with {@link InstructionFuzzer} this exercises the engines on programs nobody wrote by
+ * hand.
+ */
+public final class LockstepChecker {
+  private final CentralProcessor reference;
+
+  private final CentralProcessor candidate;
+
+  private final StoreLog referenceStores = new StoreLog();
+
+  private final StoreLog candidateStores = new StoreLog();
+
+  private long instructionCount;
+
+  private long blockCount;
+
+  private long faultCount;
+
+  private Exception stop;
+
+  /**
+   * Both processors must start from the same state on memories of their own, e.g. two processors
+   * loaded by the same {@link InstructionFuzzer} or forked from the same program image.
+   *
+   * @param reference processor stepped with {@link CentralProcessor#execute()}
+   * @param candidate processor run a block at a time with {@link CentralProcessor#executeBlock()}
+   * @throws IllegalArgumentException if the processors share their memory
+   * @throws IllegalStateException if either processor is not built on a {@link PagedMemory}
+   */
+  public LockstepChecker(CentralProcessor reference, CentralProcessor candidate) {
+    if (reference.pagedMemory() == candidate.pagedMemory()) {
+      throw new IllegalArgumentException("Processors must not share memory");
+    }
+    this.reference = reference;
+    this.candidate = candidate;
+  }
+
+  /**
+   * Runs both processors until they disagree, the candidate makes a syscall or budget instructions
+   * have been checked. The memories' store listeners are replaced while this runs.
+   *
+   * @param budget number of instructions to check, the last block may overrun it
+   * @return the first disagreement, or null if the processors agreed throughout
+   */
+  public Mismatch check(long budget) {
+    PagedMemory referenceMemory = reference.pagedMemory();
+    PagedMemory candidateMemory = candidate.pagedMemory();
+    referenceMemory.setStoreListener(referenceStores);
+    candidateMemory.setStoreListener(candidateStores);
+    try {
+      referenceStores.clear();
+      candidateStores.clear();
+      String detail = compare();
+      if (detail != null) {
+        return new Mismatch(instructionCount, new int[0], detail);
+      }
+
+      long end = instructionCount + budget;
+      stop = null;
+      while (instructionCount < end && !(stop instanceof SyscallException)) {
+        Mismatch mismatch = checkBlock();
+        if (mismatch != null) {
+          return mismatch;
+        }
+      }
+      return null;
+    } finally {
+      referenceMemory.setStoreListener(null);
+      candidateMemory.setStoreListener(null);
+    }
+  }
+
+  /**
+   * @return number of instructions checked so far
+   */
+  public long getInstructionCount() {
+    return instructionCount;
+  }
+
+  /**
+   * @return number of candidate blocks checked so far
+   */
+  public long getBlockCount() {
+    return blockCount;
+  }
+
+  /**
+   * @return number of faults both processors raised and were stepped past
+   */
+  public long getFaultCount() {
+    return faultCount;
+  }
+
+  /**
+   * @return the exception both processors raised last, e.g. the syscall that ended {@link
+   *     #check(long)}, or null if the last block ran to its end
+   */
+  public Exception getStop() {
+    return stop;
+  }
+
+  private Mismatch checkBlock() {
+    referenceStores.clear();
+    candidateStores.clear();
+
+    int retired = 0;
+    Exception candidateStop = null;
+    try {
+      retired = candidate.executeBlock();
+    } catch (Exception e) {
+      candidateStop = e;
+    }
+
+    // A faulting block does not say how far it got, so the reference runs until it faults too
+    int limit = candidateStop == null ? retired : BasicBlock.MAX_LENGTH;
+    int[] pcs = new int[limit];
+    int executed = 0;
+    Exception referenceStop = null;
+    while (executed < limit && referenceStop == null) {
+      pcs[executed++] = reference.getPc();
+      try {
+        reference.execute();
+      } catch (Exception e) {
+        referenceStop = e;
+      }
+    }
+
+    long start = instructionCount;
+    pcs = Arrays.copyOf(pcs, executed);
+    instructionCount += executed;
+    blockCount++;
+    stop = candidateStop;
+
+    String detail = compareStops(referenceStop, candidateStop);
+    if (detail == null) {
+      detail = compare();
+    }
+    if (detail != null) {
+      return new Mismatch(start, pcs, detail);
+    }
+
+    if (candidateStop != null && !(candidateStop instanceof SyscallException)) {
+      faultCount++;
+    }
+    return null;
+  }
+
+  /** Only the classes are compared: the JIT drops the message of implicit exceptions once hot */
+  private static String compareStops(Exception reference, Exception candidate) {
+    if (reference == null && candidate == null
+        || reference != null && candidate != null && reference.getClass() == candidate.getClass()) {
+      return null;
+    }
+
+    return String.format(
+        Locale.getDefault(),
+        "reference raised %s, candidate raised %s",
+        describe(reference),
+        describe(candidate));
+  }
+
+  private static String describe(Exception exception) {
+    if (exception == null) {
+      return "nothing";
+    }
+    return exception.getMessage() == null
+        ? exception.getClass().getSimpleName()
+        : exception.getClass().getSimpleName() + " (" + exception.getMessage() + ")";
+  }
+
+  private String compare() {
+    if (reference.getPc() != candidate.getPc()) {
+      return describe("pc", reference.getPc(), candidate.getPc());
+    }
+
+    int[] referenceGpr = reference.getGprFileArray().getRegisters();
+    int[] candidateGpr = candidate.getGprFileArray().getRegisters();
+    for (int reg = 1; reg < referenceGpr.length; reg++) {
+      if (referenceGpr[reg] != candidateGpr[reg]) {
+        return describe(
+            "$" + MipsLexer.DECI_TO_CPU_REG.get(String.valueOf(reg)),
+            referenceGpr[reg],
+            candidateGpr[reg]);
+      }
+    }
+
+    long[] referenceFpr = reference.getFpuRegisterFileArray().getRegisters();
+    long[] candidateFpr = candidate.getFpuRegisterFileArray().getRegisters();
+    for (int reg = 0; reg < referenceFpr.length; reg++) {
+      if (referenceFpr[reg] != candidateFpr[reg]) {
+        return describe("$f" + reg, referenceFpr[reg], candidateFpr[reg]);
+      }
+    }
+
+    if (reference.getHi() != candidate.getHi()) {
+      return describe("hi", reference.getHi(), candidate.getHi());
+    }
+    if (reference.getLo() != candidate.getLo()) {
+      return describe("lo", reference.getLo(), candidate.getLo());
+    }
+
+    for (int reg = 1; reg < ProcessorSnapshot.FPC_REGISTERS; reg++) { // FIR is read-only
+      int expected = reference.getFpcRegisterFileArray().getFile(reg).readWord();
+      int actual = candidate.getFpcRegisterFileArray().getFile(reg).readWord();
+      if (expected != actual) {
+        return describe("fcr" + reg, expected, actual);
+      }
+    }
+
+    String detail = compareStores(referenceStores);
+    return detail != null ? detail : compareStores(candidateStores);
+  }
+
+  private String compareStores(StoreLog log) {
+    PagedMemory referenceMemory = reference.pagedMemory();
+    PagedMemory candidateMemory = candidate.pagedMemory();
+    for (int i = 0; i < log.count; i++) {
+      int offset = log.offsets[i];
+      for (int address = offset; address < offset + log.lengths[i]; address++) {
+        byte expected = referenceMemory.peek(address);
+        byte actual = candidateMemory.peek(address);
+        if (expected != actual) {
+          return String.format(
+              Locale.getDefault(),
+              "byte at 0x%08x: reference 0x%02x, candidate 0x%02x",
+              address,
+              expected & 0xff,
+              actual & 0xff);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String describe(String name, int expected, int actual) {
+    return String.format(
+        Locale.getDefault(), "%s: reference 0x%x, candidate 0x%x", name, expected, actual);
+  }
+
+  private static String describe(String name, long expected, long actual) {
+    return String.format(
+        Locale.getDefault(), "%s: reference 0x%x, candidate 0x%x", name, expected, actual);
+  }
+
+  /** Addresses stored to during the current block */
+  private static final class StoreLog implements PagedMemory.StoreListener {
+    private int[] offsets = new int[16];
+
+    private int[] lengths = new int[16];
+
+    private int count;
+
+    @Override
+    public void beforeStore(int offset, int length) {
+      if (offset < 0) {
+        return; // faults without writing anything
+      }
+
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        lengths = Arrays.copyOf(lengths, count * 2);
+      }
+      offsets[count] = offset;
+      lengths[count++] = length;
+    }
+
+    void clear() {
+      count = 0;
+    }
+  }
+
+  /** The first block after which the processors disagree */
+  public static final class Mismatch {
+    private final long index;
+
+    private final int[] pcs;
+
+    private final String detail;
+
+    Mismatch(long index, int[] pcs, String detail) {
+      this.index = index;
+      this.pcs = pcs;
+      this.detail = detail;
+    }
+
+    /**
+     * @return number of instructions both processors agreed on before the block
+     */
+    public long getIndex() {
+      return index;
+    }
+
+    /**
+     * @return pcs of the instructions the reference executed in the block, empty if the processors
+     *     already differed before the first block
+     */
+    public int[] getPcs() {
+      return pcs.clone();
+    }
+
+    /**
+     * @return what differs, e.g. "$t0: reference 0x5, candidate 0x6"
+     */
+    public String getDetail() {
+      return detail;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return pcs.length == 0
+          ? "Processors differ before the first block: " + detail
+          : String.format(
+              Locale.getDefault(),
+              "Processors diverge in the block at 0x%08x after instruction %d: %s",
+              pcs[0],
+              index,
+              detail);
+    }
+  }
+}
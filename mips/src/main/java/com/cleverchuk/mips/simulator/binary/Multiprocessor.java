@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.simulator.mem.Memory;
+
+/**
+ * Harts sharing one {@link Memory}, each run on its own thread. Every hart starts at the same pc
+ * with its own stack below the previous hart's, and can tell itself apart with rdhwr $0 (CPUNum).
+ * ll/sc use a shared {@link ReservationMonitor}, so sc fails once another hart writes the reserved
+ * location, and sync is a full fence.
+ *
+ * <p>Memory is sized up front to hold every stack, since the backing store cannot grow safely while
+ * harts run. Each hart keeps its own decode and block caches, so code written by one hart is not
+ * seen by another that has already executed it.
+ */
+public final class Multiprocessor {
+  private final CentralProcessor[] harts;
+
+  private final ReservationMonitor monitor;
+
+  /**
+   * @param memory shared memory holding the program
+   * @param hartCount number of harts
+   * @param pc entry point of every hart
+   * @param stackPointer initial stack pointer of hart 0
+   * @param stackSize bytes between the initial stack pointers of consecutive harts
+   * @param copBit coprocessor enable flags
+   * @param executionMode backend used by every hart
+   */
+  public Multiprocessor(
+      Memory memory,
+      int hartCount,
+      int pc,
+      int stackPointer,
+      int stackSize,
+      byte copBit,
+      ExecutionMode executionMode) {
+    if (memory.getCapacity() <= stackPointer) {
+      memory.resize(stackPointer + 8);
+    }
+
+    monitor = new ReservationMonitor(memory, hartCount);
+    harts = new CentralProcessor[hartCount];
+    for (int i = 0; i < hartCount; i++) {
+      harts[i] =
+          new CentralProcessor(
+              monitor.memoryFor(i), pc, stackPointer - i * stackSize, copBit, executionMode);
+      harts[i].attach(monitor, i);
+    }
+  }
+
+  public int getHartCount() {
+    return harts.length;
+  }
+
+  public CentralProcessor getHart(int hart) {
+    return harts[hart];
+  }
+
+  /**
+   * Runs every hart on its own thread until each has used up budget instructions or stopped for
+   * another reason
+   *
+   * @param budget maximum number of instructions per hart
+   * @return stop reason of each hart, indexed by hart id
+   * @throws InterruptedException if interrupted while waiting for the harts
+   */
+  public StopReason[] run(long budget) throws InterruptedException {
+    StopReason[] reasons = new StopReason[harts.length];
+    Thread[] threads = new Thread[harts.length];
+    for (int i = 0; i < harts.length; i++) {
+      int hart = i;
+      threads[i] = new Thread(() -> reasons[hart] = harts[hart].run(budget), "MipsHart-" + i);
+      threads[i].start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return reasons;
+  }
+}
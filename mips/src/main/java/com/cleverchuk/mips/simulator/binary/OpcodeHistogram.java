@@ -0,0 +1,254 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Counts executions per {@link Opcode} and per {@link InstructionClass}. Counters are plain arrays
+ * indexed by ordinal. Like any {@link ExecutionObserver} the histogram runs on the processor's
+ * instrumented, interpreting path, so an unattached histogram costs the translated paths nothing.
+ */
+public final class OpcodeHistogram implements ExecutionObserver {
+  public enum InstructionClass {
+    ALU,
+    LOAD_STORE,
+    BRANCH,
+    FPU,
+    /** Traps, syscalls, barriers, coprocessor 0/2 and other privileged instructions */
+    SYSTEM,
+  }
+
+  private static final Opcode[] OPCODES = Opcode.values();
+
+  private static final InstructionClass[] CLASSES = new InstructionClass[OPCODES.length];
+
+  @SuppressWarnings("removal") // pre-release 6 opcodes are still classified
+  private static final EnumSet<Opcode> LOAD_STORES =
+      EnumSet.of(
+          Opcode.LB,
+          Opcode.LBE,
+          Opcode.LBU,
+          Opcode.LBUE,
+          Opcode.LH,
+          Opcode.LHE,
+          Opcode.LHU,
+          Opcode.LHUE,
+          Opcode.LW,
+          Opcode.LWE,
+          Opcode.LWL,
+          Opcode.LWR,
+          Opcode.LWPC,
+          Opcode.ULW,
+          Opcode.LL,
+          Opcode.LLE,
+          Opcode.LLWP,
+          Opcode.LLWPE,
+          Opcode.SB,
+          Opcode.SBE,
+          Opcode.SH,
+          Opcode.SHE,
+          Opcode.SW,
+          Opcode.SWE,
+          Opcode.SWL,
+          Opcode.SWR,
+          Opcode.USW,
+          Opcode.SC,
+          Opcode.SCE,
+          Opcode.SCWP,
+          Opcode.SCWPE,
+          Opcode.LWC1,
+          Opcode.LWC2,
+          Opcode.LDC1,
+          Opcode.LDC2,
+          Opcode.SWC1,
+          Opcode.SWC2,
+          Opcode.SDC1,
+          Opcode.SDC2,
+          Opcode.PREF,
+          Opcode.PREFE);
+
+  private static final EnumSet<Opcode> FPU_MOVES =
+      EnumSet.of(Opcode.CFC1, Opcode.CTC1, Opcode.MFC1, Opcode.MTC1, Opcode.MFHC1, Opcode.MTHC1);
+
+  private static final EnumSet<Opcode> SYSTEM =
+      EnumSet.of(
+          Opcode.TEQ,
+          Opcode.TGE,
+          Opcode.TGEU,
+          Opcode.TLT,
+          Opcode.TLTU,
+          Opcode.TNE,
+          Opcode.SYNC,
+          Opcode.SYNCI,
+          Opcode.CACHE,
+          Opcode.CACHEE,
+          Opcode.TLBINV,
+          Opcode.TLBINVF,
+          Opcode.TLBP,
+          Opcode.TLBR,
+          Opcode.TLBWI,
+          Opcode.TLBWR,
+          Opcode.DI,
+          Opcode.EI,
+          Opcode.EHB,
+          Opcode.PAUSE,
+          Opcode.DVP,
+          Opcode.EVP,
+          Opcode.GINVI,
+          Opcode.GINVT,
+          Opcode.MFC0,
+          Opcode.MTC0,
+          Opcode.MFHC0,
+          Opcode.MTHC0,
+          Opcode.CFC2,
+          Opcode.CTC2,
+          Opcode.MFC2,
+          Opcode.MTC2,
+          Opcode.MFHC2,
+          Opcode.MTHC2,
+          Opcode.COP2,
+          Opcode.RDHWR,
+          Opcode.RDPGPR,
+          Opcode.WRPGPR);
+
+  static {
+    for (Opcode opcode : OPCODES) {
+      CLASSES[opcode.ordinal()] = classify(opcode);
+    }
+  }
+
+  private final long[] counts = new long[OPCODES.length];
+
+  private final long[] classCounts = new long[InstructionClass.values().length];
+
+  @Override
+  public void onInstruction(int pc, int instruction, Opcode opcode) {
+    int ordinal = opcode.ordinal();
+    counts[ordinal]++;
+    classCounts[CLASSES[ordinal].ordinal()]++;
+  }
+
+  public long getCount(Opcode opcode) {
+    return counts[opcode.ordinal()];
+  }
+
+  public long getCount(InstructionClass instructionClass) {
+    return classCounts[instructionClass.ordinal()];
+  }
+
+  public long getTotal() {
+    long total = 0;
+    for (long count : classCounts) {
+      total += count;
+    }
+    return total;
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    Arrays.fill(classCounts, 0);
+  }
+
+  /**
+   * @return {@code {"total":n,"classes":{...},"opcodes":{...}}} listing executed opcodes only, most
+   *     frequent first
+   */
+  public String toJson() {
+    StringBuilder json =
+        new StringBuilder("{\"total\":").append(getTotal()).append(",\"classes\":{");
+    InstructionClass[] classes = InstructionClass.values();
+    for (int i = 0; i < classes.length; i++) {
+      json.append(i == 0 ? "" : ",")
+          .append('"')
+          .append(classes[i])
+          .append("\":")
+          .append(classCounts[i]);
+    }
+
+    json.append("},\"opcodes\":{");
+    boolean first = true;
+    for (Opcode opcode : executed()) {
+      json.append(first ? "" : ",")
+          .append('"')
+          .append(opcode.name)
+          .append("\":")
+          .append(counts[opcode.ordinal()]);
+      first = false;
+    }
+    return json.append("}}").toString();
+  }
+
+  /**
+   * @return {@code opcode,class,count} rows for executed opcodes, most frequent first, after a
+   *     header row
+   */
+  public String toCsv() {
+    StringBuilder csv = new StringBuilder("opcode,class,count\n");
+    for (Opcode opcode : executed()) {
+      csv.append(
+          String.format(
+              Locale.ROOT,
+              "%s,%s,%d\n",
+              opcode.name,
+              CLASSES[opcode.ordinal()],
+              counts[opcode.ordinal()]));
+    }
+    return csv.toString();
+  }
+
+  private Opcode[] executed() {
+    return Arrays.stream(OPCODES)
+        .filter(opcode -> counts[opcode.ordinal()] > 0)
+        .sorted((a, b) -> Long.compare(counts[b.ordinal()], counts[a.ordinal()]))
+        .toArray(Opcode[]::new);
+  }
+
+  static InstructionClass classOf(Opcode opcode) {
+    return CLASSES[opcode.ordinal()];
+  }
+
+  @SuppressWarnings("removal")
+  private static InstructionClass classify(Opcode opcode) {
+    if (BasicBlock.branches(opcode)
+        || opcode == Opcode.NAL
+        || opcode == Opcode.BEQZ
+        || opcode == Opcode.BNEZ) {
+      return InstructionClass.BRANCH;
+    }
+    if (LOAD_STORES.contains(opcode)) {
+      return InstructionClass.LOAD_STORE;
+    }
+    if (opcode.name.indexOf('.') >= 0 || FPU_MOVES.contains(opcode)) {
+      return InstructionClass.FPU;
+    }
+    if (BasicBlock.terminates(opcode) || SYSTEM.contains(opcode)) {
+      return InstructionClass.SYSTEM;
+    }
+    return InstructionClass.ALU;
+  }
+}
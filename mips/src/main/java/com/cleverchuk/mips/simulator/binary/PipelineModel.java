@@ -0,0 +1,417 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.simulator.branch.BranchPredictor;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cycle-approximate timing of the classic in-order IF/ID/EX/MEM/WB pipeline, driven by the
+ * instructions the processor reports to its {@link ExecutionObserver}. Each instruction issues to
+ * EX one cycle after its predecessor unless it waits for an operand (load-use and other data
+ * hazards), for the multi-cycle multiply/divide unit, or for the fetch redirect after a taken
+ * branch or jump. With a {@link BranchPredictor} set, only mispredicted branches redirect.
+ * Dependencies are tracked through the integer registers and HI/LO; floating point registers are
+ * not modelled.
+ */
+public final class PipelineModel implements ExecutionObserver {
+  public enum Stall {
+    /** Waiting for a loaded value */
+    LOAD_USE,
+
+    /** Waiting for an ALU result that is not forwarded */
+    DATA,
+
+    /** Waiting for a multiply/divide result or for the unit to free up */
+    MULTI_CYCLE,
+
+    /** Fetch redirect after a taken or mispredicted branch; charged to the branch */
+    CONTROL,
+  }
+
+  private static final int STALLS = Stall.values().length;
+
+  private static final int HI_LO = 32; // pseudo register for the accumulator
+
+  private static final int RA = 31;
+
+  private static final int FILL = 2; // cycles from fetch to EX of the first instruction
+
+  private static final int DRAIN = 2; // cycles from EX to WB of the last instruction
+
+  @SuppressWarnings("removal") // pre-release 6 opcodes still flow through the pipeline
+  private static final EnumSet<Opcode> LOADS =
+      EnumSet.of(
+          Opcode.LB,
+          Opcode.LBE,
+          Opcode.LBU,
+          Opcode.LBUE,
+          Opcode.LH,
+          Opcode.LHE,
+          Opcode.LHU,
+          Opcode.LHUE,
+          Opcode.LW,
+          Opcode.LWE,
+          Opcode.LWL,
+          Opcode.LWR,
+          Opcode.LWPC,
+          Opcode.LL,
+          Opcode.LLE);
+
+  @SuppressWarnings("removal")
+  private static final EnumSet<Opcode> NO_DESTINATION =
+      EnumSet.of(
+          Opcode.SB,
+          Opcode.SBE,
+          Opcode.SH,
+          Opcode.SHE,
+          Opcode.SW,
+          Opcode.SWE,
+          Opcode.SWL,
+          Opcode.SWR,
+          Opcode.SWC1,
+          Opcode.SWC2,
+          Opcode.SDC1,
+          Opcode.SDC2,
+          Opcode.LWC1,
+          Opcode.LWC2,
+          Opcode.LDC1,
+          Opcode.LDC2);
+
+  @SuppressWarnings("removal")
+  private static final EnumSet<Opcode> MULTIPLIES =
+      EnumSet.of(
+          Opcode.MUL,
+          Opcode.MUH,
+          Opcode.MULU,
+          Opcode.MUHU,
+          Opcode.MULT,
+          Opcode.MULTU,
+          Opcode.MADD,
+          Opcode.MADDU,
+          Opcode.MSUB,
+          Opcode.MSUBU);
+
+  private static final EnumSet<Opcode> DIVIDES =
+      EnumSet.of(Opcode.DIV, Opcode.DIVU, Opcode.MOD, Opcode.MODU);
+
+  @SuppressWarnings("removal")
+  private static final EnumSet<Opcode> ACCUMULATOR_WRITES =
+      EnumSet.of(
+          Opcode.MULT,
+          Opcode.MULTU,
+          Opcode.MADD,
+          Opcode.MADDU,
+          Opcode.MSUB,
+          Opcode.MSUBU,
+          Opcode.MTHI,
+          Opcode.MTLO);
+
+  @SuppressWarnings("removal")
+  private static final EnumSet<Opcode> ACCUMULATOR_READS = EnumSet.of(Opcode.MFHI, Opcode.MFLO);
+
+  @SuppressWarnings("removal")
+  private static final EnumSet<Opcode> LINKS =
+      EnumSet.of(
+          Opcode.JAL,
+          Opcode.BAL,
+          Opcode.BALC,
+          Opcode.NAL,
+          Opcode.BGEZAL,
+          Opcode.BLTZAL,
+          Opcode.BLEZALC,
+          Opcode.BGEZALC,
+          Opcode.BGTZALC,
+          Opcode.BLTZALC,
+          Opcode.BEQZALC,
+          Opcode.BNEZALC,
+          Opcode.JIALC);
+
+  private final boolean forwarding;
+
+  private final int branchPenalty;
+
+  private final int multiplyLatency;
+
+  private final int divideLatency;
+
+  /** Earliest cycle a reader of each register may issue */
+  private final long[] readyAt = new long[HI_LO + 1];
+
+  /** Stall charged to a reader of each register: the producer's kind */
+  private final Stall[] producer = new Stall[HI_LO + 1];
+
+  private final long[] totalStalls = new long[STALLS];
+
+  private long[] executions = new long[256]; // indexed by pc >>> 2
+
+  private long[] stalls = new long[256 * STALLS];
+
+  private long issue = FILL;
+
+  private long unitFreeAt;
+
+  private long instructions;
+
+  private long redirect; // penalty the next instruction waits for
+
+  private BranchPredictor branchPredictor;
+
+  /** Forwarding on, one cycle branch penalty, 4 cycle multiply and 12 cycle divide */
+  public PipelineModel() {
+    this(true, 1, 4, 12);
+  }
+
+  /**
+   * @param forwarding whether results bypass the register file
+   * @param branchPenalty cycles lost to each taken branch or jump
+   * @param multiplyLatency cycles a multiply occupies EX
+   * @param divideLatency cycles a divide occupies EX
+   */
+  public PipelineModel(
+      boolean forwarding, int branchPenalty, int multiplyLatency, int divideLatency) {
+    this.forwarding = forwarding;
+    this.branchPenalty = branchPenalty;
+    this.multiplyLatency = multiplyLatency;
+    this.divideLatency = divideLatency;
+  }
+
+  @Override
+  public void onInstruction(int pc, int instruction, Opcode opcode) {
+    long earliest = issue + 1 + redirect;
+    redirect = 0;
+
+    long ready = earliest;
+    Stall cause = null;
+    boolean multiCycle = MULTIPLIES.contains(opcode) || DIVIDES.contains(opcode);
+    if (multiCycle && unitFreeAt > ready) {
+      ready = unitFreeAt;
+      cause = Stall.MULTI_CYCLE;
+    }
+
+    if (!isCoprocessor(instruction)) {
+      int rs = (instruction >>> 21) & 0x1f;
+      int rt = (instruction >>> 16) & 0x1f;
+      if (ACCUMULATOR_READS.contains(opcode)) {
+        if (readyAt[HI_LO] > ready) {
+          ready = readyAt[HI_LO];
+          cause = producer[HI_LO];
+        }
+      }
+      if (opcode.rs && rs != 0 && readyAt[rs] > ready) {
+        ready = readyAt[rs];
+        cause = producer[rs];
+      }
+      if (opcode.rt && rt != 0 && readsRt(opcode) && readyAt[rt] > ready) {
+        ready = readyAt[rt];
+        cause = producer[rt];
+      }
+    }
+
+    if (cause != null) {
+      charge(pc, cause, ready - earliest);
+    }
+    issue = ready;
+    instructions++;
+    grow(pc >>> 2);
+    executions[pc >>> 2]++;
+
+    Stall kind = Stall.DATA;
+    long delay = forwarding ? 1 : 3;
+    if (LOADS.contains(opcode)) {
+      kind = Stall.LOAD_USE;
+      delay = forwarding ? 2 : 3;
+    } else if (multiCycle) {
+      int latency = DIVIDES.contains(opcode) ? divideLatency : multiplyLatency;
+      kind = Stall.MULTI_CYCLE;
+      delay = forwarding ? latency : latency + 2;
+      unitFreeAt = issue + latency;
+    }
+
+    int destination = destination(instruction, opcode);
+    if (destination > 0) {
+      readyAt[destination] = issue + delay;
+      producer[destination] = kind;
+    }
+  }
+
+  @Override
+  public void onBranch(int pc, int instruction, Opcode opcode, boolean taken, int target) {
+    boolean redirects =
+        branchPredictor == null
+            ? taken
+            : branchPredictor.resolve(pc, instruction, opcode, taken, target);
+    if (redirects) {
+      redirect = branchPenalty;
+      charge(pc, Stall.CONTROL, branchPenalty);
+    }
+  }
+
+  /**
+   * Charges the branch penalty only when the predictor mispredicts, rather than on every taken
+   * branch
+   *
+   * @param branchPredictor predictor to consult, or null to predict every branch not taken
+   */
+  public void setBranchPredictor(BranchPredictor branchPredictor) {
+    this.branchPredictor = branchPredictor;
+  }
+
+  public long getInstructions() {
+    return instructions;
+  }
+
+  public long getCycles() {
+    return instructions == 0 ? 0 : issue + DRAIN;
+  }
+
+  public double getCpi() {
+    return instructions == 0 ? 0 : (double) getCycles() / instructions;
+  }
+
+  public long getStalls(Stall stall) {
+    return totalStalls[stall.ordinal()];
+  }
+
+  /**
+   * Breaks the run down by source line
+   *
+   * @param image program the model ran
+   * @return profile of every line that executed, ordered by line
+   */
+  public Map<Integer, LineProfile> getLineProfiles(ProgramImage image) {
+    Map<Integer, LineProfile> profiles = new TreeMap<>();
+    for (int slot = 0; slot < executions.length; slot++) {
+      long[] lineStalls = Arrays.copyOfRange(stalls, slot * STALLS, (slot + 1) * STALLS);
+      if (executions[slot] == 0 && Arrays.stream(lineStalls).allMatch(count -> count == 0)) {
+        continue;
+      }
+      profiles.put(image.getLine(slot << 2), new LineProfile(executions[slot], lineStalls));
+    }
+    return profiles;
+  }
+
+  public void reset() {
+    Arrays.fill(readyAt, 0);
+    Arrays.fill(producer, null);
+    Arrays.fill(totalStalls, 0);
+    Arrays.fill(executions, 0);
+    Arrays.fill(stalls, 0);
+    issue = FILL;
+    unitFreeAt = 0;
+    instructions = 0;
+    redirect = 0;
+  }
+
+  private void charge(int pc, Stall stall, long cycles) {
+    grow(pc >>> 2);
+    stalls[(pc >>> 2) * STALLS + stall.ordinal()] += cycles;
+    totalStalls[stall.ordinal()] += cycles;
+  }
+
+  private void grow(int slot) {
+    if (slot >= executions.length) {
+      int capacity = Math.max(slot + 1, executions.length * 2);
+      executions = Arrays.copyOf(executions, capacity);
+      stalls = Arrays.copyOf(stalls, capacity * STALLS);
+    }
+  }
+
+  private static boolean isCoprocessor(int instruction) {
+    int major = instruction >>> 26;
+    return major == 0x11 || major == 0x12; // COP1, COP2
+  }
+
+  /** rt is an operand of R-type instructions, stores and branches; other I-types write it */
+  private static boolean readsRt(Opcode opcode) {
+    return opcode.format == InstructionFormat.R_TYPE
+        || NO_DESTINATION.contains(opcode)
+        || BasicBlock.terminates(opcode)
+        || opcode == Opcode.SC
+        || opcode == Opcode.SCE;
+  }
+
+  private static int destination(int instruction, Opcode opcode) {
+    if (ACCUMULATOR_WRITES.contains(opcode)) {
+      return HI_LO;
+    }
+    if (LINKS.contains(opcode)) {
+      return RA;
+    }
+    if (opcode == Opcode.JALR || opcode == Opcode.JALR_HB) {
+      return (instruction >>> 11) & 0x1f;
+    }
+    if (opcode == Opcode.MFC1 || opcode == Opcode.MFHC1) {
+      return (instruction >>> 16) & 0x1f;
+    }
+    if (isCoprocessor(instruction)
+        || NO_DESTINATION.contains(opcode)
+        || BasicBlock.terminates(opcode)) {
+      return 0;
+    }
+    if (opcode.format == InstructionFormat.R_TYPE) {
+      return opcode.rd ? (instruction >>> 11) & 0x1f : 0;
+    }
+    if (opcode == Opcode.LWPC) {
+      return (instruction >>> 21) & 0x1f;
+    }
+    return opcode.rt ? (instruction >>> 16) & 0x1f : 0;
+  }
+
+  /** Execution counts and stall cycles of one source line */
+  public static final class LineProfile {
+    private final long executions;
+
+    private final long[] stalls;
+
+    LineProfile(long executions, long[] stalls) {
+      this.executions = executions;
+      this.stalls = stalls;
+    }
+
+    public long getExecutions() {
+      return executions;
+    }
+
+    public long getStalls(Stall stall) {
+      return stalls[stall.ordinal()];
+    }
+
+    /**
+     * @return issue cycles plus every stall charged to the line
+     */
+    public long getCycles() {
+      long cycles = executions;
+      for (long stall : stalls) {
+        cycles += stall;
+      }
+      return cycles;
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+
+/**
+ * Architectural state captured by {@link CentralProcessor#snapshot()}: the general purpose,
+ * floating point and FPU control registers, HI/LO, PC and the memory pages. Immutable; one snapshot
+ * can be restored any number of times.
+ */
+public final class ProcessorSnapshot {
+  static final int FPC_REGISTERS = 6;
+
+  final int[] gpr;
+
+  final long[] fpr;
+
+  final int[] fpc;
+
+  final int pc;
+
+  final int hi;
+
+  final int lo;
+
+  final long instructionCount;
+
+  final PagedMemory.Snapshot memory;
+
+  ProcessorSnapshot(
+      int[] gpr,
+      long[] fpr,
+      int[] fpc,
+      int pc,
+      int hi,
+      int lo,
+      long instructionCount,
+      PagedMemory.Snapshot memory) {
+    this.gpr = gpr;
+    this.fpr = fpr;
+    this.fpc = fpc;
+    this.pc = pc;
+    this.hi = hi;
+    this.lo = lo;
+    this.instructionCount = instructionCount;
+    this.memory = memory;
+  }
+}
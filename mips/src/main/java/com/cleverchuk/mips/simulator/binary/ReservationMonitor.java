@@ -0,0 +1,257 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.simulator.mem.Memory;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tracks the LL/SC reservation of every hart sharing a {@link Memory}. Reservations cover an
+ * aligned 8-byte granule, enough for the word pair of llwp/scwp. A store by one hart clears the
+ * reservations other harts hold on the granules it touches.
+ *
+ * <p>Harts must access memory through {@link #memoryFor(int)}. Each granule maps to one of a fixed
+ * set of locks; ll, sc and plain stores hold the locks of the granules they touch, so a store is
+ * never lost between an sc's check and its write, and harts touching different granules rarely
+ * contend. Loads take no lock. The underlying memory writes a word a byte at a time, so a load that
+ * races with another hart's store may see it half done; programs that order their accesses with
+ * sync or ll/sc never observe that.
+ */
+public final class ReservationMonitor {
+  private static final int NONE = -1;
+
+  /** Number of granule locks; a power of two */
+  private static final int STRIPES = 64;
+
+  private final Memory memory;
+
+  private final AtomicIntegerArray reservations;
+
+  private final Object[] locks = new Object[STRIPES];
+
+  public ReservationMonitor(Memory memory, int harts) {
+    this.memory = memory;
+    this.reservations = new AtomicIntegerArray(harts);
+    for (int hart = 0; hart < harts; hart++) {
+      reservations.set(hart, NONE);
+    }
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      locks[stripe] = new Object();
+    }
+  }
+
+  public int getHartCount() {
+    return reservations.length();
+  }
+
+  /**
+   * @param hart hart id
+   * @return view of the shared memory whose stores break other harts' reservations
+   */
+  public Memory memoryFor(int hart) {
+    return new HartMemory(hart);
+  }
+
+  /** Reserves the granule of address for the hart and loads the word there */
+  int loadLinked(int hart, int address) {
+    synchronized (lower(address, 4)) {
+      synchronized (upper(address, 4)) {
+        reservations.set(hart, address >>> 3);
+        return memory.readWord(address);
+      }
+    }
+  }
+
+  /**
+   * Reserves the granule of address for the hart and loads the word pair there
+   *
+   * @return word at address in the high half, word at address + 4 in the low half
+   */
+  long loadLinkedPair(int hart, int address) {
+    synchronized (lower(address, 8)) {
+      synchronized (upper(address, 8)) {
+        reservations.set(hart, address >>> 3);
+        return ((long) memory.readWord(address) << 32)
+            | (memory.readWord(address + 4) & 0xffffffffL);
+      }
+    }
+  }
+
+  /**
+   * Stores word if the hart still holds its reservation on address. The reservation is dropped
+   * either way.
+   *
+   * @return true if the word was stored
+   */
+  boolean storeConditional(int hart, int address, int word) {
+    synchronized (lower(address, 4)) {
+      synchronized (upper(address, 4)) {
+        if (!release(hart, address)) {
+          return false;
+        }
+        memory.storeWord(word, address);
+        snoop(hart, address, 4);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Stores the word pair if the hart still holds its reservation on address. The reservation is
+   * dropped either way.
+   *
+   * @return true if the words were stored
+   */
+  boolean storeConditionalPair(int hart, int address, int first, int second) {
+    synchronized (lower(address, 8)) {
+      synchronized (upper(address, 8)) {
+        if (!release(hart, address)) {
+          return false;
+        }
+        memory.storeWord(first, address);
+        memory.storeWord(second, address + 4);
+        snoop(hart, address, 8);
+        return true;
+      }
+    }
+  }
+
+  /** Drops the hart's reservation, as an exception return does */
+  void clear(int hart) {
+    reservations.set(hart, NONE);
+  }
+
+  /** Orders every store made before it, by any hart, before every access made after it. */
+  synchronized void fence() {}
+
+  private boolean release(int hart, int address) {
+    return reservations.getAndSet(hart, NONE) == address >>> 3;
+  }
+
+  private void snoop(int writer, int address, int length) {
+    int first = address >>> 3;
+    int last = (address + length - 1) >>> 3;
+    for (int hart = 0; hart < reservations.length(); hart++) {
+      int granule = reservations.get(hart);
+      if (hart != writer && granule >= first && granule <= last) {
+        reservations.compareAndSet(hart, granule, NONE);
+      }
+    }
+  }
+
+  // An access spans at most two granules. Their locks are always taken lower stripe first, so two
+  // accesses straddling the same pair of stripes cannot deadlock; when both granules share a
+  // stripe the second lock is a reentrant no-op.
+
+  private Object lower(int address, int length) {
+    return locks[Math.min(stripe(address), stripe(address + length - 1))];
+  }
+
+  private Object upper(int address, int length) {
+    return locks[Math.max(stripe(address), stripe(address + length - 1))];
+  }
+
+  private static int stripe(int address) {
+    return (address >>> 3) & (STRIPES - 1);
+  }
+
+  private final class HartMemory implements Memory {
+    private final int hart;
+
+    HartMemory(int hart) {
+      this.hart = hart;
+    }
+
+    @Override
+    public byte read(int offset) {
+      return memory.read(offset);
+    }
+
+    @Override
+    public short readHalf(int offset) {
+      return memory.readHalf(offset);
+    }
+
+    @Override
+    public int readWord(int offset) {
+      return memory.readWord(offset);
+    }
+
+    @Override
+    public long readDWord(int offset) {
+      return memory.readDWord(offset);
+    }
+
+    @Override
+    public void store(byte bite, int offset) {
+      synchronized (locks[stripe(offset)]) {
+        memory.store(bite, offset);
+        snoop(hart, offset, 1);
+      }
+    }
+
+    @Override
+    public void storeHalf(short half, int offset) {
+      synchronized (lower(offset, 2)) {
+        synchronized (upper(offset, 2)) {
+          memory.storeHalf(half, offset);
+          snoop(hart, offset, 2);
+        }
+      }
+    }
+
+    @Override
+    public void storeWord(int word, int offset) {
+      synchronized (lower(offset, 4)) {
+        synchronized (upper(offset, 4)) {
+          memory.storeWord(word, offset);
+          snoop(hart, offset, 4);
+        }
+      }
+    }
+
+    @Override
+    public void storeDword(long dword, int offset) {
+      synchronized (lower(offset, 8)) {
+        synchronized (upper(offset, 8)) {
+          memory.storeDword(dword, offset);
+          snoop(hart, offset, 8);
+        }
+      }
+    }
+
+    @Override
+    public void resize(int size) {
+      synchronized (ReservationMonitor.this) {
+        memory.resize(size);
+      }
+    }
+
+    @Override
+    public int getCapacity() {
+      return memory.getCapacity();
+    }
+  }
+}
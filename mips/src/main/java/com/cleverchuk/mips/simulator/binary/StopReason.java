@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+/** Why {@link CentralProcessor#run(long)} returned. */
+public enum StopReason {
+  /** The instruction budget was used up */
+  BUDGET_EXHAUSTED,
+
+  /**
+   * A syscall other than exit was raised; its service code is in {@link
+   * CentralProcessor#getSyscallCode()}
+   */
+  SYSCALL,
+
+  /** pc reached an address marked with {@link CentralProcessor#setBreakpoint(int)} */
+  BREAKPOINT,
+
+  /** An instruction threw; the exception is in {@link CentralProcessor#getTrap()} */
+  TRAP,
+
+  /** The exit syscall was raised */
+  HALT,
+
+  /** pc reached the text boundary */
+  BOUNDARY,
+
+  /** An access matched a watchpoint; which one is in {@link Watchpoints#getHit()} */
+  WATCHPOINT,
+}
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.simulator.mem.Memory;
+
+/**
+ * Fuses common instruction pairs of a translated {@link BasicBlock} into single operations. The
+ * pairs are the ones that dominate compiled student programs:
+ *
+ * <ul>
+ *   <li>aui + ori, the expansion of la
+ *   <li>slt + bne/beq, a compare and branch
+ *   <li>sll + addu, array indexing
+ *   <li>lw + addiu, a load followed by a pointer or counter bump
+ * </ul>
+ *
+ * <p>A fused operation is entered with pc already past both halves, leaves every register exactly
+ * as the two instructions would, and sets pc itself when it branches. Only the load of lw + addiu
+ * can fault, before either register is written; the processor then moves pc back to just past the
+ * load, as the interpreter reports it. Pairs that write $zero are not fused.
+ */
+final class Superinstructions {
+  private final int[] gpr;
+
+  private final Memory memory;
+
+  Superinstructions(int[] gpr, Memory memory) {
+    this.gpr = gpr;
+    this.memory = memory;
+  }
+
+  /**
+   * @param block freshly translated block
+   * @return operations indexed by the first instruction of each fused pair, or null if nothing was
+   *     fused
+   */
+  Operation[] fuse(BasicBlock block) {
+    Operation[] fused = null;
+    int address = block.start;
+    for (int i = 0; i + 1 < block.length(); i++, address += 4) {
+      Operation operation =
+          fuse(
+              block.opcodes[i],
+              block.instructions[i],
+              block.opcodes[i + 1],
+              block.instructions[i + 1],
+              address + 4);
+      if (operation != null) {
+        if (fused == null) {
+          fused = new Operation[block.length()];
+        }
+        fused[i++] = operation;
+        address += 4;
+      }
+    }
+    return fused;
+  }
+
+  /**
+   * @param address address of the second instruction
+   * @return fused operation or null if the pair is not fusable
+   */
+  private Operation fuse(Opcode first, int a, Opcode second, int b, int address) {
+    int rsA = (a >> 21) & 0x1f;
+    int rtA = (a >> 16) & 0x1f;
+    int rdA = (a >> 11) & 0x1f;
+    short immA = (short) (a & 0xffff);
+
+    int rsB = (b >> 21) & 0x1f;
+    int rtB = (b >> 16) & 0x1f;
+    int rdB = (b >> 11) & 0x1f;
+    short immB = (short) (b & 0xffff);
+    int[] gpr = this.gpr;
+
+    switch (first) {
+      case AUI:
+        if (second != Opcode.ORI || rtA == 0 || rsB != rtA || rtB != rtA) {
+          return null;
+        }
+
+        // aui ors in the upper half and ori ors in a sign-extended lower half, as their handlers do
+        int constant = (immA << 16) | immB;
+        if (rsA == 0) {
+          return (cpu, ignored) -> gpr[rtA] = constant;
+        }
+        return (cpu, ignored) -> gpr[rtA] = gpr[rsA] | constant;
+
+      case SLT:
+        if ((second != Opcode.BNE && second != Opcode.BEQ) || rdA == 0) {
+          return null;
+        }
+
+        int taken = address + 4 + (immB << 2);
+        if (second == Opcode.BNE) {
+          return (cpu, ignored) -> {
+            gpr[rdA] = gpr[rsA] < gpr[rtA] ? 1 : 0;
+            if (gpr[rsB] != gpr[rtB]) {
+              cpu.setPc(taken);
+            }
+          };
+        }
+        return (cpu, ignored) -> {
+          gpr[rdA] = gpr[rsA] < gpr[rtA] ? 1 : 0;
+          if (gpr[rsB] == gpr[rtB]) {
+            cpu.setPc(taken);
+          }
+        };
+
+      case SLL:
+        if (second != Opcode.ADDU || rdA == 0 || rdB == 0) {
+          return null;
+        }
+
+        int sa = (a >> 6) & 0x1f;
+        return (cpu, ignored) -> {
+          gpr[rdA] = gpr[rtA] << sa;
+          gpr[rdB] = gpr[rsB] + gpr[rtB];
+        };
+
+      case LW:
+        if (second != Opcode.ADDIU || rtA == 0 || rtB == 0) {
+          return null;
+        }
+
+        return (cpu, ignored) -> {
+          gpr[rtA] = memory.readWord(gpr[rsA] + immA);
+          gpr[rtB] = gpr[rsB] + immB;
+        };
+
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,381 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import androidx.annotation.NonNull;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the first instruction at which two traces written by {@link TraceRecorder} disagree, e.g. a
+ * student's program against a reference solution or a translated engine against the interpreter.
+ * Both traces are read in step and only the last few pcs are kept for context, so traces of any
+ * length are compared in constant memory. Since the traces start from the same memory image only
+ * the stores need comparing; registers are compared where either trace wrote one.
+ */
+public final class TraceDiff {
+  public static final int DEFAULT_CONTEXT = 8;
+
+  private final int context;
+
+  public TraceDiff() {
+    this(DEFAULT_CONTEXT);
+  }
+
+  /**
+   * @param context number of instructions leading up to a divergence to report
+   */
+  public TraceDiff(int context) {
+    if (context <= 0) {
+      throw new IllegalArgumentException("context must be positive: " + context);
+    }
+    this.context = context;
+  }
+
+  public Divergence compare(File expected, File actual) throws IOException {
+    try (TraceReader left = new TraceReader(expected);
+        TraceReader right = new TraceReader(actual)) {
+      return compare(left, right);
+    }
+  }
+
+  /**
+   * Reads both traces up to the first divergence or to their end
+   *
+   * @param expected reference trace
+   * @param actual trace checked against it
+   * @return first divergence, or null if the traces match
+   */
+  public Divergence compare(TraceReader expected, TraceReader actual) throws IOException {
+    int[] recent = new int[context]; // ring of the expected pcs leading up to the current one
+    long count = 0;
+
+    if (expected.getPc() != actual.getPc()) {
+      return divergence(Divergence.Kind.PC, expected, actual, "starting pc", recent, count);
+    }
+    String registers = compareRegisters(expected, actual);
+    if (registers != null) {
+      return divergence(Divergence.Kind.REGISTER, expected, actual, registers, recent, count);
+    }
+
+    for (; ; ) {
+      boolean more = expected.next();
+      if (more != actual.next()) {
+        String detail = more ? "actual trace ends early" : "actual trace runs longer";
+        return divergence(Divergence.Kind.LENGTH, expected, actual, detail, recent, count);
+      }
+      if (!more) {
+        return null;
+      }
+
+      recent[(int) (count++ % context)] = expected.getPc();
+      if (expected.getPc() != actual.getPc()) {
+        return divergence(Divergence.Kind.PC, expected, actual, "pc", recent, count);
+      }
+
+      String stores = compareStores(expected, actual);
+      if (stores != null) {
+        return divergence(Divergence.Kind.MEMORY, expected, actual, stores, recent, count);
+      }
+
+      String written = compareWritten(expected, actual, expected);
+      if (written == null) {
+        written = compareWritten(expected, actual, actual);
+      }
+      if (written != null) {
+        return divergence(Divergence.Kind.REGISTER, expected, actual, written, recent, count);
+      }
+    }
+  }
+
+  private static String compareRegisters(TraceReader expected, TraceReader actual) {
+    for (int reg = 1; reg < 32; reg++) {
+      if (expected.getGpr(reg) != actual.getGpr(reg)) {
+        return describe(TraceReader.Kind.GPR, reg, expected.getGpr(reg), actual.getGpr(reg));
+      }
+    }
+    for (int reg = 0; reg < 32; reg++) {
+      if (expected.getFpr(reg) != actual.getFpr(reg)) {
+        return describe(TraceReader.Kind.FPR, reg, expected.getFpr(reg), actual.getFpr(reg));
+      }
+    }
+    if (expected.getHi() != actual.getHi()) {
+      return describe(TraceReader.Kind.HI, 0, expected.getHi(), actual.getHi());
+    }
+    if (expected.getLo() != actual.getLo()) {
+      return describe(TraceReader.Kind.LO, 0, expected.getLo(), actual.getLo());
+    }
+    return null;
+  }
+
+  /**
+   * The states agreed before the current instruction, so only the registers either trace says it
+   * wrote can differ
+   *
+   * @param writer the trace whose writes are checked
+   */
+  private static String compareWritten(
+      TraceReader expected, TraceReader actual, TraceReader writer) {
+    for (int write = 0; write < writer.getWriteCount(); write++) {
+      TraceReader.Kind kind = writer.getWriteKind(write);
+      int target = writer.getWriteTarget(write);
+      long left = value(expected, kind, target);
+      long right = value(actual, kind, target);
+      if (left != right) {
+        return describe(kind, target, left, right);
+      }
+    }
+    return null;
+  }
+
+  private static long value(TraceReader reader, TraceReader.Kind kind, int target) {
+    switch (kind) {
+      case GPR:
+        return reader.getGpr(target);
+      case FPR:
+        return reader.getFpr(target);
+      case HI:
+        return reader.getHi();
+      case LO:
+        return reader.getLo();
+      default:
+        return 0; // stores are compared separately
+    }
+  }
+
+  private static String compareStores(TraceReader expected, TraceReader actual) {
+    int left = 0;
+    int right = 0;
+    for (; ; ) {
+      left = nextStore(expected, left);
+      right = nextStore(actual, right);
+      if (left == expected.getWriteCount() || right == actual.getWriteCount()) {
+        if (left != expected.getWriteCount()) {
+          return String.format(
+              Locale.getDefault(), "missing store to 0x%08x", expected.getWriteTarget(left));
+        }
+        if (right != actual.getWriteCount()) {
+          return String.format(
+              Locale.getDefault(), "unexpected store to 0x%08x", actual.getWriteTarget(right));
+        }
+        return null;
+      }
+
+      if (expected.getWriteKind(left) != actual.getWriteKind(right)
+          || expected.getWriteTarget(left) != actual.getWriteTarget(right)
+          || expected.getWriteValue(left) != actual.getWriteValue(right)) {
+        return String.format(
+            Locale.getDefault(),
+            "expected %s %d to 0x%08x, was %s %d to 0x%08x",
+            expected.getWriteKind(left).name().toLowerCase(Locale.ROOT),
+            expected.getWriteValue(left),
+            expected.getWriteTarget(left),
+            actual.getWriteKind(right).name().toLowerCase(Locale.ROOT),
+            actual.getWriteValue(right),
+            actual.getWriteTarget(right));
+      }
+      left++;
+      right++;
+    }
+  }
+
+  private static int nextStore(TraceReader reader, int write) {
+    while (write < reader.getWriteCount()
+        && reader.getWriteKind(write).compareTo(TraceReader.Kind.BYTE) < 0) {
+      write++; // a register
+    }
+    return write;
+  }
+
+  private static String describe(TraceReader.Kind kind, int reg, long expected, long actual) {
+    String name;
+    switch (kind) {
+      case GPR:
+        name = "$" + MipsLexer.DECI_TO_CPU_REG.get(String.valueOf(reg));
+        break;
+      case FPR:
+        name = "$f" + reg;
+        break;
+      default:
+        name = kind.name().toLowerCase(Locale.ROOT);
+    }
+    return String.format(
+        Locale.getDefault(),
+        "%s: expected %d (0x%x), was %d (0x%x)",
+        name,
+        expected,
+        expected,
+        actual,
+        actual);
+  }
+
+  private Divergence divergence(
+      Divergence.Kind kind,
+      TraceReader expected,
+      TraceReader actual,
+      String detail,
+      int[] recent,
+      long count) {
+    int length = (int) Math.min(count, context);
+    int[] pcs = new int[length];
+    for (int i = 0; i < length; i++) {
+      pcs[i] = recent[(int) ((count - length + i) % context)];
+    }
+    return new Divergence(kind, expected.getIndex(), expected.getPc(), actual.getPc(), detail, pcs);
+  }
+
+  /** Where two traces first disagree */
+  public static final class Divergence {
+    public enum Kind {
+      /** The instructions executed differ */
+      PC,
+      /** The same instruction left a register with different values */
+      REGISTER,
+      /** The same instruction stored something different */
+      MEMORY,
+      /** One trace ended before the other */
+      LENGTH
+    }
+
+    private final Kind kind;
+
+    private final long index;
+
+    private final int expectedPc;
+
+    private final int actualPc;
+
+    private final String detail;
+
+    private final int[] context;
+
+    Divergence(Kind kind, long index, int expectedPc, int actualPc, String detail, int[] context) {
+      this.kind = kind;
+      this.index = index;
+      this.expectedPc = expectedPc;
+      this.actualPc = actualPc;
+      this.detail = detail;
+      this.context = context;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * @return number of the diverging instruction counting from 0, -1 if the traces already differ
+     *     in their starting state
+     */
+    public long getIndex() {
+      return index;
+    }
+
+    public int getExpectedPc() {
+      return expectedPc;
+    }
+
+    public int getActualPc() {
+      return actualPc;
+    }
+
+    /**
+     * @return what differs, e.g. "$t0: expected 5 (0x5), was 6 (0x6)"
+     */
+    public String getDetail() {
+      return detail;
+    }
+
+    /**
+     * @return pcs of the expected trace up to and including the diverging instruction, oldest first
+     */
+    public int[] getContext() {
+      return context.clone();
+    }
+
+    /**
+     * @param image program both traces ran
+     * @return the divergence followed by the source lines leading up to it
+     */
+    public String report(ProgramImage image) {
+      return report(image.getSymbolTable(), image.getTextOffset(), image.getSourceOffset());
+    }
+
+    /**
+     * @param symbolTable labels of the program, see {@link Assembler#getSymbolTable()}
+     * @param textOffset address of the first text instruction
+     * @param sourceOffset line of the .text directive
+     * @return the divergence followed by the source lines leading up to it
+     */
+    public String report(Map<String, Integer> symbolTable, int textOffset, int sourceOffset) {
+      TreeMap<Integer, String> labels = new TreeMap<>();
+      symbolTable.forEach(
+          (label, address) -> {
+            if (address >= textOffset) {
+              labels.merge(
+                  address, label, (first, second) -> first.compareTo(second) <= 0 ? first : second);
+            }
+          });
+
+      StringBuilder builder = new StringBuilder(toString()).append('\n');
+      for (int i = 0; i < context.length; i++) {
+        int pc = context[i];
+        Map.Entry<Integer, String> label = labels.floorEntry(pc);
+        builder.append(
+            String.format(
+                Locale.getDefault(),
+                "%s line %d (%s) at 0x%08x\n",
+                i == context.length - 1 ? ">" : " ",
+                Assembler.lineOf(pc, textOffset, sourceOffset),
+                label == null ? "?" : label.getValue(),
+                pc));
+      }
+      if (kind == Kind.PC) {
+        builder.append(
+            String.format(
+                Locale.getDefault(),
+                "  actual went to line %d at 0x%08x\n",
+                Assembler.lineOf(actualPc, textOffset, sourceOffset),
+                actualPc));
+      }
+      return builder.toString();
+    }
+
+    @Override
+    @NonNull public String toString() {
+      return String.format(
+          Locale.getDefault(),
+          "Traces diverge at instruction %d (%s): %s",
+          index,
+          kind.name().toLowerCase(Locale.ROOT),
+          detail);
+    }
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Plays back a trace written by {@link TraceRecorder} one instruction at a time, keeping the
+ * register state the trace implies up to date so that any point of a run can be inspected offline.
+ */
+public final class TraceReader implements Closeable {
+  public enum Kind {
+    GPR,
+    FPR,
+    HI,
+    LO,
+    BYTE,
+    HALF,
+    WORD
+  }
+
+  private static final Kind[] KINDS = Kind.values();
+
+  private final ReadableByteChannel channel;
+
+  private final ByteBuffer input = ByteBuffer.allocate(1 << 16);
+
+  private final int[] gpr = new int[32];
+
+  private final long[] fpr = new long[32];
+
+  private int hi;
+
+  private int lo;
+
+  private int pc;
+
+  private int expectedPc;
+
+  private int lastStore;
+
+  private long index = -1;
+
+  // writes of the current record
+  private byte[] kinds = new byte[8];
+
+  private int[] targets = new int[8];
+
+  private long[] values = new long[8];
+
+  private int writeCount;
+
+  public TraceReader(File file) throws IOException {
+    this(new FileInputStream(file).getChannel());
+  }
+
+  /**
+   * Reads the trace header; until {@link #next()} is called the state is the one tracing started
+   * from
+   *
+   * @param channel trace to read, closed by {@link #close()}
+   * @throws IOException if the channel does not hold a trace
+   */
+  public TraceReader(ReadableByteChannel channel) throws IOException {
+    this.channel = channel;
+    input.flip();
+
+    int magic = 0;
+    for (int i = 0; i < 4; i++) {
+      magic = (magic << 8) | (readByte() & 0xff);
+    }
+    if (magic != TraceRecorder.MAGIC) {
+      throw new IOException("Not an instruction trace");
+    }
+
+    pc = expectedPc = readInt();
+    for (int reg = 1; reg < 32; reg++) {
+      gpr[reg] = readInt();
+    }
+    for (int reg = 0; reg < 32; reg++) {
+      fpr[reg] = readLong();
+    }
+    hi = readInt();
+    lo = readInt();
+  }
+
+  /**
+   * Advances to the next instruction and applies its writes
+   *
+   * @return false at the end of the trace
+   * @throws EOFException if the trace ends inside a record
+   */
+  public boolean next() throws IOException {
+    if (!input.hasRemaining() && !fill()) {
+      return false;
+    }
+
+    long head = readVarint();
+    pc = expectedPc + (unzigzag((int) (head >>> 3)) << 2);
+    expectedPc = pc + 4;
+    writeCount = (int) (head & 7);
+    if (writeCount == 7) {
+      writeCount += (int) readVarint();
+    }
+    if (writeCount > kinds.length) {
+      kinds = Arrays.copyOf(kinds, writeCount);
+      targets = Arrays.copyOf(targets, writeCount);
+      values = Arrays.copyOf(values, writeCount);
+    }
+
+    for (int i = 0; i < writeCount; i++) {
+      int tag = readByte() & 0xff;
+      if (tag < TraceRecorder.TAG_FPR) {
+        gpr[tag] += readInt();
+        record(i, Kind.GPR, tag, gpr[tag]);
+      } else if (tag < TraceRecorder.TAG_HI) {
+        int reg = tag - TraceRecorder.TAG_FPR;
+        fpr[reg] += readLong();
+        record(i, Kind.FPR, reg, fpr[reg]);
+      } else if (tag == TraceRecorder.TAG_HI) {
+        hi += readInt();
+        record(i, Kind.HI, 0, hi);
+      } else if (tag == TraceRecorder.TAG_LO) {
+        lo += readInt();
+        record(i, Kind.LO, 0, lo);
+      } else if (tag <= TraceRecorder.TAG_WORD) {
+        lastStore += readInt();
+        record(i, KINDS[Kind.BYTE.ordinal() + tag - TraceRecorder.TAG_BYTE], lastStore, readInt());
+      } else {
+        throw new IOException("Corrupt trace record " + (index + 1));
+      }
+    }
+
+    index++;
+    return true;
+  }
+
+  /**
+   * @return number of the current instruction counting from 0, -1 before the first {@link #next()}
+   */
+  public long getIndex() {
+    return index;
+  }
+
+  /**
+   * @return address of the current instruction, or the starting pc before the first {@link #next()}
+   */
+  public int getPc() {
+    return pc;
+  }
+
+  /**
+   * @return value of the register after the current instruction executed
+   */
+  public int getGpr(int reg) {
+    return gpr[reg];
+  }
+
+  /**
+   * @return raw bits of the register after the current instruction executed
+   */
+  public long getFpr(int reg) {
+    return fpr[reg];
+  }
+
+  public int getHi() {
+    return hi;
+  }
+
+  public int getLo() {
+    return lo;
+  }
+
+  /**
+   * @return number of registers and stores the current instruction wrote
+   */
+  public int getWriteCount() {
+    return writeCount;
+  }
+
+  public Kind getWriteKind(int write) {
+    return KINDS[kinds[write]];
+  }
+
+  /**
+   * @return register number for register writes, address for stores
+   */
+  public int getWriteTarget(int write) {
+    return targets[write];
+  }
+
+  /**
+   * @return value written; stores of bytes and halfwords are sign extended
+   */
+  public long getWriteValue(int write) {
+    return values[write];
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void record(int write, Kind kind, int target, long value) {
+    kinds[write] = (byte) kind.ordinal();
+    targets[write] = target;
+    values[write] = value;
+  }
+
+  private int readInt() throws IOException {
+    return unzigzag((int) readVarint());
+  }
+
+  private long readLong() throws IOException {
+    long value = readVarint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private long readVarint() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte bite = readByte();
+      value |= (long) (bite & 0x7f) << shift;
+      if (bite >= 0) {
+        return value;
+      }
+    }
+    throw new IOException("Corrupt varint in trace record " + (index + 1));
+  }
+
+  private static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private byte readByte() throws IOException {
+    if (!input.hasRemaining() && !fill()) {
+      throw new EOFException("Trace ends inside record " + (index + 1));
+    }
+    return input.get();
+  }
+
+  private boolean fill() throws IOException {
+    input.clear();
+    int read;
+    do {
+      read = channel.read(input);
+    } while (read == 0);
+    input.flip();
+    return read > 0;
+  }
+}
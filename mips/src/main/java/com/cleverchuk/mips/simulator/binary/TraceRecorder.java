@@ -0,0 +1,457 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records every instruction the processor retires, with the registers and memory it wrote, to a
+ * compact binary trace that {@link TraceReader} plays back. The simulation thread encodes into one
+ * of two buffers while a background thread writes the other to the channel, so the processor only
+ * waits when the disk falls a full buffer behind.
+ *
+ * <p>The trace starts with the magic {@code "MTR1"} and the initial pc, GPRs 1 to 31, FPRs, HI and
+ * LO. Each instruction then takes one record: a varint head holding the zigzagged distance, in
+ * words, of its pc from the previous pc + 4, shifted left 3 and or-ed with the number of writes (7
+ * meaning a further varint adds to it), followed by the writes. A write is a tag byte then a
+ * varint: the zigzagged change for registers, or the zigzagged distance from the previous store's
+ * address followed by the zigzagged value for stores. Straight-line ALU code thus costs about three
+ * bytes per instruction.
+ *
+ * <p>After an instruction executes only the registers named in its operand fields and $ra are
+ * compared, FPRs only for FPU instructions. Every register is compared when a new {@link
+ * CentralProcessor#run(long)} starts, so whatever the host changed while the processor was stopped,
+ * e.g. a syscall result, is attributed to the instruction that stopped it. Registers written by
+ * devices while running, FPU control and COP2 registers are not recorded.
+ */
+public final class TraceRecorder
+    implements ExecutionObserver, PagedMemory.StoreListener, Closeable {
+  static final int MAGIC = 0x4d545231; // "MTR1"
+
+  static final int TAG_FPR = 32; // plus the register number; GPRs are tagged with their number
+
+  static final int TAG_HI = 64;
+
+  static final int TAG_LO = 65;
+
+  static final int TAG_BYTE = 66;
+
+  static final int TAG_HALF = 67;
+
+  static final int TAG_WORD = 68;
+
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+  /** Opcodes that may write an FPR: COP1, COP1X and the FPU loads; indexed by ordinal */
+  private static final boolean[] FPU = new boolean[Opcode.values().length];
+
+  static {
+    for (Opcode opcode : Opcode.values()) {
+      FPU[opcode.ordinal()] =
+          opcode.opcode == 0x44000000
+              || opcode.opcode == 0x4c000000
+              || opcode == Opcode.LWC1
+              || opcode == Opcode.LDC1;
+    }
+  }
+
+  private final CentralProcessor processor;
+
+  private final PagedMemory memory;
+
+  private final int[] gpr;
+
+  private final long[] fpr;
+
+  // values as of the start of the open record
+  private final int[] shadowGpr = new int[32];
+
+  private final long[] shadowFpr = new long[32];
+
+  private int shadowHi;
+
+  private int shadowLo;
+
+  // registers changed by the open record's instruction
+  private final byte[] changedTags = new byte[66];
+
+  private final long[] changedDeltas = new long[66];
+
+  private int changedCount;
+
+  private long runs = -1; // processor run the open record belongs to
+
+  // stores made by the open record's instruction
+  private int[] storeAddresses = new int[4];
+
+  private int[] storeLengths = new int[4];
+
+  private int storeCount;
+
+  private int lastStore;
+
+  private boolean open;
+
+  private int recordPc;
+
+  private int recordInstruction;
+
+  private boolean recordFpu;
+
+  private int expectedPc;
+
+  private long records;
+
+  // double buffering: the simulation thread fills buffer while the writer drains the other one
+  private final WritableByteChannel channel;
+
+  private final BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>(3);
+
+  private final BlockingQueue<ByteBuffer> drained = new ArrayBlockingQueue<>(2);
+
+  private final Thread writer;
+
+  private volatile IOException failure;
+
+  private ByteBuffer current;
+
+  private byte[] buffer;
+
+  private int position;
+
+  private boolean closed;
+
+  /**
+   * @throws IllegalStateException if the processor does not run on {@link PagedMemory}; the file is
+   *     not opened then
+   */
+  public TraceRecorder(CentralProcessor processor, File file) throws IOException {
+    this(processor, open(processor, file));
+  }
+
+  /**
+   * Attaches to the processor as its observer and to its memory as the store listener and writes
+   * the trace header
+   *
+   * @param processor processor to trace; must run on {@link PagedMemory}
+   * @param channel receives the trace and is closed by {@link #close()}
+   * @throws IllegalStateException if the processor does not run on {@link PagedMemory}
+   */
+  public TraceRecorder(CentralProcessor processor, WritableByteChannel channel) {
+    this.processor = processor;
+    this.memory = processor.pagedMemory();
+    this.gpr = processor.getGprFileArray().getRegisters();
+    this.fpr = processor.getFpuRegisterFileArray().getRegisters();
+    this.channel = channel;
+
+    current = ByteBuffer.allocate(BUFFER_SIZE);
+    buffer = current.array();
+    drained.add(ByteBuffer.allocate(BUFFER_SIZE));
+    writer = new Thread(this::drain, "MipsTraceWriter");
+    writer.setDaemon(true);
+    writer.start();
+
+    System.arraycopy(gpr, 0, shadowGpr, 0, 32);
+    System.arraycopy(fpr, 0, shadowFpr, 0, 32);
+    shadowHi = processor.getHi();
+    shadowLo = processor.getLo();
+    expectedPc = processor.getPc();
+
+    writeInt(MAGIC);
+    writeVarint(zigzag(expectedPc));
+    for (int reg = 1; reg < 32; reg++) {
+      writeVarint(zigzag(shadowGpr[reg]));
+    }
+    for (int reg = 0; reg < 32; reg++) {
+      writeVarint(zigzag(shadowFpr[reg]));
+    }
+    writeVarint(zigzag(shadowHi));
+    writeVarint(zigzag(shadowLo));
+
+    processor.setObserver(this);
+    memory.setStoreListener(this);
+  }
+
+  private static FileChannel open(CentralProcessor processor, File file) throws IOException {
+    processor.pagedMemory(); // fails before there is a channel to leak
+    return new FileOutputStream(file).getChannel();
+  }
+
+  @Override
+  public void onInstruction(int pc, int instruction, Opcode opcode) {
+    flushRecord();
+    recordPc = pc;
+    recordInstruction = instruction;
+    recordFpu = FPU[opcode.ordinal()];
+    open = true;
+  }
+
+  @Override
+  public void beforeStore(int offset, int length) {
+    if (!open) {
+      return;
+    }
+
+    if (storeCount == storeAddresses.length) {
+      storeAddresses = Arrays.copyOf(storeAddresses, storeCount * 2);
+      storeLengths = Arrays.copyOf(storeLengths, storeCount * 2);
+    }
+    storeAddresses[storeCount] = offset;
+    storeLengths[storeCount++] = length;
+  }
+
+  /**
+   * @return number of instructions recorded so far
+   */
+  public long getRecordCount() {
+    return records + (open ? 1 : 0);
+  }
+
+  /**
+   * Records the last instruction, detaches from the processor and waits for the trace to reach the
+   * channel, which is then closed
+   *
+   * @throws IOException if writing the trace failed at any point
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    processor.setObserver(null);
+    memory.setStoreListener(null);
+    flushRecord();
+    current.limit(position);
+    filled.add(current);
+    filled.add(END);
+
+    boolean interrupted = false;
+    while (writer.isAlive()) {
+      try {
+        writer.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    channel.close();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /** Encodes the open record now that its instruction has executed */
+  private void flushRecord() {
+    if (!open) {
+      return;
+    }
+
+    changedCount = 0;
+    long run = processor.getRunCount();
+    if (run != runs) {
+      runs = run;
+      for (int reg = 1; reg < 32; reg++) {
+        diffGpr(reg);
+        diffFpr(reg);
+      }
+      diffFpr(0);
+    } else {
+      int word = recordInstruction;
+      diffGpr((word >>> 11) & 0x1f);
+      diffGpr((word >>> 16) & 0x1f);
+      diffGpr((word >>> 21) & 0x1f);
+      diffGpr(31);
+      if (recordFpu) {
+        diffFpr((word >>> 6) & 0x1f);
+        diffFpr((word >>> 11) & 0x1f);
+        diffFpr((word >>> 16) & 0x1f);
+      }
+    }
+
+    int hi = processor.getHi();
+    if (hi != shadowHi) {
+      changedTags[changedCount] = TAG_HI;
+      changedDeltas[changedCount++] = zigzag(hi - shadowHi);
+      shadowHi = hi;
+    }
+    int lo = processor.getLo();
+    if (lo != shadowLo) {
+      changedTags[changedCount] = TAG_LO;
+      changedDeltas[changedCount++] = zigzag(lo - shadowLo);
+      shadowLo = lo;
+    }
+
+    // a head, an overflowing write count and up to 21 bytes per write
+    int writes = changedCount + storeCount;
+    if (BUFFER_SIZE - position < 20 + 21 * writes) {
+      swap();
+    }
+
+    long skip = zigzag((recordPc - expectedPc) >> 2);
+    writeVarint(skip << 3 | Math.min(writes, 7));
+    if (writes >= 7) {
+      writeVarint(writes - 7);
+    }
+
+    for (int i = 0; i < changedCount; i++) {
+      buffer[position++] = changedTags[i];
+      writeVarint(changedDeltas[i]);
+    }
+
+    for (int i = 0; i < storeCount; i++) {
+      int address = storeAddresses[i];
+      int value = 0;
+      for (int offset = 0; offset < storeLengths[i]; offset++) {
+        value = (value << 8) | (memory.peek(address + offset) & 0xff);
+      }
+
+      switch (storeLengths[i]) {
+        case 1:
+          buffer[position++] = TAG_BYTE;
+          value = (byte) value;
+          break;
+        case 2:
+          buffer[position++] = TAG_HALF;
+          value = (short) value;
+          break;
+        default:
+          buffer[position++] = TAG_WORD;
+      }
+      writeVarint(zigzag(address - lastStore));
+      writeVarint(zigzag(value));
+      lastStore = address;
+    }
+
+    storeCount = 0;
+    expectedPc = recordPc + 4;
+    records++;
+    open = false;
+  }
+
+  private void diffGpr(int reg) {
+    int value = gpr[reg];
+    if (value != shadowGpr[reg]) {
+      changedTags[changedCount] = (byte) reg;
+      changedDeltas[changedCount++] = zigzag(value - shadowGpr[reg]);
+      shadowGpr[reg] = value;
+    }
+  }
+
+  private void diffFpr(int reg) {
+    long value = fpr[reg];
+    if (value != shadowFpr[reg]) {
+      changedTags[changedCount] = (byte) (TAG_FPR + reg);
+      changedDeltas[changedCount++] = zigzag(value - shadowFpr[reg]);
+      shadowFpr[reg] = value;
+    }
+  }
+
+  private void writeInt(int value) {
+    buffer[position++] = (byte) (value >> 24);
+    buffer[position++] = (byte) (value >> 16);
+    buffer[position++] = (byte) (value >> 8);
+    buffer[position++] = (byte) value;
+  }
+
+  private void writeVarint(long value) {
+    while ((value & ~0x7fL) != 0) {
+      buffer[position++] = (byte) (value | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+  }
+
+  static long zigzag(int value) {
+    return ((value << 1) ^ (value >> 31)) & 0xffff_ffffL;
+  }
+
+  static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  /** Hands the filled buffer to the writer and continues in the one it has drained */
+  private void swap() {
+    current.limit(position);
+    filled.add(current);
+    current = take(drained);
+    current.clear();
+    buffer = current.array();
+    position = 0;
+  }
+
+  private void drain() {
+    for (; ; ) {
+      ByteBuffer buffer = take(filled);
+      if (buffer == END) {
+        return;
+      }
+
+      if (failure == null) {
+        try {
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+        } catch (IOException e) {
+          failure = e; // keep draining so that the simulation never blocks on a dead writer
+        }
+      }
+      drained.add(buffer);
+    }
+  }
+
+  private static ByteBuffer take(BlockingQueue<ByteBuffer> queue) {
+    boolean interrupted = false;
+    try {
+      for (; ; ) {
+        try {
+          return queue.take();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
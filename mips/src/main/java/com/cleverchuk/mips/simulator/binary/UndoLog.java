@@ -0,0 +1,421 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import com.cleverchuk.mips.simulator.registers.FpcRegisterFileArray;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Lets a debugger step a processor backwards. Every executed instruction leaves a record in a fixed
+ * size ring holding only what it overwrote: the old value of each changed GPR, FPR, FPU control
+ * register and HI/LO, and the old contents of each stored word. Stepping back N instructions undoes
+ * N records, newest first. A full {@link ProcessorSnapshot} is taken every {@code
+ * checkpointInterval} instructions so that long jumps restore the nearest checkpoint instead of
+ * undoing every record after it. When the ring is full the oldest records are dropped, bounding how
+ * far back the processor can go. COP2 registers are not recorded.
+ *
+ * <p>A linking branch and its delay slot share one record, as they share one instruction count, so
+ * stepping back never stops between them and loses the pending jump.
+ *
+ * <p>Like snapshots, the log needs the processor to run on {@link PagedMemory}. Its checkpoints are
+ * captured without rebasing the memory, so snapshots taken by others still restore as cheaply as
+ * before.
+ */
+public final class UndoLog implements ExecutionObserver, PagedMemory.StoreListener {
+  private static final byte MARK = 0; // first entry of a record; the target is the pc
+
+  private static final byte GPR = 1;
+
+  private static final byte FPR = 2;
+
+  private static final byte FPC = 3;
+
+  private static final byte HI = 4;
+
+  private static final byte LO = 5;
+
+  private static final byte BYTE = 6;
+
+  private static final byte HALF = 7;
+
+  private static final byte WORD = 8;
+
+  private final CentralProcessor processor;
+
+  private final PagedMemory memory;
+
+  private final int[] gpr;
+
+  private final long[] fpr;
+
+  private final FpcRegisterFileArray fpc;
+
+  private final int checkpointInterval;
+
+  private final ArrayDeque<Checkpoint> checkpoints = new ArrayDeque<>(); // oldest first
+
+  // values as of the start of the open record
+  private final int[] shadowGpr = new int[32];
+
+  private final long[] shadowFpr = new long[32];
+
+  private final int[] shadowFpc = new int[ProcessorSnapshot.FPC_REGISTERS];
+
+  private int shadowHi;
+
+  private int shadowLo;
+
+  // ring of entries, written at head and dropped from tail
+  private final byte[] kinds;
+
+  private final int[] targets;
+
+  private final long[] values;
+
+  private int head;
+
+  private int tail;
+
+  private int size;
+
+  private long records; // number of the next record
+
+  private long oldest; // number of the oldest record still in the ring
+
+  private boolean open; // the newest record may still gain entries
+
+  /** Keeps about a million entries and checkpoints every 100,000 instructions */
+  public UndoLog(CentralProcessor processor) {
+    this(processor, 1 << 20, 100_000);
+  }
+
+  /**
+   * Attaches to the processor as its observer and to its memory as the store listener
+   *
+   * @param processor processor to record; must run on {@link PagedMemory}
+   * @param capacity number of ring entries, each a few bytes; an instruction usually needs 2 or 3
+   * @param checkpointInterval number of instructions between full checkpoints
+   * @throws IllegalStateException if the processor does not run on {@link PagedMemory}
+   */
+  public UndoLog(CentralProcessor processor, int capacity, int checkpointInterval) {
+    if (capacity < 256) {
+      throw new IllegalArgumentException("capacity must be at least 256: " + capacity);
+    }
+    if (checkpointInterval <= 0) {
+      throw new IllegalArgumentException(
+          "checkpointInterval must be positive: " + checkpointInterval);
+    }
+
+    this.processor = processor;
+    this.memory = processor.pagedMemory();
+    this.gpr = processor.getGprFileArray().getRegisters();
+    this.fpr = processor.getFpuRegisterFileArray().getRegisters();
+    this.fpc = processor.getFpcRegisterFileArray();
+    this.checkpointInterval = checkpointInterval;
+    this.kinds = new byte[capacity];
+    this.targets = new int[capacity];
+    this.values = new long[capacity];
+
+    resync();
+    processor.setObserver(this);
+    memory.setStoreListener(this);
+  }
+
+  public void detach() {
+    processor.setObserver(null);
+    memory.setStoreListener(null);
+  }
+
+  @Override
+  public void onInstruction(int pc, int instruction, Opcode opcode) {
+    if (processor.inDelaySlot()) {
+      return; // the slot's changes join the open record of its branch
+    }
+
+    close();
+    if (records == oldest) {
+      resync(); // nothing to stay consistent with, e.g. after a record outgrew the ring
+    }
+    if (records % checkpointInterval == 0) {
+      ProcessorSnapshot state = processor.capture();
+      checkpoints.addLast(
+          new Checkpoint(
+              records,
+              new ProcessorSnapshot(
+                  state.gpr,
+                  state.fpr,
+                  state.fpc,
+                  pc, // the processor has already moved past the instruction
+                  state.hi,
+                  state.lo,
+                  state.instructionCount,
+                  state.memory)));
+    }
+
+    append(MARK, pc, 0);
+    records++;
+    open = true;
+  }
+
+  @Override
+  public void beforeStore(int offset, int length) {
+    if (!open) {
+      return;
+    }
+
+    switch (length) {
+      case 1:
+        append(BYTE, offset, memory.read(offset));
+        break;
+      case 2:
+        append(HALF, offset, memory.readHalf(offset));
+        break;
+      default:
+        append(WORD, offset, memory.readWord(offset));
+    }
+  }
+
+  /**
+   * @return number of instructions the processor can currently step back
+   */
+  public long getDepth() {
+    return records - oldest;
+  }
+
+  /**
+   * Puts the processor back to where it was before its last count instructions, or as far as the
+   * log reaches. Records of the undone instructions are discarded; running forward executes them
+   * again.
+   *
+   * @param count number of instructions to undo
+   * @return number of instructions undone
+   */
+  public long stepBack(long count) {
+    close();
+    long current = records;
+    long instructionCount = processor.getInstructionCount();
+    long target = Math.max(oldest, records - Math.max(0, count));
+
+    Checkpoint nearest = null;
+    for (Iterator<Checkpoint> it = checkpoints.descendingIterator(); it.hasNext(); ) {
+      Checkpoint checkpoint = it.next();
+      if (checkpoint.record < target) {
+        break;
+      }
+      nearest = checkpoint;
+    }
+
+    if (nearest != null && nearest.record < records) {
+      processor.rewind(nearest.state);
+      while (records > nearest.record) {
+        discard();
+      }
+    }
+    while (records > target) {
+      undo();
+    }
+    while (!checkpoints.isEmpty() && checkpoints.peekLast().record > target) {
+      checkpoints.removeLast();
+    }
+
+    long undone = current - target;
+    processor.setInstructionCount(Math.max(0, instructionCount - undone));
+    resync();
+    return undone;
+  }
+
+  /**
+   * Steps back to the most recent execution of an instruction with a breakpoint set on it, or to
+   * the oldest recorded instruction if none was hit
+   *
+   * @return true if the processor stopped at a breakpoint
+   */
+  public boolean reverseContinue() {
+    close();
+    long back = 0;
+    for (int i = 0, entry = head; i < size; i++) {
+      entry = (entry == 0 ? kinds.length : entry) - 1;
+      if (kinds[entry] == MARK) {
+        back++;
+        if (processor.hasBreakpoint(targets[entry])) {
+          stepBack(back);
+          return true;
+        }
+      }
+    }
+
+    stepBack(back);
+    return false;
+  }
+
+  /** Forgets all recorded history; the current state becomes the oldest reachable one */
+  public void clear() {
+    head = tail = size = 0;
+    records = oldest = 0;
+    open = false;
+    checkpoints.clear();
+    resync();
+  }
+
+  /** Records the registers the open record's instruction changed */
+  private void close() {
+    if (!open) {
+      return;
+    }
+
+    for (int reg = 1; reg < 32; reg++) {
+      if (gpr[reg] != shadowGpr[reg]) {
+        append(GPR, reg, shadowGpr[reg]);
+        shadowGpr[reg] = gpr[reg];
+      }
+    }
+    for (int reg = 0; reg < 32; reg++) {
+      if (fpr[reg] != shadowFpr[reg]) {
+        append(FPR, reg, shadowFpr[reg]);
+        shadowFpr[reg] = fpr[reg];
+      }
+    }
+    for (int reg = 1; reg < shadowFpc.length; reg++) {
+      int value = fpc.getFile(reg).readWord();
+      if (value != shadowFpc[reg]) {
+        append(FPC, reg, shadowFpc[reg]);
+        shadowFpc[reg] = value;
+      }
+    }
+    if (processor.getHi() != shadowHi) {
+      append(HI, 0, shadowHi);
+      shadowHi = processor.getHi();
+    }
+    if (processor.getLo() != shadowLo) {
+      append(LO, 0, shadowLo);
+      shadowLo = processor.getLo();
+    }
+    open = false;
+  }
+
+  private void resync() {
+    System.arraycopy(gpr, 0, shadowGpr, 0, 32);
+    System.arraycopy(fpr, 0, shadowFpr, 0, 32);
+    for (int reg = 1; reg < shadowFpc.length; reg++) {
+      shadowFpc[reg] = fpc.getFile(reg).readWord();
+    }
+    shadowHi = processor.getHi();
+    shadowLo = processor.getLo();
+  }
+
+  private void append(byte kind, int target, long value) {
+    if (size == kinds.length) {
+      dropOldest();
+      if (!open && kind != MARK) {
+        return; // the record outgrew the ring
+      }
+    }
+
+    kinds[head] = kind;
+    targets[head] = target;
+    values[head] = value;
+    head = head + 1 == kinds.length ? 0 : head + 1;
+    size++;
+  }
+
+  private void dropOldest() {
+    do {
+      tail = tail + 1 == kinds.length ? 0 : tail + 1;
+      size--;
+    } while (size > 0 && kinds[tail] != MARK);
+    oldest++;
+    if (oldest == records) {
+      open = false;
+    }
+
+    while (!checkpoints.isEmpty() && checkpoints.peekFirst().record < oldest) {
+      checkpoints.removeFirst();
+    }
+  }
+
+  /** Applies the newest record's entries in reverse and removes it */
+  private void undo() {
+    while (true) {
+      head = (head == 0 ? kinds.length : head) - 1;
+      size--;
+      int target = targets[head];
+      long value = values[head];
+      switch (kinds[head]) {
+        case MARK:
+          processor.setPc(target);
+          records--;
+          return;
+        case GPR:
+          gpr[target] = (int) value;
+          break;
+        case FPR:
+          fpr[target] = value;
+          break;
+        case FPC:
+          fpc.getFile(target).writeWord((int) value);
+          break;
+        case HI:
+          processor.setHi((int) value);
+          break;
+        case LO:
+          processor.setLo((int) value);
+          break;
+        case BYTE:
+          memory.store((byte) value, target);
+          processor.invalidateDecodeCache(target, 1);
+          break;
+        case HALF:
+          memory.storeHalf((short) value, target);
+          processor.invalidateDecodeCache(target, 2);
+          break;
+        default:
+          memory.storeWord((int) value, target);
+          processor.invalidateDecodeCache(target, 4);
+      }
+    }
+  }
+
+  /** Removes the newest record without applying it */
+  private void discard() {
+    do {
+      head = (head == 0 ? kinds.length : head) - 1;
+      size--;
+    } while (kinds[head] != MARK);
+    records--;
+  }
+
+  private static final class Checkpoint {
+    final long record; // state before this record's instruction executed
+
+    final ProcessorSnapshot state;
+
+    Checkpoint(long record, ProcessorSnapshot state) {
+      this.record = record;
+      this.state = state;
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import androidx.annotation.NonNull;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+/**
+ * Data watchpoints for a processor running on {@link PagedMemory}. Watching flags the pages that
+ * hold the watched bytes, so loads and stores elsewhere cost one flag test and only accesses to
+ * flagged pages are compared against the watchpoints. A hit stops {@link
+ * CentralProcessor#run(long)} with {@link StopReason#WATCHPOINT} after the accessing instruction.
+ * While any watchpoint is set, translated blocks run their fused instruction pairs one at a time so
+ * that a hit never carries execution past the accessing instruction.
+ */
+public final class Watchpoints implements PagedMemory.WatchListener {
+  public enum Kind {
+    /** Any load overlapping the watched bytes */
+    READ,
+
+    /** Any store overlapping the watched bytes, even one writing the same value */
+    WRITE,
+
+    /** A store that leaves the watched bytes with a different value */
+    CHANGE,
+  }
+
+  private final CentralProcessor processor;
+
+  private final PagedMemory memory;
+
+  private final List<Watchpoint> watchpoints = new ArrayList<>();
+
+  private Watchpoint hit;
+
+  /**
+   * Attaches to the processor's memory as its watch listener
+   *
+   * @throws IllegalStateException if the processor does not run on {@link PagedMemory}
+   */
+  public Watchpoints(CentralProcessor processor) {
+    this.processor = processor;
+    this.memory = processor.pagedMemory();
+    memory.setWatchListener(this);
+  }
+
+  public Watchpoint watch(int address, int length, Kind kind) {
+    return watch(address, length, kind, null);
+  }
+
+  /**
+   * @param address first watched byte
+   * @param length number of watched bytes: 1, 2 or 4
+   * @param kind accesses that hit
+   * @param condition test on the watched value after the access, or null to hit unconditionally
+   * @return the new watchpoint
+   */
+  public Watchpoint watch(int address, int length, Kind kind, IntPredicate condition) {
+    if (length != 1 && length != 2 && length != 4) {
+      throw new IllegalArgumentException("length must be 1, 2 or 4: " + length);
+    }
+
+    Watchpoint watchpoint = new Watchpoint(address, length, kind, condition);
+    watchpoint.value = watchpoint.read(memory);
+    watchpoints.add(watchpoint);
+    memory.watch(address, length);
+    processor.setWatching(true);
+    return watchpoint;
+  }
+
+  public void unwatch(Watchpoint watchpoint) {
+    if (watchpoints.remove(watchpoint)) {
+      memory.clearWatches();
+      for (Watchpoint remaining : watchpoints) {
+        memory.watch(remaining.address, remaining.length);
+      }
+      processor.setWatching(!watchpoints.isEmpty());
+    }
+  }
+
+  public void clear() {
+    watchpoints.clear();
+    memory.clearWatches();
+    processor.setWatching(false);
+    hit = null;
+  }
+
+  /**
+   * @return watchpoint that last stopped the processor, or null
+   */
+  public Watchpoint getHit() {
+    return hit;
+  }
+
+  public List<Watchpoint> getWatchpoints() {
+    return new ArrayList<>(watchpoints);
+  }
+
+  @Override
+  public void onWatchedAccess(int offset, int length, boolean write) {
+    for (int i = 0; i < watchpoints.size(); i++) {
+      Watchpoint watchpoint = watchpoints.get(i);
+      if (offset >= watchpoint.address + watchpoint.length
+          || watchpoint.address >= offset + length) {
+        continue;
+      }
+
+      boolean matches;
+      int value = watchpoint.read(memory);
+      if (watchpoint.kind == Kind.CHANGE) {
+        matches = write && value != watchpoint.value;
+      } else {
+        matches = write == (watchpoint.kind == Kind.WRITE);
+      }
+      watchpoint.value = value;
+
+      // accesses made by the host, e.g. a syscall handler, do not hit
+      if (matches
+          && (watchpoint.condition == null || watchpoint.condition.test(value))
+          && processor.raiseWatchpoint()) {
+        watchpoint.hits++;
+        hit = watchpoint;
+      }
+    }
+  }
+
+  public static final class Watchpoint {
+    private final int address;
+
+    private final int length;
+
+    private final Kind kind;
+
+    private final IntPredicate condition;
+
+    private int value; // as of the last access, to detect a CHANGE
+
+    private long hits;
+
+    Watchpoint(int address, int length, Kind kind, IntPredicate condition) {
+      this.address = address;
+      this.length = length;
+      this.kind = kind;
+      this.condition = condition;
+    }
+
+    private int read(PagedMemory memory) {
+      switch (length) {
+        case 1:
+          return memory.read(address);
+        case 2:
+          return memory.readHalf(address);
+        default:
+          return memory.readWord(address);
+      }
+    }
+
+    public int getAddress() {
+      return address;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * @return value of the watched bytes as of the last access to them
+     */
+    public int getValue() {
+      return value;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    @Override
+    @NonNull public String toString() {
+      return String.format(
+          Locale.getDefault(), "%s watchpoint at 0x%08x (%d bytes)", kind, address, length);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.branch;
+
+import java.util.Arrays;
+
+/** Table of two-bit saturating counters indexed by branch address. */
+public final class BimodalPredictor implements DirectionPredictor {
+  private final byte[] counters;
+
+  private final int mask;
+
+  /**
+   * @param indexBits log2 of the number of counters
+   */
+  public BimodalPredictor(int indexBits) {
+    counters = new byte[1 << indexBits];
+    mask = counters.length - 1;
+    Arrays.fill(counters, (byte) 1); // weakly not taken
+  }
+
+  @Override
+  public boolean predict(int pc, int target) {
+    return counters[(pc >>> 2) & mask] >= 2;
+  }
+
+  @Override
+  public void update(int pc, boolean taken) {
+    int index = (pc >>> 2) & mask;
+    counters[index] = saturate(counters[index], taken);
+  }
+
+  static byte saturate(byte counter, boolean up) {
+    if (up) {
+      return counter < 3 ? (byte) (counter + 1) : counter;
+    }
+    return counter > 0 ? (byte) (counter - 1) : counter;
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.branch;
+
+import com.cleverchuk.mips.simulator.binary.ExecutionObserver;
+import com.cleverchuk.mips.simulator.binary.Opcode;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Scores a {@link DirectionPredictor} on every conditional branch and a {@link BranchTargetBuffer}
+ * on every indirect jump the processor executes. Direct jumps always go to their encoded target and
+ * are not scored. Attach it to the processor on its own, or hand it to {@link
+ * com.cleverchuk.mips.simulator.binary.PipelineModel#setBranchPredictor(BranchPredictor)} so that
+ * only mispredictions pay the branch penalty; not both, or every branch is scored twice.
+ */
+public final class BranchPredictor implements ExecutionObserver {
+  private static final EnumSet<Opcode> INDIRECT =
+      EnumSet.of(Opcode.JR, Opcode.JR_HB, Opcode.JALR, Opcode.JALR_HB, Opcode.JIC, Opcode.JIALC);
+
+  private static final EnumSet<Opcode> UNCONDITIONAL =
+      EnumSet.of(Opcode.J, Opcode.JAL, Opcode.BC, Opcode.BALC, Opcode.BAL);
+
+  private static final int EXECUTED = 0;
+
+  private static final int TAKEN = 1;
+
+  private static final int MISPREDICTED = 2;
+
+  private final DirectionPredictor direction;
+
+  private final BranchTargetBuffer targets;
+
+  private long[] counts = new long[256 * 3]; // indexed by (pc >>> 2) * 3 + EXECUTED/TAKEN/...
+
+  private long branches;
+
+  private long mispredictions;
+
+  /** Pairs the direction predictor with a 64 entry branch target buffer */
+  public BranchPredictor(DirectionPredictor direction) {
+    this(direction, new BranchTargetBuffer(6));
+  }
+
+  public BranchPredictor(DirectionPredictor direction, BranchTargetBuffer targets) {
+    this.direction = direction;
+    this.targets = targets;
+  }
+
+  @Override
+  public void onInstruction(int pc, int instruction, Opcode opcode) {}
+
+  @Override
+  public void onBranch(int pc, int instruction, Opcode opcode, boolean taken, int target) {
+    resolve(pc, instruction, opcode, taken, target);
+  }
+
+  /**
+   * Predicts a branch that has just executed, scores the prediction and trains the predictor
+   *
+   * @return true if the prediction was wrong
+   */
+  public boolean resolve(int pc, int instruction, Opcode opcode, boolean taken, int target) {
+    boolean mispredicted;
+    if (INDIRECT.contains(opcode)) {
+      mispredicted = targets.predict(pc) != target;
+      targets.update(pc, target);
+    } else if (UNCONDITIONAL.contains(opcode)) {
+      return false;
+    } else {
+      mispredicted = direction.predict(pc, encodedTarget(pc, instruction, opcode)) != taken;
+      direction.update(pc, taken);
+    }
+
+    branches++;
+    int slot = (pc >>> 2) * 3;
+    if (slot + MISPREDICTED >= counts.length) {
+      counts = Arrays.copyOf(counts, Math.max(slot + 3, counts.length * 2));
+    }
+    counts[slot + EXECUTED]++;
+    if (taken) {
+      counts[slot + TAKEN]++;
+    }
+    if (mispredicted) {
+      mispredictions++;
+      counts[slot + MISPREDICTED]++;
+    }
+    return mispredicted;
+  }
+
+  /**
+   * @return conditional branches and indirect jumps scored
+   */
+  public long getBranches() {
+    return branches;
+  }
+
+  public long getMispredictions() {
+    return mispredictions;
+  }
+
+  public double getMispredictionRate() {
+    return branches == 0 ? 0 : (double) mispredictions / branches;
+  }
+
+  /**
+   * @return counts of every scored branch, keyed and ordered by its address
+   */
+  public Map<Integer, BranchProfile> getBranchProfiles() {
+    Map<Integer, BranchProfile> profiles = new TreeMap<>();
+    for (int slot = 0; slot < counts.length; slot += 3) {
+      if (counts[slot + EXECUTED] != 0) {
+        profiles.put(
+            (slot / 3) << 2,
+            new BranchProfile(
+                counts[slot + EXECUTED], counts[slot + TAKEN], counts[slot + MISPREDICTED]));
+      }
+    }
+    return profiles;
+  }
+
+  /** Target of a conditional branch, whether or not it was taken */
+  private static int encodedTarget(int pc, int instruction, Opcode opcode) {
+    if (opcode == Opcode.BEQZC || opcode == Opcode.BNEZC) {
+      return pc + 4 + ((instruction << 11) >> 9); // 21 bit offset
+    }
+    return pc + 4 + (((short) instruction) << 2);
+  }
+
+  /** Outcomes of one branch */
+  public static final class BranchProfile {
+    private final long executions;
+
+    private final long taken;
+
+    private final long mispredictions;
+
+    BranchProfile(long executions, long taken, long mispredictions) {
+      this.executions = executions;
+      this.taken = taken;
+      this.mispredictions = mispredictions;
+    }
+
+    public long getExecutions() {
+      return executions;
+    }
+
+    public long getTaken() {
+      return taken;
+    }
+
+    public long getMispredictions() {
+      return mispredictions;
+    }
+
+    public double getMispredictionRate() {
+      return executions == 0 ? 0 : (double) mispredictions / executions;
+    }
+  }
+}
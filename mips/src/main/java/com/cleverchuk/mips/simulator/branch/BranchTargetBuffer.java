@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.branch;
+
+/** Direct-mapped cache of the last target of each indirect jump. */
+public final class BranchTargetBuffer {
+  private final int[] tags;
+
+  private final int[] targets;
+
+  private final boolean[] valid;
+
+  private final int mask;
+
+  /**
+   * @param indexBits log2 of the number of entries
+   */
+  public BranchTargetBuffer(int indexBits) {
+    tags = new int[1 << indexBits];
+    targets = new int[tags.length];
+    valid = new boolean[tags.length];
+    mask = tags.length - 1;
+  }
+
+  /**
+   * @param pc address of the jump
+   * @return predicted target, or -1 on a miss
+   */
+  public int predict(int pc) {
+    int index = (pc >>> 2) & mask;
+    return valid[index] && tags[index] == pc ? targets[index] : -1;
+  }
+
+  public void update(int pc, int target) {
+    int index = (pc >>> 2) & mask;
+    tags[index] = pc;
+    targets[index] = target;
+    valid[index] = true;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.branch;
+
+import java.util.Arrays;
+
+/**
+ * Two-bit counters indexed by the branch address XORed with the global history of recent outcomes,
+ * so correlated branches get separate counters.
+ */
+public final class GsharePredictor implements DirectionPredictor {
+  private final byte[] counters;
+
+  private final int mask;
+
+  private final int historyMask;
+
+  private int history;
+
+  /**
+   * @param indexBits log2 of the number of counters
+   * @param historyBits outcomes of recent branches folded into the index
+   */
+  public GsharePredictor(int indexBits, int historyBits) {
+    counters = new byte[1 << indexBits];
+    mask = counters.length - 1;
+    historyMask = (1 << historyBits) - 1;
+    Arrays.fill(counters, (byte) 1); // weakly not taken
+  }
+
+  @Override
+  public boolean predict(int pc, int target) {
+    return counters[index(pc)] >= 2;
+  }
+
+  @Override
+  public void update(int pc, boolean taken) {
+    int index = index(pc);
+    counters[index] = BimodalPredictor.saturate(counters[index], taken);
+    history = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+  }
+
+  private int index(int pc) {
+    return ((pc >>> 2) ^ history) & mask;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.branch;
+
+/** Fixed prediction with no state. */
+public final class StaticPredictor implements DirectionPredictor {
+  public enum Policy {
+    ALWAYS_TAKEN,
+    NEVER_TAKEN,
+    /** Backward branches, usually loops, taken and forward ones not */
+    BACKWARD_TAKEN,
+  }
+
+  private final Policy policy;
+
+  public StaticPredictor(Policy policy) {
+    this.policy = policy;
+  }
+
+  @Override
+  public boolean predict(int pc, int target) {
+    switch (policy) {
+      case ALWAYS_TAKEN:
+        return true;
+      case NEVER_TAKEN:
+        return false;
+      default:
+        return target <= pc;
+    }
+  }
+
+  @Override
+  public void update(int pc, boolean taken) {}
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.branch;
+
+import java.util.Arrays;
+
+/**
+ * Chooses per branch between two predictors, by default a bimodal and a gshare one, with two-bit
+ * counters trained whenever the two disagree.
+ */
+public final class TournamentPredictor implements DirectionPredictor {
+  private final DirectionPredictor first;
+
+  private final DirectionPredictor second;
+
+  private final byte[] choosers; // 0-1 trust first, 2-3 trust second
+
+  private final int mask;
+
+  private boolean firstPrediction;
+
+  private boolean secondPrediction;
+
+  /**
+   * @param indexBits log2 of the number of counters in each table
+   */
+  public TournamentPredictor(int indexBits) {
+    this(new BimodalPredictor(indexBits), new GsharePredictor(indexBits, indexBits), indexBits);
+  }
+
+  public TournamentPredictor(
+      DirectionPredictor first, DirectionPredictor second, int chooserIndexBits) {
+    this.first = first;
+    this.second = second;
+    choosers = new byte[1 << chooserIndexBits];
+    mask = choosers.length - 1;
+    Arrays.fill(choosers, (byte) 1);
+  }
+
+  @Override
+  public boolean predict(int pc, int target) {
+    firstPrediction = first.predict(pc, target);
+    secondPrediction = second.predict(pc, target);
+    return choosers[(pc >>> 2) & mask] >= 2 ? secondPrediction : firstPrediction;
+  }
+
+  @Override
+  public void update(int pc, boolean taken) {
+    if (firstPrediction != secondPrediction) {
+      int index = (pc >>> 2) & mask;
+      choosers[index] = BimodalPredictor.saturate(choosers[index], secondPrediction == taken);
+    }
+    first.update(pc, taken);
+    second.update(pc, taken);
+  }
+}
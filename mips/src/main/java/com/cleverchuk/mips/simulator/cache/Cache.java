@@ -0,0 +1,294 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.cache;
+
+import com.cleverchuk.mips.compiler.ProgramImage;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Set-associative cache model. It tracks tags only, no data, in flat primitive arrays indexed by
+ * {@code set * associativity + way}, so an access allocates nothing. Misses, and writes that pass
+ * through, are forwarded to the next level if there is one.
+ */
+public final class Cache {
+  private final String name;
+
+  private final CacheConfig config;
+
+  private final Cache next;
+
+  private final int ways;
+
+  private final int lineBits;
+
+  private final int setBits;
+
+  private final int setMask;
+
+  private final int[] tags;
+
+  private final boolean[] valid;
+
+  private final boolean[] dirty;
+
+  private final long[] stamps; // last use for LRU, fill time for FIFO
+
+  private long clock;
+
+  private int seed = 0x9e3779b9;
+
+  private long hits;
+
+  private long misses;
+
+  private long evictions;
+
+  private long writebacks;
+
+  private static final int HIT = 0;
+
+  private static final int MISS = 1;
+
+  private static final int EVICTION = 2;
+
+  private long[] lineCounts = new long[256 * 3]; // indexed by (pc >>> 2) * 3 + HIT/MISS/EVICTION
+
+  public Cache(String name, CacheConfig config) {
+    this(name, config, null);
+  }
+
+  /**
+   * @param name label used in reports, e.g. "L1D"
+   * @param config geometry and policies
+   * @param next level that serves misses, or null for memory
+   */
+  public Cache(String name, CacheConfig config, Cache next) {
+    this.name = name;
+    this.config = config;
+    this.next = next;
+    this.ways = config.getAssociativity();
+    this.lineBits = Integer.numberOfTrailingZeros(config.getLineSize());
+    this.setBits = Integer.numberOfTrailingZeros(config.getSets());
+    this.setMask = config.getSets() - 1;
+
+    int lines = config.getSets() * ways;
+    tags = new int[lines];
+    valid = new boolean[lines];
+    dirty = new boolean[lines];
+    stamps = new long[lines];
+  }
+
+  /**
+   * Looks up the line holding address
+   *
+   * @param address byte address accessed
+   * @param write whether the access is a store
+   * @param pc address of the instruction making the access, or -1 if unknown
+   * @return true on a hit
+   */
+  public boolean access(int address, boolean write, int pc) {
+    int block = address >>> lineBits;
+    int tag = block >>> setBits;
+    int base = (block & setMask) * ways;
+    boolean writeThrough = config.getWritePolicy() == CacheConfig.WritePolicy.WRITE_THROUGH;
+
+    for (int line = base; line < base + ways; line++) {
+      if (valid[line] && tags[line] == tag) {
+        hits++;
+        count(pc, HIT);
+        if (config.getReplacement() == CacheConfig.Replacement.LRU) {
+          stamps[line] = ++clock;
+        }
+        if (write) {
+          if (writeThrough) {
+            forward(address, true, pc);
+          } else {
+            dirty[line] = true;
+          }
+        }
+        return true;
+      }
+    }
+
+    misses++;
+    count(pc, MISS);
+    if (write && writeThrough) {
+      forward(address, true, pc);
+      return false;
+    }
+
+    int victim = victim(base);
+    if (valid[victim]) {
+      evictions++;
+      count(pc, EVICTION);
+      if (dirty[victim]) {
+        writebacks++;
+        int set = base / ways;
+        forward(((tags[victim] << setBits) | set) << lineBits, true, pc);
+      }
+    }
+
+    forward(address, false, pc);
+    tags[victim] = tag;
+    valid[victim] = true;
+    dirty[victim] = write;
+    stamps[victim] = ++clock;
+    return false;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public CacheConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * @return level that serves this cache's misses, or null
+   */
+  public Cache getNext() {
+    return next;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+  public long getWritebacks() {
+    return writebacks;
+  }
+
+  public double getMissRate() {
+    long accesses = hits + misses;
+    return accesses == 0 ? 0 : (double) misses / accesses;
+  }
+
+  /**
+   * Breaks the counts down by the source line of the accessing instruction
+   *
+   * @param image program that made the accesses
+   * @return counts of every line that accessed this cache, ordered by line
+   */
+  public Map<Integer, LineProfile> getLineProfiles(ProgramImage image) {
+    Map<Integer, LineProfile> profiles = new TreeMap<>();
+    for (int slot = 0; slot < lineCounts.length / 3; slot++) {
+      long hits = lineCounts[slot * 3 + HIT];
+      long misses = lineCounts[slot * 3 + MISS];
+      if (hits != 0 || misses != 0) {
+        profiles.put(
+            image.getLine(slot << 2),
+            new LineProfile(hits, misses, lineCounts[slot * 3 + EVICTION]));
+      }
+    }
+    return profiles;
+  }
+
+  /** Empties the cache and clears its counters; the next level is left alone */
+  public void reset() {
+    Arrays.fill(valid, false);
+    Arrays.fill(dirty, false);
+    Arrays.fill(lineCounts, 0);
+    clock = hits = misses = evictions = writebacks = 0;
+  }
+
+  private int victim(int base) {
+    for (int line = base; line < base + ways; line++) {
+      if (!valid[line]) {
+        return line;
+      }
+    }
+
+    if (config.getReplacement() == CacheConfig.Replacement.RANDOM) {
+      seed ^= seed << 13; // xorshift
+      seed ^= seed >>> 17;
+      seed ^= seed << 5;
+      return base + ((seed & Integer.MAX_VALUE) % ways);
+    }
+
+    int victim = base;
+    for (int line = base + 1; line < base + ways; line++) {
+      if (stamps[line] < stamps[victim]) {
+        victim = line;
+      }
+    }
+    return victim;
+  }
+
+  private void forward(int address, boolean write, int pc) {
+    if (next != null) {
+      next.access(address, write, pc);
+    }
+  }
+
+  private void count(int pc, int kind) {
+    if (pc < 0) {
+      return;
+    }
+
+    int index = (pc >>> 2) * 3 + kind;
+    if (index >= lineCounts.length) {
+      lineCounts = Arrays.copyOf(lineCounts, Math.max(index + 3, lineCounts.length * 2));
+    }
+    lineCounts[index]++;
+  }
+
+  /** Hits, misses and evictions caused by one source line */
+  public static final class LineProfile {
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    LineProfile(long hits, long misses, long evictions) {
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public long getEvictions() {
+      return evictions;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.cache;
+
+/** Geometry and policies of one {@link Cache}. Sizes are in bytes and must be powers of two. */
+public final class CacheConfig {
+  public enum Replacement {
+    LRU,
+    FIFO,
+    RANDOM,
+  }
+
+  public enum WritePolicy {
+    /** Writes allocate a line and mark it dirty; dirty lines are written back on eviction */
+    WRITE_BACK,
+
+    /** Writes go straight to the next level; a write miss does not allocate */
+    WRITE_THROUGH,
+  }
+
+  private final int size;
+
+  private final int associativity;
+
+  private final int lineSize;
+
+  private final Replacement replacement;
+
+  private final WritePolicy writePolicy;
+
+  public CacheConfig(
+      int size, int associativity, int lineSize, Replacement replacement, WritePolicy writePolicy) {
+    if (Integer.bitCount(size) != 1
+        || Integer.bitCount(associativity) != 1
+        || Integer.bitCount(lineSize) != 1
+        || size < associativity * lineSize) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid cache geometry: size %d, %d ways, %d byte lines",
+              size, associativity, lineSize));
+    }
+    this.size = size;
+    this.associativity = associativity;
+    this.lineSize = lineSize;
+    this.replacement = replacement;
+    this.writePolicy = writePolicy;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int getAssociativity() {
+    return associativity;
+  }
+
+  public int getLineSize() {
+    return lineSize;
+  }
+
+  public int getSets() {
+    return size / (associativity * lineSize);
+  }
+
+  public Replacement getReplacement() {
+    return replacement;
+  }
+
+  public WritePolicy getWritePolicy() {
+    return writePolicy;
+  }
+
+  public static CacheConfigBuilder builder() {
+    return new CacheConfigBuilder();
+  }
+
+  /** Defaults to a 4 KiB, 2-way, 32 byte line, LRU, write-back cache */
+  public static class CacheConfigBuilder {
+    private int size = 4096;
+
+    private int associativity = 2;
+
+    private int lineSize = 32;
+
+    private Replacement replacement = Replacement.LRU;
+
+    private WritePolicy writePolicy = WritePolicy.WRITE_BACK;
+
+    public CacheConfigBuilder size(int size) {
+      this.size = size;
+      return this;
+    }
+
+    public CacheConfigBuilder associativity(int associativity) {
+      this.associativity = associativity;
+      return this;
+    }
+
+    public CacheConfigBuilder lineSize(int lineSize) {
+      this.lineSize = lineSize;
+      return this;
+    }
+
+    public CacheConfigBuilder replacement(Replacement replacement) {
+      this.replacement = replacement;
+      return this;
+    }
+
+    public CacheConfigBuilder writePolicy(WritePolicy writePolicy) {
+      this.writePolicy = writePolicy;
+      return this;
+    }
+
+    public CacheConfig build() {
+      return new CacheConfig(size, associativity, lineSize, replacement, writePolicy);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.cache;
+
+import com.cleverchuk.mips.simulator.binary.ExecutionObserver;
+import com.cleverchuk.mips.simulator.binary.Opcode;
+import com.cleverchuk.mips.simulator.mem.Memory;
+
+/**
+ * Split L1 instruction and data caches in front of a processor. The hierarchy observes instruction
+ * fetches as an {@link ExecutionObserver} and data accesses through the {@link Memory} returned by
+ * {@link #wrap(Memory)}:
+ *
+ * <pre>{@code
+ * Cache l2 = new Cache("L2", CacheConfig.builder().size(64 * 1024).associativity(8).build());
+ * CacheHierarchy caches =
+ *     new CacheHierarchy(new Cache("L1I", l1iConfig, l2), new Cache("L1D", l1dConfig, l2));
+ * Memory memory = caches.wrap(assembler.getLayout(), textOffset, textBoundary);
+ * CentralProcessor cpu = new CentralProcessor(memory, textOffset, sp, flags, mode);
+ * cpu.setObserver(caches);
+ * }</pre>
+ *
+ * Data accesses are attributed to the instruction last fetched, so per-line counts need the
+ * observer attached.
+ */
+public final class CacheHierarchy implements ExecutionObserver {
+  private final Cache instructionCache;
+
+  private final Cache dataCache;
+
+  private int pc = -1;
+
+  private int textStart;
+
+  private int textEnd;
+
+  public CacheHierarchy(Cache instructionCache, Cache dataCache) {
+    this.instructionCache = instructionCache;
+    this.dataCache = dataCache;
+  }
+
+  @Override
+  public void onInstruction(int pc, int instruction, Opcode opcode) {
+    this.pc = pc;
+    instructionCache.access(pc, false, pc);
+  }
+
+  /**
+   * Routes data accesses through the data cache. Reads inside the text segment are the processor
+   * fetching words to decode or translate; they are left out, as the instruction cache already sees
+   * every executed instruction.
+   *
+   * @param memory memory holding the program
+   * @param textStart first address of the text segment
+   * @param textEnd address just past the text segment
+   * @return memory whose data accesses also go through the data cache
+   */
+  public Memory wrap(Memory memory, int textStart, int textEnd) {
+    this.textStart = textStart;
+    this.textEnd = textEnd;
+    return new CachedMemory(memory);
+  }
+
+  public Cache getInstructionCache() {
+    return instructionCache;
+  }
+
+  public Cache getDataCache() {
+    return dataCache;
+  }
+
+  private void read(int offset, int length) {
+    if (offset >= textStart && offset < textEnd) {
+      return;
+    }
+
+    dataCache.access(offset, false, pc);
+    if (crossesLine(offset, length)) {
+      dataCache.access(offset + length - 1, false, pc);
+    }
+  }
+
+  private void write(int offset, int length) {
+    dataCache.access(offset, true, pc);
+    if (crossesLine(offset, length)) {
+      dataCache.access(offset + length - 1, true, pc);
+    }
+  }
+
+  private boolean crossesLine(int offset, int length) {
+    int mask = ~(dataCache.getConfig().getLineSize() - 1);
+    return (offset & mask) != ((offset + length - 1) & mask);
+  }
+
+  private final class CachedMemory implements Memory {
+    private final Memory memory;
+
+    CachedMemory(Memory memory) {
+      this.memory = memory;
+    }
+
+    @Override
+    public byte read(int offset) {
+      CacheHierarchy.this.read(offset, 1);
+      return memory.read(offset);
+    }
+
+    @Override
+    public short readHalf(int offset) {
+      CacheHierarchy.this.read(offset, 2);
+      return memory.readHalf(offset);
+    }
+
+    @Override
+    public int readWord(int offset) {
+      CacheHierarchy.this.read(offset, 4);
+      return memory.readWord(offset);
+    }
+
+    @Override
+    public long readDWord(int offset) {
+      CacheHierarchy.this.read(offset, 8);
+      return memory.readDWord(offset);
+    }
+
+    @Override
+    public void store(byte bite, int offset) {
+      write(offset, 1);
+      memory.store(bite, offset);
+    }
+
+    @Override
+    public void storeHalf(short half, int offset) {
+      write(offset, 2);
+      memory.storeHalf(half, offset);
+    }
+
+    @Override
+    public void storeWord(int word, int offset) {
+      write(offset, 4);
+      memory.storeWord(word, offset);
+    }
+
+    @Override
+    public void storeDword(long dword, int offset) {
+      write(offset, 8);
+      memory.storeDword(dword, offset);
+    }
+
+    @Override
+    public void resize(int size) {
+      memory.resize(size);
+    }
+
+    @Override
+    public int getCapacity() {
+      return memory.getCapacity();
+    }
+  }
+}
@@ -0,0 +1,446 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.mem;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Big-endian memory split into fixed-size pages that are shared copy-on-write with {@link
+ * Snapshot}s. Taking a snapshot copies the page table, not the pages, and the first store to a
+ * shared page copies that page alone. Restoring the snapshot the memory was last taken from or
+ * restored to puts back only the pages written since, so a reset costs O(dirty pages) rather than
+ * O(image size). Pages that were never written read as zero and take no space.
+ */
+public class PagedMemory implements Memory {
+  public static final int PAGE_BITS = 12;
+
+  public static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  private byte[][] pages;
+
+  private boolean[] shared; // page is referenced by a snapshot and must be copied before a store
+
+  private int[] dirty = new int[16]; // pages that no longer hold the base's contents
+
+  private int dirtyCount;
+
+  private Snapshot base;
+
+  private StoreListener storeListener;
+
+  private boolean[] watched = new boolean[0]; // page may hold a watched address
+
+  private WatchListener watchListener;
+
+  private boolean notifying; // accesses made by a listener are not reported
+
+  public PagedMemory(int capacity) {
+    int count = Math.max(1, (capacity + PAGE_MASK) >>> PAGE_BITS);
+    pages = new byte[count][];
+    shared = new boolean[count];
+  }
+
+  /**
+   * Creates memory that starts out with the contents of snapshot and shares its pages until they
+   * are written. Snapshots are never modified, so any number of threads may fork from one
+   * concurrently.
+   */
+  public PagedMemory(Snapshot snapshot) {
+    pages = snapshot.pages.clone();
+    shared = new boolean[pages.length];
+    Arrays.fill(shared, true);
+    base = snapshot;
+  }
+
+  /**
+   * Creates paged memory holding the same bytes as source, e.g. the layout produced by the
+   * assembler
+   */
+  public static PagedMemory copyOf(Memory source) {
+    int capacity = source.getCapacity();
+    PagedMemory memory = new PagedMemory(capacity);
+    for (int offset = 0; offset < capacity; offset++) {
+      byte bite = source.read(offset);
+      if (bite != 0) {
+        memory.store(bite, offset);
+      }
+    }
+    return memory;
+  }
+
+  /** Captures the current contents; subsequent stores copy the pages they touch. */
+  public Snapshot snapshot() {
+    Arrays.fill(shared, true);
+    dirtyCount = 0;
+    base = new Snapshot(pages.clone());
+    return base;
+  }
+
+  /**
+   * Puts back the contents captured by snapshot
+   *
+   * @param snapshot contents to restore
+   * @param restored receives the index of every page whose contents may have changed
+   */
+  public void restore(Snapshot snapshot, IntConsumer restored) {
+    byte[][] captured = snapshot.pages;
+    if (snapshot == base) {
+      for (int i = 0; i < dirtyCount; i++) {
+        int page = dirty[i];
+        pages[page] = page < captured.length ? captured[page] : null;
+        shared[page] = true;
+        restored.accept(page);
+      }
+
+    } else {
+      int count = Math.max(pages.length, captured.length);
+      byte[][] current = pages;
+      pages = Arrays.copyOf(captured, count);
+      shared = new boolean[count];
+      Arrays.fill(shared, true);
+      for (int page = 0; page < count; page++) {
+        if (page >= current.length || current[page] != pages[page]) {
+          restored.accept(page);
+        }
+      }
+      base = snapshot;
+    }
+    dirtyCount = 0;
+  }
+
+  public void restore(Snapshot snapshot) {
+    restore(snapshot, (page) -> {});
+  }
+
+  /**
+   * Captures the current contents like {@link #snapshot()}, but the snapshot the memory was last
+   * taken from or restored to stays the one {@link #restore(Snapshot, IntConsumer)} can reset to
+   * cheaply, so whoever holds it is unaffected
+   */
+  public Snapshot capture() {
+    Arrays.fill(shared, true);
+    return new Snapshot(pages.clone());
+  }
+
+  /**
+   * Puts back the contents captured by snapshot without making it the base of later restores, the
+   * counterpart of {@link #capture()}. Costs O(page count).
+   *
+   * @param snapshot contents to put back
+   * @param restored receives the index of every page whose contents may have changed
+   */
+  public void rewind(Snapshot snapshot, IntConsumer restored) {
+    byte[][] current = pages;
+    pages = Arrays.copyOf(snapshot.pages, Math.max(current.length, snapshot.pages.length));
+    shared = new boolean[pages.length];
+    Arrays.fill(shared, true);
+
+    dirtyCount = 0;
+    for (int page = 0; page < pages.length; page++) {
+      if (page >= current.length || current[page] != pages[page]) {
+        restored.accept(page);
+      }
+      if (pages[page] != basePage(page)) {
+        markDirty(page);
+      }
+    }
+  }
+
+  @Override
+  public byte read(int offset) {
+    if (isWatched(offset)) {
+      accessed(offset, 1, false);
+    }
+    return get(offset);
+  }
+
+  @Override
+  public short readHalf(int offset) {
+    if (isWatched(offset)) {
+      accessed(offset, 2, false);
+    }
+    return (short) ((get(offset) << 8) | (get(offset + 1) & 0xff));
+  }
+
+  @Override
+  public int readWord(int offset) {
+    if (isWatched(offset)) {
+      accessed(offset, 4, false);
+    }
+
+    int index = offset & PAGE_MASK;
+    if (index > PAGE_SIZE - 4) {
+      return (get(offset) << 24)
+          | ((get(offset + 1) & 0xff) << 16)
+          | ((get(offset + 2) & 0xff) << 8)
+          | (get(offset + 3) & 0xff);
+    }
+
+    byte[] page = page(offset >> PAGE_BITS);
+    if (page == null) {
+      return 0;
+    }
+    return (page[index] << 24)
+        | ((page[index + 1] & 0xff) << 16)
+        | ((page[index + 2] & 0xff) << 8)
+        | (page[index + 3] & 0xff);
+  }
+
+  @Override
+  public long readDWord(int offset) {
+    return ((long) readWord(offset) << 32) | (readWord(offset + 4) & 0xffff_ffffL);
+  }
+
+  @Override
+  public void store(byte bite, int offset) {
+    if (storeListener != null) {
+      beforeStore(offset, 1);
+    }
+    put(bite, offset);
+    if (isWatched(offset)) {
+      accessed(offset, 1, true);
+    }
+  }
+
+  @Override
+  public void storeHalf(short half, int offset) {
+    if (storeListener != null) {
+      beforeStore(offset, 2);
+    }
+    put((byte) (half >> 8), offset);
+    put((byte) half, offset + 1);
+    if (isWatched(offset)) {
+      accessed(offset, 2, true);
+    }
+  }
+
+  @Override
+  public void storeWord(int word, int offset) {
+    if (storeListener != null) {
+      beforeStore(offset, 4);
+    }
+
+    int index = offset & PAGE_MASK;
+    if (index > PAGE_SIZE - 4) {
+      put((byte) (word >> 24), offset);
+      put((byte) (word >> 16), offset + 1);
+      put((byte) (word >> 8), offset + 2);
+      put((byte) word, offset + 3);
+    } else {
+      byte[] page = writable(offset >> PAGE_BITS);
+      page[index] = (byte) (word >> 24);
+      page[index + 1] = (byte) (word >> 16);
+      page[index + 2] = (byte) (word >> 8);
+      page[index + 3] = (byte) word;
+    }
+
+    if (isWatched(offset)) {
+      accessed(offset, 4, true);
+    }
+  }
+
+  @Override
+  public void storeDword(long dword, int offset) {
+    storeWord((int) (dword >> 32), offset);
+    storeWord((int) dword, offset + 4);
+  }
+
+  @Override
+  public void resize(int size) {
+    int count = (size + PAGE_MASK) >>> PAGE_BITS;
+    if (count > pages.length) {
+      pages = Arrays.copyOf(pages, count);
+      shared = Arrays.copyOf(shared, count);
+    }
+  }
+
+  @Override
+  public int getCapacity() {
+    return pages.length << PAGE_BITS;
+  }
+
+  /**
+   * @param storeListener told about every store before it happens, or null to stop telling
+   */
+  public void setStoreListener(StoreListener storeListener) {
+    this.storeListener = storeListener;
+  }
+
+  /**
+   * @param watchListener told about accesses to watched pages, or null to stop telling
+   */
+  public void setWatchListener(WatchListener watchListener) {
+    this.watchListener = watchListener;
+  }
+
+  /**
+   * Flags the pages an access overlapping the range can start on; only accesses starting on a
+   * flagged page reach the watch listener, everything else pays a single flag test
+   *
+   * @param address first watched byte
+   * @param length number of watched bytes
+   */
+  public void watch(int address, int length) {
+    int first = Math.max(0, address - 3) >> PAGE_BITS; // a word at address - 3 reaches address
+    int last = (address + length - 1) >> PAGE_BITS;
+    if (last >= watched.length) {
+      watched = Arrays.copyOf(watched, last + 1);
+    }
+    Arrays.fill(watched, first, last + 1, true);
+  }
+
+  public void clearWatches() {
+    watched = new boolean[0];
+  }
+
+  /**
+   * Reads a byte without reporting the access to the watch listener, e.g. to record what a store
+   * left behind
+   */
+  public byte peek(int offset) {
+    return get(offset);
+  }
+
+  /**
+   * @return number of pages written since the last snapshot or restore, i.e. the pages restoring
+   *     that snapshot would put back
+   */
+  public int getDirtyPageCount() {
+    return dirtyCount;
+  }
+
+  private boolean isWatched(int offset) {
+    int page = offset >> PAGE_BITS;
+    return page < watched.length && watched[page];
+  }
+
+  private void accessed(int offset, int length, boolean write) {
+    if (watchListener == null || notifying) {
+      return;
+    }
+
+    notifying = true;
+    try {
+      watchListener.onWatchedAccess(offset, length, write);
+    } finally {
+      notifying = false;
+    }
+  }
+
+  private void beforeStore(int offset, int length) {
+    if (notifying) {
+      return;
+    }
+
+    notifying = true;
+    try {
+      storeListener.beforeStore(offset, length);
+    } finally {
+      notifying = false;
+    }
+  }
+
+  private byte get(int offset) {
+    byte[] page = page(offset >> PAGE_BITS);
+    return page == null ? 0 : page[offset & PAGE_MASK];
+  }
+
+  private void put(byte bite, int offset) {
+    writable(offset >> PAGE_BITS)[offset & PAGE_MASK] = bite;
+  }
+
+  private byte[] page(int page) {
+    return page < pages.length ? pages[page] : null;
+  }
+
+  private byte[] writable(int page) {
+    if (page >= pages.length) {
+      resize((page + 1) << PAGE_BITS);
+    }
+
+    byte[] data = pages[page];
+    if (data == null) {
+      data = new byte[PAGE_SIZE];
+    } else if (shared[page]) {
+      data = data.clone();
+    } else {
+      return data;
+    }
+
+    if (pages[page] == basePage(page)) { // otherwise the page is listed already
+      markDirty(page);
+    }
+    pages[page] = data;
+    shared[page] = false;
+    return data;
+  }
+
+  private byte[] basePage(int page) {
+    return base == null || page >= base.pages.length ? null : base.pages[page];
+  }
+
+  private void markDirty(int page) {
+    if (dirtyCount == dirty.length) {
+      dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+    }
+    dirty[dirtyCount++] = page;
+  }
+
+  /** Sees stores before they overwrite memory, e.g. to journal the old contents */
+  public interface StoreListener {
+    /**
+     * @param offset address of the first byte about to be written
+     * @param length number of bytes about to be written: 1, 2 or 4
+     */
+    void beforeStore(int offset, int length);
+  }
+
+  /** Sees loads and stores that touch a page flagged with {@link #watch(int, int)} */
+  public interface WatchListener {
+    /**
+     * Stores are reported once their new value is in memory
+     *
+     * @param offset address of the first byte accessed
+     * @param length number of bytes accessed: 1, 2 or 4
+     * @param write true for a store, false for a load
+     */
+    void onWatchedAccess(int offset, int length, boolean write);
+  }
+
+  /**
+   * Contents of a {@link PagedMemory} at the time of {@link #snapshot()} or {@link #capture()};
+   * immutable.
+   */
+  public static final class Snapshot {
+    private final byte[][] pages;
+
+    private Snapshot(byte[][] pages) {
+      this.pages = pages;
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.profile;
+
+import androidx.annotation.NonNull;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.simulator.binary.CentralProcessor;
+import com.cleverchuk.mips.simulator.binary.StopReason;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statistical profiler that records where the processor is every {@code interval} instructions. It
+ * drives {@link CentralProcessor#run(long)} in slices of the interval instead of observing each
+ * instruction, so the processor stays on its translated fast path and the cost is one extra {@code
+ * run} call per sample.
+ */
+public final class SamplingProfiler {
+  public static final int DEFAULT_INTERVAL = 1000;
+
+  private final int interval;
+
+  private long[] samples = new long[256]; // indexed by pc >>> 2
+
+  private long total;
+
+  private long countdown;
+
+  public SamplingProfiler() {
+    this(DEFAULT_INTERVAL);
+  }
+
+  /**
+   * @param interval number of instructions between samples
+   */
+  public SamplingProfiler(int interval) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("interval must be positive: " + interval);
+    }
+    this.interval = interval;
+    this.countdown = interval;
+  }
+
+  /**
+   * Same as {@link CentralProcessor#run(long)} while sampling the pc. The sampling phase carries
+   * over between calls, so a program resumed after every syscall is sampled evenly.
+   *
+   * @param processor processor to run
+   * @param budget maximum number of instructions to execute
+   * @return why execution stopped
+   */
+  public StopReason run(CentralProcessor processor, long budget) {
+    while (budget > 0) {
+      long start = processor.getInstructionCount();
+      StopReason reason = processor.run(Math.min(budget, countdown));
+      long executed = processor.getInstructionCount() - start;
+      budget -= executed;
+      countdown -= executed;
+      if (countdown == 0) {
+        sample(processor.getPc());
+        countdown = interval;
+      }
+
+      if (reason != StopReason.BUDGET_EXHAUSTED) {
+        return reason;
+      }
+    }
+    return StopReason.BUDGET_EXHAUSTED;
+  }
+
+  private void sample(int pc) {
+    int slot = pc >>> 2;
+    if (slot >= samples.length) {
+      samples = Arrays.copyOf(samples, Math.max(slot + 1, samples.length * 2));
+    }
+    samples[slot]++;
+    total++;
+  }
+
+  public int getInterval() {
+    return interval;
+  }
+
+  public long getSamples() {
+    return total;
+  }
+
+  /**
+   * @param image program the samples were taken from
+   * @return sampled lines, hottest first
+   */
+  public List<Hotspot> getHotspots(ProgramImage image) {
+    return getHotspots(image.getSymbolTable(), image.getTextOffset(), image.getSourceOffset());
+  }
+
+  /**
+   * @param symbolTable labels of the program, see {@link Assembler#getSymbolTable()}
+   * @param textOffset address of the first text instruction
+   * @param sourceOffset line of the .text directive
+   * @return sampled lines, hottest first, numbered as by {@link Assembler#lineOf(int, int, int)}
+   */
+  public List<Hotspot> getHotspots(
+      Map<String, Integer> symbolTable, int textOffset, int sourceOffset) {
+    TreeMap<Integer, String> labels = new TreeMap<>();
+    symbolTable.forEach(
+        (label, address) -> {
+          if (address >= textOffset) {
+            labels.merge(
+                address, label, (first, second) -> first.compareTo(second) <= 0 ? first : second);
+          }
+        });
+
+    List<Hotspot> hotspots = new ArrayList<>();
+    for (int slot = 0; slot < samples.length; slot++) {
+      if (samples[slot] == 0) {
+        continue;
+      }
+      int pc = slot << 2;
+      Map.Entry<Integer, String> label = labels.floorEntry(pc);
+      hotspots.add(
+          new Hotspot(
+              pc,
+              Assembler.lineOf(pc, textOffset, sourceOffset),
+              label == null ? null : label.getValue(),
+              samples[slot],
+              total));
+    }
+    Collections.sort(
+        hotspots, (left, right) -> Long.compare(right.getSamples(), left.getSamples()));
+    return hotspots;
+  }
+
+  /**
+   * @param image program the samples were taken from
+   * @return samples per enclosing label followed by the hottest lines, both ranked
+   */
+  public String report(ProgramImage image) {
+    List<Hotspot> hotspots = getHotspots(image);
+    Map<String, Long> byLabel = new LinkedHashMap<>();
+    for (Hotspot hotspot : hotspots) {
+      String label = hotspot.getLabel() == null ? "?" : hotspot.getLabel();
+      byLabel.merge(label, hotspot.getSamples(), Long::sum);
+    }
+    List<Map.Entry<String, Long>> labels = new ArrayList<>(byLabel.entrySet());
+    Collections.sort(labels, (left, right) -> Long.compare(right.getValue(), left.getValue()));
+
+    StringBuilder builder =
+        new StringBuilder(
+            String.format(
+                Locale.getDefault(),
+                "%d samples, one every %d instructions\n\n%-20s %10s %7s\n",
+                total,
+                interval,
+                "label",
+                "samples",
+                "%"));
+    for (Map.Entry<String, Long> label : labels) {
+      builder.append(
+          String.format(
+              Locale.getDefault(),
+              "%-20s %10d %6.2f%%\n",
+              label.getKey(),
+              label.getValue(),
+              100.0 * label.getValue() / total));
+    }
+
+    builder.append(
+        String.format(
+            Locale.getDefault(), "\n%6s %-20s %10s %7s\n", "line", "label", "samples", "%"));
+    for (Hotspot hotspot : hotspots) {
+      builder.append(hotspot).append('\n');
+    }
+    return builder.toString();
+  }
+
+  public void reset() {
+    Arrays.fill(samples, 0);
+    total = 0;
+    countdown = interval;
+  }
+
+  /** Samples that landed on one instruction */
+  public static final class Hotspot {
+    private final int pc;
+
+    private final int line;
+
+    private final String label;
+
+    private final long samples;
+
+    private final long total;
+
+    Hotspot(int pc, int line, String label, long samples, long total) {
+      this.pc = pc;
+      this.line = line;
+      this.label = label;
+      this.samples = samples;
+      this.total = total;
+    }
+
+    public int getPc() {
+      return pc;
+    }
+
+    public int getLine() {
+      return line;
+    }
+
+    /**
+     * @return nearest text label at or before the instruction, or null if there is none
+     */
+    public String getLabel() {
+      return label;
+    }
+
+    public long getSamples() {
+      return samples;
+    }
+
+    /**
+     * @return share of all samples, between 0 and 1
+     */
+    public double getShare() {
+      return (double) samples / total;
+    }
+
+    @Override
+    @NonNull public String toString() {
+      return String.format(
+          Locale.getDefault(),
+          "%6d %-20s %10d %6.2f%%",
+          line,
+          label == null ? "?" : label,
+          samples,
+          100 * getShare());
+    }
+  }
+}
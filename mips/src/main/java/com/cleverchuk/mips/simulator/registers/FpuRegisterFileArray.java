@@ -25,14 +25,25 @@
 package com.cleverchuk.mips.simulator.registers;
 
 public class FpuRegisterFileArray {
+  private final long[] registers = new long[32];
+
   private final RegisterFile[] registerFile = new RegisterFile[32];
 
   public FpuRegisterFileArray() {
     for (int i = 0; i < 32; i++) {
-      registerFile[i] = new DefaultRegisterFile(i);
+      registerFile[i] = new LongRegisterView(registers, i);
     }
   }
 
+  /**
+   * Returns the live register values as raw 64-bit patterns; singles occupy the low word.
+   *
+   * @return backing array indexed by register number
+   */
+  public long[] getRegisters() {
+    return registers;
+  }
+
   public RegisterFile getFile(int reg) {
     return registerFile[reg];
   }
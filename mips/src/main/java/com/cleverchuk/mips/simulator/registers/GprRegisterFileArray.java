@@ -25,15 +25,27 @@
 package com.cleverchuk.mips.simulator.registers;
 
 public class GprRegisterFileArray {
+  private final int[] registers = new int[32];
+
   private final RegisterFile[] registerFile = new RegisterFile[32];
 
   public GprRegisterFileArray() {
-    registerFile[0] = new ReadOnlyRegisterFile(new DefaultRegisterFile(0), 0);
+    registerFile[0] = new ReadOnlyRegisterFile(new IntRegisterView(registers, 0), 0);
     for (int i = 1; i < 32; i++) {
-      registerFile[i] = new DefaultRegisterFile(i);
+      registerFile[i] = new IntRegisterView(registers, i);
     }
   }
 
+  /**
+   * Returns the live register values. Writers must leave index 0 holding zero, e.g. by clearing it
+   * after every write.
+   *
+   * @return backing array indexed by register number
+   */
+  public int[] getRegisters() {
+    return registers;
+  }
+
   public String regContents() {
     StringBuilder content = new StringBuilder();
     for (int i = 0; i < 32; i++) {
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.registers;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A 32-bit register backed by one slot of a shared int array. Doubleword and double writes keep
+ * only their low word, and doubleword reads zero-extend it.
+ */
+final class IntRegisterView implements RegisterFile {
+  private final int[] registers;
+
+  private final int id;
+
+  IntRegisterView(int[] registers, int id) {
+    this.registers = registers;
+    this.id = id;
+  }
+
+  @Override
+  public int id() {
+    return id;
+  }
+
+  @Override
+  public String hexValue() {
+    return Long.toHexString(readDword());
+  }
+
+  @Override
+  public void writeOnes(int length) {
+    registers[id] |= length >= 4 ? -1 : (1 << (length << 3)) - 1;
+  }
+
+  @Override
+  public void writeZeroes(int length) {
+    registers[id] &= length >= 4 ? 0 : -(1 << (length << 3));
+  }
+
+  @Override
+  public void writeWord(int word) {
+    registers[id] = word;
+  }
+
+  @Override
+  public void writeDword(long dword) {
+    registers[id] = (int) dword;
+  }
+
+  @Override
+  public void writeSingle(float single) {
+    registers[id] = Float.floatToRawIntBits(single);
+  }
+
+  @Override
+  public void writeDouble(double doubl) {
+    registers[id] = (int) Double.doubleToRawLongBits(doubl);
+  }
+
+  @Override
+  public int readWord() {
+    return registers[id];
+  }
+
+  @Override
+  public long readDword() {
+    return registers[id] & 0xffffffffL;
+  }
+
+  @Override
+  public float readSingle() {
+    return Float.intBitsToFloat(registers[id]);
+  }
+
+  @Override
+  public double readDouble() {
+    return Double.longBitsToDouble(readDword());
+  }
+
+  @NonNull @Override
+  public String toString() {
+    return String.format("0x%08x", readWord());
+  }
+}
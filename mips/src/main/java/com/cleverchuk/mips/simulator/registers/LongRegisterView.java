@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.registers;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A 64-bit register backed by one slot of a shared long array. Word and single writes replace only
+ * the low 32 bits, as {@link DefaultRegisterFile} does.
+ */
+final class LongRegisterView implements RegisterFile {
+  private final long[] registers;
+
+  private final int id;
+
+  LongRegisterView(long[] registers, int id) {
+    this.registers = registers;
+    this.id = id;
+  }
+
+  @Override
+  public int id() {
+    return id;
+  }
+
+  @Override
+  public String hexValue() {
+    return Long.toHexString(readDword());
+  }
+
+  @Override
+  public void writeOnes(int length) {
+    registers[id] |= length >= 8 ? -1L : (1L << (length << 3)) - 1;
+  }
+
+  @Override
+  public void writeZeroes(int length) {
+    registers[id] &= length >= 8 ? 0L : -(1L << (length << 3));
+  }
+
+  @Override
+  public void writeWord(int word) {
+    registers[id] = (registers[id] & 0xffffffff00000000L) | (word & 0xffffffffL);
+  }
+
+  @Override
+  public void writeDword(long dword) {
+    registers[id] = dword;
+  }
+
+  @Override
+  public void writeSingle(float single) {
+    writeWord(Float.floatToRawIntBits(single));
+  }
+
+  @Override
+  public void writeDouble(double doubl) {
+    registers[id] = Double.doubleToRawLongBits(doubl);
+  }
+
+  @Override
+  public int readWord() {
+    return (int) registers[id];
+  }
+
+  @Override
+  public long readDword() {
+    return registers[id];
+  }
+
+  @Override
+  public float readSingle() {
+    return Float.intBitsToFloat((int) registers[id]);
+  }
+
+  @Override
+  public double readDouble() {
+    return Double.longBitsToDouble(registers[id]);
+  }
+
+  @NonNull @Override
+  public String toString() {
+    return String.format("0x%08x", readWord());
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.binary.CentralProcessor;
+import com.cleverchuk.mips.simulator.binary.ExecutionMode;
+import com.cleverchuk.mips.simulator.binary.StopReason;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import org.junit.Test;
+
+public class ProgramImageTest {
+  private static final String INCREMENT =
+      String.join(
+          "\n",
+          ".data",
+          "counter: .word 5",
+          ".text",
+          "la $t1, counter",
+          "lw $t0, 0($t1)",
+          "addiu $t0, $t0, 1",
+          "sw $t0, 0($t1)",
+          "addiu $v0, $zero, 10",
+          "syscall");
+
+  private final MipsCompiler compiler =
+      new MipsCompiler(
+          new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+
+  private CentralProcessor processor(ProgramImage image, PagedMemory memory) {
+    CentralProcessor cpu =
+        new CentralProcessor(
+            memory,
+            image.getTextOffset(),
+            image.getStackPointer(),
+            (byte) 0x2,
+            ExecutionMode.TIERED);
+    cpu.setTextBoundary(image.getTextBoundary());
+    return cpu;
+  }
+
+  @Test
+  public void testForksAreIndependent() {
+    compiler.compile(INCREMENT);
+    ProgramImage image = compiler.freeze();
+    int counter = image.getSymbolTable().get("counter");
+
+    PagedMemory first = image.fork();
+    PagedMemory second = image.fork();
+    assertEquals(StopReason.HALT, processor(image, first).run(100));
+    assertEquals(6, first.readWord(counter));
+    assertEquals(5, second.readWord(counter));
+    assertEquals(5, image.fork().readWord(counter));
+  }
+
+  @Test
+  public void testForkCopiesOnlyWrittenPages() {
+    compiler.compile(INCREMENT);
+    ProgramImage image = compiler.freeze();
+
+    PagedMemory memory = image.fork();
+    assertEquals(0, memory.getDirtyPageCount());
+    processor(image, memory).run(100);
+    assertEquals(1, memory.getDirtyPageCount());
+  }
+
+  @Test
+  public void testImageSurvivesRecompilation() {
+    compiler.compile(INCREMENT);
+    ProgramImage image = compiler.freeze();
+    int counter = image.getSymbolTable().get("counter");
+
+    compiler.compile(".data\nother: .word 9\n.text\nnop");
+    assertEquals(5, image.fork().readWord(counter));
+    assertTrue(compiler.getAssembler().getSymbolTable().containsKey("other"));
+    assertEquals(1, image.getSymbolTable().size());
+  }
+
+  @Test
+  public void testLinesMatchLabels() {
+    compiler.compile(".data\npad: .word 0, 0\n.text\nfirst: nop\nnop\nthird: nop");
+    ProgramImage image = compiler.freeze();
+
+    assertEquals(4, image.getLine(image.getSymbolTable().get("first")));
+    assertEquals(6, image.getLine(image.getSymbolTable().get("third")));
+    assertEquals(
+        (int) image.getSymbolTable().get("third"),
+        Assembler.addressOf(6, image.getTextOffset(), image.getSourceOffset()));
+  }
+}
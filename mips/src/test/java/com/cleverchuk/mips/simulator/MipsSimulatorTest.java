@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator;
+
+import static com.cleverchuk.mips.simulator.SystemService.DEBUG;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.os.Handler;
+import android.os.Message;
+import com.cleverchuk.mips.simulator.binary.Watchpoints;
+import com.cleverchuk.mips.simulator.binary.Watchpoints.Watchpoint;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MipsSimulatorTest {
+  private static final String PROGRAM =
+      String.join(
+          "\n",
+          ".data",
+          "value: .word 0, 0",
+          ".text",
+          "la $t0, value",
+          "addiu $t1, $zero, 7",
+          "sw $t1, 0($t0)",
+          "addiu $v0, $zero, 10",
+          "syscall");
+
+  private Handler handler;
+
+  private MipsSimulator simulator;
+
+  @Before
+  public void setup() {
+    handler = mock(Handler.class);
+    Message message = mock(Message.class);
+    when(handler.obtainMessage(anyInt())).thenReturn(message);
+    when(handler.obtainMessage(anyInt(), any())).thenReturn(message);
+    simulator = new MipsSimulator(handler, (byte) 0x2);
+  }
+
+  @Test
+  public void testLinesFollowTheAssembler() {
+    simulator.loadInstructions(PROGRAM, null);
+    assertEquals(4, simulator.getLineNumberToExecute()); // the line after .text, past the data
+  }
+
+  @Test
+  public void testStepBackFromHalt() throws Exception {
+    simulator.setReverseDebugging(true);
+    simulator.loadInstructions(PROGRAM, null);
+    int text = simulator.getPC();
+    simulator.start();
+    try {
+      simulator.running();
+      awaitStop();
+      assertTrue(simulator.isHalted());
+
+      assertEquals(2, simulator.stepBack(2)); // the syscall and the addiu before it
+      assertTrue(simulator.isWaiting());
+      assertEquals(text + 16, simulator.getPC());
+      assertEquals(0, simulator.getCpu().getGprFileArray().getRegisters()[2]);
+
+      simulator.running();
+      awaitStop();
+      assertTrue(simulator.isHalted());
+      assertEquals(10, simulator.getCpu().getGprFileArray().getRegisters()[2]);
+    } finally {
+      simulator.shutDown();
+      simulator.join();
+    }
+  }
+
+  @Test
+  public void testWatchedStoreStopsTheProgram() throws Exception {
+    simulator.loadInstructions(PROGRAM, null);
+    int text = simulator.getPC();
+    Watchpoint watchpoint =
+        simulator
+            .getWatchpoints()
+            .watch(simulator.getDataSegmentOffset(), 4, Watchpoints.Kind.WRITE);
+    simulator.start();
+    try {
+      simulator.running();
+      awaitStop();
+      assertTrue(simulator.isWaiting());
+      assertEquals(text + 16, simulator.getPC()); // just past the store
+      assertSame(watchpoint, simulator.getWatchpoints().getHit());
+      assertEquals(7, watchpoint.getValue());
+      verify(handler, timeout(5_000)).obtainMessage(DEBUG.code); // posted after the state changes
+
+      simulator.running();
+      awaitStop();
+      assertTrue(simulator.isHalted());
+    } finally {
+      simulator.shutDown();
+      simulator.join();
+    }
+  }
+
+  @Test
+  public void testNoStepBackWithoutRecording() {
+    simulator.loadInstructions(PROGRAM, null);
+    assertFalse(simulator.canStepBack());
+    assertEquals(0, simulator.stepBack(1));
+    assertFalse(simulator.reverseContinue());
+  }
+
+  private void awaitStop() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (simulator.isRunning() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    assertFalse(simulator.isRunning());
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.cleverchuk.mips.compiler.MipsCompiler;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.binary.ExecutionMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class SimulationPoolTest {
+  private static final String SUM =
+      String.join(
+          "\n",
+          ".data",
+          "prompt: .asciiz \"sum=\"",
+          ".text",
+          "addiu $v0, $zero, 5",
+          "syscall",
+          "move $t0, $v0",
+          "addiu $v0, $zero, 5",
+          "syscall",
+          "addu $t0, $t0, $v0",
+          "la $a0, prompt",
+          "addiu $v0, $zero, 4",
+          "syscall",
+          "move $a0, $t0",
+          "addiu $v0, $zero, 1",
+          "syscall",
+          "addiu $v0, $zero, 10",
+          "syscall");
+
+  private static final String SPIN =
+      String.join("\n", ".text", "loop:", "addiu $t0, $t0, 1", "j loop", "nop");
+
+  private final SimulationPool pool = new SimulationPool(4);
+
+  @After
+  public void teardown() {
+    pool.close();
+  }
+
+  @Test
+  public void testReadsStdinAndCollectsStdout() throws Exception {
+    SimulationResult result =
+        pool.submit(SimulationJob.builder().source(SUM).stdin("40 2\n").build())
+            .get(10, TimeUnit.SECONDS);
+
+    assertEquals(SimulationResult.Exit.HALTED, result.getExit());
+    assertEquals("sum=42", result.getStdout());
+    assertEquals(15, result.getInstructionCount()); // la is two instructions
+    assertTrue(result.getWallTimeNanos() > 0);
+  }
+
+  @Test
+  public void testInputExhausted() throws Exception {
+    SimulationResult result =
+        pool.submit(SimulationJob.builder().source(SUM).stdin("40").build())
+            .get(10, TimeUnit.SECONDS);
+
+    assertEquals(SimulationResult.Exit.INPUT_EXHAUSTED, result.getExit());
+    assertEquals("", result.getStdout());
+  }
+
+  @Test
+  public void testReadStringStopsShortOfTheBuffer() throws Exception {
+    String echo =
+        String.join(
+            "\n",
+            ".data",
+            "buf: .space 16",
+            ".text",
+            "la $a0, buf",
+            "addiu $a1, $zero, 4",
+            "addiu $v0, $zero, 8",
+            "syscall",
+            "la $a0, buf",
+            "addiu $v0, $zero, 4",
+            "syscall",
+            "addiu $v0, $zero, 10",
+            "syscall");
+    SimulationResult result =
+        pool.submit(SimulationJob.builder().source(echo).stdin("hello\n").build())
+            .get(10, TimeUnit.SECONDS);
+
+    assertEquals(SimulationResult.Exit.HALTED, result.getExit());
+    assertEquals("hel", result.getStdout()); // three characters and the NUL fill four bytes
+  }
+
+  @Test
+  public void testInstructionLimit() throws Exception {
+    SimulationResult result =
+        pool.submit(SimulationJob.builder().source(SPIN).instructionLimit(25_000).build())
+            .get(10, TimeUnit.SECONDS);
+
+    assertEquals(SimulationResult.Exit.INSTRUCTION_LIMIT, result.getExit());
+    assertEquals(25_000, result.getInstructionCount());
+  }
+
+  @Test
+  public void testEndOfProgram() throws Exception {
+    SimulationResult result =
+        pool.submit(SimulationJob.builder().source(".text\naddiu $t0, $zero, 1").build())
+            .get(10, TimeUnit.SECONDS);
+
+    assertEquals(SimulationResult.Exit.END_OF_PROGRAM, result.getExit());
+    assertEquals(1, result.getInstructionCount());
+  }
+
+  @Test
+  public void testCompileError() throws Exception {
+    SimulationResult result =
+        pool.submit(SimulationJob.builder().source(".text\naddiu $t0, $zero,").build())
+            .get(10, TimeUnit.SECONDS);
+
+    assertEquals(SimulationResult.Exit.COMPILE_ERROR, result.getExit());
+    assertNotNull(result.getError());
+    assertEquals(0, result.getInstructionCount());
+  }
+
+  @Test
+  public void testJobsShareProgramImage() throws Exception {
+    MipsCompiler compiler =
+        new MipsCompiler(
+            new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+    compiler.compile(SUM);
+    ProgramImage image = compiler.freeze();
+
+    List<SimulationJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      jobs.add(SimulationJob.builder().image(image).stdin(i + " 1").build());
+    }
+
+    List<SimulationResult> results = pool.runAll(jobs);
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(SimulationResult.Exit.HALTED, results.get(i).getExit());
+      assertEquals("sum=" + (i + 1), results.get(i).getStdout());
+    }
+  }
+
+  @Test
+  public void testConcurrentJobsAreIndependent() throws Exception {
+    List<SimulationJob> jobs = new ArrayList<>();
+    ExecutionMode[] modes = ExecutionMode.values();
+    for (int i = 0; i < 200; i++) {
+      jobs.add(
+          SimulationJob.builder()
+              .source(i % 10 == 0 ? ".text\naddiu $t0, $zero," : SUM)
+              .stdin(i + " " + i)
+              .executionMode(modes[i % modes.length])
+              .build());
+    }
+
+    List<SimulationResult> results = pool.runAll(jobs);
+    assertEquals(jobs.size(), results.size());
+    for (int i = 0; i < results.size(); i++) {
+      SimulationResult result = results.get(i);
+      if (i % 10 == 0) {
+        assertEquals(SimulationResult.Exit.COMPILE_ERROR, result.getExit());
+      } else {
+        assertEquals(SimulationResult.Exit.HALTED, result.getExit());
+        assertEquals("sum=" + (2 * i), result.getStdout());
+      }
+    }
+  }
+}
@@ -0,0 +1,491 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.compiler.semantic.SemanticAnalyzer;
+import com.cleverchuk.mips.compiler.semantic.instruction.FourOpAnalyzer;
+import com.cleverchuk.mips.compiler.semantic.instruction.InstructionAnalyzer;
+import com.cleverchuk.mips.compiler.semantic.instruction.OneOpAnalyzer;
+import com.cleverchuk.mips.compiler.semantic.instruction.ThreeOpAnalyzer;
+import com.cleverchuk.mips.compiler.semantic.instruction.TwoOpAnalyzer;
+import com.cleverchuk.mips.compiler.semantic.instruction.ZeroOpAnalyzer;
+import com.cleverchuk.mips.simulator.mem.Memory;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockTranslationTest {
+
+  RecursiveDescentParser parser =
+      new RecursiveDescentParser(
+          new MipsLexer(),
+          new SemanticAnalyzer(
+              new InstructionAnalyzer(
+                  new ZeroOpAnalyzer(),
+                  new OneOpAnalyzer(),
+                  new TwoOpAnalyzer(
+                      new TwoOpAnalyzer.LoadStoreAnalyzer(),
+                      new TwoOpAnalyzer.TwoRegOpcodeAnalyzer(),
+                      new TwoOpAnalyzer.BranchOpcodeAnalyzer()),
+                  new ThreeOpAnalyzer(
+                      new ThreeOpAnalyzer.ShiftRotateAnalyzer(),
+                      new ThreeOpAnalyzer.ConditionalTestingAndMoveAnalyzer(),
+                      new ThreeOpAnalyzer.ArithmeticAndLogicalOpcodeAnalyzer()),
+                  new FourOpAnalyzer())));
+
+  private Assembler assembler;
+
+  @Before
+  public void setup() {
+    assembler = new Assembler();
+    parser.addVisitor(assembler);
+  }
+
+  @After
+  public void teardown() {
+    parser.removeVisitor(assembler);
+  }
+
+  private CentralProcessor assemble(String[] instructions, ExecutionMode mode) {
+    assembler.resetInternalState();
+    parser.parse(String.join("\n", instructions));
+    Memory memory = assembler.getLayout();
+    CentralProcessor cpu =
+        new CentralProcessor(
+            memory, assembler.getTextOffset(), assembler.getStackPointer(), (byte) 0x2, mode);
+    cpu.setTextBoundary(assembler.getTextBoundary());
+    return cpu;
+  }
+
+  private int runToEnd(CentralProcessor cpu) throws Exception {
+    int retired = 0;
+    while (cpu.getPc() < assembler.getTextBoundary()) {
+      retired += cpu.executeBlock();
+    }
+    return retired;
+  }
+
+  private void assertSameResult(String[] instructions, int... registers) throws Exception {
+    CentralProcessor interpreted = assemble(instructions, ExecutionMode.INTERPRETED);
+    int expected = runToEnd(interpreted);
+
+    for (ExecutionMode mode :
+        new ExecutionMode[] {ExecutionMode.TRANSLATED, ExecutionMode.TIERED}) {
+      CentralProcessor translated = assemble(instructions, mode);
+      assertEquals(expected, runToEnd(translated));
+      assertEquals(interpreted.getPc(), translated.getPc());
+      for (int register : registers) {
+        assertEquals(
+            interpreted.getGprFileArray().getFile(register).readWord(),
+            translated.getGprFileArray().getFile(register).readWord());
+      }
+
+      CentralProcessor chained = assemble(instructions, mode);
+      assertEquals(StopReason.BOUNDARY, chained.run(Long.MAX_VALUE));
+      assertEquals(interpreted.getPc(), chained.getPc());
+      for (int register : registers) {
+        assertEquals(
+            interpreted.getGprFileArray().getFile(register).readWord(),
+            chained.getGprFileArray().getFile(register).readWord());
+      }
+    }
+  }
+
+  @Test
+  public void testInterpretedExecutesSingleInstruction() throws Exception {
+    String[] instructions = {".text", "addiu $t0, $zero, 1", "addiu $t0, $t0, 2"};
+    CentralProcessor cpu = assemble(instructions, ExecutionMode.INTERPRETED);
+
+    assertEquals(1, cpu.executeBlock());
+    assertEquals(1, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
+  @Test
+  public void testBlockEndsAtBranch() throws Exception {
+    String[] instructions = {
+      ".text",
+      "addiu $t0, $zero, 0",
+      "addiu $t1, $zero, 5",
+      "loop: addiu $t0, $t0, 1",
+      "bne $t0, $t1, loop",
+      "addiu $t2, $zero, 7"
+    };
+    CentralProcessor cpu = assemble(instructions, ExecutionMode.TRANSLATED);
+
+    assertEquals(4, cpu.executeBlock());
+    assertEquals(1, cpu.getGprFileArray().getFile(8).readWord());
+    assertEquals(2, cpu.executeBlock());
+    assertEquals(2, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
+  private static final String[] FUSABLE = {
+    ".data",
+    "values: .word 7, -3, 12, 5, -8, 1, 9, -2",
+    ".text",
+    "addiu $s0, $zero, 100",
+    "outer: la $t0, values",
+    "addiu $t1, $zero, 0",
+    "addiu $t5, $zero, 8",
+    "inner: sll $t2, $t1, 2",
+    "addu $t3, $t0, $t2",
+    "lw $t4, 0($t3)",
+    "addiu $t1, $t1, 1",
+    "addu $v0, $v0, $t4",
+    "slt $t6, $t1, $t5",
+    "bne $t6, $zero, inner",
+    "addiu $s0, $s0, -1",
+    "slt $t7, $zero, $s0",
+    "beq $t7, $zero, done",
+    "j outer",
+    "done: nop"
+  };
+
+  @Test
+  public void testFusedPairs() throws Exception {
+    assertSameResult(FUSABLE, 2, 8, 9, 10, 11, 12, 13, 14, 15, 16);
+  }
+
+  @Test
+  public void testFusedPairsStepExactly() throws Exception {
+    for (ExecutionMode mode :
+        new ExecutionMode[] {ExecutionMode.TRANSLATED, ExecutionMode.TIERED}) {
+      CentralProcessor reference = assemble(FUSABLE, ExecutionMode.INTERPRETED);
+      CentralProcessor translated = assemble(FUSABLE, mode);
+      int[] expected = reference.getGprFileArray().getRegisters();
+
+      // odd budgets make the slices start on either half of a fused pair
+      for (long budget = 1;
+          reference.getPc() < assembler.getTextBoundary();
+          budget = budget % 3 + 1) {
+        reference.run(budget);
+        translated.run(budget);
+        assertEquals(reference.getPc(), translated.getPc());
+        assertArrayEquals(expected, translated.getGprFileArray().getRegisters());
+      }
+    }
+  }
+
+  @Test
+  public void testSurveyOpcodePairs() throws Exception {
+    CentralProcessor cpu = assemble(FUSABLE, ExecutionMode.TRANSLATED);
+    runToEnd(cpu);
+
+    Map<String, Long> survey = cpu.surveyOpcodePairs();
+    assertEquals(Long.valueOf(800), survey.get("SLL ADDU"));
+    assertEquals(Long.valueOf(800), survey.get("SLT BNE"));
+    assertEquals(Long.valueOf(800), survey.get("LW ADDIU"));
+    assertEquals(Long.valueOf(100), survey.get("AUI ORI"));
+  }
+
+  @Test
+  public void testHotLoop() throws Exception {
+    String[] instructions = {
+      ".data",
+      "values: .word 7, -3, 12, 5, -8, 1, 9, -2",
+      ".text",
+      "addiu $s0, $zero, 1000",
+      "addiu $v0, $zero, 0",
+      "outer: la $t0, values",
+      "addiu $t1, $zero, 8",
+      "inner: lw $t2, 0($t0)",
+      "lb $t3, 3($t0)",
+      "lbu $t4, 3($t0)",
+      "lh $t5, 2($t0)",
+      "lhu $t6, 2($t0)",
+      "xor $t7, $t2, $v0",
+      "nor $t8, $t7, $t3",
+      "andi $t9, $t8, 0x00ff",
+      "ori $t9, $t9, 0x0100",
+      "xori $t9, $t9, 0x0011",
+      "sra $t7, $t2, 2",
+      "srl $t8, $t2, 1",
+      "sltu $t3, $t7, $t8",
+      "sltiu $t4, $t2, 4",
+      "slti $t5, $t2, -2",
+      "mul $t6, $t2, $t9",
+      "subu $v0, $v0, $t6",
+      "addu $v0, $v0, $t3",
+      "and $v1, $v0, $t8",
+      "or $v1, $v1, $t4",
+      "add $v1, $v1, $t5",
+      "addiu $t0, $t0, 4",
+      "addiu $t1, $t1, -1",
+      "bne $t1, $zero, inner",
+      "addiu $s0, $s0, -1",
+      "beq $s0, $zero, done",
+      "j outer",
+      "done: nop"
+    };
+    assertSameResult(instructions, 2, 3, 8, 9, 10, 11, 12, 13, 14, 15, 16, 24, 25);
+  }
+
+  @Test
+  public void testLoop() throws Exception {
+    String[] instructions = {
+      ".text",
+      "addiu $t0, $zero, 0",
+      "addiu $t1, $zero, 100",
+      "addiu $t2, $zero, 0",
+      "loop: addiu $t0, $t0, 1",
+      "addu $t2, $t2, $t0",
+      "slt $t3, $t0, $t1",
+      "bne $t3, $zero, loop",
+      "sll $t4, $t2, 1"
+    };
+    assertSameResult(instructions, 8, 9, 10, 11, 12);
+  }
+
+  @Test
+  public void testRecursion() throws Exception {
+    String[] instructions = {
+      ".text",
+      "addiu $a0, $zero, 15",
+      "jal fib",
+      "nop",
+      "j done",
+      "fib: slti $t0, $a0, 2",
+      "beq $t0, $zero, recurse",
+      "addu $v0, $a0, $zero",
+      "jr $ra",
+      "recurse: addiu $sp, $sp, -12",
+      "sw $ra, 0($sp)",
+      "sw $a0, 4($sp)",
+      "addiu $a0, $a0, -1",
+      "jal fib",
+      "nop",
+      "sw $v0, 8($sp)",
+      "lw $a0, 4($sp)",
+      "addiu $a0, $a0, -2",
+      "jal fib",
+      "nop",
+      "lw $t1, 8($sp)",
+      "addu $v0, $v0, $t1",
+      "lw $ra, 0($sp)",
+      "addiu $sp, $sp, 12",
+      "jr $ra",
+      "done: nop"
+    };
+    assertSameResult(instructions, 2, 4, 8, 9, 29, 31);
+
+    CentralProcessor cpu = assemble(instructions, ExecutionMode.TIERED);
+    cpu.run(Long.MAX_VALUE);
+    assertEquals(610, cpu.getGprFileArray().getFile(2).readWord());
+  }
+
+  @Test
+  public void testSubroutine() throws Exception {
+    String[] instructions = {
+      ".text",
+      "addiu $a0, $zero, 6",
+      "jal double",
+      "nop",
+      "addiu $t0, $v0, 1",
+      "j done",
+      "double: addu $v0, $a0, $a0",
+      "jr $ra",
+      "done: nop"
+    };
+    assertSameResult(instructions, 2, 4, 8, 31);
+  }
+
+  @Test
+  public void testLoadStore() throws Exception {
+    String[] instructions = {
+      ".data",
+      "values: .word 3, 4, 5",
+      ".text",
+      "la $t0, values",
+      "lw $t1, 0($t0)",
+      "lw $t2, 4($t0)",
+      "lw $t3, 8($t0)",
+      "addu $t4, $t1, $t2",
+      "addu $t4, $t4, $t3",
+      "sw $t4, 0($t0)",
+      "lw $t5, 0($t0)"
+    };
+    assertSameResult(instructions, 8, 12, 13);
+  }
+
+  @Test
+  public void testStoreIntoCurrentBlock() throws Exception {
+    String[] instructions = {".text", "sw $t1, 0($t2)", "addiu $t0, $zero, 5"};
+    CentralProcessor cpu = assemble(instructions, ExecutionMode.TRANSLATED);
+    cpu.getGprFileArray().getFile(9).writeWord(0x24080009); // addiu $t0, $zero, 9
+    cpu.getGprFileArray().getFile(10).writeWord(assembler.getTextOffset() + 4);
+
+    runToEnd(cpu);
+    assertEquals(9, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
+  @Test
+  public void testStoreIntoTranslatedBlock() throws Exception {
+    String[] instructions = {".text", "addiu $t0, $zero, 5", "sw $t1, 0($t2)"};
+    CentralProcessor cpu = assemble(instructions, ExecutionMode.TRANSLATED);
+    cpu.getGprFileArray().getFile(9).writeWord(0x24080009); // addiu $t0, $zero, 9
+    cpu.getGprFileArray().getFile(10).writeWord(assembler.getTextOffset());
+
+    runToEnd(cpu);
+    assertEquals(5, cpu.getGprFileArray().getFile(8).readWord());
+
+    cpu.setPc(assembler.getTextOffset());
+    cpu.executeBlock();
+    assertEquals(9, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
+  @Test
+  public void testRunHonoursBudget() throws Exception {
+    String[] instructions = {
+      ".text", "loop: addiu $t0, $t0, 1", "addiu $t1, $t1, 1", "addiu $t2, $t2, 1", "j loop"
+    };
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = assemble(instructions, mode);
+      for (int i = 0; i < 100; i++) {
+        assertEquals(StopReason.BUDGET_EXHAUSTED, cpu.run(3));
+      }
+      assertEquals(75, cpu.getGprFileArray().getFile(8).readWord());
+      assertEquals(75, cpu.getGprFileArray().getFile(10).readWord());
+      assertEquals(assembler.getTextOffset(), cpu.getPc());
+
+      assertEquals(StopReason.BUDGET_EXHAUSTED, cpu.run(2));
+      assertEquals(assembler.getTextOffset() + 8, cpu.getPc());
+    }
+  }
+
+  @Test
+  public void testRunStopsAtBreakpoint() throws Exception {
+    String[] instructions = {
+      ".text", "loop: addiu $t0, $t0, 1", "addiu $t1, $t1, 1", "addiu $t2, $t2, 1", "j loop"
+    };
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = assemble(instructions, mode);
+      cpu.setBreakpoint(assembler.getTextOffset() + 8);
+      for (int i = 1; i <= 100; i++) {
+        assertEquals(StopReason.BREAKPOINT, cpu.run(Long.MAX_VALUE));
+        assertEquals(i, cpu.getGprFileArray().getFile(9).readWord());
+        assertEquals(i - 1, cpu.getGprFileArray().getFile(10).readWord());
+      }
+    }
+  }
+
+  @Test
+  public void testStoreIntoCompiledBlock() throws Exception {
+    String[] instructions = {
+      ".text",
+      "addiu $t3, $zero, 0",
+      "loop: addiu $t0, $zero, 5",
+      "addiu $t3, $t3, 1",
+      "bne $t3, $t4, loop",
+      "sw $t1, 0($t2)"
+    };
+    CentralProcessor cpu = assemble(instructions, ExecutionMode.TIERED);
+    cpu.getGprFileArray().getFile(9).writeWord(0x24080009); // addiu $t0, $zero, 9
+    cpu.getGprFileArray().getFile(10).writeWord(assembler.getTextOffset() + 4);
+    cpu.getGprFileArray().getFile(12).writeWord(2 * BlockCompiler.HOT_THRESHOLD);
+
+    runToEnd(cpu);
+    assertEquals(5, cpu.getGprFileArray().getFile(8).readWord());
+
+    cpu.setPc(assembler.getTextOffset() + 4);
+    cpu.executeBlock();
+    assertEquals(9, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
+  @Test
+  public void testFaultCountsRetiredInstructions() throws Exception {
+    String[] instructions = {
+      ".text", "addiu $t2, $zero, 1", "addiu $t1, $zero, -4", "lw $t0, 0($t1)", "addu $t3, $t2, $t2"
+    };
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = assemble(instructions, mode);
+      assertEquals(StopReason.TRAP, cpu.run(Long.MAX_VALUE));
+      assertEquals(mode.name(), 2, cpu.getInstructionCount());
+      assertEquals(assembler.getTextOffset() + 12, cpu.getPc());
+    }
+  }
+
+  @Test
+  public void testFaultAfterChainCountsEveryBlock() throws Exception {
+    String[] instructions = {
+      ".text",
+      "addiu $t0, $zero, 100",
+      "loop: addiu $t0, $t0, -1",
+      "bne $t0, $zero, loop",
+      "addiu $t1, $zero, -4",
+      "lw $t2, 0($t1)",
+      "addu $t3, $t0, $t0"
+    };
+    CentralProcessor interpreted = assemble(instructions, ExecutionMode.INTERPRETED);
+    assertEquals(StopReason.TRAP, interpreted.run(Long.MAX_VALUE));
+    for (ExecutionMode mode :
+        new ExecutionMode[] {ExecutionMode.TRANSLATED, ExecutionMode.TIERED}) {
+      CentralProcessor chained = assemble(instructions, mode);
+      assertEquals(StopReason.TRAP, chained.run(Long.MAX_VALUE));
+      assertEquals(interpreted.getInstructionCount(), chained.getInstructionCount());
+      assertEquals(interpreted.getPc(), chained.getPc());
+    }
+  }
+
+  @Test
+  public void testFaultInFusedPairReportsTheLoad() throws Exception {
+    String[] instructions = {
+      ".text", "addiu $t1, $zero, -4", "lw $t0, 0($t1)", "addiu $t2, $t2, 1", "addu $t3, $t2, $t2"
+    };
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = assemble(instructions, mode);
+      assertEquals(StopReason.TRAP, cpu.run(Long.MAX_VALUE));
+      assertEquals(mode.name(), assembler.getTextOffset() + 8, cpu.getPc());
+      assertEquals(1, cpu.getInstructionCount());
+      assertEquals(0, cpu.getGprFileArray().getFile(10).readWord());
+
+      cpu = assemble(instructions, mode);
+      try {
+        runToEnd(cpu);
+        fail();
+      } catch (ArrayIndexOutOfBoundsException expected) {
+        assertEquals(assembler.getTextOffset() + 8, cpu.getPc());
+      }
+    }
+  }
+
+  @Test(expected = SyscallException.class)
+  public void testSyscallEndsBlock() throws Exception {
+    String[] instructions = {".text", "addiu $v0, $zero, 10", "syscall", "addiu $v0, $zero, 42"};
+    CentralProcessor cpu = assemble(instructions, ExecutionMode.TRANSLATED);
+    try {
+      cpu.executeBlock();
+    } finally {
+      assertEquals(10, cpu.getGprFileArray().getFile(2).readWord());
+      assertEquals(assembler.getTextOffset() + 8, cpu.getPc());
+    }
+  }
+}
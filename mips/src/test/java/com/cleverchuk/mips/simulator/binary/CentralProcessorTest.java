@@ -37,7 +37,9 @@ import com.cleverchuk.mips.compiler.semantic.instruction.OneOpAnalyzer;
 import com.cleverchuk.mips.compiler.semantic.instruction.ThreeOpAnalyzer;
 import com.cleverchuk.mips.compiler.semantic.instruction.TwoOpAnalyzer;
 import com.cleverchuk.mips.compiler.semantic.instruction.ZeroOpAnalyzer;
+import com.cleverchuk.mips.simulator.mem.BigEndianMainMemory;
 import com.cleverchuk.mips.simulator.mem.Memory;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -67,6 +69,11 @@ public class CentralProcessorTest {
   private Memory memory;
   private int textOffset;
 
+  private static final int NAN_S = 0x7fc0_0001;
+  private static final int OTHER_NAN_S = 0x7fc0_0002;
+  private static final long NAN_D = 0x7ff8_0000_0000_0001L;
+  private static final long OTHER_NAN_D = 0x7ff8_0000_0000_0002L;
+
   @Before
   public void setup() {
     assembler = new Assembler();
@@ -95,6 +102,38 @@ public class CentralProcessorTest {
     return String.join("\n", instructions);
   }
 
+  /** Runs an FPU instruction on $f2, $f4 and $f6 holding the given raw bits and returns $f2 */
+  private long fpu(String instruction, long f2, long f4, long f6) throws Exception {
+    assembler.resetInternalState(); // a test may run several
+    assemble(new String[] {".text", instruction});
+    long[] fpr = cpu.getFpuRegisterFileArray().getRegisters();
+    fpr[2] = f2;
+    fpr[4] = f4;
+    fpr[6] = f6;
+    cpu.execute();
+    return fpr[2];
+  }
+
+  private int fpuSingle(String instruction, float f2, float f4, float f6) throws Exception {
+    return fpuSingle(
+        instruction,
+        Float.floatToRawIntBits(f2),
+        Float.floatToRawIntBits(f4),
+        Float.floatToRawIntBits(f6));
+  }
+
+  private int fpuSingle(String instruction, int f2, int f4, int f6) throws Exception {
+    return (int) fpu(instruction, f2 & 0xffffffffL, f4 & 0xffffffffL, f6 & 0xffffffffL);
+  }
+
+  private long fpuDouble(String instruction, double f2, double f4, double f6) throws Exception {
+    return fpu(
+        instruction,
+        Double.doubleToRawLongBits(f2),
+        Double.doubleToRawLongBits(f4),
+        Double.doubleToRawLongBits(f6));
+  }
+
   @Test
   public void testAbsS() throws Exception {
     String[] instructions = {
@@ -128,6 +167,14 @@ public class CentralProcessorTest {
     assertEquals(3.14, result, 0.001);
   }
 
+  @Test
+  public void testAbsClearsTheSignOfNaN() throws Exception {
+    assertEquals(NAN_S, fpuSingle("abs.s $f2, $f4", 0, NAN_S | 0x8000_0000, 0));
+    assertEquals(NAN_D, fpu("abs.d $f2, $f4", 0, NAN_D | Long.MIN_VALUE, 0));
+    assertEquals(0x7f80_0000, fpuSingle("abs.s $f2, $f4", 0f, Float.NEGATIVE_INFINITY, 0f));
+    assertEquals(0L, fpuDouble("abs.d $f2, $f4", 1.0, -0.0, 0.0));
+  }
+
   @Test
   public void testAccumulation() throws Exception {
     String[] instructions = {
@@ -206,6 +253,14 @@ public class CentralProcessorTest {
     assertEquals(4.0f, result, 0.0001f);
   }
 
+  @Test
+  public void testAddPassesTheFirstNaN() throws Exception {
+    assertEquals(NAN_S, fpuSingle("add.s $f2, $f4, $f6", 0, NAN_S, OTHER_NAN_S));
+    assertEquals(OTHER_NAN_S, fpuSingle("add.s $f2, $f4, $f6", 0, 0x3f80_0000, OTHER_NAN_S));
+    assertEquals(NAN_D, fpu("add.d $f2, $f4, $f6", 0, NAN_D, OTHER_NAN_D));
+    assertEquals(OTHER_NAN_D, fpu("add.d $f2, $f4, $f6", 0, OTHER_NAN_D, NAN_D));
+  }
+
   @Test
   public void testAddiu() throws Exception {
     String[] instructions = {".text", "addiu $t0, $zero, 100"};
@@ -2602,6 +2657,19 @@ public class CentralProcessorTest {
     assertEquals(15, t0);
   }
 
+  @Test
+  public void testFlushDecodeCache() throws Exception {
+    String[] instructions = {".text", "addiu $t0, $zero, 5"};
+    assemble(instructions);
+    executeInstructions(1);
+
+    memory.storeWord(0x24080009, textOffset); // addiu $t0, $zero, 9
+    cpu.flushDecodeCache();
+    cpu.setPc(textOffset);
+    executeInstructions(1);
+    assertEquals(9, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
   @Test
   public void testFloorLS() throws Exception {
     String[] instructions = {
@@ -3181,6 +3249,14 @@ public class CentralProcessorTest {
     assertEquals(14.0, result, 0.001);
   }
 
+  @Test
+  public void testMaddfPassesTheFirstNaN() throws Exception {
+    assertEquals(NAN_S, fpuSingle("maddf.s $f2, $f4, $f6", NAN_S, OTHER_NAN_S, OTHER_NAN_S));
+    assertEquals(OTHER_NAN_S, fpuSingle("maddf.s $f2, $f4, $f6", 0, OTHER_NAN_S, NAN_S));
+    assertEquals(NAN_D, fpu("maddf.d $f2, $f4, $f6", NAN_D, OTHER_NAN_D, OTHER_NAN_D));
+    assertEquals(OTHER_NAN_D, fpu("maddf.d $f2, $f4, $f6", 0, OTHER_NAN_D, NAN_D));
+  }
+
   @Test
   public void testMaddu() throws Exception {
     String[] instructions = {
@@ -3242,6 +3318,14 @@ public class CentralProcessorTest {
     assertEquals(3.5, result, 0.001);
   }
 
+  @Test
+  public void testMaxPassesTheFirstNaN() throws Exception {
+    assertEquals(NAN_S, fpuSingle("max.s $f2, $f4, $f6", 0, NAN_S, OTHER_NAN_S));
+    assertEquals(OTHER_NAN_S, fpuSingle("max.s $f2, $f4, $f6", 0, 0x3f80_0000, OTHER_NAN_S));
+    assertEquals(NAN_D, fpu("max.d $f2, $f4, $f6", 0, NAN_D, OTHER_NAN_D));
+    assertEquals(OTHER_NAN_D, fpu("max.d $f2, $f4, $f6", 0, 0, OTHER_NAN_D));
+  }
+
   @Test
   public void testMaxaS() throws Exception {
     String[] instructions = {
@@ -3396,6 +3480,14 @@ public class CentralProcessorTest {
     assertEquals(2.1, result, 0.001);
   }
 
+  @Test
+  public void testMinPassesTheFirstNaN() throws Exception {
+    assertEquals(NAN_S, fpuSingle("min.s $f2, $f4, $f6", 0, NAN_S, OTHER_NAN_S));
+    assertEquals(OTHER_NAN_S, fpuSingle("min.s $f2, $f4, $f6", 0, 0x3f80_0000, OTHER_NAN_S));
+    assertEquals(NAN_D, fpu("min.d $f2, $f4, $f6", 0, NAN_D, OTHER_NAN_D));
+    assertEquals(OTHER_NAN_D, fpu("min.d $f2, $f4, $f6", 0, 0, OTHER_NAN_D));
+  }
+
   @Test
   public void testMinaS() throws Exception {
     String[] instructions = {
@@ -3615,6 +3707,14 @@ public class CentralProcessorTest {
     assertEquals(8.0, result, 0.001);
   }
 
+  @Test
+  public void testMsubfPassesTheFirstProductNaN() throws Exception {
+    assertEquals(NAN_S, fpuSingle("msubf.s $f2, $f4, $f6", 0x3f80_0000, NAN_S, OTHER_NAN_S));
+    assertEquals(OTHER_NAN_S, fpuSingle("msubf.s $f2, $f4, $f6", 0x3f80_0000, 0, OTHER_NAN_S));
+    assertEquals(NAN_D, fpu("msubf.d $f2, $f4, $f6", 0, NAN_D, OTHER_NAN_D));
+    assertEquals(OTHER_NAN_D, fpu("msubf.d $f2, $f4, $f6", 0, OTHER_NAN_D, NAN_D));
+  }
+
   @Test
   public void testMsubu() throws Exception {
     String[] instructions = {
@@ -3636,11 +3736,12 @@ public class CentralProcessorTest {
 
   @Test
   public void testMtc0() throws Exception {
-    String[] instructions = {".text", "addiu $t0, $zero, 42", "mtc0 $t0, $12"};
+    String[] instructions = {".text", "addiu $t0, $zero, 0x7f42", "mtc0 $t0, $12", "mfc0 $t1, $12"};
     assemble(instructions);
-    executeInstructions(2);
+    executeInstructions(3);
 
-    assertTrue(true);
+    int t1 = cpu.getGprFileArray().getFile(9).readWord();
+    assertEquals(0x7f02, t1); // only IM, EXL and IE are writable
   }
 
   @Test
@@ -3785,6 +3886,14 @@ public class CentralProcessorTest {
     assertEquals(10.0, result, 0.001);
   }
 
+  @Test
+  public void testMulPassesTheFirstNaN() throws Exception {
+    assertEquals(NAN_S, fpuSingle("mul.s $f2, $f4, $f6", 0, NAN_S, OTHER_NAN_S));
+    assertEquals(OTHER_NAN_S, fpuSingle("mul.s $f2, $f4, $f6", 0, 0x3f80_0000, OTHER_NAN_S));
+    assertEquals(NAN_D, fpu("mul.d $f2, $f4, $f6", 0, NAN_D, OTHER_NAN_D));
+    assertEquals(OTHER_NAN_D, fpu("mul.d $f2, $f4, $f6", 0, OTHER_NAN_D, NAN_D));
+  }
+
   @Test
   public void testMult() throws Exception {
     String[] instructions = {
@@ -3968,6 +4077,13 @@ public class CentralProcessorTest {
     assertEquals(4.0, result, 0.001);
   }
 
+  @Test
+  public void testRintKeepsNaN() throws Exception {
+    assertEquals(NAN_S, fpuSingle("rint.s $f2, $f4", 0, NAN_S, 0));
+    assertEquals(NAN_D | Long.MIN_VALUE, fpu("rint.d $f2, $f4", 0, NAN_D | Long.MIN_VALUE, 0));
+    assertEquals(0x8000_0000, fpuSingle("rint.s $f2, $f4", 0f, -0.25f, 0f));
+  }
+
   @Test
   public void testRotr() throws Exception {
     String[] instructions = {
@@ -4088,6 +4204,157 @@ public class CentralProcessorTest {
     assertEquals(0.333333, result, 0.001);
   }
 
+  @Test
+  public void testRunBreakpoint() throws Exception {
+    String[] instructions = {
+      ".text", "addiu $t0, $zero, 1", "addiu $t0, $t0, 1", "addiu $t0, $t0, 1", "addiu $t0, $t0, 1"
+    };
+    assemble(instructions);
+    cpu.setBreakpoint(textOffset + 8);
+    assertEquals(StopReason.BREAKPOINT, cpu.run(10));
+    assertEquals(textOffset + 8, cpu.getPc());
+    assertEquals(2, cpu.getGprFileArray().getFile(8).readWord());
+
+    cpu.setTextBoundary(assembler.getTextBoundary());
+    assertEquals(StopReason.BOUNDARY, cpu.run(10));
+    assertEquals(4, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
+  private static final String[] COUNTING_LOOP = {
+    ".text",
+    "addiu $t1, $zero, 200",
+    "loop: addiu $t0, $t0, 1",
+    "addiu $t2, $t2, 2",
+    "addiu $t1, $t1, -1",
+    "bne $t1, $zero, loop"
+  };
+
+  private void assembleTiered(String[] instructions) {
+    assemble(instructions);
+    cpu =
+        new CentralProcessor(
+            memory, textOffset, assembler.getStackPointer(), (byte) 0x2, ExecutionMode.TIERED);
+    cpu.setTextBoundary(assembler.getTextBoundary());
+  }
+
+  @Test
+  public void testRunBreakpointInsideTranslatedBlock() {
+    assembleTiered(COUNTING_LOOP);
+    int middle = assembler.getSymbolTable().get("loop") + 4;
+    cpu.setBreakpoint(middle);
+    for (int i = 1; i <= 200; i++) {
+      assertEquals(StopReason.BREAKPOINT, cpu.run(10_000));
+      assertEquals(middle, cpu.getPc());
+      assertEquals(i, cpu.getGprFileArray().getFile(8).readWord());
+      assertEquals(2 * (i - 1), cpu.getGprFileArray().getFile(10).readWord());
+    }
+
+    cpu.clearBreakpoint(middle);
+    assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+    assertEquals(400, cpu.getGprFileArray().getFile(10).readWord());
+  }
+
+  @Test
+  public void testRunConditionalBreakpoint() {
+    assembleTiered(COUNTING_LOOP);
+    int middle = assembler.getSymbolTable().get("loop") + 4;
+    cpu.setBreakpoint(
+        middle, (processor) -> processor.getGprFileArray().getFile(8).readWord() == 150, 1);
+    assertEquals(StopReason.BREAKPOINT, cpu.run(10_000));
+    assertEquals(middle, cpu.getPc());
+    assertEquals(150, cpu.getGprFileArray().getFile(8).readWord());
+    assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+  }
+
+  @Test
+  public void testRunHitCountBreakpoint() {
+    assembleTiered(COUNTING_LOOP);
+    int loop = assembler.getSymbolTable().get("loop");
+    cpu.setBreakpoint(loop, null, 190);
+    assertEquals(StopReason.BREAKPOINT, cpu.run(10_000));
+    assertEquals(189, cpu.getGprFileArray().getFile(8).readWord());
+    for (int i = 190; i < 200; i++) {
+      assertEquals(StopReason.BREAKPOINT, cpu.run(10_000));
+      assertEquals(i, cpu.getGprFileArray().getFile(8).readWord());
+    }
+    assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+    assertTrue(cpu.hasBreakpoint(loop));
+  }
+
+  @Test
+  public void testRunBudgetExhausted() throws Exception {
+    String[] instructions = {".text", "loop: addiu $t0, $t0, 1", "j loop"};
+    assemble(instructions);
+    assertEquals(StopReason.BUDGET_EXHAUSTED, cpu.run(7));
+    assertEquals(4, cpu.getGprFileArray().getFile(8).readWord());
+    assertEquals(textOffset + 4, cpu.getPc());
+  }
+
+  @Test
+  public void testRunSyscall() throws Exception {
+    String[] instructions = {
+      ".text", "addiu $v0, $zero, 1", "syscall", "addiu $v0, $zero, 10", "syscall"
+    };
+    assemble(instructions);
+    assertEquals(StopReason.SYSCALL, cpu.run(10));
+    assertEquals(1, cpu.getSyscallCode());
+    assertEquals(StopReason.HALT, cpu.run(10));
+    assertEquals(10, cpu.getSyscallCode());
+  }
+
+  @Test
+  public void testRunTrap() throws Exception {
+    String[] instructions = {".text", "addiu $t0, $zero, 1", "break", "addiu $t0, $zero, 2"};
+    assemble(instructions);
+    assertEquals(StopReason.TRAP, cpu.run(10));
+    assertTrue(cpu.getTrap() instanceof BreakException);
+    assertEquals(1, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
+  @Test
+  public void testSnapshotRestore() throws Exception {
+    String[] instructions = {
+      ".data",
+      "counter: .word 5",
+      ".text",
+      "la $t1, counter",
+      "lw $t0, 0($t1)",
+      "addiu $t0, $t0, 1",
+      "sw $t0, 0($t1)",
+      "mult $t0, $t0",
+      "addiu $v0, $zero, 10",
+      "syscall"
+    };
+    assemble(instructions);
+    PagedMemory paged = PagedMemory.copyOf(memory);
+    cpu =
+        new CentralProcessor(
+            paged, textOffset, assembler.getStackPointer(), (byte) 0x2, ExecutionMode.TIERED);
+    ProcessorSnapshot snapshot = cpu.snapshot();
+    int address = assembler.getDataOffset();
+
+    for (int run = 0; run < 3; run++) {
+      assertEquals(StopReason.HALT, cpu.run(100));
+      assertEquals(6, paged.readWord(address));
+      assertEquals(6, cpu.getGprFileArray().getFile(8).readWord());
+      assertEquals(36, cpu.getLo());
+      assertEquals(1, paged.getDirtyPageCount());
+
+      cpu.restore(snapshot);
+      assertEquals(5, paged.readWord(address));
+      assertEquals(0, cpu.getGprFileArray().getFile(8).readWord());
+      assertEquals(0, cpu.getLo());
+      assertEquals(textOffset, cpu.getPc());
+      assertEquals(0, cpu.getInstructionCount());
+      assertEquals(0, paged.getDirtyPageCount());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSnapshotRequiresPagedMemory() {
+    new CentralProcessor(new BigEndianMainMemory(1024), 0, 1024, (byte) 0x2).snapshot();
+  }
+
   @Test
   public void testSb() throws Exception {
     String[] instructions = {
@@ -4699,6 +4966,20 @@ public class CentralProcessorTest {
     assertEquals(99, t3);
   }
 
+  @Test
+  public void testStoreToTextInvalidatesDecodedInstruction() throws Exception {
+    String[] instructions = {".text", "addiu $t0, $zero, 5", "sw $t1, 0($t2)"};
+    assemble(instructions);
+    cpu.getGprFileArray().getFile(9).writeWord(0x24080009); // addiu $t0, $zero, 9
+    cpu.getGprFileArray().getFile(10).writeWord(textOffset);
+    executeInstructions(2);
+    assertEquals(5, cpu.getGprFileArray().getFile(8).readWord());
+
+    cpu.setPc(textOffset);
+    executeInstructions(1);
+    assertEquals(9, cpu.getGprFileArray().getFile(8).readWord());
+  }
+
   @Test
   public void testSub() throws Exception {
     String[] instructions = {
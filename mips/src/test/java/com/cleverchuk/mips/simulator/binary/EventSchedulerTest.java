@@ -0,0 +1,242 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.cleverchuk.mips.compiler.MipsCompiler;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class EventSchedulerTest {
+  private static final String TIMER =
+      String.join(
+          "\n",
+          ".text",
+          "la $t0, handler",
+          "addiu $t0, $t0, -384",
+          "mtc0 $t0, $15, 1",
+          "addiu $t1, $zero, 50",
+          "mtc0 $t1, $11",
+          "mtc0 $zero, $9",
+          "ori $t1, $zero, 0x8001",
+          "mtc0 $t1, $12",
+          "loop: addiu $s0, $s0, 1",
+          "addiu $s0, $s0, 1",
+          "addiu $s0, $s0, 1",
+          "beq $zero, $zero, loop",
+          "handler: mfc0 $t3, $9",
+          "mfc0 $t2, $11",
+          "subu $t3, $t3, $t2",
+          "or $s3, $s3, $t3",
+          "addiu $s1, $s1, 1",
+          "addiu $t2, $t2, 50",
+          "mtc0 $t2, $11",
+          "eret");
+
+  private static final String MASKING =
+      String.join(
+          "\n",
+          ".text",
+          "la $t0, handler",
+          "addiu $t0, $t0, -384",
+          "mtc0 $t0, $15, 1",
+          "ori $t1, $zero, 0x0101",
+          "mtc0 $t1, $12",
+          "di $s4",
+          "ori $t1, $zero, 0x0100",
+          "mtc0 $t1, $13",
+          "addiu $s0, $s0, 1",
+          "ei $s5",
+          "after: addiu $s0, $s0, 2",
+          "done: beq $zero, $zero, done",
+          "handler: addiu $s1, $s1, 1",
+          "mtc0 $zero, $13",
+          "mfc0 $s6, $14",
+          "eret");
+
+  private static final String DEVICE =
+      String.join(
+          "\n",
+          ".text",
+          "la $t0, handler",
+          "addiu $t0, $t0, -384",
+          "mtc0 $t0, $15, 1",
+          "ori $t1, $zero, 0x0401",
+          "mtc0 $t1, $12",
+          "loop: addiu $s0, $s0, 1",
+          "beq $zero, $zero, loop",
+          "handler: mfc0 $s3, $9",
+          "mfc0 $s4, $13",
+          "syscall");
+
+  private static ProgramImage compile(String source) {
+    MipsCompiler compiler =
+        new MipsCompiler(
+            new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+    compiler.compile(source);
+    return compiler.freeze();
+  }
+
+  private static CentralProcessor processor(String source, ExecutionMode mode) {
+    return processor(compile(source), mode);
+  }
+
+  private static CentralProcessor processor(ProgramImage image, ExecutionMode mode) {
+    CentralProcessor cpu =
+        new CentralProcessor(
+            image.fork(), image.getTextOffset(), image.getStackPointer(), (byte) 0x2, mode);
+    cpu.setTextBoundary(image.getTextBoundary());
+    return cpu;
+  }
+
+  private static int gpr(CentralProcessor cpu, int reg) {
+    return cpu.getGprFileArray().getRegisters()[reg];
+  }
+
+  @Test
+  public void testDispatchesInDueOrder() {
+    EventScheduler scheduler = new EventScheduler();
+    List<Long> dispatched = new ArrayList<>();
+    long[] due = new long[64];
+    Random random = new Random(7);
+    for (int i = 0; i < due.length; i++) {
+      int id = scheduler.register(dispatched::add);
+      due[i] = 1 + random.nextInt(1000);
+      scheduler.schedule(id, due[i]);
+    }
+
+    Arrays.sort(due);
+    assertEquals(due[0], scheduler.nextDue());
+    scheduler.dispatch(500);
+    scheduler.dispatch(1000);
+    assertEquals(due.length, dispatched.size());
+    for (int i = 0; i < due.length; i++) {
+      assertEquals(due[i], (long) dispatched.get(i));
+    }
+    assertEquals(Long.MAX_VALUE, scheduler.nextDue());
+  }
+
+  @Test
+  public void testRescheduleAndCancel() {
+    EventScheduler scheduler = new EventScheduler();
+    List<Long> dispatched = new ArrayList<>();
+    int first = scheduler.register(dispatched::add);
+    int second = scheduler.register(dispatched::add);
+
+    scheduler.schedule(first, 10);
+    scheduler.schedule(second, 20);
+    scheduler.schedule(first, 30); // replaces 10
+    assertEquals(20, scheduler.nextDue());
+
+    scheduler.cancel(second);
+    assertFalse(scheduler.isScheduled(second));
+    assertTrue(scheduler.isScheduled(first));
+    assertEquals(30, scheduler.nextDue());
+
+    scheduler.dispatch(29);
+    assertTrue(dispatched.isEmpty());
+    scheduler.dispatch(30);
+    assertEquals(Arrays.asList(30L), dispatched);
+    assertFalse(scheduler.isScheduled(first));
+  }
+
+  @Test
+  public void testEventScheduledWhileDispatchingIsDeferred() {
+    EventScheduler scheduler = new EventScheduler();
+    List<Long> dispatched = new ArrayList<>();
+    int[] id = new int[1];
+    id[0] =
+        scheduler.register(
+            (when) -> {
+              dispatched.add(when);
+              scheduler.schedule(id[0], when);
+            });
+
+    scheduler.schedule(id[0], 5);
+    scheduler.dispatch(5);
+    assertEquals(Arrays.asList(5L), dispatched);
+    assertEquals(6, scheduler.nextDue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testScheduleUnknownDevice() {
+    new EventScheduler().schedule(0, 1);
+  }
+
+  @Test
+  public void testTimerInterruptFiresWhenCountReachesCompare() {
+    int[] ticks = new int[ExecutionMode.values().length];
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = processor(TIMER, mode);
+      assertEquals(mode.name(), StopReason.BUDGET_EXHAUSTED, cpu.run(10_000));
+      assertEquals(mode.name(), 0, gpr(cpu, 19)); // $s3: Count - Compare on every entry
+      ticks[mode.ordinal()] = gpr(cpu, 17); // $s1
+      assertTrue(mode.name(), ticks[mode.ordinal()] > 150);
+    }
+
+    for (int count : ticks) {
+      assertEquals(ticks[0], count);
+    }
+  }
+
+  @Test
+  public void testDiMasksUntilEi() {
+    ProgramImage image = compile(MASKING);
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = processor(image, mode);
+      assertEquals(mode.name(), StopReason.BUDGET_EXHAUSTED, cpu.run(1_000));
+      assertEquals(mode.name(), 1, gpr(cpu, 17)); // $s1: taken once, after ei
+      assertEquals(3, gpr(cpu, 16)); // $s0
+      assertEquals(0x0101, gpr(cpu, 20)); // $s4: Status before di
+      assertEquals(0x0100, gpr(cpu, 21)); // $s5: Status before ei
+      assertEquals((int) image.getSymbolTable().get("after"), gpr(cpu, 22)); // $s6: EPC
+    }
+  }
+
+  @Test
+  public void testDelayedDeviceCompletion() {
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = processor(DEVICE, mode);
+      EventScheduler scheduler = cpu.getScheduler();
+      int disk = scheduler.register((when) -> cpu.raiseInterrupt(2));
+      scheduler.schedule(disk, 100);
+
+      assertEquals(mode.name(), StopReason.SYSCALL, cpu.run(10_000));
+      assertEquals(mode.name(), 100, gpr(cpu, 19)); // $s3: Count on entry
+      assertEquals(0x0400, gpr(cpu, 20) & 0xff7c); // $s4: IP2, ExcCode Int
+      assertTrue(gpr(cpu, 16) > 0);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LockstepCheckerTest {
+  private static final int SUB_T0_T1_T2 = 0x012a4022;
+
+  private static final int ADDIU_T3_ZERO_7 = 0x240b0007;
+
+  private static final int SB_T1_GP = 0xa3890000;
+
+  private static final int SH_T1_GP = 0xa7890000;
+
+  @Test
+  public void testFuzzedProgramsAgreeInEveryMode() {
+    for (ExecutionMode mode :
+        new ExecutionMode[] {ExecutionMode.TRANSLATED, ExecutionMode.TIERED}) {
+      for (long seed = 0; seed < 40; seed++) {
+        InstructionFuzzer fuzzer = new InstructionFuzzer(seed);
+        int[] program = fuzzer.generate(150);
+        CentralProcessor reference = fuzzer.load(program, ExecutionMode.INTERPRETED);
+        CentralProcessor candidate = fuzzer.load(program, mode);
+        ProcessorSnapshot referenceStart = reference.snapshot();
+        ProcessorSnapshot candidateStart = candidate.snapshot();
+
+        // Rerun until the blocks are hot enough for the compiled tier
+        LockstepChecker checker = new LockstepChecker(reference, candidate);
+        for (int run = 0; run <= BlockCompiler.HOT_THRESHOLD; run++) {
+          reference.restore(referenceStart);
+          candidate.restore(candidateStart);
+          LockstepChecker.Mismatch mismatch = checker.check(10_000);
+          assertNull(mode + ", seed " + seed + ": " + mismatch, mismatch);
+          assertTrue(checker.getStop() instanceof SyscallException);
+        }
+        assertEquals((BlockCompiler.HOT_THRESHOLD + 1) * 151L, checker.getInstructionCount());
+        assertTrue(checker.getBlockCount() < checker.getInstructionCount());
+      }
+    }
+  }
+
+  @Test
+  public void testFuzzerIsDeterministic() {
+    int[] program = new InstructionFuzzer(7).generate(500);
+    assertArrayEquals(program, new InstructionFuzzer(7).generate(500));
+
+    int faulting = 0;
+    int pairs = 0;
+    Opcode previous = null;
+    for (int word : program) {
+      Opcode opcode = InstructionDecoder.decode(word);
+      assertTrue(InstructionFuzzer.getOpcodes().contains(opcode));
+      assertTrue(OpcodeHistogram.classOf(opcode) != OpcodeHistogram.InstructionClass.BRANCH);
+      if (OpcodeHistogram.classOf(opcode) == OpcodeHistogram.InstructionClass.LOAD_STORE
+          && (word >>> 21 & 0x1f) == InstructionFuzzer.FAULT_REGISTER) {
+        faulting++;
+      }
+      if (previous == Opcode.LW && opcode == Opcode.ADDIU) {
+        pairs++;
+      }
+      previous = opcode;
+    }
+    assertTrue(faulting + " faulting loads and stores", faulting > 0);
+    assertTrue(pairs + " lw + addiu pairs", pairs > 0);
+
+    CentralProcessor first = new InstructionFuzzer(7).load(program, ExecutionMode.INTERPRETED);
+    CentralProcessor second = new InstructionFuzzer(7).load(program, ExecutionMode.TIERED);
+    assertArrayEquals(
+        first.getGprFileArray().getRegisters(), second.getGprFileArray().getRegisters());
+    assertArrayEquals(
+        first.getFpuRegisterFileArray().getRegisters(),
+        second.getFpuRegisterFileArray().getRegisters());
+    assertEquals(
+        InstructionFuzzer.DATA_BASE,
+        first.getGprFileArray().getRegisters()[InstructionFuzzer.BASE_REGISTER]);
+    assertEquals(
+        InstructionFuzzer.FAULT_ADDRESS,
+        first.getGprFileArray().getRegisters()[InstructionFuzzer.FAULT_REGISTER]);
+  }
+
+  @Test
+  public void testReportsRegisterDivergence() {
+    InstructionFuzzer fuzzer = new InstructionFuzzer(3);
+    CentralProcessor reference = fuzzer.load(new int[] {0x24080001}, ExecutionMode.INTERPRETED);
+    CentralProcessor candidate = fuzzer.load(new int[] {0x24080002}, ExecutionMode.TIERED);
+
+    LockstepChecker.Mismatch mismatch = new LockstepChecker(reference, candidate).check(100);
+    assertNotNull(mismatch);
+    assertEquals(0, mismatch.getIndex());
+    assertArrayEquals(new int[] {0, 4}, mismatch.getPcs());
+    assertEquals("$t0: reference 0x1, candidate 0x2", mismatch.getDetail());
+    assertTrue(mismatch.toString().contains("block at 0x00000000"));
+  }
+
+  @Test
+  public void testReportsMemoryDivergence() {
+    InstructionFuzzer fuzzer = new InstructionFuzzer(3);
+    CentralProcessor reference = fuzzer.load(new int[] {SB_T1_GP}, ExecutionMode.INTERPRETED);
+    CentralProcessor candidate = fuzzer.load(new int[] {SH_T1_GP}, ExecutionMode.TIERED);
+    reference.getGprFileArray().getRegisters()[9] = 0x1234;
+    candidate.getGprFileArray().getRegisters()[9] = 0x1234;
+
+    LockstepChecker.Mismatch mismatch = new LockstepChecker(reference, candidate).check(100);
+    assertNotNull(mismatch);
+    assertEquals("byte at 0x00008000: reference 0x34, candidate 0x12", mismatch.getDetail());
+  }
+
+  @Test
+  public void testDifferingStartIsReported() {
+    InstructionFuzzer fuzzer = new InstructionFuzzer(3);
+    CentralProcessor reference = fuzzer.load(new int[] {0}, ExecutionMode.INTERPRETED);
+    CentralProcessor candidate = fuzzer.load(new int[] {0}, ExecutionMode.TIERED);
+    candidate.setPc(4);
+
+    LockstepChecker.Mismatch mismatch = new LockstepChecker(reference, candidate).check(100);
+    assertEquals(0, mismatch.getPcs().length);
+    assertEquals("pc: reference 0x0, candidate 0x4", mismatch.getDetail());
+  }
+
+  @Test
+  public void testSharedFaultIsSteppedPast() {
+    InstructionFuzzer fuzzer = new InstructionFuzzer(3);
+    int[] program = {SUB_T0_T1_T2, ADDIU_T3_ZERO_7};
+    CentralProcessor reference = fuzzer.load(program, ExecutionMode.INTERPRETED);
+    CentralProcessor candidate = fuzzer.load(program, ExecutionMode.TIERED);
+    for (CentralProcessor cpu : new CentralProcessor[] {reference, candidate}) {
+      cpu.getGprFileArray().getRegisters()[9] = Integer.MIN_VALUE;
+      cpu.getGprFileArray().getRegisters()[10] = 1;
+    }
+
+    LockstepChecker checker = new LockstepChecker(reference, candidate);
+    assertNull(checker.check(100));
+    assertEquals(1, checker.getFaultCount());
+    assertEquals(3, checker.getInstructionCount());
+    assertTrue(checker.getStop() instanceof SyscallException);
+    assertEquals(7, candidate.getGprFileArray().getRegisters()[11]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsSharedMemory() {
+    CentralProcessor cpu = new InstructionFuzzer(3).load(new int[] {0}, ExecutionMode.TIERED);
+    new LockstepChecker(cpu, cpu);
+  }
+}
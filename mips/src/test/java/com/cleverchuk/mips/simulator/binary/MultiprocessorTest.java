@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertEquals;
+
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.mem.Memory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MultiprocessorTest {
+
+  private final RecursiveDescentParser parser =
+      new RecursiveDescentParser(new MipsLexer(), (opcode) -> true);
+
+  private Assembler assembler;
+
+  @Before
+  public void setup() {
+    assembler = new Assembler();
+    parser.addVisitor(assembler);
+  }
+
+  private Multiprocessor assemble(String[] instructions, int harts, ExecutionMode mode) {
+    parser.parse(String.join("\n", instructions));
+    Memory memory = assembler.getLayout();
+    Multiprocessor multiprocessor =
+        new Multiprocessor(
+            memory,
+            harts,
+            assembler.getTextOffset(),
+            assembler.getStackPointer(),
+            256,
+            (byte) 0x2,
+            mode);
+    for (int i = 0; i < harts; i++) {
+      multiprocessor.getHart(i).setTextBoundary(assembler.getTextBoundary());
+    }
+    return multiprocessor;
+  }
+
+  @Test
+  public void testAtomicIncrement() throws Exception {
+    String[] instructions = {
+      ".data",
+      "counter: .word 0",
+      ".text",
+      "la $t0, counter",
+      "addiu $t2, $zero, 20000",
+      "loop: ll $t1, 0($t0)",
+      "addiu $t1, $t1, 1",
+      "sc $t1, 0($t0)",
+      "beq $t1, $zero, loop",
+      "addiu $t2, $t2, -1",
+      "bne $t2, $zero, loop",
+      "sync"
+    };
+
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      setup();
+      Multiprocessor multiprocessor = assemble(instructions, 4, mode);
+      StopReason[] reasons = multiprocessor.run(Long.MAX_VALUE);
+      for (StopReason reason : reasons) {
+        assertEquals(StopReason.BOUNDARY, reason);
+      }
+
+      int counter = multiprocessor.getHart(0).getGprFileArray().getFile(8).readWord();
+      assertEquals(4 * 20000, assembler.getLayout().readWord(counter));
+    }
+  }
+
+  @Test
+  public void testAtomicPairIncrement() throws Exception {
+    String[] instructions = {
+      ".data",
+      "pair: .word 0, 0",
+      ".text",
+      "la $t0, pair",
+      "addiu $t2, $zero, 5000",
+      "loop: llwp $t1, $t3, 0($t0)",
+      "addiu $t1, $t1, 1",
+      "addiu $t3, $t3, 2",
+      "scwp $t1, $t3, 0($t0)",
+      "beq $t1, $zero, loop",
+      "addiu $t2, $t2, -1",
+      "bne $t2, $zero, loop",
+      "sync"
+    };
+
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      setup();
+      Multiprocessor multiprocessor = assemble(instructions, 4, mode);
+      StopReason[] reasons = multiprocessor.run(Long.MAX_VALUE);
+      for (StopReason reason : reasons) {
+        assertEquals(StopReason.BOUNDARY, reason);
+      }
+
+      int pair = multiprocessor.getHart(0).getGprFileArray().getFile(8).readWord();
+      assertEquals(2 * 4 * 5000, assembler.getLayout().readWord(pair));
+      assertEquals(4 * 5000, assembler.getLayout().readWord(pair + 4));
+    }
+  }
+
+  @Test
+  public void testStoreBreaksReservation() throws Exception {
+    String[] instructions = {
+      ".data",
+      "value: .word 0",
+      ".text",
+      "la $t0, value",
+      "ll $t1, 0($t0)",
+      "addiu $t1, $t1, 1",
+      "sc $t1, 0($t0)",
+      "sw $t2, 0($t0)"
+    };
+    Multiprocessor multiprocessor = assemble(instructions, 2, ExecutionMode.INTERPRETED);
+    CentralProcessor first = multiprocessor.getHart(0);
+    CentralProcessor second = multiprocessor.getHart(1);
+    int textOffset = assembler.getTextOffset();
+
+    first.run(3);
+    second.run(2);
+    second.getGprFileArray().getFile(10).writeWord(7);
+    second.setPc(textOffset + 20);
+    second.run(1);
+
+    first.run(2);
+    assertEquals(0, first.getGprFileArray().getFile(9).readWord());
+    int value = first.getGprFileArray().getFile(8).readWord();
+    assertEquals(7, assembler.getLayout().readWord(value));
+
+    first.setPc(textOffset + 8);
+    first.run(3);
+    assertEquals(1, first.getGprFileArray().getFile(9).readWord());
+    assertEquals(8, assembler.getLayout().readWord(value));
+  }
+
+  @Test
+  public void testExceptionReturnClearsReservation() throws Exception {
+    for (String eret : new String[] {"eret", "eretnc"}) {
+      setup();
+      String[] instructions = {
+        ".data",
+        "value: .word 0",
+        ".text",
+        "la $t0, value",
+        "mtc0 $t3, $14",
+        "ll $t1, 0($t0)",
+        "addiu $t1, $t1, 1",
+        eret,
+        "sc $t1, 0($t0)"
+      };
+      Multiprocessor multiprocessor = assemble(instructions, 2, ExecutionMode.INTERPRETED);
+      CentralProcessor hart = multiprocessor.getHart(0);
+      hart.getGprFileArray().getFile(11).writeWord(assembler.getTextOffset() + 24); // the sc
+      assertEquals(StopReason.BOUNDARY, hart.run(100));
+
+      int stored = eret.equals("eret") ? 0 : 1;
+      assertEquals(eret, stored, hart.getGprFileArray().getFile(9).readWord());
+      int value = hart.getGprFileArray().getFile(8).readWord();
+      assertEquals(eret, stored, assembler.getLayout().readWord(value));
+    }
+  }
+
+  @Test
+  public void testHartId() throws Exception {
+    String[] instructions = {".text", "rdhwr $t0, $0"};
+    Multiprocessor multiprocessor = assemble(instructions, 3, ExecutionMode.INTERPRETED);
+    multiprocessor.run(Long.MAX_VALUE);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, multiprocessor.getHart(i).getGprFileArray().getFile(8).readWord());
+      assertEquals(
+          assembler.getStackPointer() - i * 256,
+          multiprocessor.getHart(i).getGprFileArray().getFile(29).readWord());
+    }
+  }
+}
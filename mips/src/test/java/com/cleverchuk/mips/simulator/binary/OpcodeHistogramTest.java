@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertEquals;
+
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import org.junit.Test;
+
+public class OpcodeHistogramTest {
+  private static final String[] PROGRAM = {
+    ".data",
+    "value: .word 3",
+    ".text",
+    "la $t1, value",
+    "lw $t0, 0($t1)",
+    "loop: addiu $t0, $t0, -1",
+    "sw $t0, 0($t1)",
+    "bne $t0, $zero, loop",
+    "mtc1 $t0, $f0",
+    "add.s $f2, $f0, $f0"
+  };
+
+  private OpcodeHistogram run(ExecutionMode mode) {
+    Assembler assembler = new Assembler();
+    RecursiveDescentParser parser = new RecursiveDescentParser(new MipsLexer(), (opcode) -> true);
+    parser.addVisitor(assembler);
+    parser.parse(String.join("\n", PROGRAM));
+
+    CentralProcessor cpu =
+        new CentralProcessor(
+            assembler.getLayout(),
+            assembler.getTextOffset(),
+            assembler.getStackPointer(),
+            (byte) 0x2,
+            mode);
+    cpu.setTextBoundary(assembler.getTextBoundary());
+    OpcodeHistogram histogram = new OpcodeHistogram();
+    cpu.setObserver(histogram);
+    assertEquals(StopReason.BOUNDARY, cpu.run(1000));
+    assertEquals(cpu.getInstructionCount(), histogram.getTotal());
+    return histogram;
+  }
+
+  @Test
+  public void testCounts() {
+    OpcodeHistogram histogram = run(ExecutionMode.TIERED);
+    assertEquals(3, histogram.getCount(Opcode.ADDIU));
+    assertEquals(3, histogram.getCount(Opcode.BNE));
+    assertEquals(3, histogram.getCount(Opcode.SW));
+    assertEquals(1, histogram.getCount(Opcode.LW));
+    assertEquals(0, histogram.getCount(Opcode.MUL));
+
+    assertEquals(3 + 2, histogram.getCount(OpcodeHistogram.InstructionClass.ALU)); // addiu, la
+    assertEquals(4, histogram.getCount(OpcodeHistogram.InstructionClass.LOAD_STORE));
+    assertEquals(3, histogram.getCount(OpcodeHistogram.InstructionClass.BRANCH));
+    assertEquals(2, histogram.getCount(OpcodeHistogram.InstructionClass.FPU));
+    assertEquals(0, histogram.getCount(OpcodeHistogram.InstructionClass.SYSTEM));
+  }
+
+  @Test
+  public void testSameInEveryMode() {
+    String expected = run(ExecutionMode.INTERPRETED).toCsv();
+    assertEquals(expected, run(ExecutionMode.TRANSLATED).toCsv());
+    assertEquals(expected, run(ExecutionMode.TIERED).toCsv());
+  }
+
+  @Test
+  public void testExport() {
+    OpcodeHistogram histogram = run(ExecutionMode.INTERPRETED);
+    String csv = histogram.toCsv();
+    assertEquals("opcode,class,count", csv.split("\n")[0]);
+    assertEquals("addiu,ALU,3", csv.split("\n")[1]);
+
+    String json = histogram.toJson();
+    assertEquals(0, json.indexOf("{\"total\":14,\"classes\":{\"ALU\":5,\"LOAD_STORE\":4"));
+    assertEquals(true, json.contains("\"add.s\":1"));
+    assertEquals(true, json.endsWith("}}"));
+
+    histogram.reset();
+    assertEquals(0, histogram.getTotal());
+    assertEquals("opcode,class,count\n", histogram.toCsv());
+  }
+
+  @Test
+  public void testClassification() {
+    assertEquals(OpcodeHistogram.InstructionClass.BRANCH, OpcodeHistogram.classOf(Opcode.JR));
+    assertEquals(OpcodeHistogram.InstructionClass.BRANCH, OpcodeHistogram.classOf(Opcode.BEQC));
+    assertEquals(OpcodeHistogram.InstructionClass.LOAD_STORE, OpcodeHistogram.classOf(Opcode.LDC1));
+    assertEquals(OpcodeHistogram.InstructionClass.FPU, OpcodeHistogram.classOf(Opcode.CVT_D_W));
+    assertEquals(OpcodeHistogram.InstructionClass.SYSTEM, OpcodeHistogram.classOf(Opcode.SYSCALL));
+    assertEquals(OpcodeHistogram.InstructionClass.SYSTEM, OpcodeHistogram.classOf(Opcode.TEQ));
+    assertEquals(OpcodeHistogram.InstructionClass.ALU, OpcodeHistogram.classOf(Opcode.MUL));
+  }
+}
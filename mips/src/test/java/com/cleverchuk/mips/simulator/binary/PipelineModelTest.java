@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertEquals;
+
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PipelineModelTest {
+
+  private final RecursiveDescentParser parser =
+      new RecursiveDescentParser(new MipsLexer(), (opcode) -> true);
+
+  private Assembler assembler;
+
+  @Before
+  public void setup() {
+    assembler = new Assembler();
+    parser.addVisitor(assembler);
+  }
+
+  private PipelineModel simulate(PipelineModel model, ExecutionMode mode, String... lines) {
+    parser.parse(String.join("\n", lines));
+    CentralProcessor cpu =
+        new CentralProcessor(
+            assembler.getLayout(),
+            assembler.getTextOffset(),
+            assembler.getStackPointer(),
+            (byte) 0x2,
+            mode);
+    cpu.setTextBoundary(assembler.getTextBoundary());
+    cpu.setObserver(model);
+    assertEquals(StopReason.BOUNDARY, cpu.run(1000));
+    assertEquals(cpu.getInstructionCount(), model.getInstructions());
+    return model;
+  }
+
+  @Test
+  public void testIndependentInstructionsIssueEveryCycle() {
+    PipelineModel model =
+        simulate(
+            new PipelineModel(),
+            ExecutionMode.INTERPRETED,
+            ".text",
+            "addiu $t0, $zero, 1",
+            "addiu $t1, $zero, 2",
+            "addiu $t2, $zero, 3",
+            "addiu $t3, $zero, 4");
+    assertEquals(4, model.getInstructions());
+    assertEquals(8, model.getCycles()); // four issues plus pipeline fill and drain
+    for (PipelineModel.Stall stall : PipelineModel.Stall.values()) {
+      assertEquals(0, model.getStalls(stall));
+    }
+  }
+
+  @Test
+  public void testLoadUse() {
+    PipelineModel model =
+        simulate(
+            new PipelineModel(),
+            ExecutionMode.INTERPRETED,
+            ".data",
+            "value: .word 7",
+            ".text",
+            "la $t2, value",
+            "lw $t0, 0($t2)",
+            "addu $t1, $t0, $t0");
+    assertEquals(1, model.getStalls(PipelineModel.Stall.LOAD_USE));
+    assertEquals(0, model.getStalls(PipelineModel.Stall.DATA)); // la's result is forwarded
+    assertEquals(4 + 1 + 4, model.getCycles());
+  }
+
+  @Test
+  public void testForwarding() {
+    String[] program = {".text", "addiu $t0, $zero, 1", "addu $t1, $t0, $t0"};
+    assertEquals(
+        0,
+        simulate(new PipelineModel(), ExecutionMode.INTERPRETED, program)
+            .getStalls(PipelineModel.Stall.DATA));
+
+    setup();
+    assertEquals(
+        2,
+        simulate(new PipelineModel(false, 1, 4, 12), ExecutionMode.INTERPRETED, program)
+            .getStalls(PipelineModel.Stall.DATA));
+  }
+
+  @Test
+  public void testMultiplyLatency() {
+    PipelineModel model =
+        simulate(
+            new PipelineModel(),
+            ExecutionMode.INTERPRETED,
+            ".text",
+            "addiu $t0, $zero, 3",
+            "mul $t1, $t0, $t0",
+            "addu $t2, $t1, $t1");
+    assertEquals(3, model.getStalls(PipelineModel.Stall.MULTI_CYCLE));
+  }
+
+  @Test
+  public void testBranchPenaltyAndLineProfiles() {
+    PipelineModel model =
+        simulate(
+            new PipelineModel(true, 2, 4, 12),
+            ExecutionMode.TIERED,
+            ".data",
+            "pad: .word 0, 0",
+            ".text",
+            "addiu $t0, $zero, 3",
+            "loop: addiu $t0, $t0, -1",
+            "bne $t0, $zero, loop",
+            "nop");
+    assertEquals(4, model.getStalls(PipelineModel.Stall.CONTROL)); // taken twice
+
+    Map<Integer, PipelineModel.LineProfile> lines =
+        model.getLineProfiles(ProgramImage.freeze(assembler));
+    assertEquals(1, lines.get(4).getExecutions());
+    assertEquals(3, lines.get(5).getExecutions());
+    assertEquals(4, lines.get(6).getStalls(PipelineModel.Stall.CONTROL));
+    assertEquals(3 + 4, lines.get(6).getCycles());
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+
+/**
+ * Compares a syscall-heavy loop reported through exceptions, as {@link CentralProcessor#execute()}
+ * does, with the same loop reported through {@link CentralProcessor#run(long)} stop reasons, and
+ * prints the best of a few rounds of each. It has no tests, so the unit run skips it; run its main
+ * method by hand. The status channel is about 30 times faster.
+ */
+public class SyscallBenchmark {
+  private static final int SYSCALLS = 200_000;
+
+  private static final int ROUNDS = 3;
+
+  private final Assembler assembler = new Assembler();
+
+  private SyscallBenchmark() {
+    RecursiveDescentParser parser = new RecursiveDescentParser(new MipsLexer(), (opcode) -> true);
+    parser.addVisitor(assembler);
+    parser.parse(
+        String.join(
+            "\n",
+            ".text",
+            "addiu $v0, $zero, 1",
+            "loop: addiu $t0, $t0, 1",
+            "syscall",
+            "bne $t0, $t1, loop"));
+  }
+
+  private CentralProcessor newProcessor() {
+    CentralProcessor cpu =
+        new CentralProcessor(
+            assembler.getLayout(),
+            assembler.getTextOffset(),
+            assembler.getStackPointer(),
+            (byte) 0x2);
+    cpu.setTextBoundary(assembler.getTextBoundary());
+    cpu.getGprFileArray().getFile(9).writeWord(SYSCALLS);
+    return cpu;
+  }
+
+  private long withExceptions() throws Exception {
+    CentralProcessor cpu = newProcessor();
+    int syscalls = 0;
+    long start = System.nanoTime();
+    while (cpu.getPc() < assembler.getTextBoundary()) {
+      try {
+        cpu.execute();
+      } catch (SyscallException e) {
+        syscalls++;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+
+    check(syscalls == SYSCALLS);
+    return elapsed;
+  }
+
+  private long withStopReasons() {
+    CentralProcessor cpu = newProcessor();
+    int syscalls = 0;
+    long start = System.nanoTime();
+    StopReason reason;
+    while ((reason = cpu.run(Long.MAX_VALUE)) == StopReason.SYSCALL) {
+      syscalls++;
+    }
+    long elapsed = System.nanoTime() - start;
+
+    check(reason == StopReason.BOUNDARY && syscalls == SYSCALLS);
+    return elapsed;
+  }
+
+  private static void check(boolean ran) {
+    if (!ran) {
+      throw new IllegalStateException("the loop did not run to completion");
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    SyscallBenchmark benchmark = new SyscallBenchmark();
+    // warm up both paths before timing them, then keep the best round of each
+    benchmark.withExceptions();
+    benchmark.withStopReasons();
+
+    long exceptions = Long.MAX_VALUE;
+    long stopReasons = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      exceptions = Math.min(exceptions, benchmark.withExceptions());
+      stopReasons = Math.min(stopReasons, benchmark.withStopReasons());
+    }
+    System.out.printf(
+        "%d syscalls: exceptions %d ms, stop reasons %d ms%n",
+        SYSCALLS, exceptions / 1_000_000, stopReasons / 1_000_000);
+  }
+}
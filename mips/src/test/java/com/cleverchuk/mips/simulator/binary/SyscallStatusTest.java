@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import org.junit.Test;
+
+/**
+ * Syscalls and traps come back from {@link CentralProcessor#run(long)} as stop reasons; the
+ * processor records them in its status field and nothing is thrown. The timing comparison with the
+ * exception path lives in {@link SyscallBenchmark}.
+ */
+public class SyscallStatusTest {
+  private static final int SYSCALLS = 500; // enough for TIERED to compile the loop
+
+  private Assembler assembler;
+
+  private CentralProcessor load(ExecutionMode mode, String... instructions) {
+    assembler = new Assembler();
+    RecursiveDescentParser parser = new RecursiveDescentParser(new MipsLexer(), (opcode) -> true);
+    parser.addVisitor(assembler);
+    parser.parse(String.join("\n", instructions));
+
+    CentralProcessor cpu =
+        new CentralProcessor(
+            assembler.getLayout(),
+            assembler.getTextOffset(),
+            assembler.getStackPointer(),
+            (byte) 0x2,
+            mode);
+    cpu.setTextBoundary(assembler.getTextBoundary());
+    return cpu;
+  }
+
+  @Test
+  public void testEverySyscallStopsOnce() {
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu =
+          load(
+              mode,
+              ".text",
+              "addiu $v0, $zero, 1",
+              "loop: addiu $t0, $t0, 1",
+              "syscall",
+              "bne $t0, $t1, loop");
+      cpu.getGprFileArray().getFile(9).writeWord(SYSCALLS);
+
+      int syscalls = 0;
+      StopReason reason;
+      while ((reason = cpu.run(Long.MAX_VALUE)) == StopReason.SYSCALL) {
+        assertEquals(mode.name(), 1, cpu.getSyscallCode());
+        assertEquals(mode.name(), ++syscalls, cpu.getGprFileArray().getFile(8).readWord());
+      }
+      assertEquals(mode.name(), StopReason.BOUNDARY, reason);
+      assertEquals(mode.name(), SYSCALLS, syscalls);
+      assertEquals(mode.name(), 1 + 3L * SYSCALLS, cpu.getInstructionCount());
+    }
+  }
+
+  @Test
+  public void testSyscallInDelaySlotStopsTheBranch() {
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu =
+          load(
+              mode,
+              ".text",
+              "addiu $v0, $zero, 1",
+              "jal skip",
+              "syscall",
+              "addiu $t0, $zero, 1",
+              "skip: addiu $t1, $zero, 2");
+
+      assertEquals(mode.name(), StopReason.SYSCALL, cpu.run(Long.MAX_VALUE));
+      assertEquals(mode.name(), assembler.getTextOffset() + 12, cpu.getPc());
+      assertEquals(mode.name(), StopReason.BOUNDARY, cpu.run(Long.MAX_VALUE));
+      assertEquals(mode.name(), 1, cpu.getGprFileArray().getFile(8).readWord());
+      assertEquals(mode.name(), 2, cpu.getGprFileArray().getFile(9).readWord());
+    }
+  }
+
+  @Test
+  public void testTrapsStopWithTheirException() {
+    Object[][] traps = {
+      {"teq $t1, $t1", TrapException.class},
+      {"tne $t1, $zero", TrapException.class},
+      {"break", BreakException.class},
+      {"sdbbp", DebugBreakpointException.class},
+      {"sigrie 1", ReservedInstructionException.class},
+    };
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      for (Object[] trap : traps) {
+        CentralProcessor cpu =
+            load(mode, ".text", "addiu $t1, $zero, 5", (String) trap[0], "addiu $t2, $zero, 42");
+
+        String name = mode + " " + trap[0];
+        assertEquals(name, StopReason.TRAP, cpu.run(Long.MAX_VALUE));
+        assertEquals(name, trap[1], cpu.getTrap().getClass());
+        assertEquals(name, assembler.getTextOffset() + 8, cpu.getPc());
+        assertEquals(name, 0, cpu.getGprFileArray().getFile(10).readWord());
+      }
+    }
+  }
+
+  @Test
+  public void testUntakenTrapRunsOn() {
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu =
+          load(mode, ".text", "addiu $t1, $zero, 5", "teq $t1, $zero", "addiu $t2, $zero, 42");
+
+      assertEquals(mode.name(), StopReason.BOUNDARY, cpu.run(Long.MAX_VALUE));
+      assertEquals(mode.name(), 42, cpu.getGprFileArray().getFile(10).readWord());
+      assertNull(mode.name(), cpu.getTrap());
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.cleverchuk.mips.compiler.MipsCompiler;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import org.junit.Test;
+
+public class TraceDiffTest {
+  private static final String REFERENCE =
+      String.join(
+          "\n",
+          ".data",
+          "buf: .space 32",
+          ".text",
+          "addiu $t1, $zero, 0",
+          "addiu $t2, $zero, 8",
+          "loop: addiu $t0, $t0, 2",
+          "sw $t0, 0($t1)",
+          "addiu $t1, $t1, 4",
+          "addiu $t2, $t2, -1",
+          "bne $t2, $zero, loop");
+
+  private static ProgramImage compile(String source) {
+    MipsCompiler compiler =
+        new MipsCompiler(
+            new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+    compiler.compile(source);
+    return compiler.freeze();
+  }
+
+  /** Traces the program running slice instructions per {@link CentralProcessor#run(long)} */
+  private static TraceReader trace(ProgramImage image, ExecutionMode mode, long slice, long budget)
+      throws IOException {
+    CentralProcessor cpu =
+        new CentralProcessor(
+            image.fork(), image.getTextOffset(), image.getStackPointer(), (byte) 0x2, mode);
+    cpu.setTextBoundary(image.getTextBoundary());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TraceRecorder recorder = new TraceRecorder(cpu, Channels.newChannel(out));
+    while (cpu.getInstructionCount() < budget
+        && cpu.run(Math.min(slice, budget - cpu.getInstructionCount()))
+            == StopReason.BUDGET_EXHAUSTED) {
+      // keep slicing
+    }
+    recorder.close();
+    return new TraceReader(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+  }
+
+  private static TraceReader trace(String source) throws IOException {
+    return trace(compile(source), ExecutionMode.INTERPRETED, Long.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testSameExecutionMatches() throws Exception {
+    ProgramImage image = compile(REFERENCE);
+    TraceReader reference = trace(image, ExecutionMode.INTERPRETED, Long.MAX_VALUE, 1000);
+    TraceReader sliced = trace(image, ExecutionMode.TIERED, 3, 1000);
+    assertNull(new TraceDiff().compare(reference, sliced));
+  }
+
+  @Test
+  public void testRegisterDivergence() throws Exception {
+    ProgramImage image = compile(REFERENCE);
+    TraceDiff.Divergence divergence =
+        new TraceDiff(4)
+            .compare(trace(REFERENCE), trace(REFERENCE.replace("$t0, $t0, 2", "$t0, $t0, 3")));
+
+    assertEquals(TraceDiff.Divergence.Kind.REGISTER, divergence.getKind());
+    assertEquals(2, divergence.getIndex());
+    assertEquals("$t0: expected 2 (0x2), was 3 (0x3)", divergence.getDetail());
+    assertEquals(3, divergence.getContext().length);
+    assertEquals(image.getSymbolTable().get("loop").intValue(), divergence.getExpectedPc());
+
+    String report = divergence.report(image);
+    assertTrue(report, report.startsWith("Traces diverge at instruction 2 (register)"));
+    assertTrue(report, report.contains("> line " + (image.getSourceOffset() + 3) + " (loop)"));
+  }
+
+  @Test
+  public void testMemoryDivergence() throws Exception {
+    TraceDiff.Divergence divergence =
+        new TraceDiff()
+            .compare(
+                trace(REFERENCE), trace(REFERENCE.replace("sw $t0, 0($t1)", "sw $t0, 4($t1)")));
+
+    assertEquals(TraceDiff.Divergence.Kind.MEMORY, divergence.getKind());
+    assertEquals(3, divergence.getIndex());
+    assertEquals("expected word 2 to 0x00000000, was word 2 to 0x00000004", divergence.getDetail());
+  }
+
+  @Test
+  public void testPcDivergenceKeepsOnlyTheLastContext() throws Exception {
+    ProgramImage image = compile(REFERENCE);
+    TraceDiff.Divergence divergence =
+        new TraceDiff(4)
+            .compare(
+                trace(REFERENCE),
+                trace(
+                    REFERENCE
+                        .replace("loop: addiu $t0", "addiu $t0")
+                        .replace("sw $t0", "loop: sw $t0")));
+
+    // the first iteration agrees, then the student's branch skips the increment
+    assertEquals(TraceDiff.Divergence.Kind.PC, divergence.getKind());
+    assertEquals(2 + 5, divergence.getIndex());
+    int loop = image.getSymbolTable().get("loop");
+    assertEquals(loop, divergence.getExpectedPc());
+    assertEquals(loop + 4, divergence.getActualPc());
+    int[] context = divergence.getContext();
+    assertEquals(4, context.length);
+    assertEquals(loop, context[3]);
+    assertEquals(loop + 16, context[2]); // the branch
+
+    String report = divergence.report(image);
+    assertTrue(report, report.contains("actual went to line " + (image.getSourceOffset() + 4)));
+  }
+
+  @Test
+  public void testLengthDivergence() throws Exception {
+    ProgramImage image = compile(REFERENCE);
+    TraceDiff.Divergence divergence =
+        new TraceDiff()
+            .compare(
+                trace(image, ExecutionMode.INTERPRETED, Long.MAX_VALUE, 1000),
+                trace(image, ExecutionMode.INTERPRETED, Long.MAX_VALUE, 20));
+
+    assertEquals(TraceDiff.Divergence.Kind.LENGTH, divergence.getKind());
+    assertEquals(20, divergence.getIndex());
+    assertEquals("actual trace ends early", divergence.getDetail());
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.cleverchuk.mips.compiler.MipsCompiler;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.mem.BigEndianMainMemory;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TraceRecorderTest {
+  private static final String SQUARES =
+      String.join(
+          "\n",
+          ".data",
+          "values: .word 3, 5, -7, 11",
+          "out: .space 16",
+          "halves: .space 16",
+          ".text",
+          "addiu $t0, $zero, 0", // values; la would shift the loop label
+          "addiu $t1, $zero, 16", // out
+          "addiu $t2, $zero, 4",
+          "loop: lw $t3, 0($t0)",
+          "mult $t3, $t3",
+          "mflo $t4",
+          "sw $t4, 0($t1)",
+          "sh $t3, 16($t1)",
+          "sb $t3, 19($t1)",
+          "mtc1 $t3, $f2",
+          "cvt.s.w $f4, $f2",
+          "addiu $t0, $t0, 4",
+          "addiu $t1, $t1, 4",
+          "addiu $t2, $t2, -1",
+          "bne $t2, $zero, loop");
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private ProgramImage image;
+
+  @Before
+  public void setup() {
+    MipsCompiler compiler =
+        new MipsCompiler(
+            new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+    compiler.compile(SQUARES);
+    image = compiler.freeze();
+  }
+
+  private CentralProcessor processor() {
+    CentralProcessor cpu =
+        new CentralProcessor(
+            image.fork(),
+            image.getTextOffset(),
+            image.getStackPointer(),
+            (byte) 0x2,
+            ExecutionMode.TIERED);
+    cpu.setTextBoundary(image.getTextBoundary());
+    return cpu;
+  }
+
+  private byte[] record() throws IOException {
+    CentralProcessor cpu = processor();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TraceRecorder recorder = new TraceRecorder(cpu, Channels.newChannel(out));
+    assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+    assertEquals(cpu.getInstructionCount(), recorder.getRecordCount());
+    recorder.close();
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testPlaybackMatchesExecution() throws Exception {
+    byte[] trace = record();
+    CentralProcessor cpu = processor();
+    PagedMemory memory = cpu.pagedMemory();
+    PagedMemory replayed = image.fork();
+
+    try (TraceReader reader =
+        new TraceReader(Channels.newChannel(new ByteArrayInputStream(trace)))) {
+      assertEquals(cpu.getPc(), reader.getPc());
+      while (reader.next()) {
+        assertEquals(cpu.getPc(), reader.getPc());
+        cpu.execute();
+        assertArrayEquals(cpu.getGprFileArray().getRegisters(), gprs(reader));
+        for (int reg = 0; reg < 32; reg++) {
+          assertEquals(cpu.getFpuRegisterFileArray().getRegisters()[reg], reader.getFpr(reg));
+        }
+        assertEquals(cpu.getLo(), reader.getLo());
+        assertEquals(cpu.getHi(), reader.getHi());
+
+        for (int i = 0; i < reader.getWriteCount(); i++) {
+          int address = reader.getWriteTarget(i);
+          int value = (int) reader.getWriteValue(i);
+          switch (reader.getWriteKind(i)) {
+            case BYTE:
+              replayed.store((byte) value, address);
+              break;
+            case HALF:
+              replayed.storeHalf((short) value, address);
+              break;
+            case WORD:
+              replayed.storeWord(value, address);
+              break;
+            default:
+              break;
+          }
+        }
+      }
+      assertEquals(image.getTextBoundary(), cpu.getPc());
+    }
+
+    int out = image.getSymbolTable().get("out");
+    assertEquals(121, memory.readWord(out + 12));
+    for (int address = out; address < out + 32; address += 4) {
+      assertEquals(memory.readWord(address), replayed.readWord(address));
+    }
+  }
+
+  private static int[] gprs(TraceReader reader) {
+    int[] gpr = new int[32];
+    for (int reg = 0; reg < 32; reg++) {
+      gpr[reg] = reader.getGpr(reg);
+    }
+    return gpr;
+  }
+
+  @Test
+  public void testStraightLineCodeIsCompact() throws Exception {
+    byte[] trace = record();
+    long instructions = 3 + 4 * 12;
+    assertTrue(trace.length + " bytes", trace.length < 200 + 4 * instructions);
+  }
+
+  @Test
+  public void testFileRoundTrip() throws Exception {
+    File file = folder.newFile("squares.trace");
+    CentralProcessor cpu = processor();
+    try (TraceRecorder recorder = new TraceRecorder(cpu, file)) {
+      assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+      assertEquals(cpu.getInstructionCount(), recorder.getRecordCount());
+    }
+
+    long count = 0;
+    try (TraceReader reader = new TraceReader(file)) {
+      while (reader.next()) {
+        count++;
+      }
+    }
+    assertEquals(cpu.getInstructionCount(), count);
+  }
+
+  @Test
+  public void testTruncatedTrace() throws Exception {
+    byte[] trace = record();
+    // the final bne is a lone head byte, so cutting two lands inside the addiu before it
+    TraceReader reader =
+        new TraceReader(
+            Channels.newChannel(new ByteArrayInputStream(Arrays.copyOf(trace, trace.length - 2))));
+    try {
+      while (reader.next()) {
+        // play back up to the cut
+      }
+      fail("Expected EOFException");
+    } catch (EOFException expected) {
+      assertTrue(reader.getIndex() > 0);
+    }
+  }
+
+  @Test
+  public void testHostChangesAreAttributedToTheStoppingInstruction() throws Exception {
+    MipsCompiler compiler =
+        new MipsCompiler(
+            new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+    compiler.compile(
+        String.join("\n", ".text", "addiu $v0, $zero, 5", "syscall", "addiu $t0, $v0, 1", "nop"));
+    ProgramImage program = compiler.freeze();
+    CentralProcessor cpu =
+        new CentralProcessor(
+            program.fork(),
+            program.getTextOffset(),
+            program.getStackPointer(),
+            (byte) 0x2,
+            ExecutionMode.INTERPRETED);
+    cpu.setTextBoundary(program.getTextBoundary());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TraceRecorder recorder = new TraceRecorder(cpu, Channels.newChannel(out));
+    assertEquals(StopReason.SYSCALL, cpu.run(100));
+    cpu.getGprFileArray().getRegisters()[2] = 77; // the service's result
+    assertEquals(StopReason.BOUNDARY, cpu.run(100));
+    recorder.close();
+
+    TraceReader reader =
+        new TraceReader(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+    assertTrue(reader.next());
+    assertTrue(reader.next()); // syscall
+    assertEquals(1, reader.getWriteCount());
+    assertEquals(TraceReader.Kind.GPR, reader.getWriteKind(0));
+    assertEquals(2, reader.getWriteTarget(0));
+    assertEquals(77, reader.getWriteValue(0));
+    assertTrue(reader.next());
+    assertEquals(78, reader.getGpr(8));
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotATrace() throws Exception {
+    new TraceReader(Channels.newChannel(new ByteArrayInputStream(new byte[] {1, 2, 3, 4})));
+  }
+
+  @Test
+  public void testDetachesOnClose() throws Exception {
+    CentralProcessor cpu = processor();
+    TraceRecorder recorder =
+        new TraceRecorder(cpu, Channels.newChannel(new ByteArrayOutputStream()));
+    cpu.run(5);
+    recorder.close();
+    assertEquals(5, recorder.getRecordCount());
+    assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+    assertEquals(5, recorder.getRecordCount());
+    assertFalse(cpu.getInstructionCount() == 5);
+  }
+
+  @Test
+  public void testFileNotOpenedWithoutPagedMemory() throws Exception {
+    CentralProcessor cpu = new CentralProcessor(new BigEndianMainMemory(1024), 0, 1024, (byte) 0x2);
+    File file = new File(folder.getRoot(), "trace.bin");
+    try {
+      new TraceRecorder(cpu, file);
+      fail();
+    } catch (IllegalStateException expected) {
+      assertFalse(file.exists());
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.cleverchuk.mips.compiler.MipsCompiler;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UndoLogTest {
+  private static final String LOOP =
+      String.join(
+          "\n",
+          ".data",
+          "buf: .space 64",
+          ".text",
+          "la $t1, buf",
+          "addiu $t0, $zero, 16",
+          "loop: sw $t0, 0($t1)",
+          "sb $t1, 1($t1)",
+          "mthi $t1",
+          "mtlo $t0",
+          "mtc1 $t0, $f0",
+          "cvt.s.w $f2, $f0",
+          "add.s $f4, $f4, $f2",
+          "addiu $t1, $t1, 4",
+          "addiu $t0, $t0, -1",
+          "bne $t0, $zero, loop",
+          "addiu $v0, $zero, 1",
+          "syscall",
+          "addiu $v0, $zero, 10",
+          "syscall");
+
+  private static final String CALL =
+      String.join(
+          "\n",
+          ".data",
+          "buf: .space 64",
+          ".text",
+          "la $t1, buf",
+          "call: jal f",
+          "sw $t1, 0($t1)",
+          "addiu $v0, $zero, 10",
+          "syscall",
+          "f: addiu $t0, $zero, 7",
+          "jr $ra",
+          "addiu $t2, $zero, 3");
+
+  private ProgramImage image;
+
+  private CentralProcessor cpu;
+
+  private PagedMemory memory;
+
+  @Before
+  public void setup() {
+    load(LOOP);
+  }
+
+  private void load(String program) {
+    MipsCompiler compiler =
+        new MipsCompiler(
+            new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+    compiler.compile(program);
+    image = compiler.freeze();
+    memory = image.fork();
+    cpu =
+        new CentralProcessor(
+            memory,
+            image.getTextOffset(),
+            image.getStackPointer(),
+            (byte) 0x2,
+            ExecutionMode.TIERED);
+    cpu.setTextBoundary(image.getTextBoundary());
+  }
+
+  private final class State {
+    final int[] gpr = cpu.getGprFileArray().getRegisters().clone();
+
+    final long[] fpr = cpu.getFpuRegisterFileArray().getRegisters().clone();
+
+    final int[] misc = {cpu.getPc(), cpu.getHi(), cpu.getLo(), (int) cpu.getInstructionCount()};
+
+    final int[] words = new int[16];
+
+    State() {
+      int buf = image.getSymbolTable().get("buf");
+      for (int i = 0; i < words.length; i++) {
+        words[i] = memory.readWord(buf + 4 * i);
+      }
+    }
+
+    void assertCurrent() {
+      State current = new State();
+      assertArrayEquals(misc, current.misc);
+      assertArrayEquals(gpr, current.gpr);
+      assertArrayEquals(fpr, current.fpr);
+      assertArrayEquals(words, current.words);
+    }
+  }
+
+  /** Single steps to the exit syscall, returning the state before every instruction */
+  private List<State> record() {
+    List<State> states = new ArrayList<>();
+    StopReason reason;
+    do {
+      states.add(new State());
+      reason = cpu.run(1);
+    } while (reason == StopReason.BUDGET_EXHAUSTED || reason == StopReason.SYSCALL);
+    assertEquals(StopReason.HALT, reason);
+    states.add(new State());
+    return states;
+  }
+
+  @Test
+  public void testStepBackOneAtATime() {
+    UndoLog log = new UndoLog(cpu);
+    List<State> states = record();
+    assertEquals(states.size() - 1, log.getDepth());
+
+    for (int i = states.size() - 2; i >= 0; i--) {
+      assertEquals(1, log.stepBack(1));
+      states.get(i).assertCurrent();
+    }
+    assertEquals(0, log.stepBack(1));
+    assertEquals(0, log.getDepth());
+  }
+
+  @Test
+  public void testLongJumpsUseCheckpoints() {
+    UndoLog log = new UndoLog(cpu, 4096, 7);
+    List<State> states = record();
+    int position = states.size() - 1;
+    for (int jump : new int[] {3, 20, 1, 9, 14}) {
+      assertEquals(jump, log.stepBack(jump));
+      position -= jump;
+      states.get(position).assertCurrent();
+    }
+
+    // running forward again after stepping back records afresh
+    assertEquals(StopReason.SYSCALL, cpu.run(1000));
+    assertEquals(StopReason.HALT, cpu.run(1000));
+    states.get(states.size() - 1).assertCurrent();
+    assertEquals(states.size() - 1, log.stepBack(1000));
+    states.get(0).assertCurrent();
+  }
+
+  @Test
+  public void testCheckpointsLeaveSnapshotsAlone() {
+    State start = new State();
+    ProcessorSnapshot snapshot = cpu.snapshot();
+    UndoLog log = new UndoLog(cpu, 4096, 7);
+    record();
+    assertEquals(1, memory.getDirtyPageCount()); // measured from the snapshot, not a checkpoint
+
+    log.stepBack(10);
+    assertEquals(1, memory.getDirtyPageCount());
+    log.detach();
+    cpu.restore(snapshot);
+    start.assertCurrent();
+    assertEquals(0, memory.getDirtyPageCount());
+  }
+
+  @Test
+  public void testRingBoundsHistory() {
+    UndoLog log = new UndoLog(cpu, 256, 1000);
+    List<State> states = record();
+    long depth = log.getDepth();
+    assertTrue(depth > 0 && depth < states.size() - 1);
+    assertEquals(depth, log.stepBack(Long.MAX_VALUE));
+    states.get((int) (states.size() - 1 - depth)).assertCurrent();
+  }
+
+  @Test
+  public void testReverseContinue() {
+    UndoLog log = new UndoLog(cpu);
+    record();
+    int loop = image.getSymbolTable().get("loop");
+    cpu.setBreakpoint(loop);
+
+    assertTrue(log.reverseContinue());
+    assertEquals(loop, cpu.getPc());
+    assertEquals(1, cpu.getGprFileArray().getRegisters()[8]); // $t0 on the last iteration
+    assertTrue(log.reverseContinue());
+    assertEquals(2, cpu.getGprFileArray().getRegisters()[8]);
+
+    cpu.clearBreakpoints();
+    assertFalse(log.reverseContinue());
+    assertEquals(image.getTextOffset(), cpu.getPc());
+    assertEquals(0, cpu.getInstructionCount());
+  }
+
+  @Test
+  public void testHostChangesBelongToTheSyscall() {
+    UndoLog log = new UndoLog(cpu);
+    StopReason reason = cpu.run(1000);
+    assertEquals(StopReason.SYSCALL, reason);
+    cpu.getGprFileArray().getRegisters()[2] = 42; // e.g. a read int service
+    assertEquals(StopReason.HALT, cpu.run(1000));
+
+    log.stepBack(3); // exit, "addiu $v0, $zero, 10" and the print syscall
+    assertEquals(1, cpu.getGprFileArray().getRegisters()[2]);
+
+    long depth = log.getDepth();
+    log.detach();
+    assertEquals(StopReason.SYSCALL, cpu.run(1000));
+    assertEquals(depth, log.getDepth());
+  }
+
+  @Test
+  public void testDelaySlotBelongsToTheBranch() {
+    load(CALL);
+    UndoLog log = new UndoLog(cpu);
+    List<State> states = record();
+    assertEquals(cpu.getInstructionCount(), log.getDepth());
+    for (int i = states.size() - 2; i >= 0; i--) {
+      assertEquals(1, log.stepBack(1));
+      states.get(i).assertCurrent();
+    }
+
+    int call = image.getSymbolTable().get("call");
+    int f = image.getSymbolTable().get("f");
+    int buf = image.getSymbolTable().get("buf");
+    while (cpu.getPc() != call) {
+      assertEquals(StopReason.BUDGET_EXHAUSTED, cpu.run(1));
+    }
+    assertEquals(StopReason.BUDGET_EXHAUSTED, cpu.run(1));
+    assertEquals(f, cpu.getPc());
+    assertEquals(buf, memory.readWord(buf)); // the delay slot ran with the jump
+
+    assertEquals(1, log.stepBack(1));
+    assertEquals(call, cpu.getPc());
+    assertEquals(0, memory.readWord(buf));
+    assertEquals(StopReason.BUDGET_EXHAUSTED, cpu.run(1));
+    assertEquals(f, cpu.getPc());
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.cleverchuk.mips.compiler.MipsCompiler;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.mem.PagedMemory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WatchpointsTest {
+  private static final String COUNT =
+      String.join(
+          "\n",
+          ".data",
+          "counter: .word 0",
+          "other: .word 0",
+          ".text",
+          "la $t1, counter",
+          "addiu $t0, $zero, 100",
+          "loop: lw $t2, 0($t1)",
+          "addiu $t2, $t2, 1",
+          "store: sw $t2, 0($t1)",
+          "sw $zero, 4($t1)",
+          "addiu $t0, $t0, -1",
+          "bne $t0, $zero, loop");
+
+  private static final String CALL =
+      String.join(
+          "\n",
+          ".data",
+          "counter: .word 0",
+          "other: .word 0",
+          ".text",
+          "la $t1, counter",
+          "jal f",
+          "sw $t1, 0($t1)",
+          "j done",
+          "f: addiu $t0, $zero, 7",
+          "jr $ra",
+          "done: addiu $t3, $zero, 9");
+
+  private ProgramImage image;
+
+  private int counter;
+
+  private int other;
+
+  private PagedMemory memory;
+
+  @Before
+  public void setup() {
+    load(COUNT);
+  }
+
+  private void load(String program) {
+    MipsCompiler compiler =
+        new MipsCompiler(
+            new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+    compiler.compile(program);
+    image = compiler.freeze();
+    counter = image.getSymbolTable().get("counter");
+    other = image.getSymbolTable().get("other");
+  }
+
+  private CentralProcessor processor(ExecutionMode mode) {
+    memory = image.fork();
+    CentralProcessor cpu =
+        new CentralProcessor(
+            memory, image.getTextOffset(), image.getStackPointer(), (byte) 0x2, mode);
+    cpu.setTextBoundary(image.getTextBoundary());
+    return cpu;
+  }
+
+  @Test
+  public void testWriteStopsAfterTheStore() {
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = processor(mode);
+      Watchpoints watchpoints = new Watchpoints(cpu);
+      Watchpoints.Watchpoint watchpoint = watchpoints.watch(counter, 4, Watchpoints.Kind.WRITE);
+
+      for (int expected = 1; expected <= 100; expected++) {
+        assertEquals(mode.name(), StopReason.WATCHPOINT, cpu.run(10_000));
+        assertEquals(image.getSymbolTable().get("store") + 4, cpu.getPc());
+        assertEquals(expected, memory.readWord(counter));
+        assertSame(watchpoint, watchpoints.getHit());
+      }
+      assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+      assertEquals(100, watchpoint.getHits());
+    }
+  }
+
+  @Test
+  public void testHitInDelaySlotKeepsTheJump() {
+    load(CALL);
+    int f = image.getSymbolTable().get("f");
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = processor(mode);
+      Watchpoints watchpoints = new Watchpoints(cpu);
+      watchpoints.watch(counter, 4, Watchpoints.Kind.WRITE);
+
+      assertEquals(mode.name(), StopReason.WATCHPOINT, cpu.run(10_000));
+      assertEquals(f, cpu.getPc());
+      assertEquals(counter, memory.readWord(counter));
+
+      assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+      assertEquals(7, cpu.getGprFileArray().getRegisters()[8]); // $t0, set by f
+      assertEquals(9, cpu.getGprFileArray().getRegisters()[11]); // $t3
+    }
+  }
+
+  @Test
+  public void testReadWithCondition() {
+    for (ExecutionMode mode : ExecutionMode.values()) {
+      CentralProcessor cpu = processor(mode);
+      Watchpoints watchpoints = new Watchpoints(cpu);
+      watchpoints.watch(counter, 4, Watchpoints.Kind.READ, (value) -> value == 79);
+
+      assertEquals(mode.name(), StopReason.WATCHPOINT, cpu.run(10_000));
+      assertEquals(image.getSymbolTable().get("loop") + 4, cpu.getPc());
+      assertEquals(79, cpu.getGprFileArray().getRegisters()[10]); // $t2
+      assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+    }
+  }
+
+  @Test
+  public void testChangeIgnoresSameValueStores() {
+    CentralProcessor cpu = processor(ExecutionMode.TIERED);
+    Watchpoints watchpoints = new Watchpoints(cpu);
+    Watchpoints.Watchpoint change = watchpoints.watch(other, 4, Watchpoints.Kind.CHANGE);
+    assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+    assertEquals(0, change.getHits());
+    assertNull(watchpoints.getHit());
+
+    cpu = processor(ExecutionMode.TIERED);
+    watchpoints = new Watchpoints(cpu);
+    change = watchpoints.watch(counter + 3, 1, Watchpoints.Kind.CHANGE, (value) -> value > 98);
+    assertEquals(StopReason.WATCHPOINT, cpu.run(10_000));
+    assertEquals(99, memory.readWord(counter));
+    assertEquals(99, change.getValue());
+  }
+
+  @Test
+  public void testUnwatchAndHostAccesses() {
+    CentralProcessor cpu = processor(ExecutionMode.TRANSLATED);
+    Watchpoints watchpoints = new Watchpoints(cpu);
+    Watchpoints.Watchpoint read = watchpoints.watch(counter, 4, Watchpoints.Kind.READ);
+    Watchpoints.Watchpoint write = watchpoints.watch(other, 4, Watchpoints.Kind.WRITE);
+
+    assertEquals(StopReason.WATCHPOINT, cpu.run(10_000));
+    assertSame(read, watchpoints.getHit());
+    memory.readWord(counter); // the host looking at memory is not a hit
+    assertEquals(1, read.getHits());
+
+    watchpoints.unwatch(read);
+    assertEquals(StopReason.WATCHPOINT, cpu.run(10_000));
+    assertSame(write, watchpoints.getHit());
+    assertEquals(1, read.getHits());
+
+    watchpoints.clear();
+    assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+    assertEquals(1, write.getHits());
+  }
+}
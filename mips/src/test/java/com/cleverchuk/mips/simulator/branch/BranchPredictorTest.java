@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.branch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.binary.CentralProcessor;
+import com.cleverchuk.mips.simulator.binary.ExecutionMode;
+import com.cleverchuk.mips.simulator.binary.ExecutionObserver;
+import com.cleverchuk.mips.simulator.binary.PipelineModel;
+import com.cleverchuk.mips.simulator.binary.StopReason;
+import java.util.Map;
+import org.junit.Test;
+
+public class BranchPredictorTest {
+  private static final int BRANCH = 0x100;
+
+  /** Runs a repeating outcome pattern through predictor and counts mispredictions after warmup */
+  private static int mispredictions(DirectionPredictor predictor, boolean[] pattern) {
+    int wrong = 0;
+    for (int i = 0; i < 1000; i++) {
+      boolean taken = pattern[i % pattern.length];
+      if (predictor.predict(BRANCH, BRANCH - 16) != taken && i >= 100) {
+        wrong++;
+      }
+      predictor.update(BRANCH, taken);
+    }
+    return wrong;
+  }
+
+  @Test
+  public void testStaticPolicies() {
+    assertTrue(new StaticPredictor(StaticPredictor.Policy.ALWAYS_TAKEN).predict(BRANCH, 0x200));
+    assertFalse(new StaticPredictor(StaticPredictor.Policy.NEVER_TAKEN).predict(BRANCH, 0x0));
+    DirectionPredictor btfn = new StaticPredictor(StaticPredictor.Policy.BACKWARD_TAKEN);
+    assertTrue(btfn.predict(BRANCH, BRANCH - 8));
+    assertFalse(btfn.predict(BRANCH, BRANCH + 8));
+  }
+
+  @Test
+  public void testBimodalLearnsBias() {
+    boolean[] loop = {true, true, true, true, true, true, true, false};
+    assertEquals(113, mispredictions(new BimodalPredictor(10), loop)); // only the exits
+  }
+
+  @Test
+  public void testGshareLearnsPattern() {
+    boolean[] alternating = {true, false};
+    assertEquals(0, mispredictions(new GsharePredictor(10, 8), alternating));
+    assertTrue(mispredictions(new BimodalPredictor(10), alternating) >= 450);
+  }
+
+  @Test
+  public void testTournamentPicksBetterComponent() {
+    boolean[] alternating = {true, false};
+    assertTrue(mispredictions(new TournamentPredictor(10), alternating) <= 10);
+  }
+
+  @Test
+  public void testBranchTargetBuffer() {
+    BranchTargetBuffer buffer = new BranchTargetBuffer(4);
+    assertEquals(-1, buffer.predict(BRANCH));
+    buffer.update(BRANCH, 0x400);
+    assertEquals(0x400, buffer.predict(BRANCH));
+    buffer.update(BRANCH + (16 << 2), 0x800); // same entry, different tag
+    assertEquals(-1, buffer.predict(BRANCH));
+  }
+
+  private Assembler assemble(String... lines) {
+    Assembler assembler = new Assembler();
+    RecursiveDescentParser parser = new RecursiveDescentParser(new MipsLexer(), (opcode) -> true);
+    parser.addVisitor(assembler);
+    parser.parse(String.join("\n", lines));
+    return assembler;
+  }
+
+  private void run(Assembler assembler, ExecutionObserver observer) {
+    CentralProcessor cpu =
+        new CentralProcessor(
+            assembler.getLayout(),
+            assembler.getTextOffset(),
+            assembler.getStackPointer(),
+            (byte) 0x2,
+            ExecutionMode.TIERED);
+    cpu.setTextBoundary(assembler.getTextBoundary());
+    cpu.setObserver(observer);
+    assertEquals(StopReason.BOUNDARY, cpu.run(10_000));
+  }
+
+  @Test
+  public void testProfilesOnProgram() {
+    Assembler assembler =
+        assemble(
+            ".text",
+            "addiu $s0, $zero, 3",
+            "loop: balc func",
+            "addiu $s0, $s0, -1",
+            "bne $s0, $zero, loop",
+            "nop",
+            "bc end",
+            "func: jr $ra",
+            "end: nop");
+    BranchPredictor predictor = new BranchPredictor(new BimodalPredictor(8));
+    run(assembler, predictor);
+
+    int text = assembler.getTextOffset();
+    Map<Integer, BranchPredictor.BranchProfile> profiles = predictor.getBranchProfiles();
+    assertEquals(2, profiles.size()); // balc and bc are direct and not scored
+
+    BranchPredictor.BranchProfile bne = profiles.get(text + 12);
+    assertEquals(3, bne.getExecutions());
+    assertEquals(2, bne.getTaken());
+    assertEquals(2, bne.getMispredictions()); // first taken and the exit
+
+    BranchPredictor.BranchProfile jr = profiles.get(text + 24);
+    assertEquals(3, jr.getExecutions());
+    assertEquals(1, jr.getMispredictions()); // cold buffer
+    assertEquals(6, predictor.getBranches());
+    assertEquals(0.5, predictor.getMispredictionRate(), 1e-9);
+  }
+
+  @Test
+  public void testPredictorFeedsPipelinePenalty() {
+    String[] loop = {
+      ".text", "addiu $t0, $zero, 10", "loop:", "addiu $t0, $t0, -1", "bne $t0, $zero, loop"
+    };
+    PipelineModel notTaken = new PipelineModel(true, 2, 4, 12);
+    run(assemble(loop), notTaken);
+    assertEquals(9 * 2, notTaken.getStalls(PipelineModel.Stall.CONTROL));
+
+    PipelineModel predicted = new PipelineModel(true, 2, 4, 12);
+    predicted.setBranchPredictor(new BranchPredictor(new BimodalPredictor(8)));
+    run(assemble(loop), predicted);
+    assertEquals(2 * 2, predicted.getStalls(PipelineModel.Stall.CONTROL));
+    assertTrue(predicted.getCycles() < notTaken.getCycles());
+  }
+}
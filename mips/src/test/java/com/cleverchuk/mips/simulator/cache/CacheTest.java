@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.binary.CentralProcessor;
+import com.cleverchuk.mips.simulator.binary.ExecutionMode;
+import com.cleverchuk.mips.simulator.binary.StopReason;
+import com.cleverchuk.mips.simulator.mem.Memory;
+import java.util.Map;
+import org.junit.Test;
+
+public class CacheTest {
+
+  private static CacheConfig config(int size, int ways, CacheConfig.Replacement replacement) {
+    return CacheConfig.builder()
+        .size(size)
+        .associativity(ways)
+        .lineSize(16)
+        .replacement(replacement)
+        .build();
+  }
+
+  @Test
+  public void testDirectMappedConflict() {
+    Cache cache = new Cache("L1", config(64, 1, CacheConfig.Replacement.LRU));
+    assertFalse(cache.access(0, false, -1));
+    assertTrue(cache.access(12, false, -1)); // same line
+    assertFalse(cache.access(64, false, -1)); // same set
+    assertFalse(cache.access(0, false, -1));
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+    assertEquals(2, cache.getEvictions());
+  }
+
+  @Test
+  public void testLruKeepsRecentlyUsedLine() {
+    Cache cache = new Cache("L1", config(64, 2, CacheConfig.Replacement.LRU));
+    int[] addresses = {0, 32, 0, 64, 0};
+    for (int address : addresses) {
+      cache.access(address, false, -1);
+    }
+    assertEquals(2, cache.getHits());
+  }
+
+  @Test
+  public void testFifoEvictsOldestFill() {
+    Cache cache = new Cache("L1", config(64, 2, CacheConfig.Replacement.FIFO));
+    int[] addresses = {0, 32, 0, 64, 0};
+    for (int address : addresses) {
+      cache.access(address, false, -1);
+    }
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testRandomStaysWithinSet() {
+    Cache cache = new Cache("L1", config(256, 4, CacheConfig.Replacement.RANDOM));
+    for (int i = 0; i < 1000; i++) {
+      cache.access((i % 8) * 64, false, -1); // eight lines competing for one four-way set
+    }
+    assertEquals(1000, cache.getHits() + cache.getMisses());
+    assertEquals(cache.getMisses() - 4, cache.getEvictions());
+  }
+
+  @Test
+  public void testWriteBack() {
+    Cache memorySide = new Cache("L2", config(1024, 4, CacheConfig.Replacement.LRU));
+    Cache cache = new Cache("L1", config(64, 1, CacheConfig.Replacement.LRU), memorySide);
+    cache.access(0, true, -1);
+    assertTrue(cache.access(0, false, -1));
+    cache.access(64, false, -1);
+    assertEquals(1, cache.getWritebacks());
+    assertEquals(3, memorySide.getHits() + memorySide.getMisses()); // two fills, one writeback
+  }
+
+  @Test
+  public void testWriteThroughDoesNotAllocate() {
+    Cache memorySide = new Cache("L2", config(1024, 4, CacheConfig.Replacement.LRU));
+    Cache cache =
+        new Cache(
+            "L1",
+            CacheConfig.builder()
+                .size(64)
+                .associativity(1)
+                .lineSize(16)
+                .writePolicy(CacheConfig.WritePolicy.WRITE_THROUGH)
+                .build(),
+            memorySide);
+    cache.access(0, true, -1);
+    assertFalse(cache.access(0, false, -1));
+    assertTrue(cache.access(0, true, -1));
+    assertEquals(0, cache.getWritebacks());
+    assertEquals(3, memorySide.getHits() + memorySide.getMisses()); // two writes, one fill
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsBadGeometry() {
+    CacheConfig.builder().size(96).build();
+  }
+
+  @Test
+  public void testHierarchyOnProgram() {
+    Assembler assembler = new Assembler();
+    RecursiveDescentParser parser = new RecursiveDescentParser(new MipsLexer(), (opcode) -> true);
+    parser.addVisitor(assembler);
+    parser.parse(
+        String.join(
+            "\n",
+            ".data",
+            "array: .word 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16",
+            ".text",
+            "la $t0, array",
+            "addiu $t1, $zero, 16",
+            "loop:",
+            "lw $t2, 0($t0)",
+            "addu $t3, $t3, $t2",
+            "addiu $t0, $t0, 4",
+            "addiu $t1, $t1, -1",
+            "bne $t1, $zero, loop",
+            "nop"));
+
+    CacheHierarchy caches =
+        new CacheHierarchy(
+            new Cache("L1I", config(256, 2, CacheConfig.Replacement.LRU)),
+            new Cache("L1D", config(256, 2, CacheConfig.Replacement.LRU)));
+    Memory memory =
+        caches.wrap(assembler.getLayout(), assembler.getTextOffset(), assembler.getTextBoundary());
+    CentralProcessor cpu =
+        new CentralProcessor(
+            memory,
+            assembler.getTextOffset(),
+            assembler.getStackPointer(),
+            (byte) 0x2,
+            ExecutionMode.TIERED);
+    cpu.setTextBoundary(assembler.getTextBoundary());
+    cpu.setObserver(caches);
+    assertEquals(StopReason.BOUNDARY, cpu.run(1000));
+    assertEquals(136, cpu.getGprFileArray().getFile(11).readWord());
+
+    Cache data = caches.getDataCache();
+    int array = assembler.getSymbolTable().get("array");
+    int lines = ((array + 63) >>> 4) - (array >>> 4) + 1;
+    assertEquals(lines, data.getMisses());
+    assertEquals(16 - lines, data.getHits());
+
+    Cache instructions = caches.getInstructionCache();
+    assertEquals(cpu.getInstructionCount(), instructions.getHits() + instructions.getMisses());
+
+    // la takes two words and loop: none, so the address of lw maps back to its own line
+    Map<Integer, Cache.LineProfile> lineProfiles =
+        data.getLineProfiles(ProgramImage.freeze(assembler));
+    assertEquals(1, lineProfiles.size());
+    assertEquals(lines, lineProfiles.get(7).getMisses());
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.mem;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class PagedMemoryTest {
+
+  @Test
+  public void testReadsBackBigEndian() {
+    PagedMemory memory = new PagedMemory(1024);
+    memory.storeWord(0x1234_5678, 16);
+    assertEquals(0x12, memory.read(16));
+    assertEquals(0x5678, memory.readHalf(18));
+    assertEquals(0x1234_5678, memory.readWord(16));
+
+    memory.storeDword(0x0102_0304_0506_0708L, 32);
+    assertEquals(0x0102_0304_0506_0708L, memory.readDWord(32));
+    assertEquals(0, memory.readWord(64));
+  }
+
+  @Test
+  public void testWordStraddlingPages() {
+    PagedMemory memory = new PagedMemory(2 * PagedMemory.PAGE_SIZE);
+    int address = PagedMemory.PAGE_SIZE - 2;
+    memory.storeWord(0xcafe_babe, address);
+    assertEquals(0xcafe_babe, memory.readWord(address));
+    assertEquals((short) 0xcafe, memory.readHalf(address));
+  }
+
+  @Test
+  public void testGrowsOnStore() {
+    PagedMemory memory = new PagedMemory(1024);
+    int address = 5 * PagedMemory.PAGE_SIZE + 8;
+    memory.storeWord(42, address);
+    assertEquals(42, memory.readWord(address));
+    assertEquals(6 * PagedMemory.PAGE_SIZE, memory.getCapacity());
+  }
+
+  @Test
+  public void testCopyOf() {
+    Memory source = new BigEndianMainMemory(1024);
+    source.storeWord(0xdead_beef, 100);
+    PagedMemory memory = PagedMemory.copyOf(source);
+    assertEquals(0xdead_beef, memory.readWord(100));
+  }
+
+  @Test
+  public void testRestoreOnlyTouchesDirtyPages() {
+    PagedMemory memory = new PagedMemory(8 * PagedMemory.PAGE_SIZE);
+    for (int page = 0; page < 8; page++) {
+      memory.storeWord(page, page * PagedMemory.PAGE_SIZE);
+    }
+    PagedMemory.Snapshot snapshot = memory.snapshot();
+
+    memory.storeWord(100, 3 * PagedMemory.PAGE_SIZE);
+    memory.storeWord(101, 3 * PagedMemory.PAGE_SIZE + 4);
+    memory.storeWord(200, 9 * PagedMemory.PAGE_SIZE);
+    assertEquals(2, memory.getDirtyPageCount());
+
+    List<Integer> restored = new ArrayList<>();
+    memory.restore(snapshot, restored::add);
+    assertEquals(2, restored.size());
+    assertEquals(3, memory.readWord(3 * PagedMemory.PAGE_SIZE));
+    assertEquals(0, memory.readWord(3 * PagedMemory.PAGE_SIZE + 4));
+    assertEquals(0, memory.readWord(9 * PagedMemory.PAGE_SIZE));
+    assertEquals(0, memory.getDirtyPageCount());
+  }
+
+  @Test
+  public void testSnapshotIsNotChangedByLaterStores() {
+    PagedMemory memory = new PagedMemory(1024);
+    memory.storeWord(1, 0);
+    PagedMemory.Snapshot first = memory.snapshot();
+    memory.storeWord(2, 0);
+    PagedMemory.Snapshot second = memory.snapshot();
+    memory.storeWord(3, 0);
+
+    memory.restore(first);
+    assertEquals(1, memory.readWord(0));
+    memory.restore(second);
+    assertEquals(2, memory.readWord(0));
+    memory.storeWord(4, 0);
+    memory.restore(first);
+    assertEquals(1, memory.readWord(0));
+  }
+
+  @Test
+  public void testCaptureLeavesRestoreBaseAlone() {
+    PagedMemory memory = new PagedMemory(8 * PagedMemory.PAGE_SIZE);
+    memory.storeWord(1, 0);
+    PagedMemory.Snapshot snapshot = memory.snapshot();
+
+    memory.storeWord(2, 0);
+    memory.capture(); // shares page 0 again, so the next store copies it again
+    memory.storeWord(3, 0);
+    memory.storeWord(3, 2 * PagedMemory.PAGE_SIZE);
+    assertEquals(2, memory.getDirtyPageCount()); // page 0 is listed once though copied twice
+
+    List<Integer> restored = new ArrayList<>();
+    memory.restore(snapshot, restored::add);
+    assertEquals(2, restored.size());
+    assertEquals(1, memory.readWord(0));
+    assertEquals(0, memory.readWord(2 * PagedMemory.PAGE_SIZE));
+  }
+
+  @Test
+  public void testRewindKeepsRestoreBase() {
+    PagedMemory memory = new PagedMemory(8 * PagedMemory.PAGE_SIZE);
+    memory.storeWord(1, 0);
+    PagedMemory.Snapshot snapshot = memory.snapshot();
+    memory.storeWord(2, 0);
+    PagedMemory.Snapshot captured = memory.capture();
+    memory.storeWord(3, 0);
+    memory.storeWord(3, 2 * PagedMemory.PAGE_SIZE);
+
+    List<Integer> rewound = new ArrayList<>();
+    memory.rewind(captured, rewound::add);
+    assertEquals("[0, 2]", rewound.toString());
+    assertEquals(2, memory.readWord(0));
+    assertEquals(0, memory.readWord(2 * PagedMemory.PAGE_SIZE));
+    assertEquals(1, memory.getDirtyPageCount()); // page 0 still differs from the snapshot
+
+    List<Integer> restored = new ArrayList<>();
+    memory.restore(snapshot, restored::add);
+    assertEquals("[0]", restored.toString());
+    assertEquals(1, memory.readWord(0));
+  }
+
+  @Test
+  public void testStoreListenerSeesEachStoreOnce() {
+    PagedMemory memory = new PagedMemory(2 * PagedMemory.PAGE_SIZE);
+    List<String> stores = new ArrayList<>();
+    memory.setStoreListener(
+        (offset, length) -> stores.add(offset + ":" + length + ":" + memory.readWord(offset)));
+    memory.storeWord(0x11223344, 0);
+    memory.storeWord(5, 0);
+    memory.storeHalf((short) 6, 8);
+    memory.store((byte) 7, 12);
+    memory.storeWord(8, PagedMemory.PAGE_SIZE - 2);
+    memory.storeDword(9, 16);
+    assertEquals(
+        "[0:4:0, 0:4:287454020, 8:2:0, 12:1:0, 4094:4:0, 16:4:0, 20:4:0]", stores.toString());
+
+    memory.setStoreListener(null);
+    memory.storeWord(10, 0);
+    assertEquals(7, stores.size());
+  }
+}
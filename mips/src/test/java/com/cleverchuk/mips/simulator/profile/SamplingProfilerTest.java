@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.profile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.cleverchuk.mips.compiler.MipsCompiler;
+import com.cleverchuk.mips.compiler.ProgramImage;
+import com.cleverchuk.mips.compiler.codegen.Assembler;
+import com.cleverchuk.mips.compiler.lexer.MipsLexer;
+import com.cleverchuk.mips.compiler.parser.RecursiveDescentParser;
+import com.cleverchuk.mips.simulator.binary.CentralProcessor;
+import com.cleverchuk.mips.simulator.binary.ExecutionMode;
+import com.cleverchuk.mips.simulator.binary.StopReason;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SamplingProfilerTest {
+  private static final String NESTED_LOOPS =
+      String.join(
+          "\n",
+          ".data",
+          "unused: .word 0",
+          ".text",
+          "main: addiu $t0, $zero, 20",
+          "outer: addiu $t1, $zero, 100",
+          "inner: addiu $t1, $t1, -1",
+          "bne $t1, $zero, inner",
+          "addiu $t0, $t0, -1",
+          "bne $t0, $zero, outer",
+          "addiu $v0, $zero, 10",
+          "syscall");
+
+  private ProgramImage image;
+
+  @Before
+  public void setup() {
+    MipsCompiler compiler =
+        new MipsCompiler(
+            new RecursiveDescentParser(new MipsLexer(), (opcode) -> true), new Assembler());
+    compiler.compile(NESTED_LOOPS);
+    image = compiler.freeze();
+  }
+
+  private CentralProcessor processor(ExecutionMode mode) {
+    CentralProcessor cpu =
+        new CentralProcessor(
+            image.fork(), image.getTextOffset(), image.getStackPointer(), (byte) 0x2, mode);
+    cpu.setTextBoundary(image.getTextBoundary());
+    return cpu;
+  }
+
+  @Test
+  public void testHotLoopRanksFirst() {
+    CentralProcessor cpu = processor(ExecutionMode.TIERED);
+    SamplingProfiler profiler = new SamplingProfiler(7);
+    assertEquals(StopReason.HALT, profiler.run(cpu, 100_000));
+    assertEquals(cpu.getInstructionCount() / 7, profiler.getSamples());
+
+    List<SamplingProfiler.Hotspot> hotspots = profiler.getHotspots(image);
+    assertEquals("inner", hotspots.get(0).getLabel());
+    assertEquals("inner", hotspots.get(1).getLabel());
+    // the two lines of the inner loop are sampled equally; ties keep address order
+    assertEquals(6, hotspots.get(0).getLine());
+    assertEquals(7, hotspots.get(1).getLine());
+    assertEquals(hotspots.get(0).getSamples(), hotspots.get(1).getSamples());
+    assertTrue(hotspots.get(0).getShare() + hotspots.get(1).getShare() > 0.9);
+
+    String report = profiler.report(image);
+    assertTrue(report.startsWith(profiler.getSamples() + " samples, one every 7 instructions"));
+    assertTrue(report.contains("inner"));
+  }
+
+  @Test
+  public void testSamplingCarriesOverBetweenRuns() {
+    SamplingProfiler whole = new SamplingProfiler(7);
+    whole.run(processor(ExecutionMode.TIERED), 100_000);
+
+    SamplingProfiler sliced = new SamplingProfiler(7);
+    CentralProcessor cpu = processor(ExecutionMode.TIERED);
+    StopReason reason;
+    do {
+      reason = sliced.run(cpu, 5);
+    } while (reason == StopReason.BUDGET_EXHAUSTED);
+    assertEquals(StopReason.HALT, reason);
+    assertEquals(whole.report(image), sliced.report(image));
+  }
+
+  @Test
+  public void testSameSamplesInEveryMode() {
+    SamplingProfiler interpreted = new SamplingProfiler(13);
+    interpreted.run(processor(ExecutionMode.INTERPRETED), 100_000);
+    SamplingProfiler translated = new SamplingProfiler(13);
+    translated.run(processor(ExecutionMode.TRANSLATED), 100_000);
+    assertEquals(interpreted.report(image), translated.report(image));
+
+    translated.reset();
+    assertEquals(0, translated.getSamples());
+    assertTrue(translated.getHotspots(image).isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonPositiveInterval() {
+    new SamplingProfiler(0);
+  }
+}
@@ -62,6 +62,13 @@ public class FpuDefaultRegisterFileTest {
     assertEquals(-400, fpuRegisterFileArray.getFile(register).readDword());
   }
 
+  @Test
+  public void testWriteWordKeepsHighWord() {
+    fpuRegisterFileArray.getFile(register).writeDword(0x1234567800000000L);
+    fpuRegisterFileArray.getFile(register).writeWord(400);
+    assertEquals(0x1234567800000190L, fpuRegisterFileArray.getRegisters()[register]);
+  }
+
   @Test
   public void testReadSingle() {
     fpuRegisterFileArray.getFile(register).writeSingle(400f);
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 CleverChuk
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.cleverchuk.mips.simulator.registers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class GprRegisterFileArrayTest {
+
+  private final GprRegisterFileArray gprRegisterFileArray = new GprRegisterFileArray();
+
+  @Test
+  public void testViewReadsBackingArray() {
+    gprRegisterFileArray.getRegisters()[8] = -400;
+    assertEquals(-400, gprRegisterFileArray.getFile(8).readWord());
+  }
+
+  @Test
+  public void testViewWritesBackingArray() {
+    gprRegisterFileArray.getFile(9).writeWord(400);
+    assertEquals(400, gprRegisterFileArray.getRegisters()[9]);
+  }
+
+  @Test
+  public void testZeroIsReadOnly() {
+    gprRegisterFileArray.getFile(0).writeWord(400);
+    assertEquals(0, gprRegisterFileArray.getFile(0).readWord());
+    assertEquals(0, gprRegisterFileArray.getRegisters()[0]);
+  }
+
+  @Test
+  public void testWriteOnes() {
+    gprRegisterFileArray.getFile(8).writeOnes(2);
+    assertEquals(0xffff, gprRegisterFileArray.getFile(8).readWord());
+  }
+
+  @Test
+  public void testWriteZeroes() {
+    gprRegisterFileArray.getFile(8).writeWord(-1);
+    gprRegisterFileArray.getFile(8).writeZeroes(1);
+    assertEquals(0xffffff00, gprRegisterFileArray.getFile(8).readWord());
+  }
+
+  @Test
+  public void testDwordWriteKeepsLowWord() {
+    gprRegisterFileArray.getFile(8).writeDword(0x1234567880000001L);
+    assertEquals(0x80000001, gprRegisterFileArray.getRegisters()[8]);
+    assertEquals(0x80000001L, gprRegisterFileArray.getFile(8).readDword());
+  }
+}